@@ -0,0 +1,98 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.benchmarks;
+
+import com.sigpwned.smartcrop4j.impl.ImageData;
+import com.sigpwned.smartcrop4j.impl.util.Prescaling;
+import com.sigpwned.smartcrop4j.util.BufferedImages;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the first stage of a crop, which gets the source image into the cropper's working
+ * format: prescaling with {@link BufferedImages#scaled}, and converting with
+ * {@link ImageData#fromBufferedImage}. These are the only stages whose cost depends on the source
+ * image's type, so they run over the full matrix of sizes and types.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+  @Param({"640x480", "1920x1080", "4032x3024"})
+  public String size;
+
+  @Param({"INT_RGB", "INT_ARGB", "3BYTE_BGR", "BYTE_GRAY"})
+  public String type;
+
+  /**
+   * The size the cropper prescales to by default
+   */
+  @Param({"256"})
+  public int prescaleSize;
+
+  private BufferedImage image;
+  private int scaledWidth;
+  private int scaledHeight;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    image = SyntheticImages.generate(size, type);
+    final float factor = Prescaling.prescaleFactor(image.getWidth(), image.getHeight(), true,
+        prescaleSize);
+    scaledWidth = Prescaling.prescaledSize(image.getWidth(), factor);
+    scaledHeight = Prescaling.prescaledSize(image.getHeight(), factor);
+  }
+
+  @Benchmark
+  public ImageData fromBufferedImage() {
+    return ImageData.fromBufferedImage(image);
+  }
+
+  /**
+   * Scales the image the same way {@link Prescaling#prescaled} does
+   */
+  @Benchmark
+  public BufferedImage scaled() {
+    return BufferedImages.scaled(image, scaledWidth, scaledHeight, BufferedImage.TYPE_INT_ARGB,
+        null, null, BufferedImages.DEFAULT_INTERPOLATION_STYLE);
+  }
+}
@@ -0,0 +1,114 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.benchmarks;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import com.sigpwned.smartcrop4j.impl.ImageData;
+import com.sigpwned.smartcrop4j.impl.util.EdgeDetection;
+import com.sigpwned.smartcrop4j.impl.util.Saturation;
+import com.sigpwned.smartcrop4j.impl.util.SaturationTable;
+import com.sigpwned.smartcrop4j.impl.util.SkinColorTable;
+import com.sigpwned.smartcrop4j.impl.util.SkinColoring;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks each feature detector on its own, both the direct implementations and the lookup
+ * table implementations. Detectors always work on {@link ImageData}, so the source image type does
+ * not matter here. The default cropper runs detectors on images prescaled to about 256 pixels, and
+ * the larger sizes show the cost with prescaling turned off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class DetectionBenchmark {
+
+  @Param({"256x192", "640x480", "1920x1080"})
+  public String size;
+
+  private DefaultSmartCropperOptions options;
+  private SkinColorTable skinTable;
+  private SaturationTable saturationTable;
+  private ImageData input;
+  private ImageData output;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    options = DefaultSmartCropperOptions.create();
+    skinTable = SkinColorTable.create(options.getSkinColor(), options.getSkinThreshold(),
+        options.getSkinBrightnessMin(), options.getSkinBrightnessMax());
+    saturationTable = SaturationTable.create(options.getSaturationThreshold(),
+        options.getSaturationBrightnessMin(), options.getSaturationBrightnessMax());
+    input = ImageData.fromBufferedImage(SyntheticImages.generate(size, "INT_ARGB"));
+    output = new ImageData(input.width, input.height);
+  }
+
+  @Benchmark
+  public ImageData edgeDetect() {
+    EdgeDetection.edgeDetect(input, output);
+    return output;
+  }
+
+  @Benchmark
+  public ImageData skinDetect() {
+    SkinColoring.skinDetect(input, output, options.getSkinColor(), options.getSkinThreshold(),
+        options.getSkinBrightnessMin(), options.getSkinBrightnessMax());
+    return output;
+  }
+
+  @Benchmark
+  public ImageData skinDetectLookupTable() {
+    SkinColoring.skinDetect(input, output, skinTable);
+    return output;
+  }
+
+  @Benchmark
+  public ImageData saturationDetect() {
+    Saturation.saturationDetect(input, output, options.getSaturationThreshold(),
+        options.getSaturationBrightnessMin(), options.getSaturationBrightnessMax());
+    return output;
+  }
+
+  @Benchmark
+  public ImageData saturationDetectLookupTable() {
+    Saturation.saturationDetect(input, output, saturationTable);
+    return output;
+  }
+}
@@ -0,0 +1,645 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.benchmarks;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.SmartCropper;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptionsBuilder;
+import com.sigpwned.smartcrop4j.impl.FixedPointSmartCropper;
+import com.sigpwned.smartcrop4j.util.BufferedImages;
+import com.sigpwned.smartcrop4j.util.Smartcrop;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.imageio.ImageIO;
+import org.HdrHistogram.Histogram;
+
+/**
+ * A load test that crops images from many threads at once and reports throughput, latency
+ * percentiles, and heap and GC activity. Unlike the JMH benchmarks, which time one stage at a time
+ * on one thread, this shows how a cropper behaves under contention, with a realistic mix of image
+ * sizes and aspect ratios.
+ *
+ * <p>
+ * Each thread crops one image after another, picking each image at random from a weighted mix.
+ * With {@code --rate}, the threads together aim for that many crops per second, and each crop's
+ * latency is measured from when it <em>should</em> have started, not when it did, so time spent
+ * stuck behind a slow crop counts against the results. This corrects for coordinated omission.
+ * Without {@code --rate}, the threads run flat out, and latencies are corrected after the fact,
+ * using each thread's mean service time as the expected interval between crops. Service times,
+ * measured from when each crop actually started, are reported too.
+ *
+ * <p>
+ * Several variants, each an engine and a set of options, can be run one after another with the
+ * same workload, and the results are compared at the end.
+ */
+public class LoadTest {
+
+  /**
+   * Usage: {@code LoadTest [options]}, where the options are:
+   *
+   * <ul>
+   *   <li>{@code --threads=N}, the number of threads, by default the number of CPUs</li>
+   *   <li>{@code --warmup=SECONDS}, how long to run before measuring, by default 10</li>
+   *   <li>{@code --duration=SECONDS}, how long to measure, by default 30</li>
+   *   <li>{@code --rate=N}, the target crops per second across all threads, or 0 to run flat out,
+   *   which is the default</li>
+   *   <li>{@code --mix=WxH@A:B=WEIGHT,...}, the weighted mix of image sizes and crop aspect ratios,
+   *   by default {@value #DEFAULT_MIX}</li>
+   *   <li>{@code --api=image|stream|file}, whether to crop decoded images, to decode and encode
+   *   JPEG bytes around each crop, or to crop files with
+   *   {@link Smartcrop#crop(DefaultSmartCropperOptions, File, float)}, by default
+   *   {@code image}</li>
+   *   <li>{@code --variant=NAME:ENGINE[,OPTION=VALUE...]}, a variant to run, which may be
+   *   repeated. The engine is {@code default} or {@code fixed}, and the options are
+   *   {@link DefaultSmartCropperOptions} properties, e.g.,
+   *   {@code --variant=tables:default,lookupTables=true}. By default, one variant of the default
+   *   engine with default options.</li>
+   *   <li>{@code --seed=N}, the seed for picking images, by default 0</li>
+   * </ul>
+   */
+  public static void main(String[] args) throws Exception {
+    final LoadTest test;
+    try {
+      test = parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: LoadTest [--threads=N] [--warmup=S] [--duration=S] [--rate=N] "
+          + "[--mix=WxH@A:B=WEIGHT,...] [--api=image|stream|file] "
+          + "[--variant=NAME:ENGINE[,OPTION=VALUE...]]... [--seed=N]");
+      System.exit(2);
+      return;
+    }
+
+    final List<Result> results = new ArrayList<>();
+    for (Variant variant : test.variants) {
+      final Result result = test.run(variant);
+      result.print(System.out);
+      results.add(result);
+    }
+    if (results.size() > 1) {
+      compare(results, System.out);
+    }
+  }
+
+  public static final String DEFAULT_MIX = "640x480@1:1=4,1920x1080@16:9=4,4032x3024@9:16=1";
+
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private Duration warmup = Duration.ofSeconds(10L);
+  private Duration duration = Duration.ofSeconds(30L);
+  private double rate = 0.0;
+  private List<MixEntry> mix = parseMix(DEFAULT_MIX);
+  private String api = "image";
+  private List<Variant> variants = new ArrayList<>();
+  private long seed = 0L;
+
+  private static LoadTest parse(String[] args) {
+    final LoadTest result = new LoadTest();
+    for (String arg : args) {
+      final int eq = arg.indexOf('=');
+      if (!arg.startsWith("--") || eq == -1) {
+        throw new IllegalArgumentException("unrecognized argument: " + arg);
+      }
+      final String name = arg.substring(2, eq);
+      final String value = arg.substring(eq + 1);
+      switch (name) {
+        case "threads":
+          result.threads = positive(name, Integer.parseInt(value));
+          break;
+        case "warmup":
+          result.warmup = Duration.ofMillis((long) (Double.parseDouble(value) * 1000.0));
+          break;
+        case "duration":
+          result.duration = Duration.ofMillis((long) (Double.parseDouble(value) * 1000.0));
+          break;
+        case "rate":
+          result.rate = Double.parseDouble(value);
+          break;
+        case "mix":
+          result.mix = parseMix(value);
+          break;
+        case "api":
+          if (!value.equals("image") && !value.equals("stream") && !value.equals("file")) {
+            throw new IllegalArgumentException("unrecognized api: " + value);
+          }
+          result.api = value;
+          break;
+        case "variant":
+          result.variants.add(Variant.parse(value));
+          break;
+        case "seed":
+          result.seed = Long.parseLong(value);
+          break;
+        default:
+          throw new IllegalArgumentException("unrecognized option: " + arg);
+      }
+    }
+    if (result.duration.isNegative() || result.duration.isZero()) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+    if (result.warmup.isNegative()) {
+      throw new IllegalArgumentException("warmup must not be negative");
+    }
+    if (result.rate < 0.0) {
+      throw new IllegalArgumentException("rate must not be negative");
+    }
+    if (result.variants.isEmpty()) {
+      result.variants.add(Variant.parse("default:default"));
+    }
+    for (Variant variant : result.variants) {
+      if (result.api.equals("file") && !variant.engine.equals("default")) {
+        throw new IllegalArgumentException("file api only supports the default engine");
+      }
+    }
+    return result;
+  }
+
+  /**
+   * One kind of image in the workload
+   */
+  private static final class MixEntry {
+
+    public final String size;
+    public final int aspectWidth;
+    public final int aspectHeight;
+    public final int weight;
+    public BufferedImage image;
+    public byte[] bytes;
+    public File file;
+
+    public MixEntry(String size, int aspectWidth, int aspectHeight, int weight) {
+      this.size = size;
+      this.aspectWidth = aspectWidth;
+      this.aspectHeight = aspectHeight;
+      this.weight = weight;
+    }
+
+    @Override
+    public String toString() {
+      return size + "@" + aspectWidth + ":" + aspectHeight + "=" + weight;
+    }
+  }
+
+  private static List<MixEntry> parseMix(String text) {
+    final List<MixEntry> result = new ArrayList<>();
+    for (String part : text.split(",")) {
+      final int at = part.indexOf('@');
+      final int eq = part.indexOf('=');
+      if (at == -1 || eq < at) {
+        throw new IllegalArgumentException("mix entries must look like WxH@A:B=WEIGHT: " + part);
+      }
+      final int[] aspect = SyntheticImages.aspect(part.substring(at + 1, eq));
+      result.add(new MixEntry(part.substring(0, at), positive("aspect", aspect[0]),
+          positive("aspect", aspect[1]), positive("weight", Integer.parseInt(part.substring(
+              eq + 1)))));
+    }
+    return result;
+  }
+
+  /**
+   * One engine and set of options to test
+   */
+  private static final class Variant {
+
+    public static Variant parse(String text) {
+      final int colon = text.indexOf(':');
+      if (colon == -1) {
+        throw new IllegalArgumentException("variant must look like NAME:ENGINE: " + text);
+      }
+      final String name = text.substring(0, colon);
+      final String[] parts = text.substring(colon + 1).split(",");
+      final String engine = parts[0];
+      if (!engine.equals("default") && !engine.equals("fixed")) {
+        throw new IllegalArgumentException("unrecognized engine: " + engine);
+      }
+      final DefaultSmartCropperOptionsBuilder options = DefaultSmartCropperOptions.builder();
+      for (int i = 1; i < parts.length; i++) {
+        final int eq = parts[i].indexOf('=');
+        if (eq == -1) {
+          throw new IllegalArgumentException("variant option must have value: " + parts[i]);
+        }
+        setOption(options, parts[i].substring(0, eq), parts[i].substring(eq + 1));
+      }
+      return new Variant(name, engine, options.build());
+    }
+
+    public final String name;
+    public final String engine;
+    public final DefaultSmartCropperOptions options;
+
+    public Variant(String name, String engine, DefaultSmartCropperOptions options) {
+      this.name = name;
+      this.engine = engine;
+      this.options = options;
+    }
+
+    public SmartCropper newCropper() {
+      return engine.equals("fixed") ? new FixedPointSmartCropper(options)
+          : new DefaultSmartCropper(options);
+    }
+  }
+
+  private static void setOption(DefaultSmartCropperOptionsBuilder options, String name,
+      String value) {
+    switch (name) {
+      case "prescale":
+        options.setPrescale(bool(name, value));
+        break;
+      case "prescaleSize":
+        options.setPrescaleSize(Integer.parseInt(value));
+        break;
+      case "scoreDownSample":
+        options.setScoreDownSample(Integer.parseInt(value));
+        break;
+      case "cropSearchStep":
+        options.setCropSearchStep(Integer.parseInt(value));
+        break;
+      case "scaleStep":
+        options.setScaleStep(Float.parseFloat(value));
+        break;
+      case "lookupTables":
+        options.setLookupTables(bool(name, value));
+        break;
+      case "parallelDetection":
+        options.setParallelDetection(bool(name, value));
+        break;
+      case "detectionBandHeight":
+        options.setDetectionBandHeight(Integer.parseInt(value));
+        break;
+      case "threadLocalWorkspaces":
+        options.setThreadLocalWorkspaces(bool(name, value));
+        break;
+      case "offHeapThreshold":
+        options.setOffHeapThreshold(Integer.parseInt(value));
+        break;
+      default:
+        throw new IllegalArgumentException("unrecognized variant option: " + name);
+    }
+  }
+
+  /**
+   * Generates the images in the mix, and encodes them as the API needs
+   */
+  private void prepare() throws IOException {
+    for (MixEntry entry : mix) {
+      if (entry.image != null) {
+        continue;
+      }
+      entry.image = SyntheticImages.generate(entry.size, "INT_RGB");
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ImageIO.write(entry.image, "jpg", out);
+      entry.bytes = out.toByteArray();
+      final File file = File.createTempFile("smartcrop4j-load-" + entry.size + ".", ".jpg");
+      file.deleteOnExit();
+      Files.write(file.toPath(), entry.bytes);
+      entry.file = file;
+    }
+  }
+
+  /**
+   * Performs one crop of the given image with the given cropper through the configured API
+   */
+  private void cropOnce(SmartCropper cropper, Variant variant, MixEntry entry)
+      throws IOException {
+    switch (api) {
+      case "image":
+        cropper.crop(entry.image, entry.aspectWidth, entry.aspectHeight, null);
+        break;
+      case "stream": {
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(entry.bytes));
+        final Crop crop = cropper.crop(image, entry.aspectWidth, entry.aspectHeight, null)
+            .getTopCrop();
+        ImageIO.write(BufferedImages.cropped(image, crop), "jpg", new ByteArrayOutputStream());
+        break;
+      }
+      case "file": {
+        final File cropped = Smartcrop.crop(variant.options, entry.file,
+            entry.aspectWidth / (float) entry.aspectHeight);
+        Files.delete(cropped.toPath());
+        break;
+      }
+      default:
+        throw new AssertionError(api);
+    }
+  }
+
+  /**
+   * Runs the workload against the given variant: warmup first, then measurement
+   */
+  private Result run(Variant variant) throws IOException, InterruptedException {
+    prepare();
+    final SmartCropper cropper = variant.newCropper();
+    final int totalWeight = mix.stream().mapToInt(e -> e.weight).sum();
+    final long intervalNanos = rate > 0.0 ? (long) (threads * 1.0e9 / rate) : 0L;
+
+    // Settle the heap left over from the previous variant
+    System.gc();
+
+    final long warmupEnd = System.nanoTime() + warmup.toNanos();
+    final long measureEnd = warmupEnd + duration.toNanos();
+    final Histogram[] latencies = new Histogram[threads];
+    final Histogram[] services = new Histogram[threads];
+    final AtomicLong errors = new AtomicLong();
+    final CountDownLatch warmedUp = new CountDownLatch(threads);
+    final CountDownLatch measured = new CountDownLatch(threads);
+    final Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final int index = t;
+      latencies[t] = new Histogram(3);
+      services[t] = new Histogram(3);
+      workers[t] = new Thread(() -> {
+        final Random random = new Random(seed + index);
+        boolean measuring = false;
+        long intended = System.nanoTime();
+        while (true) {
+          final long now = System.nanoTime();
+          if (!measuring && now - warmupEnd >= 0L) {
+            measuring = true;
+            warmedUp.countDown();
+            // Restart the schedule, so warmup backlog does not count against measurement
+            intended = now;
+          }
+          if (now - measureEnd >= 0L) {
+            break;
+          }
+
+          if (intervalNanos > 0L) {
+            intended = intended + intervalNanos;
+            final long wait = intended - System.nanoTime();
+            if (wait > 0L) {
+              LockSupport.parkNanos(wait);
+            }
+          } else {
+            intended = System.nanoTime();
+          }
+
+          final MixEntry entry = pick(random, totalWeight);
+          final long start = System.nanoTime();
+          try {
+            cropOnce(cropper, variant, entry);
+          } catch (IOException | RuntimeException e) {
+            errors.incrementAndGet();
+          }
+          final long end = System.nanoTime();
+          if (measuring && end - measureEnd < 0L) {
+            latencies[index].recordValue(end - intended);
+            services[index].recordValue(end - start);
+          }
+        }
+        if (!measuring) {
+          warmedUp.countDown();
+        }
+        measured.countDown();
+      }, "smartcrop4j-load-" + (t + 1));
+      workers[t].setDaemon(true);
+    }
+
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    warmedUp.await();
+    final Snapshot before = Snapshot.take(workers);
+    measured.await();
+    final Snapshot after = Snapshot.take(workers);
+
+    final Histogram latency = new Histogram(3);
+    final Histogram service = new Histogram(3);
+    for (int t = 0; t < threads; t++) {
+      if (intervalNanos > 0L) {
+        latency.add(latencies[t]);
+      } else if (services[t].getTotalCount() > 0L) {
+        // Flat out, each thread expected its next crop to start one mean service time later
+        latency.add(services[t].copyCorrectedForCoordinatedOmission(
+            (long) services[t].getMean()));
+      }
+      service.add(services[t]);
+    }
+
+    return new Result(variant, api, threads, duration, service.getTotalCount(), errors.get(),
+        latency, service, before, after);
+  }
+
+  private MixEntry pick(Random random, int totalWeight) {
+    int r = random.nextInt(totalWeight);
+    for (MixEntry entry : mix) {
+      r = r - entry.weight;
+      if (r < 0) {
+        return entry;
+      }
+    }
+    throw new AssertionError();
+  }
+
+  /**
+   * Heap and GC counters at one point in time
+   */
+  private static final class Snapshot {
+
+    public static Snapshot take(Thread[] workers) {
+      long gcCount = 0L;
+      long gcMillis = 0L;
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        gcCount = gcCount + Math.max(0L, gc.getCollectionCount());
+        gcMillis = gcMillis + Math.max(0L, gc.getCollectionTime());
+      }
+
+      long peakHeap = 0L;
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+          peakHeap = peakHeap + pool.getPeakUsage().getUsed();
+          pool.resetPeakUsage();
+        }
+      }
+
+      long allocated = -1L;
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+        final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threads.isThreadAllocatedMemorySupported()
+            && threads.isThreadAllocatedMemoryEnabled()) {
+          allocated = 0L;
+          for (Thread worker : workers) {
+            allocated = allocated + Math.max(0L, threads.getThreadAllocatedBytes(worker.getId()));
+          }
+        }
+      }
+
+      return new Snapshot(gcCount, gcMillis, peakHeap, allocated);
+    }
+
+    public final long gcCount;
+    public final long gcMillis;
+    public final long peakHeap;
+    public final long allocated;
+
+    private Snapshot(long gcCount, long gcMillis, long peakHeap, long allocated) {
+      this.gcCount = gcCount;
+      this.gcMillis = gcMillis;
+      this.peakHeap = peakHeap;
+      this.allocated = allocated;
+    }
+  }
+
+  /**
+   * The measurements of one variant
+   */
+  private static final class Result {
+
+    public final Variant variant;
+    public final String api;
+    public final int threads;
+    public final Duration duration;
+    public final long operations;
+    public final long errors;
+    public final Histogram latency;
+    public final Histogram service;
+    public final Snapshot before;
+    public final Snapshot after;
+
+    public Result(Variant variant, String api, int threads, Duration duration, long operations,
+        long errors, Histogram latency, Histogram service, Snapshot before, Snapshot after) {
+      this.variant = variant;
+      this.api = api;
+      this.threads = threads;
+      this.duration = duration;
+      this.operations = operations;
+      this.errors = errors;
+      this.latency = latency;
+      this.service = service;
+      this.before = before;
+      this.after = after;
+    }
+
+    public double getThroughput() {
+      return operations / (duration.toNanos() / 1.0e9);
+    }
+
+    /**
+     * Bytes allocated by the worker threads per operation, or -1 if the JVM cannot say. Includes
+     * the allocation of operations that finished after measurement stopped.
+     */
+    public long getAllocatedPerOperation() {
+      if (before.allocated < 0L || after.allocated < 0L || operations == 0L) {
+        return -1L;
+      }
+      return (after.allocated - before.allocated) / operations;
+    }
+
+    public void print(PrintStream out) {
+      out.printf(Locale.ROOT, "== %s (%s engine, %s api, %d threads) ==%n", variant.name,
+          variant.engine, api, threads);
+      out.printf(Locale.ROOT, "operations %d, errors %d, throughput %.2f ops/s%n", operations,
+          errors, getThroughput());
+      out.printf(Locale.ROOT, "%-12s %10s %10s %10s %10s %10s %10s%n", "ms", "p50", "p90", "p99",
+          "p99.9", "max", "mean");
+      printRow(out, "latency", latency);
+      printRow(out, "service", service);
+      out.printf(Locale.ROOT, "heap peak %.1f MB, gc %d collections in %d ms, allocated %s%n",
+          after.peakHeap / 1048576.0, after.gcCount - before.gcCount,
+          after.gcMillis - before.gcMillis, getAllocatedPerOperation() < 0L ? "unknown"
+              : String.format(Locale.ROOT, "%.2f MB/op", getAllocatedPerOperation() / 1048576.0));
+      out.println();
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram h) {
+      out.printf(Locale.ROOT, "%-12s %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", name,
+          millis(h.getValueAtPercentile(50.0)), millis(h.getValueAtPercentile(90.0)),
+          millis(h.getValueAtPercentile(99.0)), millis(h.getValueAtPercentile(99.9)),
+          millis(h.getMaxValue()), h.getMean() / 1.0e6);
+    }
+  }
+
+  /**
+   * Prints each variant's headline numbers relative to the first variant's
+   */
+  private static void compare(List<Result> results, PrintStream out) {
+    final Result baseline = results.get(0);
+    out.printf(Locale.ROOT, "== comparison, relative to %s ==%n", baseline.variant.name);
+    out.printf(Locale.ROOT, "%-16s %16s %16s %16s %16s %16s%n", "variant", "ops/s", "p50 ms",
+        "p99 ms", "p99.9 ms", "MB/op");
+    for (Result result : results) {
+      out.printf(Locale.ROOT, "%-16s %16s %16s %16s %16s %16s%n", result.variant.name,
+          relative(result.getThroughput(), baseline.getThroughput()),
+          relative(millis(result.latency.getValueAtPercentile(50.0)),
+              millis(baseline.latency.getValueAtPercentile(50.0))),
+          relative(millis(result.latency.getValueAtPercentile(99.0)),
+              millis(baseline.latency.getValueAtPercentile(99.0))),
+          relative(millis(result.latency.getValueAtPercentile(99.9)),
+              millis(baseline.latency.getValueAtPercentile(99.9))),
+          result.getAllocatedPerOperation() < 0L ? "unknown"
+              : relative(result.getAllocatedPerOperation() / 1048576.0,
+                  baseline.getAllocatedPerOperation() / 1048576.0));
+    }
+  }
+
+  private static String relative(double value, double baseline) {
+    if (baseline <= 0.0) {
+      return String.format(Locale.ROOT, "%.2f", value);
+    }
+    return String.format(Locale.ROOT, "%.2f (%+.0f%%)", value,
+        100.0 * (value - baseline) / baseline);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1.0e6;
+  }
+
+  private static int positive(String name, int value) {
+    if (value <= 0) {
+      throw new IllegalArgumentException(name + " must be positive");
+    }
+    return value;
+  }
+
+  private static boolean bool(String name, String value) {
+    if (value.equals("true")) {
+      return true;
+    }
+    if (value.equals("false")) {
+      return false;
+    }
+    throw new IllegalArgumentException(name + " must be true or false");
+  }
+}
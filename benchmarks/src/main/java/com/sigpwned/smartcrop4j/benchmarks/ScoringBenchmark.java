@@ -0,0 +1,121 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.benchmarks;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import com.sigpwned.smartcrop4j.impl.ImageData;
+import com.sigpwned.smartcrop4j.impl.ScoredCrop;
+import com.sigpwned.smartcrop4j.impl.util.Composition;
+import com.sigpwned.smartcrop4j.impl.util.EdgeDetection;
+import com.sigpwned.smartcrop4j.impl.util.MoreImageData;
+import com.sigpwned.smartcrop4j.impl.util.Saturation;
+import com.sigpwned.smartcrop4j.impl.util.SkinColoring;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the search stage of a crop, which runs after detection: downsampling the detector
+ * output with {@link MoreImageData#scaledDown}, generating candidates with
+ * {@link Composition#generateCandidateCrops}, and scoring them with
+ * {@link DefaultSmartCropper#scoreCrops}. The number of candidates depends on the aspect ratio, so
+ * these run over a matrix of analysis sizes and aspect ratios.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+
+  @Param({"256x192", "640x480", "1920x1080"})
+  public String size;
+
+  @Param({"1:1", "16:9", "9:16", "4:5"})
+  public String aspect;
+
+  private DefaultSmartCropperOptions options;
+  private DefaultSmartCropper cropper;
+  private ImageData output;
+  private int cropWidth;
+  private int cropHeight;
+  private List<Crop> candidates;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    options = DefaultSmartCropperOptions.create();
+    cropper = new DefaultSmartCropper(options);
+
+    // Score real detector output, not a blank image
+    final ImageData input = ImageData.fromBufferedImage(
+        SyntheticImages.generate(size, "INT_ARGB"));
+    output = new ImageData(input.width, input.height);
+    EdgeDetection.edgeDetect(input, output);
+    SkinColoring.skinDetect(input, output, options.getSkinColor(), options.getSkinThreshold(),
+        options.getSkinBrightnessMin(), options.getSkinBrightnessMax());
+    Saturation.saturationDetect(input, output, options.getSaturationThreshold(),
+        options.getSaturationBrightnessMin(), options.getSaturationBrightnessMax());
+
+    // Same as DefaultSmartCropper: the largest crop of the given aspect ratio that fits
+    final int[] ratio = SyntheticImages.aspect(aspect);
+    final float scale = Math.min(output.width / (float) ratio[0],
+        output.height / (float) ratio[1]);
+    cropWidth = (int) (ratio[0] * scale);
+    cropHeight = (int) (ratio[1] * scale);
+    candidates = generateCandidateCrops();
+  }
+
+  @Benchmark
+  public ImageData scaledDown() {
+    return MoreImageData.scaledDown(output, options.getScoreDownSample());
+  }
+
+  @Benchmark
+  public List<Crop> generateCandidateCrops() {
+    return Composition.generateCandidateCrops(output.width, output.height, cropWidth, cropHeight,
+        options.getMinScale(), options.getMaxScale(), options.getScaleStep(),
+        options.getCropSearchStep());
+  }
+
+  @Benchmark
+  public List<ScoredCrop> scoreCrops() {
+    return cropper.scoreCrops(output, candidates, options.getScoreDownSample());
+  }
+}
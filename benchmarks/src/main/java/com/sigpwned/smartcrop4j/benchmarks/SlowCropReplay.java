@@ -0,0 +1,83 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.benchmarks;
+
+import com.sigpwned.smartcrop4j.impl.DefaultCropResult;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.impl.SlowCropCapture;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replays a slow crop captured by a {@link com.sigpwned.smartcrop4j.impl.SlowCropSpool}, with the
+ * captured options. It needs a capture, so it is not part of the default run. Run it by name, e.g.,
+ * {@code java -jar benchmarks.jar SlowCropReplay -p capture=<capture-dir>}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class SlowCropReplay {
+
+  /**
+   * The capture directory
+   */
+  @Param({""})
+  public String capture;
+
+  private SlowCropCapture replay;
+  private DefaultSmartCropper cropper;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    if (capture.isEmpty()) {
+      throw new IllegalArgumentException("capture is required, e.g., -p capture=<capture-dir>");
+    }
+    replay = SlowCropCapture.read(Paths.get(capture));
+    cropper = new DefaultSmartCropper(replay.getOptions());
+  }
+
+  @Benchmark
+  public DefaultCropResult replay() {
+    return cropper.crop(replay.getImage(), replay.getAspectWidth(), replay.getAspectHeight(),
+        replay.getBoosts());
+  }
+}
@@ -0,0 +1,149 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.benchmarks;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates deterministic test images, so the benchmarks need no image files or network access.
+ * The images have a little of everything the cropper looks for: smooth gradients, which have no
+ * detail; fine texture and hard edges, which do; saturated patches; and skin-colored ellipses. The
+ * same arguments always produce the same pixels.
+ */
+public final class SyntheticImages {
+
+  private SyntheticImages() {
+  }
+
+  /**
+   * The seed for all generated images
+   */
+  private static final long SEED = 0x5EED5EEDL;
+
+  /**
+   * Some skin tones, from light to dark
+   */
+  private static final Color[] SKIN_TONES = new Color[]{new Color(255, 224, 196),
+      new Color(234, 192, 134), new Color(198, 134, 66), new Color(141, 85, 36)};
+
+  /**
+   * Returns a synthetic image of the given size and type
+   */
+  public static BufferedImage generate(int width, int height, int type) {
+    final Random random = new Random(SEED);
+
+    final BufferedImage result = new BufferedImage(width, height, type);
+    final Graphics2D g = result.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+      // Sky and ground, which are smooth
+      g.setPaint(new GradientPaint(0, 0, new Color(120, 170, 230), 0, height / 2.0f,
+          new Color(220, 230, 245)));
+      g.fillRect(0, 0, width, height / 2);
+      g.setPaint(new GradientPaint(0, height / 2.0f, new Color(90, 120, 60), 0, height,
+          new Color(60, 80, 40)));
+      g.fillRect(0, height / 2, width, height - height / 2);
+
+      // Fine texture in the ground, which has lots of detail
+      final int grain = Math.max(1, Math.min(width, height) / 200);
+      for (int i = 0; i < width * height / (grain * grain * 64); i++) {
+        final int gray = random.nextInt(64);
+        g.setColor(new Color(gray, gray + 32, gray / 2));
+        g.fillRect(random.nextInt(width), height / 2 + random.nextInt(height - height / 2),
+            grain, grain);
+      }
+
+      // Saturated patches with hard edges
+      for (int i = 0; i < 6; i++) {
+        g.setColor(Color.getHSBColor(random.nextFloat(), 0.9f, 0.9f));
+        final int w = width / 8 + random.nextInt(width / 8 + 1);
+        final int h = height / 8 + random.nextInt(height / 8 + 1);
+        g.fillRect(random.nextInt(width - w + 1), random.nextInt(height - h + 1), w, h);
+      }
+
+      // Faces, off to one side, so the best crop is not just the center
+      for (int i = 0; i < 3; i++) {
+        g.setColor(SKIN_TONES[random.nextInt(SKIN_TONES.length)]);
+        final int d = Math.max(2, Math.min(width, height) / 6);
+        final int x = width / 2 + random.nextInt(Math.max(1, width / 2 - d));
+        final int y = random.nextInt(Math.max(1, height - d - d / 3));
+        g.fillOval(x, y, d, d + d / 3);
+      }
+    } finally {
+      g.dispose();
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a synthetic image of the given size, e.g., {@code 1920x1080}, and type, e.g.,
+   * {@code INT_RGB}, which is the name of a {@link BufferedImage} {@code TYPE_} constant without
+   * the prefix
+   */
+  public static BufferedImage generate(String size, String type) {
+    final int x = size.indexOf('x');
+    return generate(Integer.parseInt(size.substring(0, x)),
+        Integer.parseInt(size.substring(x + 1)), imageType(type));
+  }
+
+  /**
+   * Returns the {@link BufferedImage} type constant with the given name, without its
+   * {@code TYPE_} prefix
+   */
+  public static int imageType(String name) {
+    switch (name.toUpperCase(Locale.ROOT)) {
+      case "INT_RGB":
+        return BufferedImage.TYPE_INT_RGB;
+      case "INT_ARGB":
+        return BufferedImage.TYPE_INT_ARGB;
+      case "3BYTE_BGR":
+        return BufferedImage.TYPE_3BYTE_BGR;
+      case "4BYTE_ABGR":
+        return BufferedImage.TYPE_4BYTE_ABGR;
+      case "BYTE_GRAY":
+        return BufferedImage.TYPE_BYTE_GRAY;
+      default:
+        throw new IllegalArgumentException("unrecognized image type " + name);
+    }
+  }
+
+  /**
+   * Parses an aspect ratio like {@code 16:9} into its width and height
+   */
+  public static int[] aspect(String aspect) {
+    final int colon = aspect.indexOf(':');
+    return new int[]{Integer.parseInt(aspect.substring(0, colon)),
+        Integer.parseInt(aspect.substring(colon + 1))};
+  }
+}
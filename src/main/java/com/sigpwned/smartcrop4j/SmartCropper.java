@@ -26,9 +26,13 @@
 package com.sigpwned.smartcrop4j;
 
 import com.sigpwned.smartcrop4j.impl.DefaultCropResult;
+import com.sigpwned.smartcrop4j.util.CropExecutors;
 import com.sigpwned.smartcrop4j.util.Validation;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Uses the content of an image to recommend a good crop of same.
@@ -84,4 +88,79 @@ public interface SmartCropper {
    */
   public DefaultCropResult crop(BufferedImage image, int cropAspectWidth, int cropAspectHeight,
       List<CropBoost> boosts);
+
+  /**
+   * Recommend crops of the given images, all of the given aspect ratio.
+   *
+   * @param images           the images to crop
+   * @param cropAspectWidth  the width of the crop aspect ratio
+   * @param cropAspectHeight the height of the crop aspect ratio
+   * @return the recommended crops, in the same order as the images
+   */
+  default List<DefaultCropResult> cropAll(List<BufferedImage> images, int cropAspectWidth,
+      int cropAspectHeight) {
+    return cropAll(images, cropAspectWidth, cropAspectHeight, null);
+  }
+
+  /**
+   * Recommend crops of the given images, all of the given aspect ratio. This default implementation
+   * crops the images one at a time on the current thread. Implementations may process the batch
+   * more efficiently.
+   *
+   * @param images           the images to crop
+   * @param cropAspectWidth  the width of the crop aspect ratio
+   * @param cropAspectHeight the height of the crop aspect ratio
+   * @param boosts           the boosts to apply to each image, in the same order as the images, or
+   *                         null for none. Individual elements may also be null.
+   * @return the recommended crops, in the same order as the images
+   * @throws IllegalArgumentException if boosts is not null and not the same size as images
+   */
+  default List<DefaultCropResult> cropAll(List<BufferedImage> images, int cropAspectWidth,
+      int cropAspectHeight, List<List<CropBoost>> boosts) {
+    if (boosts != null && boosts.size() != images.size()) {
+      throw new IllegalArgumentException("boosts must be the same size as images");
+    }
+    final List<DefaultCropResult> result = new ArrayList<>(images.size());
+    for (int i = 0; i < images.size(); i++) {
+      result.add(crop(images.get(i), cropAspectWidth, cropAspectHeight,
+          boosts != null ? boosts.get(i) : null));
+    }
+    return result;
+  }
+
+  /**
+   * Recommend a crop of the given image of the given aspect ratio asynchronously on the
+   * {@link CropExecutors#defaultExecutor() default executor}.
+   *
+   * @param image            the image to crop
+   * @param cropAspectWidth  the width of the crop aspect ratio
+   * @param cropAspectHeight the height of the crop aspect ratio
+   * @param boosts           a list of boosts to apply to the crop
+   * @return a future for the recommended crop
+   * @see #cropAsync(BufferedImage, int, int, List, Executor)
+   */
+  default CompletableFuture<DefaultCropResult> cropAsync(BufferedImage image, int cropAspectWidth,
+      int cropAspectHeight, List<CropBoost> boosts) {
+    return cropAsync(image, cropAspectWidth, cropAspectHeight, boosts,
+        CropExecutors.defaultExecutor());
+  }
+
+  /**
+   * Recommend a crop of the given image of the given aspect ratio asynchronously on the given
+   * executor. Cancelling the future before the crop starts prevents it from running at all.
+   * Implementations may also stop a crop that is already running when its future is cancelled, but
+   * this default implementation does not.
+   *
+   * @param image            the image to crop
+   * @param cropAspectWidth  the width of the crop aspect ratio
+   * @param cropAspectHeight the height of the crop aspect ratio
+   * @param boosts           a list of boosts to apply to the crop
+   * @param executor         the executor to run the crop on
+   * @return a future for the recommended crop
+   */
+  default CompletableFuture<DefaultCropResult> cropAsync(BufferedImage image, int cropAspectWidth,
+      int cropAspectHeight, List<CropBoost> boosts, Executor executor) {
+    return CompletableFuture.supplyAsync(
+        () -> crop(image, cropAspectWidth, cropAspectHeight, boosts), executor);
+  }
 }
@@ -0,0 +1,131 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import com.sigpwned.smartcrop4j.util.MoreFiles;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Image file helpers shared by the batch tools
+ */
+/* default */ final class BatchFiles {
+
+  private BatchFiles() {
+  }
+
+  private static final Set<String> READER_SUFFIXES = Arrays
+      .stream(ImageIO.getReaderFileSuffixes()).map(s -> s.toLowerCase(Locale.ROOT))
+      .collect(Collectors.toUnmodifiableSet());
+
+  /**
+   * Returns true if the given path is a regular file whose extension ImageIO can read
+   */
+  public static boolean isImageFile(Path path) {
+    return Files.isRegularFile(path) && MoreFiles.getFileExtension(path.getFileName().toString())
+        .map(s -> READER_SUFFIXES.contains(s.toLowerCase(Locale.ROOT))).orElse(false);
+  }
+
+  /**
+   * Returns the format to write the given file in, i.e., its extension
+   *
+   * @throws IllegalArgumentException if the file has no extension
+   */
+  public static String formatOf(Path path) {
+    return MoreFiles.getFileExtension(path.getFileName().toString())
+        .orElseThrow(() -> new IllegalArgumentException("file must have extension"));
+  }
+
+  /**
+   * Decodes an image, but first passes its dimensions, which are read from the header, to the
+   * given callback. This allows callers to refuse or wait for memory for large images before
+   * paying to decode them.
+   *
+   * @throws IllegalArgumentException if the bytes are not a readable image
+   */
+  public static BufferedImage decode(byte[] bytes, SizeCallback beforeDecode)
+      throws IOException, InterruptedException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+      final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+      if (!readers.hasNext()) {
+        throw new IllegalArgumentException("bytes must contain a valid image");
+      }
+      final ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        beforeDecode.accept(reader.getWidth(0), reader.getHeight(0));
+        return reader.read(0);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  @FunctionalInterface
+  public static interface SizeCallback {
+
+    public void accept(int width, int height) throws InterruptedException;
+  }
+
+  /**
+   * Writes the given image to the given file in the given format. The image is written to a
+   * temporary file in the same directory first and then moved into place, so the target never
+   * holds a partial image, even if the process dies.
+   *
+   * @throws IllegalArgumentException if there is no writer for the format
+   */
+  public static void write(BufferedImage image, String format, Path target) throws IOException {
+    final Path directory = target.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    final Path temp = Files.createTempFile(directory, ".smartcrop4j.", ".tmp");
+    try {
+      if (!ImageIO.write(image, format, temp.toFile())) {
+        throw new IllegalArgumentException("no image writer for format " + format);
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The outcome of a batch run
+ */
+public class BatchSummary {
+
+  private final int succeeded;
+  private final int failed;
+  private final Duration elapsed;
+
+  public BatchSummary(int succeeded, int failed, Duration elapsed) {
+    this.succeeded = requireNonNegative(succeeded);
+    this.failed = requireNonNegative(failed);
+    this.elapsed = requireNonNull(elapsed);
+  }
+
+  /**
+   * The number of images cropped and written
+   */
+  public int getSucceeded() {
+    return succeeded;
+  }
+
+  /**
+   * The number of images that could not be read, cropped, or written
+   */
+  public int getFailed() {
+    return failed;
+  }
+
+  public Duration getElapsed() {
+    return elapsed;
+  }
+
+  /**
+   * Images processed per second, successfully or not
+   */
+  public double getThroughput() {
+    final long millis = Math.max(getElapsed().toMillis(), 1L);
+    return (getSucceeded() + getFailed()) * 1000.0 / millis;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof BatchSummary)) {
+      return false;
+    }
+    BatchSummary that = (BatchSummary) o;
+    return getSucceeded() == that.getSucceeded() && getFailed() == that.getFailed()
+        && Objects.equals(getElapsed(), that.getElapsed());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getSucceeded(), getFailed(), getElapsed());
+  }
+
+  @Override
+  public String toString() {
+    return "BatchSummary{" + "succeeded=" + succeeded + ", failed=" + failed + ", elapsed="
+        + elapsed + '}';
+  }
+}
@@ -0,0 +1,392 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.impl.CropWorkspace;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.util.BufferedImages;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The staged read, decode, crop, render, and write pipeline behind the batch tools. See
+ * {@link DirectoryBatchCropper} for a description of the stages.
+ */
+/* default */ final class CropPipeline {
+
+  /**
+   * One image to crop, and where to write the result
+   */
+  public static final class Task {
+
+    public final Path input;
+    public final Path output;
+
+    /**
+     * The position of the task in its source, e.g., a line number, for listeners' use
+     */
+    public final long index;
+
+    public Task(Path input, Path output, long index) {
+      this.input = requireNonNull(input);
+      this.output = requireNonNull(output);
+      this.index = index;
+    }
+  }
+
+  /**
+   * Hears about each task as it finishes. Calls may come from any pipeline thread, concurrently.
+   * If a listener throws, then the whole run stops with that exception.
+   */
+  public static interface Listener {
+
+    public void succeeded(Task task, Crop crop) throws IOException;
+
+    public void failed(Task task, Exception cause) throws IOException;
+  }
+
+  private final DefaultSmartCropper cropper;
+  private final DirectoryBatchOptions options;
+  private final PrintStream report;
+
+  public CropPipeline(DefaultSmartCropper cropper, DirectoryBatchOptions options,
+      PrintStream report) {
+    this.cropper = requireNonNull(cropper);
+    this.options = requireNonNull(options);
+    this.report = report;
+  }
+
+  /**
+   * One image on its way through the pipeline. Each stage fills in its output and drops its input,
+   * so memory is released as early as possible.
+   */
+  private static final class Item {
+
+    public final Task task;
+    public byte[] bytes;
+    public BufferedImage image;
+    public int permits;
+    public Crop crop;
+    public BufferedImage rendered;
+
+    public Item(Task task) {
+      this.task = task;
+    }
+  }
+
+  /**
+   * Tells a stage's worker that no more items are coming
+   */
+  private static final Item END = new Item(null);
+
+  @FunctionalInterface
+  private static interface StageFunction {
+
+    public void apply(Item item) throws Exception;
+  }
+
+  private static final class Stage {
+
+    public final String name;
+    public final int concurrency;
+    public final BlockingQueue<Item> queue;
+    public final StageFunction function;
+    public final AtomicInteger running;
+
+    public Stage(String name, int concurrency, int queueCapacity, StageFunction function) {
+      this.name = name;
+      this.concurrency = concurrency;
+      this.queue = new ArrayBlockingQueue<>(queueCapacity);
+      this.function = function;
+      this.running = new AtomicInteger(concurrency);
+    }
+  }
+
+  /**
+   * State shared by one run's workers
+   */
+  private static final class Run {
+
+    public final Thread caller;
+    public final Semaphore memory;
+    public final Listener listener;
+    public final AtomicInteger succeeded;
+    public final AtomicInteger failed;
+    public final AtomicReference<Throwable> fatal;
+
+    public Run(Thread caller, Semaphore memory, Listener listener) {
+      this.caller = caller;
+      this.memory = memory;
+      this.listener = listener;
+      this.succeeded = new AtomicInteger();
+      this.failed = new AtomicInteger();
+      this.fatal = new AtomicReference<>();
+    }
+  }
+
+  /**
+   * Crops the given tasks to the given size. Blocks until every task has succeeded or failed.
+   *
+   * @param tasks    the tasks, which may be produced lazily. An {@link UncheckedIOException} from
+   *                 the iterator stops the run.
+   * @param width    the width of the cropped images
+   * @param height   the height of the cropped images
+   * @param listener the listener
+   * @return a summary of the run
+   * @throws IOException          if the tasks iterator or the listener fails
+   * @throws InterruptedException if interrupted, in which case the run is abandoned
+   */
+  public BatchSummary run(Iterator<Task> tasks, int width, int height, Listener listener)
+      throws IOException, InterruptedException {
+    requireNonNull(tasks);
+    requirePositive(width);
+    requirePositive(height);
+    requireNonNull(listener);
+
+    final long startNanos = System.nanoTime();
+    final int budget = (int) Math.min(Integer.MAX_VALUE, getOptions().getMemoryBudget() / 1024L);
+    final Run run = new Run(Thread.currentThread(), new Semaphore(budget), listener);
+    final ConcurrentLinkedQueue<CropWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+    final ThreadLocal<CropWorkspace> workspace = ThreadLocal.withInitial(() -> {
+      CropWorkspace result = new CropWorkspace();
+      workspaces.add(result);
+      return result;
+    });
+
+    final int capacity = getOptions().getQueueCapacity();
+    final Stage[] stages = new Stage[]{
+        new Stage("read", getOptions().getReadConcurrency(), capacity, item -> {
+          item.bytes = Files.readAllBytes(item.task.input);
+        }),
+        new Stage("decode", getOptions().getDecodeConcurrency(), capacity, item -> {
+          item.image = BatchFiles.decode(item.bytes, (w, h) -> {
+            // Wait for room in the budget before we decode. Big images wait for a whole budget.
+            final int permits = (int) Math.max(1L,
+                Math.min(budget, ((long) w * h * 4L + 1023L) / 1024L));
+            run.memory.acquire(permits);
+            item.permits = permits;
+          });
+          item.bytes = null;
+        }),
+        new Stage("crop", getOptions().getCropConcurrency(), capacity, item -> {
+          item.crop = getCropper().crop(item.image, width, height, null, workspace.get())
+              .getTopCrop();
+        }),
+        new Stage("render", getOptions().getRenderConcurrency(), capacity, item -> {
+          item.rendered = BufferedImages.cropped(item.image, item.crop, width, height);
+          item.image = null;
+          run.memory.release(item.permits);
+          item.permits = 0;
+        }),
+        new Stage("write", getOptions().getWriteConcurrency(), capacity, item -> {
+          BatchFiles.write(item.rendered, BatchFiles.formatOf(item.task.input),
+              item.task.output);
+          item.rendered = null;
+        })};
+
+    final List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < stages.length; i++) {
+      final Stage stage = stages[i];
+      final Stage next = i + 1 < stages.length ? stages[i + 1] : null;
+      for (int j = 1; j <= stage.concurrency; j++) {
+        final Thread thread = new Thread(() -> work(run, stage, next),
+            "smartcrop4j-" + stage.name + "-" + j);
+        thread.setDaemon(true);
+        threads.add(thread);
+      }
+    }
+
+    final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread result = new Thread(r, "smartcrop4j-report");
+      result.setDaemon(true);
+      return result;
+    });
+    final Duration interval = getOptions().getReportInterval();
+    if (!interval.isZero()) {
+      reporter.scheduleAtFixedRate(
+          () -> print(progress(stages, run.succeeded.get(), run.failed.get(), startNanos,
+              (long) (budget - run.memory.availablePermits()) * 1024L)),
+          interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    threads.forEach(Thread::start);
+    try {
+      try {
+        while (run.fatal.get() == null && tasks.hasNext()) {
+          stages[0].queue.put(new Item(tasks.next()));
+        }
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      } finally {
+        // After a fatal error, the workers that would drain the queue may be gone, so don't wait
+        for (int i = 0; i < stages[0].concurrency && run.fatal.get() == null; i++) {
+          stages[0].queue.put(END);
+        }
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      if (run.fatal.get() == null) {
+        throw e;
+      }
+      // A worker interrupted us to report a fatal error, which we throw below
+    } finally {
+      reporter.shutdownNow();
+      threads.forEach(Thread::interrupt);
+      // A worker may still interrupt us to report a fatal error, so don't let that stop cleanup
+      boolean interrupted = false;
+      for (Thread thread : threads) {
+        while (thread.isAlive()) {
+          try {
+            thread.join();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      }
+      workspaces.forEach(CropWorkspace::close);
+      // The workers are all gone, so an interrupt we haven't seen yet may be pending
+      interrupted = Thread.interrupted() || interrupted;
+      if (interrupted && run.fatal.get() == null) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    final Throwable error = run.fatal.get();
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+    if (error instanceof IOException) {
+      throw (IOException) error;
+    }
+    if (error != null) {
+      throw new IllegalStateException("batch failed", error);
+    }
+
+    final BatchSummary result = new BatchSummary(run.succeeded.get(), run.failed.get(),
+        Duration.ofNanos(System.nanoTime() - startNanos));
+    print(String.format(Locale.ROOT, "done: %d succeeded, %d failed in %s, %.1f images/s",
+        result.getSucceeded(), result.getFailed(), result.getElapsed(), result.getThroughput()));
+    return result;
+  }
+
+  /**
+   * Runs one worker of the given stage until it receives {@link #END}, then tells the next stage
+   * to end once all of this stage's workers are done.
+   */
+  private void work(Run run, Stage stage, Stage next) {
+    try {
+      for (Item item = stage.queue.take(); item != END; item = stage.queue.take()) {
+        try {
+          stage.function.apply(item);
+        } catch (InterruptedException e) {
+          throw e;
+        } catch (Exception e) {
+          if (item.permits != 0) {
+            run.memory.release(item.permits);
+            item.permits = 0;
+          }
+          run.failed.incrementAndGet();
+          print(item.task.input + " failed: " + e);
+          run.listener.failed(item.task, e);
+          continue;
+        }
+        if (next != null) {
+          next.queue.put(item);
+        } else {
+          run.succeeded.incrementAndGet();
+          run.listener.succeeded(item.task, item.crop);
+        }
+      }
+
+      if (stage.running.decrementAndGet() == 0 && next != null) {
+        for (int i = 0; i < next.concurrency; i++) {
+          next.queue.put(END);
+        }
+      }
+    } catch (InterruptedException e) {
+      // We're being shut down. Just stop.
+    } catch (IOException | RuntimeException | Error e) {
+      // Either the listener failed, or we're probably out of memory. Either way, stop the run. Only
+      // the first failure interrupts the caller, so later ones can't interrupt its cleanup.
+      if (run.fatal.compareAndSet(null, e)) {
+        run.caller.interrupt();
+      }
+    }
+  }
+
+  private static String progress(Stage[] stages, int succeeded, int failed, long startNanos,
+      long memoryInUse) {
+    final double seconds = Math.max(System.nanoTime() - startNanos, 1L) / 1.0e9;
+    final StringBuilder result = new StringBuilder();
+    result.append(String.format(Locale.ROOT, "%d succeeded, %d failed, %.1f images/s; queued",
+        succeeded, failed, (succeeded + failed) / seconds));
+    for (Stage stage : stages) {
+      result.append(' ').append(stage.name).append('=').append(stage.queue.size());
+    }
+    result.append(String.format(Locale.ROOT, "; decoded images %d MB",
+        memoryInUse / (1024L * 1024L)));
+    return result.toString();
+  }
+
+  private void print(String message) {
+    final PrintStream report = this.report;
+    if (report != null) {
+      report.println("smartcrop4j: " + message);
+    }
+  }
+
+  private DefaultSmartCropper getCropper() {
+    return cropper;
+  }
+
+  private DirectoryBatchOptions getOptions() {
+    return options;
+  }
+}
@@ -0,0 +1,190 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Crops every image in a directory tree and writes the results to a parallel tree in another
+ * directory, with the same relative paths and formats. This does the same work as
+ * {@link com.sigpwned.smartcrop4j.util.Smartcrop Smartcrop.crop} for each image, but it splits that
+ * work into five stages, each with its own threads and a bounded queue in front of it: read,
+ * which loads files into memory; decode; crop, which analyzes and scores the image; render, which
+ * crops and scales it to the output size; and write, which encodes it and writes it out. This keeps
+ * the disk and the CPUs busy at the same time, instead of alternating between them.
+ *
+ * <p>
+ * The queues bound the number of images in flight, and a
+ * {@link DirectoryBatchOptions#getMemoryBudget() memory budget} bounds the total size of decoded,
+ * full-resolution images, so the runner can use big thread counts without running out of memory.
+ * Throughput and queue depths are printed periodically. An image that fails is reported and
+ * skipped, and does not stop the batch.
+ */
+public class DirectoryBatchCropper {
+
+  /**
+   * Usage: {@code DirectoryBatchCropper [options] <input-dir> <output-dir> <width> <height>}. The
+   * options are {@code --read-threads=N}, {@code --decode-threads=N}, {@code --crop-threads=N},
+   * {@code --render-threads=N}, {@code --write-threads=N}, {@code --queue-capacity=N}, and
+   * {@code --memory-budget-mb=N}. Exits with status 1 if any image fails, or 2 for bad usage.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    final DirectoryBatchOptionsBuilder options = DirectoryBatchOptions.builder();
+    final List<String> positional = new ArrayList<>();
+    try {
+      for (String arg : args) {
+        if (!arg.startsWith("--")) {
+          positional.add(arg);
+          continue;
+        }
+        final int eq = arg.indexOf('=');
+        if (eq == -1) {
+          throw new IllegalArgumentException("option must have value: " + arg);
+        }
+        if (!setPipelineOption(options, arg.substring(2, eq), arg.substring(eq + 1))) {
+          throw new IllegalArgumentException("unrecognized option: " + arg);
+        }
+      }
+      if (positional.size() != 4) {
+        throw new IllegalArgumentException("expected 4 arguments");
+      }
+    } catch (IllegalArgumentException | ArithmeticException e) {
+      System.err.println(e.getMessage());
+      System.err.println(
+          "usage: DirectoryBatchCropper [options] <input-dir> <output-dir> <width> <height>");
+      System.exit(2);
+      return;
+    }
+
+    final BatchSummary summary = new DirectoryBatchCropper(new DefaultSmartCropper(),
+        options.build(), System.err).run(Paths.get(positional.get(0)),
+        Paths.get(positional.get(1)), Integer.parseInt(positional.get(2)),
+        Integer.parseInt(positional.get(3)));
+
+    System.exit(summary.getFailed() == 0 ? 0 : 1);
+  }
+
+  /**
+   * Applies one of the pipeline command-line options described in {@link #main(String[])}.
+   *
+   * @return false if the option is not a pipeline option
+   * @throws IllegalArgumentException if the value is not a valid number
+   */
+  /* default */ static boolean setPipelineOption(DirectoryBatchOptionsBuilder options,
+      String name, String value) {
+    switch (name) {
+      case "read-threads":
+        options.setReadConcurrency(Integer.parseInt(value));
+        return true;
+      case "decode-threads":
+        options.setDecodeConcurrency(Integer.parseInt(value));
+        return true;
+      case "crop-threads":
+        options.setCropConcurrency(Integer.parseInt(value));
+        return true;
+      case "render-threads":
+        options.setRenderConcurrency(Integer.parseInt(value));
+        return true;
+      case "write-threads":
+        options.setWriteConcurrency(Integer.parseInt(value));
+        return true;
+      case "queue-capacity":
+        options.setQueueCapacity(Integer.parseInt(value));
+        return true;
+      case "memory-budget-mb":
+        options.setMemoryBudget(Math.multiplyExact(Long.parseLong(value), 1024L * 1024L));
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private final CropPipeline pipeline;
+
+  public DirectoryBatchCropper() {
+    this(new DefaultSmartCropper(), DirectoryBatchOptions.create(), System.err);
+  }
+
+  /**
+   * @param cropper the cropper
+   * @param options the options
+   * @param report  where to print progress and failures, or null for nowhere
+   */
+  public DirectoryBatchCropper(DefaultSmartCropper cropper, DirectoryBatchOptions options,
+      PrintStream report) {
+    this.pipeline = new CropPipeline(cropper, options, report);
+  }
+
+  /**
+   * Crops every image under the input directory to the given size, and writes the results under the
+   * output directory. Existing output files are replaced. Blocks until the batch is done.
+   *
+   * @param inputDirectory  the directory to read images from, recursively
+   * @param outputDirectory the directory to write cropped images to, which is created if needed
+   * @param width           the width of the cropped images
+   * @param height          the height of the cropped images
+   * @return a summary of the batch
+   * @throws IOException          if the input directory cannot be walked
+   * @throws InterruptedException if interrupted, in which case the batch is abandoned
+   */
+  public BatchSummary run(Path inputDirectory, Path outputDirectory, int width, int height)
+      throws IOException, InterruptedException {
+    final Path input = inputDirectory.toAbsolutePath().normalize();
+    final Path output = outputDirectory.toAbsolutePath().normalize();
+    if (!Files.isDirectory(input)) {
+      throw new IllegalArgumentException("inputDirectory must be a directory");
+    }
+
+    try (Stream<Path> files = Files.walk(input)) {
+      final AtomicLong index = new AtomicLong();
+      final Iterator<CropPipeline.Task> tasks = files
+          .filter(file -> !file.startsWith(output) && BatchFiles.isImageFile(file))
+          .map(file -> new CropPipeline.Task(file, output.resolve(input.relativize(file)),
+              index.getAndIncrement()))
+          .iterator();
+      return pipeline.run(tasks, width, height, new CropPipeline.Listener() {
+        @Override
+        public void succeeded(CropPipeline.Task task, Crop crop) {
+        }
+
+        @Override
+        public void failed(CropPipeline.Task task, Exception cause) {
+        }
+      });
+    }
+  }
+}
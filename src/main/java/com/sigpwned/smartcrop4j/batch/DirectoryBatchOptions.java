@@ -0,0 +1,136 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class DirectoryBatchOptions {
+
+  public static DirectoryBatchOptionsBuilder builder() {
+    return new DirectoryBatchOptionsBuilder();
+  }
+
+  public static DirectoryBatchOptions create() {
+    return builder().build();
+  }
+
+  private final int readConcurrency;
+  private final int decodeConcurrency;
+  private final int cropConcurrency;
+  private final int renderConcurrency;
+  private final int writeConcurrency;
+  private final int queueCapacity;
+  private final long memoryBudget;
+  private final Duration reportInterval;
+
+  /* default */ DirectoryBatchOptions(DirectoryBatchOptionsBuilder builder) {
+    this.readConcurrency = requirePositive(builder.getReadConcurrency());
+    this.decodeConcurrency = requirePositive(builder.getDecodeConcurrency());
+    this.cropConcurrency = requirePositive(builder.getCropConcurrency());
+    this.renderConcurrency = requirePositive(builder.getRenderConcurrency());
+    this.writeConcurrency = requirePositive(builder.getWriteConcurrency());
+    this.queueCapacity = requirePositive(builder.getQueueCapacity());
+    if (builder.getMemoryBudget() < 1024L) {
+      throw new IllegalArgumentException("memoryBudget must be at least 1024");
+    }
+    this.memoryBudget = builder.getMemoryBudget();
+    this.reportInterval = requireNonNull(builder.getReportInterval());
+    if (reportInterval.isNegative()) {
+      throw new IllegalArgumentException("reportInterval must not be negative");
+    }
+  }
+
+  public int getReadConcurrency() {
+    return readConcurrency;
+  }
+
+  public int getDecodeConcurrency() {
+    return decodeConcurrency;
+  }
+
+  public int getCropConcurrency() {
+    return cropConcurrency;
+  }
+
+  public int getRenderConcurrency() {
+    return renderConcurrency;
+  }
+
+  public int getWriteConcurrency() {
+    return writeConcurrency;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  public Duration getReportInterval() {
+    return reportInterval;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof DirectoryBatchOptions)) {
+      return false;
+    }
+    DirectoryBatchOptions that = (DirectoryBatchOptions) o;
+    return getReadConcurrency() == that.getReadConcurrency()
+        && getDecodeConcurrency() == that.getDecodeConcurrency()
+        && getCropConcurrency() == that.getCropConcurrency()
+        && getRenderConcurrency() == that.getRenderConcurrency()
+        && getWriteConcurrency() == that.getWriteConcurrency()
+        && getQueueCapacity() == that.getQueueCapacity()
+        && getMemoryBudget() == that.getMemoryBudget()
+        && Objects.equals(getReportInterval(), that.getReportInterval());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getReadConcurrency(), getDecodeConcurrency(), getCropConcurrency(),
+        getRenderConcurrency(), getWriteConcurrency(), getQueueCapacity(), getMemoryBudget(),
+        getReportInterval());
+  }
+
+  @Override
+  public String toString() {
+    return "DirectoryBatchOptions{" + "readConcurrency=" + readConcurrency
+        + ", decodeConcurrency=" + decodeConcurrency + ", cropConcurrency=" + cropConcurrency
+        + ", renderConcurrency=" + renderConcurrency + ", writeConcurrency=" + writeConcurrency
+        + ", queueCapacity=" + queueCapacity + ", memoryBudget=" + memoryBudget
+        + ", reportInterval=" + reportInterval + '}';
+  }
+}
@@ -0,0 +1,197 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class DirectoryBatchOptionsBuilder {
+
+  private int readConcurrency = 2;
+  private int decodeConcurrency = 2;
+  private int cropConcurrency = Runtime.getRuntime().availableProcessors();
+  private int renderConcurrency = 1;
+  private int writeConcurrency = 2;
+  private int queueCapacity = 16;
+  private long memoryBudget = Runtime.getRuntime().maxMemory() / 2L;
+  private Duration reportInterval = Duration.ofSeconds(10L);
+
+  public DirectoryBatchOptionsBuilder() {
+  }
+
+  public DirectoryBatchOptionsBuilder(DirectoryBatchOptions that) {
+    setReadConcurrency(that.getReadConcurrency());
+    setDecodeConcurrency(that.getDecodeConcurrency());
+    setCropConcurrency(that.getCropConcurrency());
+    setRenderConcurrency(that.getRenderConcurrency());
+    setWriteConcurrency(that.getWriteConcurrency());
+    setQueueCapacity(that.getQueueCapacity());
+    setMemoryBudget(that.getMemoryBudget());
+    setReportInterval(that.getReportInterval());
+  }
+
+  public int getReadConcurrency() {
+    return readConcurrency;
+  }
+
+  public int getDecodeConcurrency() {
+    return decodeConcurrency;
+  }
+
+  public int getCropConcurrency() {
+    return cropConcurrency;
+  }
+
+  public int getRenderConcurrency() {
+    return renderConcurrency;
+  }
+
+  public int getWriteConcurrency() {
+    return writeConcurrency;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  public Duration getReportInterval() {
+    return reportInterval;
+  }
+
+  /**
+   * The number of threads that read image files into memory
+   */
+  public DirectoryBatchOptionsBuilder setReadConcurrency(int readConcurrency) {
+    this.readConcurrency = readConcurrency;
+    return this;
+  }
+
+  /**
+   * The number of threads that decode images
+   */
+  public DirectoryBatchOptionsBuilder setDecodeConcurrency(int decodeConcurrency) {
+    this.decodeConcurrency = decodeConcurrency;
+    return this;
+  }
+
+  /**
+   * The number of threads that analyze and score images
+   */
+  public DirectoryBatchOptionsBuilder setCropConcurrency(int cropConcurrency) {
+    this.cropConcurrency = cropConcurrency;
+    return this;
+  }
+
+  /**
+   * The number of threads that crop and scale images to the output size
+   */
+  public DirectoryBatchOptionsBuilder setRenderConcurrency(int renderConcurrency) {
+    this.renderConcurrency = renderConcurrency;
+    return this;
+  }
+
+  /**
+   * The number of threads that encode and write output images
+   */
+  public DirectoryBatchOptionsBuilder setWriteConcurrency(int writeConcurrency) {
+    this.writeConcurrency = writeConcurrency;
+    return this;
+  }
+
+  /**
+   * The most items to queue in front of each stage
+   */
+  public DirectoryBatchOptionsBuilder setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+    return this;
+  }
+
+  /**
+   * The most bytes of decoded, full-resolution images to hold in memory at once, across all stages.
+   * Images are sized from their headers before they are decoded, and decoding waits until the
+   * image fits in the budget. An image larger than the whole budget is processed alone.
+   */
+  public DirectoryBatchOptionsBuilder setMemoryBudget(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+    return this;
+  }
+
+  /**
+   * How often to report throughput and queue depths, or zero to report only at the end
+   */
+  public DirectoryBatchOptionsBuilder setReportInterval(Duration reportInterval) {
+    this.reportInterval = reportInterval;
+    return this;
+  }
+
+  public DirectoryBatchOptions build() {
+    return new DirectoryBatchOptions(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof DirectoryBatchOptionsBuilder)) {
+      return false;
+    }
+    DirectoryBatchOptionsBuilder that = (DirectoryBatchOptionsBuilder) o;
+    return getReadConcurrency() == that.getReadConcurrency()
+        && getDecodeConcurrency() == that.getDecodeConcurrency()
+        && getCropConcurrency() == that.getCropConcurrency()
+        && getRenderConcurrency() == that.getRenderConcurrency()
+        && getWriteConcurrency() == that.getWriteConcurrency()
+        && getQueueCapacity() == that.getQueueCapacity()
+        && getMemoryBudget() == that.getMemoryBudget()
+        && Objects.equals(getReportInterval(), that.getReportInterval());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getReadConcurrency(), getDecodeConcurrency(), getCropConcurrency(),
+        getRenderConcurrency(), getWriteConcurrency(), getQueueCapacity(), getMemoryBudget(),
+        getReportInterval());
+  }
+
+  @Override
+  public String toString() {
+    return "DirectoryBatchOptionsBuilder{" +
+        "readConcurrency=" + readConcurrency +
+        ", decodeConcurrency=" + decodeConcurrency +
+        ", cropConcurrency=" + cropConcurrency +
+        ", renderConcurrency=" + renderConcurrency +
+        ", writeConcurrency=" + writeConcurrency +
+        ", queueCapacity=" + queueCapacity +
+        ", memoryBudget=" + memoryBudget +
+        ", reportInterval=" + reportInterval +
+        '}';
+  }
+}
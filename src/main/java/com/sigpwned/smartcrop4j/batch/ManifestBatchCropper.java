@@ -0,0 +1,524 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crops the images listed in a manifest file, one path per line, and survives crashes and restarts.
+ * Several workers, in one process or many, on one host or sharing a network file system, can run
+ * the same manifest at once to split the work.
+ *
+ * <p>
+ * The manifest is split into shards of {@link ManifestBatchOptions#getShardSize() shardSize}
+ * lines. A worker claims a shard by creating its lock file in the state directory, then crops the
+ * shard's images with the same staged pipeline as {@link DirectoryBatchCropper}. Each finished
+ * image, successful or not, gets one line in the shard's append-only results file, which is made
+ * durable every {@link ManifestBatchOptions#getCheckpointInterval() checkpointInterval}. A finished
+ * shard gets a done file. A restarted worker skips done shards and, within a shard, skips lines
+ * that already have results, so at most one checkpoint interval of work is repeated after a crash.
+ * Workers refresh their locks at every checkpoint, and a lock that goes
+ * {@link ManifestBatchOptions#getStaleLockTimeout() stale} is taken over by the next worker that
+ * finds it, so a dead worker's shard is not lost. A worker checks that its lock is still its own
+ * before recording each result, and abandons the shard as soon as it is not. Workers on different
+ * hosts should have roughly synchronized clocks for stale lock detection to work.
+ *
+ * <p>
+ * The state directory holds, for each shard {@code N}, {@code shard-N.lock}, {@code shard-N.done},
+ * and {@code shard-N.results}. Results lines have tab-separated fields, starting with the
+ * zero-based manifest line number: {@code line ok path x y width height} for successes, where the
+ * crop is in the original image's coordinates, and {@code line failed path message} for failures.
+ * Relative manifest paths are resolved against the input root, and each image is written to the
+ * same relative path under the output root. Blank lines and lines starting with {@code #} are
+ * ignored.
+ */
+public class ManifestBatchCropper {
+
+  /**
+   * Usage:
+   * {@code ManifestBatchCropper [options] <manifest> <input-root> <output-root> <state-dir> <width>
+   * <height>}. The options are {@code --shard-size=N} and {@code --worker-id=ID}, plus the pipeline
+   * options of {@link DirectoryBatchCropper#main(String[])}. Exits with status 1 if any image
+   * fails, or 2 for bad usage.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    final DirectoryBatchOptionsBuilder pipelineOptions = DirectoryBatchOptions.builder();
+    final ManifestBatchOptionsBuilder options = ManifestBatchOptions.builder();
+    final List<String> positional = new ArrayList<>();
+    try {
+      for (String arg : args) {
+        if (!arg.startsWith("--")) {
+          positional.add(arg);
+          continue;
+        }
+        final int eq = arg.indexOf('=');
+        if (eq == -1) {
+          throw new IllegalArgumentException("option must have value: " + arg);
+        }
+        final String name = arg.substring(2, eq);
+        final String value = arg.substring(eq + 1);
+        if (name.equals("shard-size")) {
+          options.setShardSize(Integer.parseInt(value));
+        } else if (name.equals("worker-id")) {
+          options.setWorkerId(value);
+        } else if (!DirectoryBatchCropper.setPipelineOption(pipelineOptions, name, value)) {
+          throw new IllegalArgumentException("unrecognized option: " + arg);
+        }
+      }
+      if (positional.size() != 6) {
+        throw new IllegalArgumentException("expected 6 arguments");
+      }
+    } catch (IllegalArgumentException | ArithmeticException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: ManifestBatchCropper [options] <manifest> <input-root> "
+          + "<output-root> <state-dir> <width> <height>");
+      System.exit(2);
+      return;
+    }
+
+    final BatchSummary summary = new ManifestBatchCropper(new DefaultSmartCropper(),
+        pipelineOptions.build(), options.build(), System.err).run(Paths.get(positional.get(0)),
+        Paths.get(positional.get(1)), Paths.get(positional.get(2)), Paths.get(positional.get(3)),
+        Integer.parseInt(positional.get(4)), Integer.parseInt(positional.get(5)));
+
+    System.exit(summary.getFailed() == 0 ? 0 : 1);
+  }
+
+  private final CropPipeline pipeline;
+  private final ManifestBatchOptions options;
+  private final PrintStream report;
+
+  public ManifestBatchCropper() {
+    this(new DefaultSmartCropper(), DirectoryBatchOptions.create(), ManifestBatchOptions.create(),
+        System.err);
+  }
+
+  /**
+   * @param cropper         the cropper
+   * @param pipelineOptions the options for the pipeline that crops each shard
+   * @param options         the options
+   * @param report          where to print progress and failures, or null for nowhere
+   */
+  public ManifestBatchCropper(DefaultSmartCropper cropper, DirectoryBatchOptions pipelineOptions,
+      ManifestBatchOptions options, PrintStream report) {
+    this.pipeline = new CropPipeline(cropper, pipelineOptions, report);
+    this.options = requireNonNull(options);
+    this.report = report;
+  }
+
+  /**
+   * Thrown when another worker takes over a shard we were working on, presumably because our lock
+   * went stale
+   */
+  private static class LostLockException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LostLockException(Path lock) {
+      super("lost lock " + lock);
+    }
+  }
+
+  /**
+   * Crops every unfinished shard of the manifest that no other live worker has claimed. Returns
+   * when there are no more shards to claim, which may be before other workers finish theirs.
+   *
+   * @param manifest       the manifest
+   * @param inputRoot      the directory that relative manifest paths are relative to
+   * @param outputRoot     the directory to write cropped images to
+   * @param stateDirectory the directory for lock, results, and done files, shared by all workers
+   * @param width          the width of the cropped images
+   * @param height         the height of the cropped images
+   * @return a summary of the images this call processed
+   * @throws IOException          if the manifest cannot be read or the state cannot be written
+   * @throws InterruptedException if interrupted, in which case the current shard is abandoned and
+   *                              picked up again later
+   */
+  public BatchSummary run(Path manifest, Path inputRoot, Path outputRoot, Path stateDirectory,
+      int width, int height) throws IOException, InterruptedException {
+    final Path input = inputRoot.toAbsolutePath().normalize();
+    final Path output = outputRoot.toAbsolutePath().normalize();
+    requirePositive(width);
+    requirePositive(height);
+    Files.createDirectories(stateDirectory);
+
+    final long startNanos = System.nanoTime();
+    final long[] shardOffsets = shardOffsets(manifest, getOptions().getShardSize());
+    int succeeded = 0;
+    int failed = 0;
+    for (int shard = 0; shard < shardOffsets.length; shard++) {
+      final Path done = stateFile(stateDirectory, shard, "done");
+      final Path lock = stateFile(stateDirectory, shard, "lock");
+      if (Files.exists(done) || !claim(lock)) {
+        continue;
+      }
+      try {
+        if (Files.exists(done)) {
+          // Someone finished it between our check and our claim
+          continue;
+        }
+        print("claimed shard " + shard);
+        final BatchSummary summary = runShard(manifest, shardOffsets[shard],
+            (long) shard * getOptions().getShardSize(), input, output,
+            stateFile(stateDirectory, shard, "results"), lock, width, height);
+        succeeded = succeeded + summary.getSucceeded();
+        failed = failed + summary.getFailed();
+        Files.write(done, new byte[0], StandardOpenOption.CREATE);
+      } catch (LostLockException e) {
+        print("lost shard " + shard + " to another worker");
+        continue;
+      } finally {
+        release(lock);
+      }
+    }
+
+    return new BatchSummary(succeeded, failed, Duration.ofNanos(System.nanoTime() - startNanos));
+  }
+
+  private BatchSummary runShard(Path manifest, long offset, long firstLine, Path input,
+      Path output, Path results, Path lock, int width, int height)
+      throws IOException, InterruptedException {
+    final Set<Long> finished = readFinished(results, lock);
+
+    final Object mutex = new Object();
+    final StringBuilder pending = new StringBuilder();
+    final IOException[] failure = new IOException[1];
+
+    final ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread result = new Thread(r, "smartcrop4j-checkpoint");
+      result.setDaemon(true);
+      return result;
+    });
+    try (FileChannel out = FileChannel.open(results, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(
+            Channels.newInputStream(FileChannel.open(manifest).position(offset)), UTF_8))) {
+      final Runnable checkpoint = () -> {
+        synchronized (mutex) {
+          if (failure[0] != null) {
+            return;
+          }
+          try {
+            if (!isOurs(lock)) {
+              throw new LostLockException(lock);
+            }
+            out.write(ByteBuffer.wrap(pending.toString().getBytes(UTF_8)));
+            pending.setLength(0);
+            out.force(false);
+            Files.setLastModifiedTime(lock, FileTime.from(Instant.now()));
+          } catch (IOException e) {
+            failure[0] = e;
+          }
+        }
+      };
+      final long interval = getOptions().getCheckpointInterval().toMillis();
+      checkpointer.scheduleWithFixedDelay(checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+
+      final Iterator<CropPipeline.Task> tasks = new Iterator<CropPipeline.Task>() {
+        private long line = firstLine;
+        private CropPipeline.Task next = null;
+
+        @Override
+        public boolean hasNext() {
+          try {
+            while (next == null && line < firstLine + getOptions().getShardSize()) {
+              final String text = lines.readLine();
+              if (text == null) {
+                break;
+              }
+              final long index = line++;
+              if (text.isBlank() || text.startsWith("#") || finished.contains(index)) {
+                continue;
+              }
+              final Path file = input.resolve(text.strip()).normalize();
+              final Path relative = file.startsWith(input) ? input.relativize(file)
+                  : file.getRoot().relativize(file);
+              next = new CropPipeline.Task(file, output.resolve(relative), index);
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          return next != null;
+        }
+
+        @Override
+        public CropPipeline.Task next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          final CropPipeline.Task result = next;
+          next = null;
+          return result;
+        }
+      };
+
+      final BatchSummary result = pipeline.run(tasks, width, height,
+          new CropPipeline.Listener() {
+            @Override
+            public void succeeded(CropPipeline.Task task, Crop crop) throws IOException {
+              append(task.index + "\tok\t" + field(task.input.toString()) + "\t" + crop.getX()
+                  + "\t" + crop.getY() + "\t" + crop.getWidth() + "\t" + crop.getHeight());
+            }
+
+            @Override
+            public void failed(CropPipeline.Task task, Exception cause) throws IOException {
+              append(task.index + "\tfailed\t" + field(task.input.toString()) + "\t"
+                  + field(String.valueOf(cause)));
+            }
+
+            private void append(String line) throws IOException {
+              synchronized (mutex) {
+                if (failure[0] != null) {
+                  throw failure[0];
+                }
+                // Stop as soon as another worker takes over, not just at the next checkpoint
+                if (!isOurs(lock)) {
+                  failure[0] = new LostLockException(lock);
+                  throw failure[0];
+                }
+                pending.append(line).append('\n');
+              }
+            }
+          });
+
+      checkpoint.run();
+      synchronized (mutex) {
+        if (failure[0] != null) {
+          throw failure[0];
+        }
+      }
+
+      return result;
+    } finally {
+      checkpointer.shutdownNow();
+      checkpointer.awaitTermination(1L, TimeUnit.MINUTES);
+    }
+  }
+
+  /**
+   * Returns the byte offset of the first line of each shard of the given manifest
+   */
+  private static long[] shardOffsets(Path manifest, int shardSize) throws IOException {
+    final List<Long> result = new ArrayList<>();
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(manifest), 65536)) {
+      long offset = 0L;
+      long line = 0L;
+      boolean lineStart = true;
+      for (int b = in.read(); b != -1; b = in.read(), offset++) {
+        if (lineStart && line % shardSize == 0L) {
+          result.add(offset);
+        }
+        lineStart = b == '\n';
+        if (lineStart) {
+          line = line + 1L;
+        }
+      }
+    }
+    return result.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * Reads the line numbers that already have results from the given results file, and truncates
+   * any partial line that a crash left at the end of the file. A partial line is only truncated
+   * once the file has gone unmodified for as long as it takes a lock to go stale, i.e., once its
+   * last writer is surely dead. Until then, the shard is left alone.
+   *
+   * @throws LostLockException if the file ends with a partial line that may still be being written
+   */
+  private Set<Long> readFinished(Path results, Path lock) throws IOException {
+    final Set<Long> result = new HashSet<>();
+    if (!Files.exists(results)) {
+      return result;
+    }
+
+    final byte[] bytes = Files.readAllBytes(results);
+    int end = bytes.length;
+    while (end > 0 && bytes[end - 1] != '\n') {
+      end = end - 1;
+    }
+    if (end != bytes.length) {
+      if (!isStale(Files.getLastModifiedTime(results))) {
+        throw new LostLockException(lock);
+      }
+      try (FileChannel channel = FileChannel.open(results, StandardOpenOption.WRITE)) {
+        channel.truncate(end);
+      }
+    }
+
+    for (String line : new String(bytes, 0, end, UTF_8).split("\n")) {
+      final int tab = line.indexOf('\t');
+      if (tab != -1) {
+        try {
+          result.add(Long.parseLong(line.substring(0, tab)));
+        } catch (NumberFormatException e) {
+          // Not one of ours. Ignore it.
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Tries to create the given lock file. If it already exists but is stale, then takes it over.
+   *
+   * @return true if we now hold the lock
+   */
+  private boolean claim(Path lock) throws IOException {
+    if (tryCreate(lock)) {
+      return true;
+    }
+
+    final FileTime modified;
+    final byte[] owner;
+    try {
+      modified = Files.getLastModifiedTime(lock);
+      owner = Files.readAllBytes(lock);
+    } catch (NoSuchFileException e) {
+      // Its owner just finished with it
+      return tryCreate(lock);
+    }
+    if (!isStale(modified)) {
+      return false;
+    }
+
+    // Move the lock aside atomically. Another worker may have taken over the stale lock and written
+    // a fresh one since we looked, in which case we moved the fresh lock, so check that we moved
+    // the lock we inspected, and if not, put it back and give up.
+    final Path stale = lock.resolveSibling(
+        lock.getFileName() + "." + getOptions().getWorkerId() + ".stale");
+    try {
+      Files.move(lock, stale, StandardCopyOption.ATOMIC_MOVE);
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+    if (!Files.getLastModifiedTime(stale).equals(modified)
+        || !Arrays.equals(Files.readAllBytes(stale), owner)) {
+      try {
+        Files.move(stale, lock);
+      } catch (FileAlreadyExistsException e) {
+        // Yet another worker has claimed it since, so the lock we moved is lost either way, and its
+        // owner will notice at its next append or checkpoint
+        Files.deleteIfExists(stale);
+      }
+      return false;
+    }
+    Files.deleteIfExists(stale);
+    print("taking over stale lock " + lock);
+
+    return tryCreate(lock);
+  }
+
+  /**
+   * Returns true if a lock or results file last modified at the given time has gone stale
+   */
+  private boolean isStale(FileTime modified) {
+    final Instant staleBefore = Instant.now().minus(getOptions().getStaleLockTimeout());
+    return !modified.toInstant().isAfter(staleBefore);
+  }
+
+  private boolean tryCreate(Path lock) throws IOException {
+    try {
+      Files.write(lock, getOptions().getWorkerId().getBytes(UTF_8),
+          StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+      return true;
+    } catch (FileAlreadyExistsException e) {
+      return false;
+    }
+  }
+
+  private void release(Path lock) throws IOException {
+    if (isOurs(lock)) {
+      Files.deleteIfExists(lock);
+    }
+  }
+
+  private boolean isOurs(Path lock) throws IOException {
+    try {
+      return new String(Files.readAllBytes(lock), UTF_8).equals(getOptions().getWorkerId());
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  private static Path stateFile(Path stateDirectory, int shard, String kind) {
+    return stateDirectory.resolve(String.format(Locale.ROOT, "shard-%06d.%s", shard, kind));
+  }
+
+  /**
+   * Makes the given text safe to use as a field in a results line
+   */
+  private static String field(String text) {
+    return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+  }
+
+  private void print(String message) {
+    final PrintStream report = this.report;
+    if (report != null) {
+      report.println("smartcrop4j: " + message);
+    }
+  }
+
+  private ManifestBatchOptions getOptions() {
+    return options;
+  }
+}
@@ -0,0 +1,109 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class ManifestBatchOptions {
+
+  public static ManifestBatchOptionsBuilder builder() {
+    return new ManifestBatchOptionsBuilder();
+  }
+
+  public static ManifestBatchOptions create() {
+    return builder().build();
+  }
+
+  private final int shardSize;
+  private final Duration checkpointInterval;
+  private final Duration staleLockTimeout;
+  private final String workerId;
+
+  /* default */ ManifestBatchOptions(ManifestBatchOptionsBuilder builder) {
+    this.shardSize = requirePositive(builder.getShardSize());
+    this.checkpointInterval = requireNonNull(builder.getCheckpointInterval());
+    if (checkpointInterval.isNegative() || checkpointInterval.isZero()) {
+      throw new IllegalArgumentException("checkpointInterval must be positive");
+    }
+    this.staleLockTimeout = requireNonNull(builder.getStaleLockTimeout());
+    if (staleLockTimeout.compareTo(checkpointInterval.multipliedBy(2L)) < 0) {
+      throw new IllegalArgumentException(
+          "staleLockTimeout must be at least twice checkpointInterval");
+    }
+    this.workerId = requireNonNull(builder.getWorkerId());
+    if (workerId.isEmpty() || workerId.chars().anyMatch(Character::isWhitespace)) {
+      throw new IllegalArgumentException("workerId must be non-empty and contain no whitespace");
+    }
+  }
+
+  public int getShardSize() {
+    return shardSize;
+  }
+
+  public Duration getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  public Duration getStaleLockTimeout() {
+    return staleLockTimeout;
+  }
+
+  public String getWorkerId() {
+    return workerId;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ManifestBatchOptions)) {
+      return false;
+    }
+    ManifestBatchOptions that = (ManifestBatchOptions) o;
+    return getShardSize() == that.getShardSize()
+        && Objects.equals(getCheckpointInterval(), that.getCheckpointInterval())
+        && Objects.equals(getStaleLockTimeout(), that.getStaleLockTimeout())
+        && Objects.equals(getWorkerId(), that.getWorkerId());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getShardSize(), getCheckpointInterval(), getStaleLockTimeout(),
+        getWorkerId());
+  }
+
+  @Override
+  public String toString() {
+    return "ManifestBatchOptions{" + "shardSize=" + shardSize + ", checkpointInterval="
+        + checkpointInterval + ", staleLockTimeout=" + staleLockTimeout + ", workerId='"
+        + workerId + '\'' + '}';
+  }
+}
@@ -0,0 +1,144 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Objects;
+
+public class ManifestBatchOptionsBuilder {
+
+  private int shardSize = 1000;
+  private Duration checkpointInterval = Duration.ofSeconds(10L);
+  private Duration staleLockTimeout = Duration.ofMinutes(5L);
+  private String workerId = defaultWorkerId();
+
+  public ManifestBatchOptionsBuilder() {
+  }
+
+  public ManifestBatchOptionsBuilder(ManifestBatchOptions that) {
+    setShardSize(that.getShardSize());
+    setCheckpointInterval(that.getCheckpointInterval());
+    setStaleLockTimeout(that.getStaleLockTimeout());
+    setWorkerId(that.getWorkerId());
+  }
+
+  public int getShardSize() {
+    return shardSize;
+  }
+
+  public Duration getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  public Duration getStaleLockTimeout() {
+    return staleLockTimeout;
+  }
+
+  public String getWorkerId() {
+    return workerId;
+  }
+
+  /**
+   * The number of manifest lines in each shard. Every worker must use the same shard size.
+   */
+  public ManifestBatchOptionsBuilder setShardSize(int shardSize) {
+    this.shardSize = shardSize;
+    return this;
+  }
+
+  /**
+   * How often a worker makes its finished items durable and refreshes its shard lock. At most this
+   * much work is redone after a crash.
+   */
+  public ManifestBatchOptionsBuilder setCheckpointInterval(Duration checkpointInterval) {
+    this.checkpointInterval = checkpointInterval;
+    return this;
+  }
+
+  /**
+   * How long a shard lock can go without a refresh before other workers assume its owner died and
+   * take over the shard
+   */
+  public ManifestBatchOptionsBuilder setStaleLockTimeout(Duration staleLockTimeout) {
+    this.staleLockTimeout = staleLockTimeout;
+    return this;
+  }
+
+  /**
+   * Identifies this worker in lock files. Defaults to the host name and process ID.
+   */
+  public ManifestBatchOptionsBuilder setWorkerId(String workerId) {
+    this.workerId = workerId;
+    return this;
+  }
+
+  public ManifestBatchOptions build() {
+    return new ManifestBatchOptions(this);
+  }
+
+  private static String defaultWorkerId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      host = "localhost";
+    }
+    return host.replaceAll("\\s+", "_") + "-" + ProcessHandle.current().pid();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ManifestBatchOptionsBuilder)) {
+      return false;
+    }
+    ManifestBatchOptionsBuilder that = (ManifestBatchOptionsBuilder) o;
+    return getShardSize() == that.getShardSize()
+        && Objects.equals(getCheckpointInterval(), that.getCheckpointInterval())
+        && Objects.equals(getStaleLockTimeout(), that.getStaleLockTimeout())
+        && Objects.equals(getWorkerId(), that.getWorkerId());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getShardSize(), getCheckpointInterval(), getStaleLockTimeout(),
+        getWorkerId());
+  }
+
+  @Override
+  public String toString() {
+    return "ManifestBatchOptionsBuilder{" +
+        "shardSize=" + shardSize +
+        ", checkpointInterval=" + checkpointInterval +
+        ", staleLockTimeout=" + staleLockTimeout +
+        ", workerId='" + workerId + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,400 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches a drop directory and crops new or changed images as they arrive, until interrupted. This
+ * keeps one warm JVM around for images that arrive in bursts, instead of paying for startup and JIT
+ * warm-up on every run of a scheduled job.
+ *
+ * <p>
+ * Files are often written slowly, so a file is only cropped once its size and modification time
+ * have stayed the same for a {@link WatchFolderOptions#getQuietPeriod() quiet period}. Each file's
+ * content hash (SHA-256) is recorded in an index in the output directory when it is cropped, and a
+ * file whose content has not changed since it was last cropped is skipped, even across restarts.
+ * Ready files are cropped in batches with the same staged pipeline as
+ * {@link DirectoryBatchCropper}, and written to the same relative path under the output directory.
+ * A file that fails is retried the next time it changes.
+ */
+public class WatchFolderCropper {
+
+  /**
+   * Usage: {@code WatchFolderCropper [options] <drop-dir> <output-dir> <width> <height>}. The
+   * options are {@code --quiet-period-ms=N}, plus the pipeline options of
+   * {@link DirectoryBatchCropper#main(String[])}. Runs until killed.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    final DirectoryBatchOptionsBuilder pipelineOptions = DirectoryBatchOptions.builder();
+    final WatchFolderOptionsBuilder options = WatchFolderOptions.builder();
+    final List<String> positional = new ArrayList<>();
+    try {
+      for (String arg : args) {
+        if (!arg.startsWith("--")) {
+          positional.add(arg);
+          continue;
+        }
+        final int eq = arg.indexOf('=');
+        if (eq == -1) {
+          throw new IllegalArgumentException("option must have value: " + arg);
+        }
+        final String name = arg.substring(2, eq);
+        final String value = arg.substring(eq + 1);
+        if (name.equals("quiet-period-ms")) {
+          options.setQuietPeriod(Duration.ofMillis(Long.parseLong(value)));
+        } else if (!DirectoryBatchCropper.setPipelineOption(pipelineOptions, name, value)) {
+          throw new IllegalArgumentException("unrecognized option: " + arg);
+        }
+      }
+      if (positional.size() != 4) {
+        throw new IllegalArgumentException("expected 4 arguments");
+      }
+    } catch (IllegalArgumentException | ArithmeticException e) {
+      System.err.println(e.getMessage());
+      System.err.println(
+          "usage: WatchFolderCropper [options] <drop-dir> <output-dir> <width> <height>");
+      System.exit(2);
+      return;
+    }
+
+    new WatchFolderCropper(new DefaultSmartCropper(), pipelineOptions.build(), options.build(),
+        System.err).run(Paths.get(positional.get(0)), Paths.get(positional.get(1)),
+        Integer.parseInt(positional.get(2)), Integer.parseInt(positional.get(3)));
+  }
+
+  /**
+   * The name of the content hash index in the output directory
+   */
+  public static final String INDEX_FILE_NAME = ".smartcrop4j-index";
+
+  private final CropPipeline pipeline;
+  private final WatchFolderOptions options;
+  private final PrintStream report;
+
+  public WatchFolderCropper() {
+    this(new DefaultSmartCropper(), DirectoryBatchOptions.create(), WatchFolderOptions.create(),
+        System.err);
+  }
+
+  /**
+   * @param cropper         the cropper
+   * @param pipelineOptions the options for the pipeline that crops each batch of ready files
+   * @param options         the options
+   * @param report          where to print progress and failures, or null for nowhere
+   */
+  public WatchFolderCropper(DefaultSmartCropper cropper, DirectoryBatchOptions pipelineOptions,
+      WatchFolderOptions options, PrintStream report) {
+    this.pipeline = new CropPipeline(cropper, pipelineOptions, report);
+    this.options = requireNonNull(options);
+    this.report = report;
+  }
+
+  /**
+   * A file that has changed recently, and what it looked like when we last checked
+   */
+  private static final class Pending {
+
+    public long size;
+    public long modified;
+    public long stableSinceNanos;
+
+    public Pending(long size, long modified, long stableSinceNanos) {
+      this.size = size;
+      this.modified = modified;
+      this.stableSinceNanos = stableSinceNanos;
+    }
+  }
+
+  /**
+   * Watches the drop directory and crops images to the given size until interrupted.
+   *
+   * @param dropDirectory   the directory to watch, recursively
+   * @param outputDirectory the directory to write cropped images to
+   * @param width           the width of the cropped images
+   * @param height          the height of the cropped images
+   * @throws IOException          if the directories cannot be watched or the index cannot be
+   *                              written
+   * @throws InterruptedException when interrupted, which is the normal way to stop
+   */
+  public void run(Path dropDirectory, Path outputDirectory, int width, int height)
+      throws IOException, InterruptedException {
+    final Path drop = dropDirectory.toAbsolutePath().normalize();
+    final Path output = outputDirectory.toAbsolutePath().normalize();
+    requirePositive(width);
+    requirePositive(height);
+    if (!Files.isDirectory(drop)) {
+      throw new IllegalArgumentException("dropDirectory must be a directory");
+    }
+    Files.createDirectories(output);
+
+    final Path indexFile = output.resolve(INDEX_FILE_NAME);
+    final Map<Path, String> index = readIndex(indexFile);
+    final Map<Path, Pending> pending = new HashMap<>();
+    final long quietNanos = getOptions().getQuietPeriod().toNanos();
+    final long tickMillis = Math.max(getOptions().getQuietPeriod().toMillis() / 4L, 10L);
+
+    try (WatchService watcher = FileSystems.getDefault().newWatchService();
+        BufferedWriter indexWriter = Files.newBufferedWriter(indexFile, UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      final Map<WatchKey, Path> keys = new HashMap<>();
+      register(watcher, keys, drop, output, getOptions().isInitialScan() ? pending : null);
+      print("watching " + drop);
+
+      while (true) {
+        WatchKey key = watcher.poll(tickMillis, TimeUnit.MILLISECONDS);
+        while (key != null) {
+          final Path directory = keys.get(key);
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+              // We missed events, so look at everything again. The index prevents rework.
+              register(watcher, keys, drop, output, pending);
+              continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            if (path.startsWith(output)) {
+              continue;
+            }
+            if (Files.isDirectory(path)) {
+              register(watcher, keys, path, output, pending);
+            } else if (BatchFiles.isImageFile(path)) {
+              pending.putIfAbsent(path, new Pending(-1L, -1L, System.nanoTime()));
+            }
+          }
+          if (!key.reset()) {
+            keys.remove(key);
+          }
+          key = watcher.poll();
+        }
+
+        final List<Path> ready = ready(pending, quietNanos);
+        if (!ready.isEmpty()) {
+          crop(ready, drop, output, width, height, index, indexWriter);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // Someone closed the watcher from under us, which is as good as an interrupt
+      throw new InterruptedException();
+    }
+  }
+
+  /**
+   * Watches the given directory and its subdirectories, and marks their images as pending
+   */
+  private void register(WatchService watcher, Map<WatchKey, Path> keys, Path directory,
+      Path output, Map<Path, Pending> pending) throws IOException {
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir,
+          BasicFileAttributes attrs) throws IOException {
+        if (dir.startsWith(output)) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        keys.put(dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY), dir);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (pending != null && BatchFiles.isImageFile(file)) {
+          pending.putIfAbsent(file, new Pending(-1L, -1L, System.nanoTime()));
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+        // It was probably deleted while we were looking at it
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Removes and returns the pending files whose size and modification time have not changed for
+   * the quiet period
+   */
+  private static List<Path> ready(Map<Path, Pending> pending, long quietNanos) {
+    final long now = System.nanoTime();
+    final List<Path> result = new ArrayList<>();
+    for (Iterator<Map.Entry<Path, Pending>> i = pending.entrySet().iterator(); i.hasNext(); ) {
+      final Map.Entry<Path, Pending> entry = i.next();
+      final Pending p = entry.getValue();
+      final BasicFileAttributes attributes;
+      try {
+        attributes = Files.readAttributes(entry.getKey(), BasicFileAttributes.class);
+      } catch (IOException e) {
+        // Deleted or renamed before it settled
+        i.remove();
+        continue;
+      }
+      final long size = attributes.size();
+      final long modified = attributes.lastModifiedTime().toMillis();
+      if (size != p.size || modified != p.modified) {
+        p.size = size;
+        p.modified = modified;
+        p.stableSinceNanos = now;
+      } else if (now - p.stableSinceNanos >= quietNanos) {
+        result.add(entry.getKey());
+        i.remove();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Crops the given ready files, skipping those whose content is unchanged, and records the rest
+   * in the index once they succeed
+   */
+  private void crop(List<Path> ready, Path drop, Path output, int width, int height,
+      Map<Path, String> index, BufferedWriter indexWriter)
+      throws IOException, InterruptedException {
+    final Map<Path, String> hashes = new ConcurrentHashMap<>();
+    final List<CropPipeline.Task> tasks = new ArrayList<>();
+    for (Path file : ready) {
+      final Path relative = drop.relativize(file);
+      final String hash;
+      try {
+        hash = sha256(file);
+      } catch (NoSuchFileException e) {
+        continue;
+      }
+      if (hash.equals(index.get(relative))) {
+        print("skipping unchanged " + relative);
+        continue;
+      }
+      hashes.put(relative, hash);
+      tasks.add(new CropPipeline.Task(file, output.resolve(relative), tasks.size()));
+    }
+    if (tasks.isEmpty()) {
+      return;
+    }
+
+    pipeline.run(tasks.iterator(), width, height, new CropPipeline.Listener() {
+      @Override
+      public void succeeded(CropPipeline.Task task, Crop crop) throws IOException {
+        final Path relative = drop.relativize(task.input);
+        final String hash = hashes.get(relative);
+        synchronized (indexWriter) {
+          index.put(relative, hash);
+          indexWriter.write(hash + "\t" + relative + "\n");
+          indexWriter.flush();
+        }
+      }
+
+      @Override
+      public void failed(CropPipeline.Task task, Exception cause) {
+      }
+    });
+  }
+
+  /**
+   * Reads the index of content hashes by relative path. Later lines win.
+   */
+  private static Map<Path, String> readIndex(Path indexFile) throws IOException {
+    final Map<Path, String> result = new ConcurrentHashMap<>();
+    if (!Files.exists(indexFile)) {
+      return result;
+    }
+    try (Stream<String> lines = Files.lines(indexFile, UTF_8)) {
+      lines.forEach(line -> {
+        final int tab = line.indexOf('\t');
+        if (tab != -1) {
+          result.put(Paths.get(line.substring(tab + 1)), line.substring(0, tab));
+        }
+      });
+    }
+    return result;
+  }
+
+  private static String sha256(Path file) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM is required to support SHA-256
+      throw new AssertionError(e);
+    }
+    final byte[] buffer = new byte[65536];
+    try (InputStream in = Files.newInputStream(file)) {
+      for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+        digest.update(buffer, 0, n);
+      }
+    }
+    final StringBuilder result = new StringBuilder();
+    for (byte b : digest.digest()) {
+      result.append(Character.forDigit((b >>> 4) & 0xf, 16))
+          .append(Character.forDigit(b & 0xf, 16));
+    }
+    return result.toString();
+  }
+
+  private void print(String message) {
+    final PrintStream report = this.report;
+    if (report != null) {
+      report.println("smartcrop4j: " + message);
+    }
+  }
+
+  private WatchFolderOptions getOptions() {
+    return options;
+  }
+}
@@ -0,0 +1,85 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class WatchFolderOptions {
+
+  public static WatchFolderOptionsBuilder builder() {
+    return new WatchFolderOptionsBuilder();
+  }
+
+  public static WatchFolderOptions create() {
+    return builder().build();
+  }
+
+  private final Duration quietPeriod;
+  private final boolean initialScan;
+
+  /* default */ WatchFolderOptions(WatchFolderOptionsBuilder builder) {
+    this.quietPeriod = requireNonNull(builder.getQuietPeriod());
+    if (quietPeriod.isNegative() || quietPeriod.isZero()) {
+      throw new IllegalArgumentException("quietPeriod must be positive");
+    }
+    this.initialScan = builder.isInitialScan();
+  }
+
+  public Duration getQuietPeriod() {
+    return quietPeriod;
+  }
+
+  public boolean isInitialScan() {
+    return initialScan;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof WatchFolderOptions)) {
+      return false;
+    }
+    WatchFolderOptions that = (WatchFolderOptions) o;
+    return isInitialScan() == that.isInitialScan()
+        && Objects.equals(getQuietPeriod(), that.getQuietPeriod());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getQuietPeriod(), isInitialScan());
+  }
+
+  @Override
+  public String toString() {
+    return "WatchFolderOptions{" + "quietPeriod=" + quietPeriod + ", initialScan=" + initialScan
+        + '}';
+  }
+}
@@ -0,0 +1,270 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.flow;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.impl.DefaultCropResult;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.util.BufferedImages;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+/**
+ * A {@link Flow.Processor} that crops a stream of images. Each {@link CropRequest} passes through
+ * three stages, each with its own threads: decode, which reads the image from bytes or a file;
+ * crop, which analyzes and scores the image with a {@link DefaultSmartCropper}; and encode, which
+ * crops the image and encodes it in the requested output format, if any. Each request produces
+ * exactly one {@link CropResponse}, which holds either the result or the error that stopped the
+ * request. Responses are published in the order they finish, not the order they arrived.
+ *
+ * <p>
+ * The processor only requests more images from upstream as responses are published, and it never
+ * has more than {@link CropProcessorOptions#getMaxInFlight() maxInFlight} requests in progress. If
+ * downstream subscribers fall behind, then publishing blocks once their
+ * {@link CropProcessorOptions#getOutputBufferCapacity() buffers} fill, which in turn stops new
+ * requests from upstream. So slow consumers never cause full-resolution images to pile up.
+ *
+ * <p>
+ * The processor closes itself, and releases its threads, when upstream completes and all
+ * outstanding requests have been published.
+ */
+public class CropProcessor extends SubmissionPublisher<CropResponse> implements
+    Flow.Processor<CropRequest, CropResponse> {
+
+  private final DefaultSmartCropper cropper;
+  private final CropProcessorOptions options;
+  private final ExecutorService decodeExecutor;
+  private final ExecutorService cropExecutor;
+  private final ExecutorService encodeExecutor;
+  private final AtomicInteger inFlight;
+  private final AtomicBoolean finished;
+  private volatile Flow.Subscription subscription;
+  private volatile boolean upstreamDone;
+  private volatile Throwable upstreamError;
+
+  public CropProcessor() {
+    this(new DefaultSmartCropper(), CropProcessorOptions.create());
+  }
+
+  public CropProcessor(DefaultSmartCropper cropper, CropProcessorOptions options) {
+    super(ForkJoinPool.commonPool(), options.getOutputBufferCapacity());
+    this.cropper = requireNonNull(cropper);
+    this.options = requireNonNull(options);
+    this.decodeExecutor = newStageExecutor("decode", options.getDecodeConcurrency());
+    this.cropExecutor = newStageExecutor("crop", options.getCropConcurrency());
+    this.encodeExecutor = newStageExecutor("encode", options.getEncodeConcurrency());
+    this.inFlight = new AtomicInteger();
+    this.finished = new AtomicBoolean(false);
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (this.subscription != null) {
+      // We only support one upstream
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    subscription.request(getOptions().getMaxInFlight());
+  }
+
+  @Override
+  public void onNext(CropRequest request) {
+    inFlight.incrementAndGet();
+    CompletableFuture.supplyAsync(() -> decode(request), decodeExecutor)
+        .thenApplyAsync(image -> crop(request, image), cropExecutor)
+        .thenApplyAsync(cropped -> encode(request, cropped), encodeExecutor)
+        .exceptionally(e -> CropResponse.failure(request, unwrap(e)))
+        .thenAccept(this::publish);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    upstreamError = throwable;
+    upstreamDone = true;
+    if (inFlight.get() == 0) {
+      finish();
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    upstreamDone = true;
+    if (inFlight.get() == 0) {
+      finish();
+    }
+  }
+
+  /**
+   * Closes the processor, cancels the upstream subscription if it is still active, and releases the
+   * processor's threads. Requests still in progress are abandoned.
+   */
+  @Override
+  public void close() {
+    super.close();
+    shutdown();
+  }
+
+  @Override
+  public void closeExceptionally(Throwable error) {
+    super.closeExceptionally(error);
+    shutdown();
+  }
+
+  private static final class Cropped {
+
+    public final BufferedImage image;
+    public final DefaultCropResult result;
+
+    public Cropped(BufferedImage image, DefaultCropResult result) {
+      this.image = image;
+      this.result = result;
+    }
+  }
+
+  private BufferedImage decode(CropRequest request) {
+    if (request.getImage().isPresent()) {
+      return request.getImage().get();
+    }
+
+    BufferedImage result;
+    try {
+      if (request.getBytes().isPresent()) {
+        result = ImageIO.read(new ByteArrayInputStream(request.getBytes().get()));
+      } else {
+        result = ImageIO.read(request.getFile().orElseThrow());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (result == null) {
+      throw new IllegalArgumentException("request must contain a valid image");
+    }
+
+    return result;
+  }
+
+  private Cropped crop(CropRequest request, BufferedImage image) {
+    return new Cropped(image, getCropper().crop(image, request.getAspectWidth(),
+        request.getAspectHeight(), request.getBoosts()));
+  }
+
+  private CropResponse encode(CropRequest request, Cropped cropped) {
+    if (request.getOutputFormat().isEmpty()) {
+      return CropResponse.success(request, cropped.result, null);
+    }
+
+    final String outputFormat = request.getOutputFormat().get();
+    final BufferedImage croppedImage = BufferedImages.cropped(cropped.image,
+        cropped.result.getTopCrop());
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      if (!ImageIO.write(croppedImage, outputFormat, bytes)) {
+        throw new IllegalArgumentException("no image writer for format " + outputFormat);
+      }
+    } catch (IOException e) {
+      // ByteArrayOutputStream does not throw, but image writers can
+      throw new UncheckedIOException(e);
+    }
+
+    return CropResponse.success(request, cropped.result, bytes.toByteArray());
+  }
+
+  private void publish(CropResponse response) {
+    try {
+      if (!isClosed()) {
+        // Blocks if any subscriber's buffer is full, which is how we push back on upstream
+        submit(response);
+      }
+    } finally {
+      if (inFlight.decrementAndGet() == 0 && upstreamDone) {
+        finish();
+      } else if (!upstreamDone) {
+        subscription.request(1L);
+      }
+    }
+  }
+
+  private void finish() {
+    if (finished.compareAndSet(false, true)) {
+      Throwable error = upstreamError;
+      if (error != null) {
+        closeExceptionally(error);
+      } else {
+        close();
+      }
+    }
+  }
+
+  private void shutdown() {
+    final Flow.Subscription subscription = this.subscription;
+    if (subscription != null && !upstreamDone) {
+      upstreamDone = true;
+      subscription.cancel();
+    }
+    decodeExecutor.shutdown();
+    cropExecutor.shutdown();
+    encodeExecutor.shutdown();
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    if (e instanceof CompletionException && e.getCause() != null) {
+      return e.getCause();
+    }
+    return e;
+  }
+
+  private static ExecutorService newStageExecutor(String stage, int threads) {
+    final AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread result = new Thread(r, "smartcrop4j-" + stage + "-" + count.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    });
+  }
+
+  private DefaultSmartCropper getCropper() {
+    return cropper;
+  }
+
+  private CropProcessorOptions getOptions() {
+    return options;
+  }
+}
@@ -0,0 +1,104 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.flow;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+
+import java.util.Objects;
+
+public class CropProcessorOptions {
+
+  public static CropProcessorOptionsBuilder builder() {
+    return new CropProcessorOptionsBuilder();
+  }
+
+  public static CropProcessorOptions create() {
+    return builder().build();
+  }
+
+  private final int decodeConcurrency;
+  private final int cropConcurrency;
+  private final int encodeConcurrency;
+  private final int maxInFlight;
+  private final int outputBufferCapacity;
+
+  /* default */ CropProcessorOptions(CropProcessorOptionsBuilder builder) {
+    this.decodeConcurrency = requirePositive(builder.getDecodeConcurrency());
+    this.cropConcurrency = requirePositive(builder.getCropConcurrency());
+    this.encodeConcurrency = requirePositive(builder.getEncodeConcurrency());
+    this.maxInFlight = requirePositive(builder.getMaxInFlight());
+    this.outputBufferCapacity = requirePositive(builder.getOutputBufferCapacity());
+  }
+
+  public int getDecodeConcurrency() {
+    return decodeConcurrency;
+  }
+
+  public int getCropConcurrency() {
+    return cropConcurrency;
+  }
+
+  public int getEncodeConcurrency() {
+    return encodeConcurrency;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  public int getOutputBufferCapacity() {
+    return outputBufferCapacity;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropProcessorOptions)) {
+      return false;
+    }
+    CropProcessorOptions that = (CropProcessorOptions) o;
+    return getDecodeConcurrency() == that.getDecodeConcurrency()
+        && getCropConcurrency() == that.getCropConcurrency()
+        && getEncodeConcurrency() == that.getEncodeConcurrency()
+        && getMaxInFlight() == that.getMaxInFlight()
+        && getOutputBufferCapacity() == that.getOutputBufferCapacity();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getDecodeConcurrency(), getCropConcurrency(), getEncodeConcurrency(),
+        getMaxInFlight(), getOutputBufferCapacity());
+  }
+
+  @Override
+  public String toString() {
+    return "CropProcessorOptions{" + "decodeConcurrency=" + decodeConcurrency
+        + ", cropConcurrency=" + cropConcurrency + ", encodeConcurrency=" + encodeConcurrency
+        + ", maxInFlight=" + maxInFlight + ", outputBufferCapacity=" + outputBufferCapacity + '}';
+  }
+}
@@ -0,0 +1,146 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.flow;
+
+import java.util.Objects;
+
+public class CropProcessorOptionsBuilder {
+
+  private int decodeConcurrency = 2;
+  private int cropConcurrency = Runtime.getRuntime().availableProcessors();
+  private int encodeConcurrency = 2;
+  private int maxInFlight = 16;
+  private int outputBufferCapacity = 16;
+
+  public CropProcessorOptionsBuilder() {
+  }
+
+  public CropProcessorOptionsBuilder(CropProcessorOptions that) {
+    setDecodeConcurrency(that.getDecodeConcurrency());
+    setCropConcurrency(that.getCropConcurrency());
+    setEncodeConcurrency(that.getEncodeConcurrency());
+    setMaxInFlight(that.getMaxInFlight());
+    setOutputBufferCapacity(that.getOutputBufferCapacity());
+  }
+
+  public int getDecodeConcurrency() {
+    return decodeConcurrency;
+  }
+
+  public int getCropConcurrency() {
+    return cropConcurrency;
+  }
+
+  public int getEncodeConcurrency() {
+    return encodeConcurrency;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  public int getOutputBufferCapacity() {
+    return outputBufferCapacity;
+  }
+
+  /**
+   * The number of threads that decode images from bytes or files
+   */
+  public CropProcessorOptionsBuilder setDecodeConcurrency(int decodeConcurrency) {
+    this.decodeConcurrency = decodeConcurrency;
+    return this;
+  }
+
+  /**
+   * The number of threads that analyze and score images
+   */
+  public CropProcessorOptionsBuilder setCropConcurrency(int cropConcurrency) {
+    this.cropConcurrency = cropConcurrency;
+    return this;
+  }
+
+  /**
+   * The number of threads that crop and encode images for requests with an output format
+   */
+  public CropProcessorOptionsBuilder setEncodeConcurrency(int encodeConcurrency) {
+    this.encodeConcurrency = encodeConcurrency;
+    return this;
+  }
+
+  /**
+   * The most requests the processor will accept from upstream before their responses have been
+   * published. This bounds the number of decoded images in memory, across all stages.
+   */
+  public CropProcessorOptionsBuilder setMaxInFlight(int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+    return this;
+  }
+
+  /**
+   * The most responses to buffer for each downstream subscriber that has not requested them yet
+   */
+  public CropProcessorOptionsBuilder setOutputBufferCapacity(int outputBufferCapacity) {
+    this.outputBufferCapacity = outputBufferCapacity;
+    return this;
+  }
+
+  public CropProcessorOptions build() {
+    return new CropProcessorOptions(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropProcessorOptionsBuilder)) {
+      return false;
+    }
+    CropProcessorOptionsBuilder that = (CropProcessorOptionsBuilder) o;
+    return getDecodeConcurrency() == that.getDecodeConcurrency()
+        && getCropConcurrency() == that.getCropConcurrency()
+        && getEncodeConcurrency() == that.getEncodeConcurrency()
+        && getMaxInFlight() == that.getMaxInFlight()
+        && getOutputBufferCapacity() == that.getOutputBufferCapacity();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getDecodeConcurrency(), getCropConcurrency(), getEncodeConcurrency(),
+        getMaxInFlight(), getOutputBufferCapacity());
+  }
+
+  @Override
+  public String toString() {
+    return "CropProcessorOptionsBuilder{" +
+        "decodeConcurrency=" + decodeConcurrency +
+        ", cropConcurrency=" + cropConcurrency +
+        ", encodeConcurrency=" + encodeConcurrency +
+        ", maxInFlight=" + maxInFlight +
+        ", outputBufferCapacity=" + outputBufferCapacity +
+        '}';
+  }
+}
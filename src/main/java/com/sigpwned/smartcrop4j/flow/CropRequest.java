@@ -0,0 +1,193 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.flow;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * An image to crop with a {@link CropProcessor}. The image can be given as encoded bytes, as a
+ * file, or as an already-decoded {@link BufferedImage}.
+ */
+public class CropRequest {
+
+  /**
+   * Creates a request to crop the image encoded in the given bytes.
+   *
+   * @param id           an identifier for the request, to correlate it with its response, or null
+   * @param bytes        the encoded image, in any format {@link javax.imageio.ImageIO} can read
+   * @param aspectWidth  the width of the crop aspect ratio
+   * @param aspectHeight the height of the crop aspect ratio
+   * @return the request
+   */
+  public static CropRequest ofBytes(String id, byte[] bytes, int aspectWidth, int aspectHeight) {
+    return new CropRequest(id, requireNonNull(bytes), null, null, aspectWidth, aspectHeight,
+        Collections.emptyList(), null);
+  }
+
+  /**
+   * Creates a request to crop the image in the given file.
+   *
+   * @param id           an identifier for the request, to correlate it with its response, or null
+   * @param file         the image file, in any format {@link javax.imageio.ImageIO} can read
+   * @param aspectWidth  the width of the crop aspect ratio
+   * @param aspectHeight the height of the crop aspect ratio
+   * @return the request
+   */
+  public static CropRequest ofFile(String id, File file, int aspectWidth, int aspectHeight) {
+    return new CropRequest(id, null, requireNonNull(file), null, aspectWidth, aspectHeight,
+        Collections.emptyList(), null);
+  }
+
+  /**
+   * Creates a request to crop the given image.
+   *
+   * @param id           an identifier for the request, to correlate it with its response, or null
+   * @param image        the image
+   * @param aspectWidth  the width of the crop aspect ratio
+   * @param aspectHeight the height of the crop aspect ratio
+   * @return the request
+   */
+  public static CropRequest ofImage(String id, BufferedImage image, int aspectWidth,
+      int aspectHeight) {
+    return new CropRequest(id, null, null, requireNonNull(image), aspectWidth, aspectHeight,
+        Collections.emptyList(), null);
+  }
+
+  private final String id;
+  private final byte[] bytes;
+  private final File file;
+  private final BufferedImage image;
+  private final int aspectWidth;
+  private final int aspectHeight;
+  private final List<CropBoost> boosts;
+  private final String outputFormat;
+
+  private CropRequest(String id, byte[] bytes, File file, BufferedImage image, int aspectWidth,
+      int aspectHeight, List<CropBoost> boosts, String outputFormat) {
+    this.id = id;
+    this.bytes = bytes;
+    this.file = file;
+    this.image = image;
+    this.aspectWidth = requirePositive(aspectWidth);
+    this.aspectHeight = requirePositive(aspectHeight);
+    this.boosts = Collections.unmodifiableList(requireNonNull(boosts));
+    this.outputFormat = outputFormat;
+  }
+
+  /**
+   * Returns a copy of this request with the given boosts.
+   */
+  public CropRequest withBoosts(List<CropBoost> boosts) {
+    return new CropRequest(id, bytes, file, image, aspectWidth, aspectHeight, boosts,
+        outputFormat);
+  }
+
+  /**
+   * Returns a copy of this request that also encodes the cropped image in the given format, e.g.,
+   * "png", or does not encode it if the format is null.
+   */
+  public CropRequest withOutputFormat(String outputFormat) {
+    return new CropRequest(id, bytes, file, image, aspectWidth, aspectHeight, boosts,
+        outputFormat);
+  }
+
+  public Optional<String> getId() {
+    return Optional.ofNullable(id);
+  }
+
+  public Optional<byte[]> getBytes() {
+    return Optional.ofNullable(bytes);
+  }
+
+  public Optional<File> getFile() {
+    return Optional.ofNullable(file);
+  }
+
+  public Optional<BufferedImage> getImage() {
+    return Optional.ofNullable(image);
+  }
+
+  public int getAspectWidth() {
+    return aspectWidth;
+  }
+
+  public int getAspectHeight() {
+    return aspectHeight;
+  }
+
+  public List<CropBoost> getBoosts() {
+    return boosts;
+  }
+
+  public Optional<String> getOutputFormat() {
+    return Optional.ofNullable(outputFormat);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropRequest)) {
+      return false;
+    }
+    CropRequest that = (CropRequest) o;
+    return getAspectWidth() == that.getAspectWidth()
+        && getAspectHeight() == that.getAspectHeight() && Objects.equals(id, that.id)
+        && bytes == that.bytes && Objects.equals(file, that.file) && image == that.image
+        && Objects.equals(getBoosts(), that.getBoosts())
+        && Objects.equals(outputFormat, that.outputFormat);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, System.identityHashCode(bytes), file, System.identityHashCode(image),
+        getAspectWidth(), getAspectHeight(), getBoosts(), outputFormat);
+  }
+
+  @Override
+  public String toString() {
+    return "CropRequest{" +
+        "id=" + id +
+        ", bytes=" + (bytes != null ? bytes.length + " bytes" : null) +
+        ", file=" + file +
+        ", image=" + image +
+        ", aspectWidth=" + aspectWidth +
+        ", aspectHeight=" + aspectHeight +
+        ", boosts=" + boosts +
+        ", outputFormat=" + outputFormat +
+        '}';
+  }
+}
@@ -0,0 +1,119 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.flow;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.impl.DefaultCropResult;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The outcome of one {@link CropRequest}. A response either has a result, and possibly the cropped
+ * image encoded in the requested format, or an error.
+ */
+public class CropResponse {
+
+  public static CropResponse success(CropRequest request, DefaultCropResult result,
+      byte[] encoded) {
+    return new CropResponse(request, requireNonNull(result), encoded, null);
+  }
+
+  public static CropResponse failure(CropRequest request, Throwable error) {
+    return new CropResponse(request, null, null, requireNonNull(error));
+  }
+
+  private final CropRequest request;
+  private final DefaultCropResult result;
+  private final byte[] encoded;
+  private final Throwable error;
+
+  private CropResponse(CropRequest request, DefaultCropResult result, byte[] encoded,
+      Throwable error) {
+    this.request = requireNonNull(request);
+    this.result = result;
+    this.encoded = encoded;
+    this.error = error;
+  }
+
+  public CropRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * Returns the crop result, or empty if the request failed
+   */
+  public Optional<DefaultCropResult> getResult() {
+    return Optional.ofNullable(result);
+  }
+
+  /**
+   * Returns the cropped image encoded in the request's output format, or empty if the request did
+   * not ask for one or failed
+   */
+  public Optional<byte[]> getEncoded() {
+    return Optional.ofNullable(encoded);
+  }
+
+  /**
+   * Returns the reason the request failed, or empty if it succeeded
+   */
+  public Optional<Throwable> getError() {
+    return Optional.ofNullable(error);
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropResponse)) {
+      return false;
+    }
+    CropResponse that = (CropResponse) o;
+    return Objects.equals(getRequest(), that.getRequest()) && Objects.equals(result, that.result)
+        && encoded == that.encoded && Objects.equals(error, that.error);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getRequest(), result, System.identityHashCode(encoded), error);
+  }
+
+  @Override
+  public String toString() {
+    return "CropResponse{" +
+        "request=" + request +
+        ", result=" + result +
+        ", encoded=" + (encoded != null ? encoded.length + " bytes" : null) +
+        ", error=" + error +
+        '}';
+  }
+}
@@ -0,0 +1,281 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.governor;
+
+import static java.util.Objects.requireNonNull;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Admission control for cropping. A full-resolution image takes memory in proportion to its pixel
+ * count, and cropping it takes a CPU, so a service that decodes every image it receives can run out
+ * of memory under load, or when handed one huge image. The governor sits in front of decoding: it
+ * reads only the image's header to learn its dimensions, refuses images that are too big to ever
+ * handle, and then reserves the image's pixels from a global
+ * {@link CropGovernorOptions#getPixelBudget() pixel budget} and one of a fixed number of
+ * {@link CropGovernorOptions#getMaxConcurrency() slots}. If the reservation cannot be made right
+ * away, the caller waits in a bounded, first-come-first-served queue for a bounded time. The
+ * reservation is held until the returned {@link Admission} is closed, which should be after the
+ * image has been cropped and released.
+ *
+ * <p>
+ * Images that are too large are refused with an {@link IllegalArgumentException}, since retrying
+ * them will not help. Callers that cannot be admitted in time are rejected with a
+ * {@link RejectedExecutionException}, since retrying them later may.
+ */
+public class CropGovernor {
+
+  private final CropGovernorOptions options;
+
+  /**
+   * The number of pixels each permit of {@link #pixels} represents, chosen so that the whole budget
+   * fits in an int
+   */
+  private final long pixelsPerPermit;
+  private final Semaphore pixels;
+  private final Semaphore slots;
+  private final AtomicInteger queued;
+
+  public CropGovernor() {
+    this(CropGovernorOptions.create());
+  }
+
+  public CropGovernor(CropGovernorOptions options) {
+    this.options = requireNonNull(options);
+    this.pixelsPerPermit = Math.max(1L,
+        (options.getPixelBudget() + Integer.MAX_VALUE - 1L) / Integer.MAX_VALUE);
+    this.pixels = new Semaphore((int) (options.getPixelBudget() / pixelsPerPermit), true);
+    this.slots = new Semaphore(options.getMaxConcurrency(), true);
+    this.queued = new AtomicInteger();
+  }
+
+  /**
+   * Reads the dimensions of the given encoded image from its header, without decoding it
+   *
+   * @throws IllegalArgumentException if the bytes are not a readable image
+   */
+  public static Dimension readSize(byte[] bytes) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+      final ImageReader reader = reader(in);
+      try {
+        return new Dimension(reader.getWidth(0), reader.getHeight(0));
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Admits the given encoded image, whose dimensions are read from its header, waiting if needed.
+   * The image can then be decoded with {@link Admission#decode()}.
+   *
+   * @throws IllegalArgumentException   if the bytes are not a readable image, or if the image is
+   *                                    too large to ever admit
+   * @throws RejectedExecutionException if the image cannot be admitted in time
+   * @throws InterruptedException       if interrupted while waiting
+   */
+  public Admission admit(byte[] bytes) throws IOException, InterruptedException {
+    final Dimension size = readSize(bytes);
+    return admit(size.width, size.height, bytes);
+  }
+
+  /**
+   * Admits an image of the given size, waiting if needed
+   *
+   * @throws IllegalArgumentException   if the image is too large to ever admit
+   * @throws RejectedExecutionException if the image cannot be admitted in time
+   * @throws InterruptedException       if interrupted while waiting
+   */
+  public Admission admit(int width, int height) throws InterruptedException {
+    return admit(width, height, null);
+  }
+
+  private Admission admit(int width, int height, byte[] bytes) throws InterruptedException {
+    final int permits = permitsFor(width, height);
+
+    // Fast path. The timed forms honor fairness, so this never barges ahead of waiting callers.
+    if (slots.tryAcquire(0L, TimeUnit.NANOSECONDS)) {
+      if (pixels.tryAcquire(permits, 0L, TimeUnit.NANOSECONDS)) {
+        return new Admission(width, height, permits, bytes);
+      }
+      slots.release();
+    }
+
+    if (queued.incrementAndGet() > getOptions().getMaxQueued()) {
+      queued.decrementAndGet();
+      throw new RejectedExecutionException("too many waiting");
+    }
+    try {
+      final long deadline = System.nanoTime() + getOptions().getQueueTimeout().toNanos();
+      if (!slots.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        throw new RejectedExecutionException("timed out waiting for slot");
+      }
+      boolean admitted = false;
+      try {
+        admitted = pixels.tryAcquire(permits, deadline - System.nanoTime(),
+            TimeUnit.NANOSECONDS);
+      } finally {
+        if (!admitted) {
+          slots.release();
+        }
+      }
+      if (!admitted) {
+        throw new RejectedExecutionException("timed out waiting for pixel budget");
+      }
+      return new Admission(width, height, permits, bytes);
+    } finally {
+      queued.decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns the number of permits an image of the given size needs
+   *
+   * @throws IllegalArgumentException if the image is too large to ever admit
+   */
+  private int permitsFor(int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("image must have positive dimensions");
+    }
+    if (width > getOptions().getMaxDimension() || height > getOptions().getMaxDimension()) {
+      throw new IllegalArgumentException(
+          "image dimensions must not exceed " + getOptions().getMaxDimension());
+    }
+    final long count = (long) width * (long) height;
+    if (count > getOptions().getMaxPixels()) {
+      throw new IllegalArgumentException(
+          "image must not have more than " + getOptions().getMaxPixels() + " pixels");
+    }
+    if (count > getOptions().getPixelBudget()) {
+      throw new IllegalArgumentException("image must fit in pixel budget");
+    }
+    return (int) Math.min((count + pixelsPerPermit - 1L) / pixelsPerPermit,
+        (long) Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the number of pixels of the budget that are not reserved right now
+   */
+  public long getAvailablePixels() {
+    return pixels.availablePermits() * pixelsPerPermit;
+  }
+
+  /**
+   * Returns the number of callers waiting for admission right now
+   */
+  public int getQueued() {
+    return queued.get();
+  }
+
+  public CropGovernorOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * A reservation of pixels and a slot for one image, which is released when closed. Closing more
+   * than once has no further effect.
+   */
+  public final class Admission implements AutoCloseable {
+
+    private final int width;
+    private final int height;
+    private final int permits;
+    private final byte[] bytes;
+    private final AtomicBoolean closed;
+
+    private Admission(int width, int height, int permits, byte[] bytes) {
+      this.width = width;
+      this.height = height;
+      this.permits = permits;
+      this.bytes = bytes;
+      this.closed = new AtomicBoolean(false);
+    }
+
+    public int getWidth() {
+      return width;
+    }
+
+    public int getHeight() {
+      return height;
+    }
+
+    /**
+     * Decodes the admitted image with the same reader that read its header, so the decoded image
+     * has the admitted dimensions
+     *
+     * @throws IllegalStateException    if this admission was not made from encoded bytes
+     * @throws IllegalArgumentException if the bytes are not a readable image
+     */
+    public BufferedImage decode() throws IOException {
+      if (bytes == null) {
+        throw new IllegalStateException("admission has no image to decode");
+      }
+      try (ImageInputStream in = ImageIO.createImageInputStream(
+          new ByteArrayInputStream(bytes))) {
+        final ImageReader reader = reader(in);
+        try {
+          // The header was read again, so check it still says what was admitted
+          if (reader.getWidth(0) != width || reader.getHeight(0) != height) {
+            throw new IllegalArgumentException("image dimensions must match admission");
+          }
+          return reader.read(0);
+        } finally {
+          reader.dispose();
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        pixels.release(permits);
+        slots.release();
+      }
+    }
+  }
+
+  private static ImageReader reader(ImageInputStream in) {
+    final Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+    if (readers == null || !readers.hasNext()) {
+      throw new IllegalArgumentException("bytes must contain a valid image");
+    }
+    final ImageReader result = readers.next();
+    result.setInput(in, true, true);
+    return result;
+  }
+}
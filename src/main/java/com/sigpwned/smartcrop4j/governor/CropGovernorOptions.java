@@ -0,0 +1,123 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.governor;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requireNonNegative;
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class CropGovernorOptions {
+
+  public static CropGovernorOptionsBuilder builder() {
+    return new CropGovernorOptionsBuilder();
+  }
+
+  public static CropGovernorOptions create() {
+    return builder().build();
+  }
+
+  private final long pixelBudget;
+  private final int maxConcurrency;
+  private final long maxPixels;
+  private final int maxDimension;
+  private final int maxQueued;
+  private final Duration queueTimeout;
+
+  /* default */ CropGovernorOptions(CropGovernorOptionsBuilder builder) {
+    if (builder.getPixelBudget() < 1L) {
+      throw new IllegalArgumentException("pixelBudget must be positive");
+    }
+    this.pixelBudget = builder.getPixelBudget();
+    this.maxConcurrency = requirePositive(builder.getMaxConcurrency());
+    if (builder.getMaxPixels() < 1L) {
+      throw new IllegalArgumentException("maxPixels must be positive");
+    }
+    this.maxPixels = builder.getMaxPixels();
+    this.maxDimension = requirePositive(builder.getMaxDimension());
+    this.maxQueued = requireNonNegative(builder.getMaxQueued());
+    this.queueTimeout = requireNonNull(builder.getQueueTimeout());
+    if (queueTimeout.isNegative()) {
+      throw new IllegalArgumentException("queueTimeout must not be negative");
+    }
+  }
+
+  public long getPixelBudget() {
+    return pixelBudget;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public long getMaxPixels() {
+    return maxPixels;
+  }
+
+  public int getMaxDimension() {
+    return maxDimension;
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  public Duration getQueueTimeout() {
+    return queueTimeout;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropGovernorOptions)) {
+      return false;
+    }
+    CropGovernorOptions that = (CropGovernorOptions) o;
+    return getPixelBudget() == that.getPixelBudget()
+        && getMaxConcurrency() == that.getMaxConcurrency()
+        && getMaxPixels() == that.getMaxPixels()
+        && getMaxDimension() == that.getMaxDimension()
+        && getMaxQueued() == that.getMaxQueued()
+        && Objects.equals(getQueueTimeout(), that.getQueueTimeout());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getPixelBudget(), getMaxConcurrency(), getMaxPixels(), getMaxDimension(),
+        getMaxQueued(), getQueueTimeout());
+  }
+
+  @Override
+  public String toString() {
+    return "CropGovernorOptions{" + "pixelBudget=" + pixelBudget + ", maxConcurrency="
+        + maxConcurrency + ", maxPixels=" + maxPixels + ", maxDimension=" + maxDimension
+        + ", maxQueued=" + maxQueued + ", queueTimeout=" + queueTimeout + '}';
+  }
+}
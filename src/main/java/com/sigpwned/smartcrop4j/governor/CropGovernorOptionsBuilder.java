@@ -0,0 +1,180 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.governor;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class CropGovernorOptionsBuilder {
+
+  /**
+   * The number of bytes a decoded pixel takes, which is one int in a
+   * {@link java.awt.image.BufferedImage#TYPE_INT_ARGB TYPE_INT_ARGB} image
+   */
+  private static final int BYTES_PER_PIXEL = 4;
+
+  /**
+   * Half the memory available to the process, as pixels
+   */
+  private static long defaultPixelBudget() {
+    return Math.max(1L, ResourceLimits.memory() / 2L / BYTES_PER_PIXEL);
+  }
+
+  private long pixelBudget = defaultPixelBudget();
+  private int maxConcurrency = ResourceLimits.cpus();
+  private long maxPixels = 1L << 28;
+  private int maxDimension = 65535;
+  private int maxQueued = 64;
+  private Duration queueTimeout = Duration.ofSeconds(30L);
+
+  public CropGovernorOptionsBuilder() {
+  }
+
+  public CropGovernorOptionsBuilder(CropGovernorOptions that) {
+    setPixelBudget(that.getPixelBudget());
+    setMaxConcurrency(that.getMaxConcurrency());
+    setMaxPixels(that.getMaxPixels());
+    setMaxDimension(that.getMaxDimension());
+    setMaxQueued(that.getMaxQueued());
+    setQueueTimeout(that.getQueueTimeout());
+  }
+
+  public long getPixelBudget() {
+    return pixelBudget;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public long getMaxPixels() {
+    return maxPixels;
+  }
+
+  public int getMaxDimension() {
+    return maxDimension;
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  public Duration getQueueTimeout() {
+    return queueTimeout;
+  }
+
+  /**
+   * The most full-resolution pixels, summed across images, that may be admitted at once. The
+   * default is half of the smaller of the maximum heap and the cgroup memory limit, at four bytes
+   * per pixel.
+   */
+  public CropGovernorOptionsBuilder setPixelBudget(long pixelBudget) {
+    this.pixelBudget = pixelBudget;
+    return this;
+  }
+
+  /**
+   * The most images that may be admitted at once, regardless of size. The default is the number of
+   * CPUs, limited by the cgroup CPU quota.
+   */
+  public CropGovernorOptionsBuilder setMaxConcurrency(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+    return this;
+  }
+
+  /**
+   * The most pixels a single image may have. Larger images are refused outright, before they are
+   * decoded, which defends against decompression bombs.
+   */
+  public CropGovernorOptionsBuilder setMaxPixels(long maxPixels) {
+    this.maxPixels = maxPixels;
+    return this;
+  }
+
+  /**
+   * The widest or tallest a single image may be. Larger images are refused outright.
+   */
+  public CropGovernorOptionsBuilder setMaxDimension(int maxDimension) {
+    this.maxDimension = maxDimension;
+    return this;
+  }
+
+  /**
+   * The most callers that may wait for admission at once. Callers beyond this are rejected
+   * immediately. Zero means never wait.
+   */
+  public CropGovernorOptionsBuilder setMaxQueued(int maxQueued) {
+    this.maxQueued = maxQueued;
+    return this;
+  }
+
+  /**
+   * How long a caller may wait for admission before it is rejected. Zero means never wait.
+   */
+  public CropGovernorOptionsBuilder setQueueTimeout(Duration queueTimeout) {
+    this.queueTimeout = queueTimeout;
+    return this;
+  }
+
+  public CropGovernorOptions build() {
+    return new CropGovernorOptions(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropGovernorOptionsBuilder)) {
+      return false;
+    }
+    CropGovernorOptionsBuilder that = (CropGovernorOptionsBuilder) o;
+    return getPixelBudget() == that.getPixelBudget()
+        && getMaxConcurrency() == that.getMaxConcurrency()
+        && getMaxPixels() == that.getMaxPixels()
+        && getMaxDimension() == that.getMaxDimension()
+        && getMaxQueued() == that.getMaxQueued()
+        && Objects.equals(getQueueTimeout(), that.getQueueTimeout());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getPixelBudget(), getMaxConcurrency(), getMaxPixels(), getMaxDimension(),
+        getMaxQueued(), getQueueTimeout());
+  }
+
+  @Override
+  public String toString() {
+    return "CropGovernorOptionsBuilder{" +
+        "pixelBudget=" + pixelBudget +
+        ", maxConcurrency=" + maxConcurrency +
+        ", maxPixels=" + maxPixels +
+        ", maxDimension=" + maxDimension +
+        ", maxQueued=" + maxQueued +
+        ", queueTimeout=" + queueTimeout +
+        '}';
+  }
+}
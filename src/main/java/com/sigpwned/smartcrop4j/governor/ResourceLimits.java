@@ -0,0 +1,151 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.governor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+/**
+ * Reads the CPU and memory limits that apply to this process. The JVM already sizes
+ * {@link Runtime#availableProcessors()} and the default heap from container limits, but an explicit
+ * {@code -Xmx} can still exceed the container's memory limit, and an explicit
+ * {@code -XX:ActiveProcessorCount} can exceed its CPU quota. These helpers read the Linux cgroup
+ * (v2 or v1) limits directly so callers can take the smaller of the two.
+ */
+public final class ResourceLimits {
+
+  private ResourceLimits() {
+  }
+
+  /**
+   * Limits at or above this are how cgroup v1 says "unlimited"
+   */
+  private static final long CGROUP_V1_UNLIMITED = Long.MAX_VALUE / 2L;
+
+  /**
+   * Returns the number of bytes of memory this process can use: the smaller of the maximum heap
+   * size and the cgroup memory limit, if any
+   */
+  public static long memory() {
+    final long heap = Runtime.getRuntime().maxMemory();
+    return cgroupMemoryLimit().stream().map(limit -> Math.min(limit, heap)).findFirst()
+        .orElse(heap);
+  }
+
+  /**
+   * Returns the number of CPUs this process can use: the smaller of the available processors and
+   * the cgroup CPU quota, if any, rounded up
+   */
+  public static int cpus() {
+    final int processors = Runtime.getRuntime().availableProcessors();
+    final OptionalInt quota = cgroupCpuLimit();
+    return quota.isPresent() ? Math.max(1, Math.min(quota.getAsInt(), processors)) : processors;
+  }
+
+  /**
+   * Returns the cgroup memory limit in bytes, if there is one
+   */
+  public static OptionalLong cgroupMemoryLimit() {
+    // cgroup v2
+    final Optional<String> max = read(Paths.get("/sys/fs/cgroup/memory.max"));
+    if (max.isPresent()) {
+      return parseLimit(max.get());
+    }
+
+    // cgroup v1
+    final Optional<String> limit = read(
+        Paths.get("/sys/fs/cgroup/memory/memory.limit_in_bytes"));
+    if (limit.isPresent()) {
+      return parseLimit(limit.get());
+    }
+
+    return OptionalLong.empty();
+  }
+
+  /**
+   * Returns the cgroup CPU quota as a whole number of CPUs, rounded up, if there is one
+   */
+  public static OptionalInt cgroupCpuLimit() {
+    // cgroup v2: "$QUOTA $PERIOD", where $QUOTA may be "max"
+    final Optional<String> max = read(Paths.get("/sys/fs/cgroup/cpu.max"));
+    if (max.isPresent()) {
+      final String[] parts = max.get().split("\\s+");
+      if (parts.length == 2) {
+        return cpus(parseLimit(parts[0]), parseLimit(parts[1]));
+      }
+      return OptionalInt.empty();
+    }
+
+    // cgroup v1: quota is -1 if unlimited
+    final Optional<String> quota = read(Paths.get("/sys/fs/cgroup/cpu/cpu.cfs_quota_us"));
+    final Optional<String> period = read(Paths.get("/sys/fs/cgroup/cpu/cpu.cfs_period_us"));
+    if (quota.isPresent() && period.isPresent()) {
+      return cpus(parseLimit(quota.get()), parseLimit(period.get()));
+    }
+
+    return OptionalInt.empty();
+  }
+
+  private static OptionalInt cpus(OptionalLong quota, OptionalLong period) {
+    if (quota.isEmpty() || period.isEmpty() || period.getAsLong() <= 0L) {
+      return OptionalInt.empty();
+    }
+    final long q = quota.getAsLong();
+    final long p = period.getAsLong();
+    return OptionalInt.of((int) Math.min(Integer.MAX_VALUE, (q + p - 1L) / p));
+  }
+
+  /**
+   * Parses a cgroup limit, which is a number of some unit, or "max" or a negative or enormous
+   * number for unlimited
+   */
+  private static OptionalLong parseLimit(String text) {
+    try {
+      final long result = Long.parseLong(text.strip());
+      if (result <= 0L || result >= CGROUP_V1_UNLIMITED) {
+        return OptionalLong.empty();
+      }
+      return OptionalLong.of(result);
+    } catch (NumberFormatException e) {
+      // Probably "max"
+      return OptionalLong.empty();
+    }
+  }
+
+  private static Optional<String> read(Path path) {
+    try {
+      return Optional.of(new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).strip());
+    } catch (IOException | SecurityException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,591 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.CropBoost;
+import com.sigpwned.smartcrop4j.governor.CropGovernor;
+import com.sigpwned.smartcrop4j.governor.CropGovernorOptions;
+import com.sigpwned.smartcrop4j.impl.CropScore;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import com.sigpwned.smartcrop4j.impl.ScoredCrop;
+import com.sigpwned.smartcrop4j.util.BufferedImages;
+import com.sigpwned.smartcrop4j.util.CropExecutors;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+
+/**
+ * Serves smart crops over HTTP, using the JDK's built-in HTTP server, so it can run anywhere a JVM
+ * can with no other infrastructure.
+ *
+ * <p>
+ * {@code POST /crop} takes the image bytes as the request body and these query parameters:
+ * <ul>
+ *   <li>The crop shape, as one of: {@code aspectRatio} (width / height); {@code aspectWidth} and
+ *   {@code aspectHeight}; or {@code width} and {@code height}, which also scale the rendition to
+ *   that size</li>
+ *   <li>{@code boost=x,y,width,height,weight}, which may be repeated</li>
+ *   <li>{@code format}, which is {@code json} (the default) for the crop as JSON, or an image
+ *   format name like {@code png} or {@code jpeg} for the cropped image itself</li>
+ * </ul>
+ *
+ * <p>
+ * Successful responses carry an ETag computed from the request body and parameters, and a request
+ * with a matching {@code If-None-Match} gets 304 Not Modified without any cropping work. Requests
+ * pass through a {@link CropGovernor}, which reads the image header before decoding: at most
+ * {@link CropServerOptions#getMaxConcurrency() maxConcurrency} crops run at once, images that
+ * would overrun the pixel budget or look like decompression bombs get 413 Payload Too Large, and
+ * requests that cannot be admitted get 503 Service Unavailable. {@code GET /health} returns 200
+ * while the server is up. On Java 21 and later, each exchange runs on its own virtual thread.
+ */
+public class CropServer implements AutoCloseable {
+
+  private static final Logger LOGGER = Logger.getLogger(CropServer.class.getName());
+
+  /**
+   * Usage: {@code CropServer [--host=HOST] [--port=N] [--max-concurrency=N]
+   * [--max-request-size=BYTES]}. Serves until killed.
+   */
+  public static void main(String[] args) throws IOException {
+    final CropServerOptionsBuilder options = CropServerOptions.builder();
+    try {
+      for (String arg : args) {
+        final int eq = arg.indexOf('=');
+        if (!arg.startsWith("--") || eq == -1) {
+          throw new IllegalArgumentException("unrecognized argument: " + arg);
+        }
+        final String name = arg.substring(2, eq);
+        final String value = arg.substring(eq + 1);
+        switch (name) {
+          case "host":
+            options.setHost(value);
+            break;
+          case "port":
+            options.setPort(Integer.parseInt(value));
+            break;
+          case "max-concurrency":
+            options.setMaxConcurrency(Integer.parseInt(value));
+            break;
+          case "max-request-size":
+            options.setMaxRequestSize(Integer.parseInt(value));
+            break;
+          default:
+            throw new IllegalArgumentException("unrecognized option: " + arg);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println("usage: CropServer [--host=HOST] [--port=N] [--max-concurrency=N] "
+          + "[--max-request-size=BYTES]");
+      System.exit(2);
+      return;
+    }
+
+    final CropServer server = new CropServer(new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setThreadLocalWorkspaces(true).build()),
+        options.build());
+    server.start();
+    System.err.println("smartcrop4j: listening on port " + server.getPort());
+  }
+
+  private final DefaultSmartCropper cropper;
+  private final CropServerOptions options;
+  private final CropGovernor governor;
+  private HttpServer server;
+  private ExecutorService executor;
+
+  public CropServer() {
+    this(new DefaultSmartCropper(), CropServerOptions.create());
+  }
+
+  public CropServer(DefaultSmartCropper cropper, CropServerOptions options) {
+    this.cropper = requireNonNull(cropper);
+    this.options = requireNonNull(options);
+    this.governor = new CropGovernor(CropGovernorOptions.builder()
+        .setMaxConcurrency(options.getMaxConcurrency()).setMaxQueued(0).build());
+  }
+
+  /**
+   * Creates a server that admits requests with the given governor instead of one built from
+   * {@link CropServerOptions#getMaxConcurrency() maxConcurrency}. Use this to share one pixel
+   * budget among several servers or other work, or to let requests queue instead of failing fast.
+   */
+  public CropServer(DefaultSmartCropper cropper, CropServerOptions options,
+      CropGovernor governor) {
+    this.cropper = requireNonNull(cropper);
+    this.options = requireNonNull(options);
+    this.governor = requireNonNull(governor);
+  }
+
+  /**
+   * Starts listening
+   *
+   * @throws IOException if the server cannot bind to its address
+   */
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      throw new IllegalStateException("already started");
+    }
+
+    final HttpServer server = HttpServer.create(
+        new InetSocketAddress(getOptions().getHost(), getOptions().getPort()), 0);
+    server.createContext("/crop", this::handleCrop);
+    server.createContext("/health", this::handleHealth);
+
+    // Threads beyond maxConcurrency only turn requests away, so they don't need many
+    final AtomicInteger count = new AtomicInteger();
+    final ExecutorService executor = CropExecutors.newVirtualThreadPerTaskExecutor()
+        .orElseGet(() -> Executors.newFixedThreadPool(2 * getOptions().getMaxConcurrency() + 2,
+            r -> {
+              Thread result = new Thread(r, "smartcrop4j-http-" + count.incrementAndGet());
+              result.setDaemon(true);
+              return result;
+            }));
+    server.setExecutor(executor);
+    server.start();
+
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the port the server is listening on, which is useful if it was configured with port
+   * zero
+   */
+  public synchronized int getPort() {
+    if (server == null) {
+      throw new IllegalStateException("not started");
+    }
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops the server, abandoning any exchanges in progress
+   */
+  @Override
+  public synchronized void close() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+      server = null;
+      executor = null;
+    }
+  }
+
+  private void handleHealth(HttpExchange exchange) throws IOException {
+    try {
+      respond(exchange, 200, "text/plain; charset=utf-8", "ok\n".getBytes(UTF_8));
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleCrop(HttpExchange exchange) throws IOException {
+    try {
+      if (!exchange.getRequestMethod().equals("POST")) {
+        exchange.getResponseHeaders().set("Allow", "POST");
+        respondError(exchange, 405, "method must be POST");
+        return;
+      }
+
+      final byte[] body;
+      try (InputStream in = exchange.getRequestBody()) {
+        body = in.readNBytes(getOptions().getMaxRequestSize() + 1);
+        if (body.length > getOptions().getMaxRequestSize()) {
+          // Discard the rest without keeping it, so the client sees our response, not a reset
+          in.transferTo(OutputStream.nullOutputStream());
+        }
+      }
+      if (body.length > getOptions().getMaxRequestSize()) {
+        respondError(exchange, 413, "request body is too large");
+        return;
+      }
+
+      final Map<String, List<String>> parameters;
+      final Parameters p;
+      try {
+        parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        p = Parameters.parse(parameters);
+      } catch (IllegalArgumentException e) {
+        respondError(exchange, 400, e.getMessage());
+        return;
+      }
+
+      final String etag = etag(body, parameters);
+      if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.sendResponseHeaders(304, -1L);
+        return;
+      }
+
+      // Check the header first, so an unreadable image gets 400 and an oversized one gets 413
+      try {
+        CropGovernor.readSize(body);
+      } catch (IllegalArgumentException | IOException e) {
+        respondError(exchange, 400, "request body must be an image");
+        return;
+      }
+
+      final CropGovernor.Admission admission;
+      try {
+        admission = getGovernor().admit(body);
+      } catch (IllegalArgumentException e) {
+        respondError(exchange, 413, e.getMessage());
+        return;
+      } catch (IOException e) {
+        respondError(exchange, 400, "request body must be an image");
+        return;
+      } catch (RejectedExecutionException e) {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        respondError(exchange, 503, "too many concurrent requests");
+        return;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        respondError(exchange, 503, "server is shutting down");
+        return;
+      }
+      try {
+        final BufferedImage image;
+        try {
+          image = admission.decode();
+        } catch (IOException e) {
+          respondError(exchange, 400, "request body must be an image");
+          return;
+        }
+
+        final Crop crop = getCropper().crop(image, p.aspectWidth, p.aspectHeight, p.boosts)
+            .getTopCrop();
+        if (p.format.equals("json")) {
+          exchange.getResponseHeaders().set("ETag", etag);
+          respond(exchange, 200, "application/json", toJson(crop).getBytes(UTF_8));
+          return;
+        }
+
+        final BufferedImage rendition = p.width > 0
+            ? BufferedImages.cropped(image, crop, p.width, p.height)
+            : BufferedImages.cropped(image, crop);
+        final Optional<byte[]> encoded = encode(rendition, p.format);
+        if (encoded.isEmpty()) {
+          respondError(exchange, 400, "cannot encode format " + p.format);
+          return;
+        }
+        exchange.getResponseHeaders().set("ETag", etag);
+        respond(exchange, 200, mimeType(p.format), encoded.get());
+      } catch (IllegalArgumentException e) {
+        respondError(exchange, 400, e.getMessage());
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.WARNING, "failed to crop image", e);
+        respondError(exchange, 500, "internal error");
+      } finally {
+        admission.close();
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * The parsed crop parameters of a request
+   */
+  private static final class Parameters {
+
+    public static Parameters parse(Map<String, List<String>> parameters) {
+      final int width = intParameter(parameters, "width", 0);
+      final int height = intParameter(parameters, "height", 0);
+      final int aspectWidth;
+      final int aspectHeight;
+      if (width > 0 && height > 0) {
+        aspectWidth = width;
+        aspectHeight = height;
+      } else if (width != 0 || height != 0) {
+        throw new IllegalArgumentException("width and height must both be positive");
+      } else if (parameters.containsKey("aspectRatio")) {
+        final float aspectRatio = Float.parseFloat(first(parameters, "aspectRatio"));
+        if (!(aspectRatio > 0.0f) || Float.isInfinite(aspectRatio)) {
+          throw new IllegalArgumentException("aspectRatio must be positive");
+        }
+        // Same conversion as SmartCropper#crop(BufferedImage, float, List)
+        aspectWidth = 100;
+        aspectHeight = (int) Math.max(100.0f / aspectRatio, 1.0f);
+      } else {
+        aspectWidth = intParameter(parameters, "aspectWidth", 0);
+        aspectHeight = intParameter(parameters, "aspectHeight", 0);
+        if (aspectWidth <= 0 || aspectHeight <= 0) {
+          throw new IllegalArgumentException(
+              "one of aspectRatio, aspectWidth and aspectHeight, or width and height is required");
+        }
+      }
+
+      final List<CropBoost> boosts = new ArrayList<>();
+      for (String boost : parameters.getOrDefault("boost", List.of())) {
+        final String[] parts = boost.split(",", -1);
+        if (parts.length != 5) {
+          throw new IllegalArgumentException("boost must be x,y,width,height,weight");
+        }
+        try {
+          boosts.add(new CropBoost(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+              Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
+              Float.parseFloat(parts[4])));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("boost must be x,y,width,height,weight");
+        }
+      }
+
+      final String format = Optional.ofNullable(first(parameters, "format")).orElse("json");
+
+      return new Parameters(aspectWidth, aspectHeight, width, height, boosts, format);
+    }
+
+    public final int aspectWidth;
+    public final int aspectHeight;
+    public final int width;
+    public final int height;
+    public final List<CropBoost> boosts;
+    public final String format;
+
+    private Parameters(int aspectWidth, int aspectHeight, int width, int height,
+        List<CropBoost> boosts, String format) {
+      this.aspectWidth = aspectWidth;
+      this.aspectHeight = aspectHeight;
+      this.width = width;
+      this.height = height;
+      this.boosts = boosts;
+      this.format = format;
+    }
+  }
+
+  private static String first(Map<String, List<String>> parameters, String name) {
+    final List<String> values = parameters.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  private static int intParameter(Map<String, List<String>> parameters, String name,
+      int defaultValue) {
+    final String value = first(parameters, name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be an integer");
+    }
+  }
+
+  /**
+   * Parses the given raw query string. The result is sorted by name, and values keep their order,
+   * so it is a canonical form of the query.
+   */
+  private static Map<String, List<String>> parseQuery(String query) {
+    final Map<String, List<String>> result = new TreeMap<>();
+    if (query == null || query.isEmpty()) {
+      return result;
+    }
+    for (String pair : query.split("&")) {
+      if (pair.isEmpty()) {
+        continue;
+      }
+      final int eq = pair.indexOf('=');
+      final String name = URLDecoder.decode(eq == -1 ? pair : pair.substring(0, eq), UTF_8);
+      final String value = eq == -1 ? "" : URLDecoder.decode(pair.substring(eq + 1), UTF_8);
+      result.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+    }
+    return result;
+  }
+
+  /**
+   * Returns a strong ETag for the given request body and parameters
+   */
+  private static String etag(byte[] body, Map<String, List<String>> parameters) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM is required to support SHA-256
+      throw new AssertionError(e);
+    }
+    digest.update(body);
+    digest.update(parameters.toString().getBytes(UTF_8));
+    final StringBuilder result = new StringBuilder("\"");
+    for (byte b : digest.digest()) {
+      result.append(Character.forDigit((b >>> 4) & 0xf, 16))
+          .append(Character.forDigit(b & 0xf, 16));
+    }
+    return result.append('"').toString();
+  }
+
+  /**
+   * Returns true if the given If-None-Match header matches the given ETag
+   */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.strip();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      // A crop is never stored on the server, so "*" has nothing to match
+      if (candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String toJson(Crop crop) {
+    final StringBuilder result = new StringBuilder();
+    result.append("{\"x\":").append(crop.getX()).append(",\"y\":").append(crop.getY())
+        .append(",\"width\":").append(crop.getWidth()).append(",\"height\":")
+        .append(crop.getHeight());
+    if (crop instanceof ScoredCrop) {
+      final CropScore score = ((ScoredCrop) crop).getScore();
+      result.append(",\"score\":{\"detail\":").append(toJson(score.getDetail()))
+          .append(",\"saturation\":").append(toJson(score.getSaturation()))
+          .append(",\"skin\":").append(toJson(score.getSkin()))
+          .append(",\"boost\":").append(toJson(score.getBoost()))
+          .append(",\"total\":").append(toJson(score.getTotal())).append('}');
+    }
+    return result.append('}').toString();
+  }
+
+  private static String toJson(float value) {
+    // JSON has no representation for NaN or infinity
+    return Float.isFinite(value) ? Float.toString(value) : "null";
+  }
+
+  /**
+   * Encodes the given image in the given format. Formats without alpha, like JPEG, get an opaque
+   * copy of the image.
+   *
+   * @return the encoded image, or empty if there is no writer for the format
+   */
+  private static Optional<byte[]> encode(BufferedImage image, String format) throws IOException {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    if (ImageIO.write(image, format, result)) {
+      return Optional.of(result.toByteArray());
+    }
+    if (!image.getColorModel().hasAlpha()) {
+      return Optional.empty();
+    }
+
+    final BufferedImage opaque = new BufferedImage(image.getWidth(), image.getHeight(),
+        BufferedImage.TYPE_INT_RGB);
+    final Graphics2D g = opaque.createGraphics();
+    try {
+      g.drawImage(image, 0, 0, null);
+    } finally {
+      g.dispose();
+    }
+    result.reset();
+    return ImageIO.write(opaque, format, result) ? Optional.of(result.toByteArray())
+        : Optional.empty();
+  }
+
+  private static String mimeType(String format) {
+    final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+    if (writers.hasNext()) {
+      final String[] types = writers.next().getOriginatingProvider().getMIMETypes();
+      if (types != null && types.length != 0) {
+        return types[0];
+      }
+    }
+    return "application/octet-stream";
+  }
+
+  private static void respondError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    respond(exchange, status, "application/json",
+        ("{\"error\":\"" + jsonEscape(message) + "\"}").getBytes(UTF_8));
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+      throws IOException {
+    final Headers headers = exchange.getResponseHeaders();
+    headers.set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String jsonEscape(String text) {
+    final StringBuilder result = new StringBuilder();
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (c == '"' || c == '\\') {
+        result.append('\\').append(c);
+      } else if (c < 0x20) {
+        result.append(String.format("\\u%04x", (int) c));
+      } else {
+        result.append(c);
+      }
+    }
+    return result.toString();
+  }
+
+  private CropGovernor getGovernor() {
+    return governor;
+  }
+
+  private DefaultSmartCropper getCropper() {
+    return cropper;
+  }
+
+  private CropServerOptions getOptions() {
+    return options;
+  }
+}
@@ -0,0 +1,99 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.http;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requireNonNegative;
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Objects;
+
+public class CropServerOptions {
+
+  public static CropServerOptionsBuilder builder() {
+    return new CropServerOptionsBuilder();
+  }
+
+  public static CropServerOptions create() {
+    return builder().build();
+  }
+
+  private final String host;
+  private final int port;
+  private final int maxConcurrency;
+  private final int maxRequestSize;
+
+  /* default */ CropServerOptions(CropServerOptionsBuilder builder) {
+    this.host = requireNonNull(builder.getHost());
+    this.port = requireNonNegative(builder.getPort());
+    if (port > 65535) {
+      throw new IllegalArgumentException("port must be at most 65535");
+    }
+    this.maxConcurrency = requirePositive(builder.getMaxConcurrency());
+    this.maxRequestSize = requirePositive(builder.getMaxRequestSize());
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int getMaxRequestSize() {
+    return maxRequestSize;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropServerOptions)) {
+      return false;
+    }
+    CropServerOptions that = (CropServerOptions) o;
+    return getPort() == that.getPort() && getMaxConcurrency() == that.getMaxConcurrency()
+        && getMaxRequestSize() == that.getMaxRequestSize()
+        && Objects.equals(getHost(), that.getHost());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getHost(), getPort(), getMaxConcurrency(), getMaxRequestSize());
+  }
+
+  @Override
+  public String toString() {
+    return "CropServerOptions{" + "host='" + host + '\'' + ", port=" + port + ", maxConcurrency="
+        + maxConcurrency + ", maxRequestSize=" + maxRequestSize + '}';
+  }
+}
@@ -0,0 +1,129 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.http;
+
+import java.util.Objects;
+
+public class CropServerOptionsBuilder {
+
+  private String host = "0.0.0.0";
+  private int port = 8080;
+  private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+  private int maxRequestSize = 32 * 1024 * 1024;
+
+  public CropServerOptionsBuilder() {
+  }
+
+  public CropServerOptionsBuilder(CropServerOptions that) {
+    setHost(that.getHost());
+    setPort(that.getPort());
+    setMaxConcurrency(that.getMaxConcurrency());
+    setMaxRequestSize(that.getMaxRequestSize());
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int getMaxRequestSize() {
+    return maxRequestSize;
+  }
+
+  /**
+   * The address to listen on
+   */
+  public CropServerOptionsBuilder setHost(String host) {
+    this.host = host;
+    return this;
+  }
+
+  /**
+   * The port to listen on, or zero for any free port
+   */
+  public CropServerOptionsBuilder setPort(int port) {
+    this.port = port;
+    return this;
+  }
+
+  /**
+   * The most crops to run at once. Requests beyond this limit are refused with 503 Service
+   * Unavailable rather than queued, so that load balancers can send them elsewhere.
+   */
+  public CropServerOptionsBuilder setMaxConcurrency(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+    return this;
+  }
+
+  /**
+   * The largest request body to accept, in bytes. Larger requests are refused with 413 Payload Too
+   * Large.
+   */
+  public CropServerOptionsBuilder setMaxRequestSize(int maxRequestSize) {
+    this.maxRequestSize = maxRequestSize;
+    return this;
+  }
+
+  public CropServerOptions build() {
+    return new CropServerOptions(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropServerOptionsBuilder)) {
+      return false;
+    }
+    CropServerOptionsBuilder that = (CropServerOptionsBuilder) o;
+    return getPort() == that.getPort() && getMaxConcurrency() == that.getMaxConcurrency()
+        && getMaxRequestSize() == that.getMaxRequestSize()
+        && Objects.equals(getHost(), that.getHost());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getHost(), getPort(), getMaxConcurrency(), getMaxRequestSize());
+  }
+
+  @Override
+  public String toString() {
+    return "CropServerOptionsBuilder{" +
+        "host='" + host + '\'' +
+        ", port=" + port +
+        ", maxConcurrency=" + maxConcurrency +
+        ", maxRequestSize=" + maxRequestSize +
+        '}';
+  }
+}
@@ -0,0 +1,213 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.Crop;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The debug artifacts of one crop: the feature map the crop was scored against, and the candidate
+ * crops. Nothing is rendered until asked for, so a crop with debugging enabled only pays to keep
+ * its feature map. Each image is rendered at most once, and is in the coordinate space of the
+ * analyzed image, i.e., after prescaling.
+ */
+public class CropDebug {
+
+  private final Supplier<ImageData> featureMapSupplier;
+  private final List<Crop> candidates;
+  private final Function<List<Crop>, List<ScoredCrop>> scorer;
+  private final Crop topCrop;
+  private ImageData featureMap;
+  private List<ScoredCrop> scoredCandidates;
+  private BufferedImage featureImage;
+  private BufferedImage scoreImage;
+  private BufferedImage candidateImage;
+
+  /**
+   * @param featureMap the feature map, which is only called once, when first needed
+   * @param candidates the candidate crops
+   * @param scorer     scores the candidate crops against the feature map
+   * @param topCrop    the chosen crop, in the analyzed image's coordinates
+   */
+  /* default */ CropDebug(Supplier<ImageData> featureMap, List<Crop> candidates,
+      Function<List<Crop>, List<ScoredCrop>> scorer, Crop topCrop) {
+    this.featureMapSupplier = requireNonNull(featureMap);
+    this.candidates = Collections.unmodifiableList(candidates);
+    this.scorer = requireNonNull(scorer);
+    this.topCrop = requireNonNull(topCrop);
+  }
+
+  /**
+   * The feature map, at the resolution of the analyzed image. Detail is in the green channel, skin
+   * in red, and saturation in blue.
+   */
+  public synchronized ImageData getFeatureMap() {
+    if (featureMap == null) {
+      featureMap = featureMapSupplier.get();
+    }
+    return featureMap;
+  }
+
+  public List<Crop> getCandidates() {
+    return candidates;
+  }
+
+  /**
+   * The chosen crop, in the analyzed image's coordinates
+   */
+  public Crop getTopCrop() {
+    return topCrop;
+  }
+
+  /**
+   * The candidate crops with their scores, in candidate order. Scoring is repeated on first call.
+   */
+  public synchronized List<ScoredCrop> getScoredCandidates() {
+    if (scoredCandidates == null) {
+      scoredCandidates = Collections.unmodifiableList(scorer.apply(candidates));
+    }
+    return scoredCandidates;
+  }
+
+  /**
+   * The feature map as an image, i.e., a heatmap of detail, skin, and saturation. This is the
+   * classic smartcrop.js debug image.
+   */
+  public synchronized BufferedImage getFeatureImage() {
+    if (featureImage == null) {
+      featureImage = getFeatureMap().toBufferedImage();
+    }
+    return featureImage;
+  }
+
+  /**
+   * The score surface, i.e., the total score of the candidates centered at each point, from black
+   * for the worst to white for the best. Where candidates of several scales share a center, the
+   * best score wins.
+   */
+  public synchronized BufferedImage getScoreImage() {
+    if (scoreImage == null) {
+      scoreImage = renderScoreImage();
+    }
+    return scoreImage;
+  }
+
+  /**
+   * The feature image with every candidate outlined faintly, and the chosen crop outlined in red
+   */
+  public synchronized BufferedImage getCandidateImage() {
+    if (candidateImage == null) {
+      candidateImage = renderCandidateImage();
+    }
+    return candidateImage;
+  }
+
+  private BufferedImage renderScoreImage() {
+    final ImageData map = getFeatureMap();
+    final int width = map.width;
+    final int height = map.height;
+    final List<ScoredCrop> scored = getScoredCandidates();
+
+    float min = Float.POSITIVE_INFINITY;
+    float max = Float.NEGATIVE_INFINITY;
+    for (ScoredCrop c : scored) {
+      min = Math.min(min, c.getScore().getTotal());
+      max = Math.max(max, c.getScore().getTotal());
+    }
+
+    // Each center owns a cell as big as the spacing between centers, so the surface has no gaps
+    final int cellWidth = spacing(scored.stream().mapToInt(c -> c.getX() + c.getWidth() / 2)
+        .toArray());
+    final int cellHeight = spacing(scored.stream().mapToInt(c -> c.getY() + c.getHeight() / 2)
+        .toArray());
+
+    final float[] surface = new float[width * height];
+    Arrays.fill(surface, -1.0f);
+    for (ScoredCrop c : scored) {
+      final float value = max > min ? (c.getScore().getTotal() - min) / (max - min) : 1.0f;
+      final int x0 = Math.max(c.getX() + c.getWidth() / 2 - cellWidth / 2, 0);
+      final int y0 = Math.max(c.getY() + c.getHeight() / 2 - cellHeight / 2, 0);
+      final int x1 = Math.min(x0 + cellWidth, width);
+      final int y1 = Math.min(y0 + cellHeight, height);
+      for (int y = y0; y < y1; y++) {
+        for (int x = x0; x < x1; x++) {
+          surface[y * width + x] = Math.max(surface[y * width + x], value);
+        }
+      }
+    }
+
+    final int[] pixels = new int[surface.length];
+    for (int i = 0; i < surface.length; i++) {
+      final int v = surface[i] < 0.0f ? 0 : Math.round(surface[i] * 255.0f);
+      pixels[i] = 0xFF000000 | (v << 16) | (v << 8) | v;
+    }
+    final BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    result.setRGB(0, 0, width, height, pixels, 0, width);
+    return result;
+  }
+
+  private BufferedImage renderCandidateImage() {
+    final BufferedImage features = getFeatureImage();
+    final BufferedImage result = new BufferedImage(features.getWidth(), features.getHeight(),
+        BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = result.createGraphics();
+    try {
+      g.drawImage(features, 0, 0, null);
+      g.setColor(new Color(255, 255, 255, 24));
+      for (Crop c : candidates) {
+        g.drawRect(c.getX(), c.getY(), c.getWidth() - 1, c.getHeight() - 1);
+      }
+      g.setColor(Color.RED);
+      g.setStroke(new BasicStroke(2.0f));
+      g.drawRect(topCrop.getX(), topCrop.getY(), topCrop.getWidth() - 1, topCrop.getHeight() - 1);
+    } finally {
+      g.dispose();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the smallest positive difference between the given values, or 1 if there is none
+   */
+  private static int spacing(int[] values) {
+    final int[] sorted = Arrays.stream(values).distinct().sorted().toArray();
+    int result = Integer.MAX_VALUE;
+    for (int i = 1; i < sorted.length; i++) {
+      result = Math.min(result, sorted[i] - sorted[i - 1]);
+    }
+    return result == Integer.MAX_VALUE ? 1 : result;
+  }
+}
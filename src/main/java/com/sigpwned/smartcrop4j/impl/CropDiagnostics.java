@@ -0,0 +1,138 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The measurements of each {@link CropStage stage} of one crop: how long it took, how many pixels,
+ * candidates, or boosts it processed, and how many bytes it allocated. Allocation is measured with
+ * the JVM's per-thread allocation counters, and is -1 if the JVM does not support them. Work that
+ * runs on other threads, like parallel scoring, is timed but its allocation is not counted.
+ */
+public final class CropDiagnostics {
+
+  private final long elapsedNanos;
+  private final long[] nanos;
+  private final long[] counts;
+  private final long[] allocatedBytes;
+
+  /* default */ CropDiagnostics(long elapsedNanos, long[] nanos, long[] counts,
+      long[] allocatedBytes) {
+    this.elapsedNanos = elapsedNanos;
+    this.nanos = nanos.clone();
+    this.counts = counts.clone();
+    this.allocatedBytes = allocatedBytes.clone();
+  }
+
+  /**
+   * How long the given stage took, summed across bands for the detector stages
+   */
+  public long getNanos(CropStage stage) {
+    return nanos[stage.ordinal()];
+  }
+
+  /**
+   * How many pixels, candidates, or boosts the given stage processed
+   */
+  public long getCount(CropStage stage) {
+    return counts[stage.ordinal()];
+  }
+
+  /**
+   * How many bytes the given stage allocated, or -1 if the JVM cannot say
+   */
+  public long getAllocatedBytes(CropStage stage) {
+    return allocatedBytes[stage.ordinal()];
+  }
+
+  /**
+   * The wall-clock time of the whole crop, from start to finish. This is the crop's latency.
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * The sum of the time each stage took. Since the detector stages are summed across bands, this
+   * can exceed {@link #getElapsedNanos()} when bands run in parallel.
+   */
+  public long getTotalNanos() {
+    return Arrays.stream(nanos).sum();
+  }
+
+  /**
+   * How many bytes all stages allocated, or -1 if the JVM cannot say
+   */
+  public long getTotalAllocatedBytes() {
+    if (Arrays.stream(allocatedBytes).anyMatch(b -> b < 0L)) {
+      return -1L;
+    }
+    return Arrays.stream(allocatedBytes).sum();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CropDiagnostics)) {
+      return false;
+    }
+    CropDiagnostics that = (CropDiagnostics) o;
+    return elapsedNanos == that.elapsedNanos && Arrays.equals(nanos, that.nanos)
+        && Arrays.equals(counts, that.counts)
+        && Arrays.equals(allocatedBytes, that.allocatedBytes);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Long.hashCode(elapsedNanos);
+    result = 31 * result + Arrays.hashCode(nanos);
+    result = 31 * result + Arrays.hashCode(counts);
+    result = 31 * result + Arrays.hashCode(allocatedBytes);
+    return result;
+  }
+
+  /**
+   * Returns a compact, one-line summary, e.g., {@code elapsed=1.204ms edge=0.412ms/65536/0B}, with
+   * the elapsed time and each stage
+   */
+  @Override
+  public String toString() {
+    final StringBuilder result = new StringBuilder("CropDiagnostics{");
+    result.append(String.format(Locale.ROOT, "elapsed=%.3fms", elapsedNanos / 1.0e6));
+    for (CropStage stage : CropStage.values()) {
+      result.append(' ');
+      result.append(stage.name().toLowerCase(Locale.ROOT)).append('=')
+          .append(String.format(Locale.ROOT, "%.3fms", getNanos(stage) / 1.0e6)).append('/')
+          .append(getCount(stage)).append('/')
+          .append(getAllocatedBytes(stage) < 0L ? "?" : getAllocatedBytes(stage) + "B");
+    }
+    return result.append('}').toString();
+  }
+}
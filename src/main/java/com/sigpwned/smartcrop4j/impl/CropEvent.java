@@ -0,0 +1,95 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A Java Flight Recorder event for one call to {@link DefaultSmartCropper#crop}, with the image,
+ * how it was analyzed, and the chosen crop. By default, only crops that take at least 20 ms are
+ * recorded. Configure the threshold in a JFR settings file under the event name
+ * {@value #NAME}.
+ */
+@Name(CropEvent.NAME)
+@Label("Crop")
+@Category("smartcrop4j")
+@Description("A smart crop of one image")
+@Threshold("20 ms")
+public final class CropEvent extends jdk.jfr.Event {
+
+  public static final String NAME = "com.sigpwned.smartcrop4j.Crop";
+
+  private static final EventType TYPE = EventType.getEventType(CropEvent.class);
+
+  /**
+   * Returns true if a recording is running that wants these events. Unlike
+   * {@link #isEnabled()}, this does not need an event, so it allocates nothing.
+   */
+  /* default */ static boolean enabled() {
+    return TYPE.isEnabled();
+  }
+
+  @Label("Image Width")
+  public int imageWidth;
+
+  @Label("Image Height")
+  public int imageHeight;
+
+  @Label("Aspect Width")
+  public int aspectWidth;
+
+  @Label("Aspect Height")
+  public int aspectHeight;
+
+  @Label("Prescale")
+  @Description("The factor the image was scaled by for analysis")
+  public float prescale;
+
+  @Label("Candidates")
+  @Description("The number of candidate crops scored")
+  public int candidates;
+
+  @Label("Crop X")
+  public int cropX;
+
+  @Label("Crop Y")
+  public int cropY;
+
+  @Label("Crop Width")
+  public int cropWidth;
+
+  @Label("Crop Height")
+  public int cropHeight;
+
+  @Label("Score")
+  @Description("The total score of the chosen crop")
+  public float score;
+}
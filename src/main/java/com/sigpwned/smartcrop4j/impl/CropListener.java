@@ -0,0 +1,70 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+/**
+ * Receives measurements of each {@link CropStage stage} of each crop from a
+ * {@link DefaultSmartCropper}, e.g., to feed a metrics system. Register one with
+ * {@link DefaultSmartCropperOptionsBuilder#setListener(CropListener)}. Methods are called on the
+ * thread that called the cropper, while the crop is in progress, so they should be quick, and they
+ * must be thread-safe if the cropper is used from several threads. If a method throws, the crop
+ * fails.
+ */
+public interface CropListener {
+
+  /**
+   * Called when a crop starts, before any stage
+   */
+  public default void cropStarted() {
+  }
+
+  /**
+   * Called when a stage completes. Detection runs in bands, possibly in parallel, so the detector
+   * stages are reported once all bands are done, with totals across bands.
+   *
+   * @param stage          the stage
+   * @param nanos          how long the stage took
+   * @param count          how many pixels, candidates, or boosts the stage processed, as described
+   *                       by the stage
+   * @param allocatedBytes how many bytes the stage allocated, or -1 if the JVM cannot say
+   */
+  public default void stageCompleted(CropStage stage, long nanos, long count,
+      long allocatedBytes) {
+  }
+
+  /**
+   * Called when a crop completes successfully, with the measurements of all its stages
+   */
+  public default void cropCompleted(CropDiagnostics diagnostics) {
+  }
+
+  /**
+   * Called when a crop that {@link #cropStarted() started} fails instead of completing, e.g.,
+   * because it was cancelled, or because the image was invalid
+   */
+  public default void cropFailed(Throwable cause) {
+  }
+}
@@ -0,0 +1,273 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.impl.util.Composition;
+
+/**
+ * Cheap upper bounds on the scores that {@link DefaultSmartCropper} gives candidate crops, for
+ * {@link CropSearch#BRANCH_AND_BOUND branch-and-bound search}.
+ *
+ * <p>
+ * A crop's score is a sum over the points of the downsampled feature map of each point's weight,
+ * i.e., its weighted detail, skin, saturation, and boost, times the point's importance to the crop,
+ * divided by the crop's area. Importance is a constant outside the crop, so that part of the sum is
+ * exact given the total weight inside the crop. Inside, importance is the sum of a part that
+ * depends on each coordinate separately, the rule of thirds, and a part that is concave in the
+ * point's position, the distance from the center and the edges. The separable part is summed
+ * exactly a row and a column at a time. For the concave part, the crop is split into a grid of
+ * cells, and by Jensen's inequality, each cell's positive weight times the importance at the
+ * centroid of that weight is at least the cell's true sum. Negative weight is charged at the least
+ * importance in the cell, which is at one of its corners. All totals come from integral images, so
+ * a bound costs a few hundred lookups, much less than scoring the crop. The bound also allows for
+ * the rounding error of the score's float arithmetic, so it never falls below the score actually
+ * computed.
+ */
+/* default */ final class CropScoreBounds {
+
+  /**
+   * How many cells to split each crop into along each axis
+   */
+  private static final int CELLS = 4;
+
+  /**
+   * How far to widen each cell's range of normalized coordinates, to cover float rounding
+   */
+  private static final double SLACK = 1.0e-6;
+
+  private static final double SQRT2 = Math.sqrt(2.0);
+
+  private final int width;
+  private final int height;
+  private final int downsample;
+  private final float outsideImportance;
+  private final float edgeRadius;
+  private final float edgeWeight;
+  private final float ruleOfThirdsWeight;
+
+  /**
+   * Integral images of the positive part of each point's weight, the same times the point's x and y
+   * coordinates, the negative part, and the magnitude, with an extra leading row and column of
+   * zeros
+   */
+  private final double[] positive;
+  private final double[] positiveX;
+  private final double[] positiveY;
+  private final double[] negative;
+  private final double[] magnitude;
+
+  /**
+   * An upper bound on the magnitude of any point's importance
+   */
+  private final double maxImportance;
+
+  /**
+   * The relative rounding error to allow for, per unit of magnitude
+   */
+  private final double roundoff;
+
+  /**
+   * @param downsampledOutput the downsampled feature map, as scored by {@link DefaultSmartCropper}
+   * @param downsample        the downsample factor
+   * @param options           the options the crops are scored with
+   */
+  public CropScoreBounds(ImageData downsampledOutput, int downsample,
+      DefaultSmartCropperOptions options) {
+    this.width = downsampledOutput.width;
+    this.height = downsampledOutput.height;
+    this.downsample = downsample;
+    this.outsideImportance = options.getOutsideImportance();
+    this.edgeRadius = options.getEdgeRadius();
+    this.edgeWeight = options.getEdgeWeight();
+    this.ruleOfThirdsWeight = options.getRuleOfThirdsWeight();
+
+    final int stride = width + 1;
+    this.positive = new double[stride * (height + 1)];
+    this.positiveX = new double[stride * (height + 1)];
+    this.positiveY = new double[stride * (height + 1)];
+    this.negative = new double[stride * (height + 1)];
+    this.magnitude = new double[stride * (height + 1)];
+    for (int y = 0; y < height; y++) {
+      double rowPositive = 0.0;
+      double rowPositiveX = 0.0;
+      double rowPositiveY = 0.0;
+      double rowNegative = 0.0;
+      double rowMagnitude = 0.0;
+      for (int x = 0; x < width; x++) {
+        final int p = downsampledOutput.index(x, y);
+        final double detail = downsampledOutput.get(p + ImageData.GO) / 255.0;
+        final double skin = downsampledOutput.get(p + ImageData.RO) / 255.0
+            * (detail + options.getSkinBias());
+        final double saturation = downsampledOutput.get(p + ImageData.BO) / 255.0
+            * (detail + options.getSaturationBias());
+        final double boost = downsampledOutput.get(p + ImageData.AO) / 255.0;
+
+        final double weight = detail * options.getDetailWeight()
+            + skin * options.getSkinWeight() + saturation * options.getSaturationWeight()
+            + boost * options.getBoostWeight();
+        rowPositive = rowPositive + Math.max(weight, 0.0);
+        rowPositiveX = rowPositiveX + Math.max(weight, 0.0) * x;
+        rowPositiveY = rowPositiveY + Math.max(weight, 0.0) * y;
+        rowNegative = rowNegative + Math.max(-weight, 0.0);
+        rowMagnitude = rowMagnitude + Math.abs(detail * options.getDetailWeight())
+            + Math.abs(skin * options.getSkinWeight())
+            + Math.abs(saturation * options.getSaturationWeight())
+            + Math.abs(boost * options.getBoostWeight());
+
+        final int i = (y + 1) * stride + x + 1;
+        positive[i] = positive[i - stride] + rowPositive;
+        positiveX[i] = positiveX[i - stride] + rowPositiveX;
+        positiveY[i] = positiveY[i - stride] + rowPositiveY;
+        negative[i] = negative[i - stride] + rowNegative;
+        magnitude[i] = magnitude[i - stride] + rowMagnitude;
+      }
+    }
+
+    // Base importance is in [0, 1], the rule of thirds in [0, 1], and the edge term in
+    // [1 - sqrt(2) / edgeRadius, 1]
+    double importance = 1.0 + Math.abs(ruleOfThirdsWeight);
+    if (edgeWeight > 0.0f) {
+      importance = importance + edgeWeight * Math.max(1.0, Math.abs(1.0 - SQRT2 / edgeRadius));
+    }
+    this.maxImportance = importance;
+
+    // Summing n floats can be off by n units of roundoff, and the importance and final weighting
+    // add a few more
+    this.roundoff = ((long) width * height + 16L) * Math.ulp(1.0f);
+  }
+
+  /**
+   * Returns an upper bound on the score of the given crop. The bound is infinite if the options
+   * make scores undefined, e.g., with a zero edge radius.
+   */
+  public double upperBound(Crop c) {
+    final int x0 = Math.max(ceilDiv(c.getX(), downsample), 0);
+    final int x1 = Math.min(ceilDiv(c.getX() + c.getWidth(), downsample), width);
+    final int y0 = Math.max(ceilDiv(c.getY(), downsample), 0);
+    final int y1 = Math.min(ceilDiv(c.getY() + c.getHeight(), downsample), height);
+
+    double sum = 0.0;
+    double insideWeight = 0.0;
+    double insideMagnitude = 0.0;
+    if (x0 < x1 && y0 < y1) {
+      final int columns = Math.min(CELLS, x1 - x0);
+      final int rows = Math.min(CELLS, y1 - y0);
+      for (int j = 0; j < rows; j++) {
+        final int cy0 = y0 + j * (y1 - y0) / rows;
+        final int cy1 = y0 + (j + 1) * (y1 - y0) / rows;
+        for (int i = 0; i < columns; i++) {
+          final int cx0 = x0 + i * (x1 - x0) / columns;
+          final int cx1 = x0 + (i + 1) * (x1 - x0) / columns;
+
+          final double cellPositive = sum(positive, cx0, cy0, cx1, cy1);
+          if (cellPositive > 0.0) {
+            final double u = (sum(positiveX, cx0, cy0, cx1, cy1) / cellPositive * downsample
+                - c.getX()) / c.getWidth();
+            final double v = (sum(positiveY, cx0, cy0, cx1, cy1) / cellPositive * downsample
+                - c.getY()) / c.getHeight();
+            sum = sum + cellPositive * concaveImportance(u, v);
+          }
+
+          final double cellNegative = sum(negative, cx0, cy0, cx1, cy1);
+          if (cellNegative > 0.0) {
+            final double uMin = (cx0 * downsample - c.getX()) / (double) c.getWidth() - SLACK;
+            final double uMax =
+                ((cx1 - 1) * downsample - c.getX()) / (double) c.getWidth() + SLACK;
+            final double vMin = (cy0 * downsample - c.getY()) / (double) c.getHeight() - SLACK;
+            final double vMax =
+                ((cy1 - 1) * downsample - c.getY()) / (double) c.getHeight() + SLACK;
+            final double least = Math.min(
+                Math.min(concaveImportance(uMin, vMin), concaveImportance(uMax, vMin)),
+                Math.min(concaveImportance(uMin, vMax), concaveImportance(uMax, vMax)));
+            sum = sum - cellNegative * least;
+          }
+        }
+      }
+
+      // The rule of thirds is separable, so sum it exactly one column and one row at a time
+      if (ruleOfThirdsWeight > 0.0f) {
+        double thirds = 0.0;
+        for (int x = x0; x < x1; x++) {
+          final float normalizedX = (x * downsample - c.getX()) / (float) c.getWidth();
+          thirds = thirds + Composition.evaluateRuleOfThirds(Math.abs(0.5f - normalizedX) * 2.0f)
+              * (sum(positive, x, y0, x + 1, y1) - sum(negative, x, y0, x + 1, y1));
+        }
+        for (int y = y0; y < y1; y++) {
+          final float normalizedY = (y * downsample - c.getY()) / (float) c.getHeight();
+          thirds = thirds + Composition.evaluateRuleOfThirds(Math.abs(0.5f - normalizedY) * 2.0f)
+              * (sum(positive, x0, y, x1, y + 1) - sum(negative, x0, y, x1, y + 1));
+        }
+        sum = sum + ruleOfThirdsWeight * thirds / 2.0;
+      }
+
+      insideWeight = sum(positive, x0, y0, x1, y1) - sum(negative, x0, y0, x1, y1);
+      insideMagnitude = sum(magnitude, x0, y0, x1, y1);
+    }
+
+    final double totalWeight = sum(positive, 0, 0, width, height)
+        - sum(negative, 0, 0, width, height);
+    final double totalMagnitude = sum(magnitude, 0, 0, width, height);
+    sum = sum + outsideImportance * (totalWeight - insideWeight);
+
+    final double error = maxImportance * insideMagnitude
+        + Math.abs(outsideImportance) * (totalMagnitude - insideMagnitude);
+    final double result = (sum + roundoff * error) / ((double) c.getWidth() * c.getHeight());
+    return Double.isNaN(result) ? Double.POSITIVE_INFINITY : result;
+  }
+
+  /**
+   * Returns the importance of a point inside a crop with the given normalized coordinates, less
+   * the rule of thirds, following {@link Composition#calculatePointImportance}. Both the base and
+   * edge terms fall with the point's distance from the center, which is convex, so the result is
+   * concave.
+   */
+  private double concaveImportance(double u, double v) {
+    final double px = Math.abs(1.0 - 2.0 * u);
+    final double py = Math.abs(1.0 - 2.0 * v);
+    double result = (SQRT2 - Math.sqrt(px * px + py * py)) / SQRT2;
+    if (edgeWeight > 0.0f) {
+      final double dx = Math.max(px - 1.0 + edgeRadius, 0.0);
+      final double dy = Math.max(py - 1.0 + edgeRadius, 0.0);
+      final double edgeRadius2 = (double) edgeRadius * edgeRadius;
+      result = result + edgeWeight * (edgeRadius2 - Math.sqrt(dx * dx + dy * dy)) / edgeRadius2;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the sum of the given integral image over [x0, x1) by [y0, y1)
+   */
+  private double sum(double[] integral, int x0, int y0, int x1, int y1) {
+    final int stride = width + 1;
+    return integral[y1 * stride + x1] - integral[y0 * stride + x1] - integral[y1 * stride + x0]
+        + integral[y0 * stride + x0];
+  }
+
+  private static int ceilDiv(int x, int y) {
+    return -Math.floorDiv(-x, y);
+  }
+}
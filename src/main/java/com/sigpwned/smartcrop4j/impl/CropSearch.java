@@ -0,0 +1,53 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+/**
+ * How {@link DefaultSmartCropper} searches the candidate crops for the best one
+ */
+public enum CropSearch {
+  /**
+   * Score every candidate crop. This is the reference behavior.
+   */
+  EXHAUSTIVE,
+
+  /**
+   * Compute a cheap upper bound on each candidate's score, score candidates best bound first, and
+   * skip every candidate whose bound is below the best score so far. Always finds the same crop as
+   * {@link #EXHAUSTIVE}, usually after scoring a small fraction of the candidates.
+   */
+  BRANCH_AND_BOUND,
+
+  /**
+   * Score a sparse subset of the candidates against a much smaller feature map, then score the
+   * candidates near the best few of those at full resolution. Approximate, but much faster than
+   * {@link #EXHAUSTIVE}, for interactive previews.
+   *
+   * @see DefaultSmartCropperOptions#getPyramidDownSample()
+   * @see DefaultSmartCropperOptions#getPyramidCandidates()
+   */
+  PYRAMID;
+}
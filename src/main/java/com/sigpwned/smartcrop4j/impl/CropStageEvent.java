@@ -0,0 +1,75 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Java Flight Recorder event for one {@link CropStage stage} of a crop, with the same
+ * measurements as {@link CropListener}. The detector stages run in bands, so they produce one event
+ * per band, on the thread that ran it. By default, only stages that take at least 10 ms are
+ * recorded. Configure the threshold in a JFR settings file under the event name
+ * {@value #NAME}.
+ */
+@Name(CropStageEvent.NAME)
+@Label("Crop Stage")
+@Category("smartcrop4j")
+@Description("One stage of a smart crop")
+@Threshold("10 ms")
+@StackTrace(false)
+public final class CropStageEvent extends jdk.jfr.Event {
+
+  public static final String NAME = "com.sigpwned.smartcrop4j.CropStage";
+
+  private static final EventType TYPE = EventType.getEventType(CropStageEvent.class);
+
+  /**
+   * Returns true if a recording is running that wants these events. Unlike
+   * {@link #isEnabled()}, this does not need an event, so it allocates nothing.
+   */
+  /* default */ static boolean enabled() {
+    return TYPE.isEnabled();
+  }
+
+  @Label("Stage")
+  public String stage;
+
+  @Label("Count")
+  @Description("The number of pixels, candidates, or boosts the stage processed")
+  public long count;
+
+  @Label("Allocated")
+  @Description("The bytes the stage allocated, or -1 if unknown")
+  @DataAmount
+  public long allocatedBytes;
+}
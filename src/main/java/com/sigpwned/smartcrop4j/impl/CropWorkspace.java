@@ -0,0 +1,284 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.impl.util.Composition;
+import com.sigpwned.smartcrop4j.impl.util.DirectBuffers;
+import com.sigpwned.smartcrop4j.impl.util.MoreImageData;
+import com.sigpwned.smartcrop4j.impl.util.Prescaling;
+import com.sigpwned.smartcrop4j.util.BufferedImages;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scratch space for {@link DefaultSmartCropper}. A workspace owns the buffers that a crop needs
+ * along the way: the prescaled image, its packed pixels, the input and output feature maps, the
+ * downsampled feature map, and the list of candidate crops. Buffers grow as needed and are never
+ * shrunk, so once a workspace has seen an image of a given size, cropping another image of that
+ * size or smaller allocates very little. Feature maps can live off-heap, in which case the
+ * workspace owns that memory until it is {@link #close() closed}.
+ *
+ * <p>
+ * A workspace is not thread-safe. Use one per thread, either explicitly with
+ * {@link DefaultSmartCropper#crop(BufferedImage, int, int, List, CropWorkspace)} or implicitly with
+ * {@link DefaultSmartCropperOptions#isThreadLocalWorkspaces()}. Results never refer to workspace
+ * buffers, so they remain valid after the workspace is reused.
+ */
+public final class CropWorkspace implements AutoCloseable {
+
+  /**
+   * The most pixels to convert from packed ARGB at once, to keep the packed pixel buffer small
+   */
+  private static final int MAX_STRIP_PIXELS = 64 * 1024;
+
+  private BufferedImage canvas;
+  private int[] pixels;
+  private float[] input;
+  private float[] output;
+  private ByteBuffer directInput;
+  private ByteBuffer directOutput;
+  private float[] downsampled;
+
+  private List<Crop> candidates;
+  private int candidatesImageWidth;
+  private int candidatesImageHeight;
+  private int candidatesCropWidth;
+  private int candidatesCropHeight;
+  private float candidatesMinScale;
+  private float candidatesMaxScale;
+  private float candidatesScaleStep;
+  private int candidatesSearchStep;
+
+  public CropWorkspace() {
+  }
+
+  /**
+   * Releases all buffers, freeing any off-heap memory immediately. The workspace remains usable,
+   * and will allocate new buffers as needed. Feature maps previously returned by this workspace
+   * must not be used afterwards.
+   */
+  public void clear() {
+    canvas = null;
+    pixels = null;
+    input = null;
+    output = null;
+    directInput = free(directInput);
+    directOutput = free(directOutput);
+    downsampled = null;
+    candidates = null;
+  }
+
+  /**
+   * Equivalent to {@link #clear()}.
+   */
+  @Override
+  public void close() {
+    clear();
+  }
+
+  /**
+   * Returns the approximate number of bytes of buffer space this workspace currently holds.
+   */
+  public long getRetainedBytes() {
+    long result = 0L;
+    if (canvas != null) {
+      result += 4L * canvas.getWidth() * canvas.getHeight();
+    }
+    if (pixels != null) {
+      result += 4L * pixels.length;
+    }
+    if (input != null) {
+      result += 4L * input.length;
+    }
+    if (output != null) {
+      result += 4L * output.length;
+    }
+    if (directInput != null) {
+      result += directInput.capacity();
+    }
+    if (directOutput != null) {
+      result += directOutput.capacity();
+    }
+    if (downsampled != null) {
+      result += 4L * downsampled.length;
+    }
+    return result;
+  }
+
+  /**
+   * Prescales the given image and converts it to an {@link ImageData}, reusing this workspace's
+   * buffers. The result is only valid until the next call to this method.
+   *
+   * @param direct   whether the result should live off-heap
+   * @param recorder where to record the prescale and conversion stages, or null
+   * @see Prescaling#prescaled(BufferedImage, float, Object)
+   * @see ImageData#fromBufferedImage(BufferedImage)
+   */
+  /* default */ ImageData input(BufferedImage image, float prescale, Object interpolationStyle,
+      boolean direct, StageRecorder recorder) {
+    final int width = Prescaling.prescaledSize(image.getWidth(), prescale);
+    final int height = Prescaling.prescaledSize(image.getHeight(), prescale);
+
+    BufferedImage analyzeImage;
+    if (prescale < 1.0f) {
+      if (canvas == null || canvas.getWidth() < width || canvas.getHeight() < height) {
+        int canvasWidth = canvas != null ? Math.max(canvas.getWidth(), width) : width;
+        int canvasHeight = canvas != null ? Math.max(canvas.getHeight(), height) : height;
+        canvas = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+      }
+      // TODO Add prescaleRenderingStyle?
+      analyzeImage = BufferedImages.scaledInto(image, canvas, width, height, null, null,
+          interpolationStyle);
+    } else {
+      analyzeImage = image;
+    }
+    if (recorder != null) {
+      recorder.lap(CropStage.PRESCALE, (long) width * height);
+    }
+
+    final int length = width * height * ImageData.PIXEL_STRIDE;
+    final ImageData result;
+    if (direct) {
+      directInput = grow(directInput, length);
+      result = wrap(width, height, directInput);
+    } else {
+      input = grow(input, length);
+      result = ImageData.wrap(width, height, input);
+    }
+
+    // Convert in strips of rows, so the packed pixels need not hold the whole image at once
+    final int stripHeight = Math.max(1, Math.min(height, MAX_STRIP_PIXELS / width));
+    if (pixels == null || pixels.length < width * stripHeight) {
+      pixels = new int[width * stripHeight];
+    }
+    for (int y0 = 0; y0 < height; y0 += stripHeight) {
+      final int y1 = Math.min(y0 + stripHeight, height);
+      analyzeImage.getRGB(0, y0, width, y1 - y0, pixels, 0, width);
+      ImageData.fromArgb(pixels, result.view(0, y0, width, y1 - y0));
+    }
+    if (recorder != null) {
+      recorder.lap(CropStage.CONVERSION, (long) width * height);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a zeroed {@link ImageData} of the given size for detector output, reusing this
+   * workspace's buffer. The result is only valid until the next call to this method.
+   *
+   * @param direct whether the result should live off-heap
+   */
+  /* default */ ImageData output(int width, int height, boolean direct) {
+    final int length = width * height * ImageData.PIXEL_STRIDE;
+    if (direct) {
+      if (directOutput == null || directOutput.capacity() < length * Float.BYTES) {
+        directOutput = grow(directOutput, length);
+      } else {
+        DirectBuffers.zero(directOutput, length * Float.BYTES);
+      }
+      return wrap(width, height, directOutput);
+    }
+    if (output == null || output.length < length) {
+      output = new float[length];
+    } else {
+      Arrays.fill(output, 0, length, 0.0f);
+    }
+    return ImageData.wrap(width, height, output);
+  }
+
+  /**
+   * Scales down the given image, reusing this workspace's buffer. The result is only valid until
+   * the next call to this method.
+   *
+   * @see MoreImageData#scaledDown(ImageData, int, float[])
+   */
+  /* default */ ImageData scaledDown(ImageData image, int factor) {
+    final ImageData result = MoreImageData.scaledDown(image, factor, downsampled);
+    downsampled = result.data;
+    return result;
+  }
+
+  /**
+   * Returns the candidate crops for the given parameters. Since the candidates depend only on these
+   * parameters, the last list is kept and returned again if the parameters are unchanged, which is
+   * common when cropping many images of the same size.
+   *
+   * @see Composition#generateCandidateCrops(int, int, int, int, float, float, float, int)
+   */
+  /* default */ List<Crop> candidateCrops(int imageWidth, int imageHeight, int cropWidth,
+      int cropHeight, float minScale, float maxScale, float scaleStep, int searchStep) {
+    if (candidates == null || candidatesImageWidth != imageWidth
+        || candidatesImageHeight != imageHeight || candidatesCropWidth != cropWidth
+        || candidatesCropHeight != cropHeight || Float.compare(candidatesMinScale, minScale) != 0
+        || Float.compare(candidatesMaxScale, maxScale) != 0
+        || Float.compare(candidatesScaleStep, scaleStep) != 0
+        || candidatesSearchStep != searchStep) {
+      candidates = Composition.generateCandidateCrops(imageWidth, imageHeight, cropWidth,
+          cropHeight, minScale, maxScale, scaleStep, searchStep);
+      candidatesImageWidth = imageWidth;
+      candidatesImageHeight = imageHeight;
+      candidatesCropWidth = cropWidth;
+      candidatesCropHeight = cropHeight;
+      candidatesMinScale = minScale;
+      candidatesMaxScale = maxScale;
+      candidatesScaleStep = scaleStep;
+      candidatesSearchStep = searchStep;
+    }
+    return candidates;
+  }
+
+  private static float[] grow(float[] buffer, int length) {
+    if (buffer == null || buffer.length < length) {
+      return new float[length];
+    }
+    return buffer;
+  }
+
+  private static ByteBuffer grow(ByteBuffer buffer, int length) {
+    if (buffer == null || buffer.capacity() < length * Float.BYTES) {
+      free(buffer);
+      return DirectBuffers.allocateFloats(length);
+    }
+    return buffer;
+  }
+
+  private static ByteBuffer free(ByteBuffer buffer) {
+    if (buffer != null) {
+      DirectBuffers.free(buffer);
+    }
+    return null;
+  }
+
+  private static ImageData wrap(int width, int height, ByteBuffer buffer) {
+    final FloatBuffer floats = buffer.asFloatBuffer();
+    return ImageData.wrap(width, height, floats, 0, width * ImageData.PIXEL_STRIDE);
+  }
+}
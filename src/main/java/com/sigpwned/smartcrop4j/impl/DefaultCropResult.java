@@ -33,19 +33,59 @@ import java.util.Objects;
 public class DefaultCropResult extends CropResult {
 
   private final BufferedImage debugImage;
-
+  private final CropDebug debug;
+  private final CropDiagnostics diagnostics;
 
   public DefaultCropResult(Crop topCrop) {
-    this(topCrop, null);
+    this(topCrop, (BufferedImage) null);
   }
 
   public DefaultCropResult(Crop topCrop, BufferedImage debugImage) {
     super(topCrop);
     this.debugImage = debugImage;
+    this.debug = null;
+    this.diagnostics = null;
   }
 
+  public DefaultCropResult(Crop topCrop, CropDebug debug, CropDiagnostics diagnostics) {
+    super(topCrop);
+    this.debugImage = null;
+    this.debug = debug;
+    this.diagnostics = diagnostics;
+  }
+
+  /**
+   * The feature map of the crop that produced this result as an image, if
+   * {@link DefaultSmartCropperOptions#isDebug() debugging} was enabled, or else null. The image is
+   * rendered on first call.
+   *
+   * @see CropDebug#getFeatureImage()
+   */
   public BufferedImage getDebugImage() {
-    return debugImage;
+    if (debugImage != null) {
+      return debugImage;
+    }
+    if (debug != null) {
+      return debug.getFeatureImage();
+    }
+    return null;
+  }
+
+  /**
+   * The debug artifacts of the crop that produced this result, if
+   * {@link DefaultSmartCropperOptions#isDebug() debugging} was enabled, or else null
+   */
+  public CropDebug getDebug() {
+    return debug;
+  }
+
+  /**
+   * The measurements of the crop that produced this result, if
+   * {@link DefaultSmartCropperOptions#isDiagnostics() diagnostics} were enabled, or else null.
+   * Measurements differ from run to run, so they are not part of equality.
+   */
+  public CropDiagnostics getDiagnostics() {
+    return diagnostics;
   }
 
   @Override
@@ -60,18 +100,20 @@ public class DefaultCropResult extends CropResult {
       return false;
     }
     DefaultCropResult that = (DefaultCropResult) o;
-    return Objects.equals(getDebugImage(), that.getDebugImage());
+    return Objects.equals(debugImage, that.debugImage) && Objects.equals(debug, that.debug);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(super.hashCode(), getDebugImage());
+    return Objects.hash(super.hashCode(), debugImage, debug);
   }
 
   @Override
   public String toString() {
     return "DefaultCropResult{" +
         "debugImage=" + debugImage +
+        ", debug=" + debug +
+        ", diagnostics=" + diagnostics +
         "} " + super.toString();
   }
 }
@@ -36,25 +36,49 @@ import com.sigpwned.smartcrop4j.impl.util.Boosting;
 import com.sigpwned.smartcrop4j.impl.util.Composition;
 import com.sigpwned.smartcrop4j.impl.util.EdgeDetection;
 import com.sigpwned.smartcrop4j.impl.util.MoreImageData;
+import com.sigpwned.smartcrop4j.impl.util.Prescaling;
 import com.sigpwned.smartcrop4j.impl.util.Saturation;
 import com.sigpwned.smartcrop4j.impl.util.SkinColoring;
-import com.sigpwned.smartcrop4j.util.BufferedImages;
+import com.sigpwned.smartcrop4j.impl.util.TiledDetection;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
 
 public class DefaultSmartCropper implements SmartCropper {
 
   private final DefaultSmartCropperOptions options;
+  private final ForkJoinPool pool;
+  private final ThreadLocal<CropWorkspace> workspaces;
 
   public DefaultSmartCropper() {
     this(DefaultSmartCropperOptions.create());
   }
 
   public DefaultSmartCropper(DefaultSmartCropperOptions options) {
+    this(options, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param options the options
+   * @param pool    the pool to use for parallel work, e.g., when
+   *                {@link DefaultSmartCropperOptions#isParallelDetection()} is enabled
+   */
+  public DefaultSmartCropper(DefaultSmartCropperOptions options, ForkJoinPool pool) {
     this.options = requireNonNull(options);
+    this.pool = requireNonNull(pool);
+    this.workspaces = ThreadLocal.withInitial(CropWorkspace::new);
   }
 
   /**
@@ -84,12 +108,390 @@ public class DefaultSmartCropper implements SmartCropper {
 
   public DefaultCropResult crop(BufferedImage originalImage, int aspectWidth, int aspectHeight,
       List<CropBoost> boosts) {
+    return crop(originalImage, aspectWidth, aspectHeight, boosts, CropCheckpoint.NONE);
+  }
+
+  /**
+   * Recommend a crop of the given image of the given aspect ratio asynchronously on the given
+   * executor. If the future is cancelled while the crop is running, then the crop stops at its next
+   * {@link CropCheckpoint checkpoint}, i.e., after the current band of feature detection or batch of
+   * candidate crops.
+   */
+  @Override
+  public CompletableFuture<DefaultCropResult> cropAsync(BufferedImage image, int aspectWidth,
+      int aspectHeight, List<CropBoost> boosts, Executor executor) {
+    requireNonNull(executor);
+
+    final CompletableFuture<DefaultCropResult> result = new CompletableFuture<>();
+    final CropCheckpoint checkpoint = () -> {
+      if (result.isDone()) {
+        throw new CancellationException();
+      }
+    };
+
+    try {
+      executor.execute(() -> {
+        try {
+          checkpoint.check();
+          result.complete(crop(image, aspectWidth, aspectHeight, boosts, checkpoint));
+        } catch (CancellationException e) {
+          // The future is almost certainly cancelled already. If not, this makes it so.
+          result.cancel(false);
+        } catch (Throwable e) {
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Recommend crops of the given images on this cropper's pool. Images are cropped concurrently,
+   * and the candidate crops of each image are scored in chunks that idle workers can steal, so one
+   * huge image does not leave the other cores idle at the end of a batch. Each worker reuses one
+   * workspace for all the images it crops, and all workspaces are released when the batch is done.
+   * The results are the same as cropping each image individually.
+   */
+  @Override
+  public List<DefaultCropResult> cropAll(List<BufferedImage> images, int aspectWidth,
+      int aspectHeight, List<List<CropBoost>> boosts) {
+    requireNonNull(images);
+    if (boosts != null && boosts.size() != images.size()) {
+      throw new IllegalArgumentException("boosts must be the same size as images");
+    }
+
+    final ConcurrentLinkedQueue<CropWorkspace> idle = new ConcurrentLinkedQueue<>();
+    final List<ForkJoinTask<DefaultCropResult>> tasks = new ArrayList<>(images.size());
+    for (int i = 0; i < images.size(); i++) {
+      final BufferedImage image = images.get(i);
+      final List<CropBoost> imageBoosts = boosts != null ? boosts.get(i) : null;
+      tasks.add(ForkJoinTask.adapt(() -> {
+        CropWorkspace workspace = idle.poll();
+        if (workspace == null) {
+          workspace = new CropWorkspace();
+        }
+        try {
+          return crop(image, aspectWidth, aspectHeight, imageBoosts, workspace,
+              CropCheckpoint.NONE, true);
+        } finally {
+          idle.offer(workspace);
+        }
+      }));
+    }
+
+    try {
+      if (ForkJoinTask.getPool() == getPool()) {
+        ForkJoinTask.invokeAll(tasks);
+      } else {
+        getPool().invoke(ForkJoinTask.adapt(() -> {
+          ForkJoinTask.invokeAll(tasks);
+        }));
+      }
+    } catch (RuntimeException | Error e) {
+      // Don't start any more images after a failure
+      tasks.forEach(task -> task.cancel(false));
+      throw e;
+    } finally {
+      // Wait for any images still running so their workspaces are idle before we close them
+      tasks.forEach(ForkJoinTask::quietlyJoin);
+      idle.forEach(CropWorkspace::close);
+    }
+
+    final List<DefaultCropResult> result = new ArrayList<>(tasks.size());
+    for (ForkJoinTask<DefaultCropResult> task : tasks) {
+      result.add(task.join());
+    }
+    return result;
+  }
+
+  /**
+   * Recommend a crop of the given image of the given aspect ratio, calling the given checkpoint
+   * between units of work.
+   *
+   * @param originalImage the image to crop
+   * @param aspectWidth   the width of the crop aspect ratio
+   * @param aspectHeight  the height of the crop aspect ratio
+   * @param boosts        a list of boosts to apply to the crop
+   * @param checkpoint    the checkpoint
+   * @return the recommended crop
+   * @throws CancellationException if the checkpoint stops the crop
+   */
+  public DefaultCropResult crop(BufferedImage originalImage, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, CropCheckpoint checkpoint) {
+    if (getOptions().isThreadLocalWorkspaces()) {
+      return crop(originalImage, aspectWidth, aspectHeight, boosts, workspaces.get(), checkpoint);
+    }
+    try (CropWorkspace workspace = new CropWorkspace()) {
+      return crop(originalImage, aspectWidth, aspectHeight, boosts, workspace, checkpoint);
+    }
+  }
+
+  /**
+   * Recommend a crop of the given image of the given aspect ratio, using the given workspace for
+   * scratch buffers. Reusing one workspace for many crops on the same thread avoids most per-crop
+   * allocation.
+   *
+   * @param originalImage the image to crop
+   * @param aspectWidth   the width of the crop aspect ratio
+   * @param aspectHeight  the height of the crop aspect ratio
+   * @param boosts        a list of boosts to apply to the crop
+   * @param workspace     the workspace, which must not be in use by another thread
+   * @return the recommended crop
+   */
+  public DefaultCropResult crop(BufferedImage originalImage, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, CropWorkspace workspace) {
+    return crop(originalImage, aspectWidth, aspectHeight, boosts, workspace, CropCheckpoint.NONE);
+  }
+
+  /**
+   * Recommend a crop of the given image of the given aspect ratio, using the given workspace for
+   * scratch buffers and calling the given checkpoint between units of work.
+   *
+   * @param originalImage the image to crop
+   * @param aspectWidth   the width of the crop aspect ratio
+   * @param aspectHeight  the height of the crop aspect ratio
+   * @param boosts        a list of boosts to apply to the crop
+   * @param workspace     the workspace, which must not be in use by another thread
+   * @param checkpoint    the checkpoint
+   * @return the recommended crop
+   * @throws CancellationException if the checkpoint stops the crop
+   */
+  public DefaultCropResult crop(BufferedImage originalImage, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, CropWorkspace workspace, CropCheckpoint checkpoint) {
+    return crop(originalImage, aspectWidth, aspectHeight, boosts, workspace, checkpoint, false);
+  }
+
+  /**
+   * @param forkScoring if true, then score candidate crops in parallel chunks on the current
+   *                    thread's pool, which must be this cropper's pool
+   */
+  private DefaultCropResult crop(BufferedImage originalImage, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, CropWorkspace workspace, CropCheckpoint checkpoint,
+      boolean forkScoring) {
+    final SlowCropSpool spool = getOptions().getSlowCropSpool();
+    final long start = spool != null ? System.nanoTime() : 0L;
+
+    final StageRecorder recorder = StageRecorder.of(getOptions());
+    final DefaultCropResult result;
+    if (recorder == null) {
+      result = crop(originalImage, aspectWidth, aspectHeight, boosts, workspace, checkpoint,
+          forkScoring, null);
+    } else {
+      recorder.start();
+      try {
+        result = crop(originalImage, aspectWidth, aspectHeight, boosts, workspace, checkpoint,
+            forkScoring, recorder);
+      } catch (RuntimeException | Error e) {
+        recorder.fail(e);
+        throw e;
+      }
+    }
+
+    if (spool != null) {
+      spool.offer(System.nanoTime() - start, originalImage, aspectWidth, aspectHeight, boosts,
+          getOptions());
+    }
+
+    return result;
+  }
+
+  /**
+   * @param recorder where to record the stages, or null
+   */
+  private DefaultCropResult crop(BufferedImage originalImage, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, CropWorkspace workspace, CropCheckpoint checkpoint,
+      boolean forkScoring, StageRecorder recorder) {
+    // Only when a recording wants it, so unrecorded crops allocate no event
+    final CropEvent event = StageRecorder.cropEventsEnabled() ? new CropEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
+
+    final Analysis analysis = analyze(originalImage, aspectWidth, aspectHeight, boosts, workspace,
+        checkpoint, recorder);
+
+    ScoredCrop topCrop;
+    int scored = analysis.candidates.size();
+    if (getOptions().getSearch() == CropSearch.BRANCH_AND_BOUND) {
+      final int[] count = new int[1];
+      topCrop = boundedTopCrop(analysis.downsampledOutput, analysis.candidates,
+          getOptions().getScoreDownSample(), checkpoint, count);
+      scored = count[0];
+    } else if (getOptions().getSearch() == CropSearch.PYRAMID) {
+      final int[] count = new int[1];
+      topCrop = pyramidTopCrop(analysis.downsampledOutput, analysis.candidates,
+          getOptions().getScoreDownSample(), checkpoint, count);
+      scored = count[0];
+    } else if (forkScoring) {
+      topCrop = new TopCropTask(analysis.downsampledOutput, analysis.candidates, 0,
+          analysis.candidates.size(), getOptions().getScoreDownSample(), checkpoint).invoke();
+    } else {
+      topCrop = topCrop(analysis.downsampledOutput, analysis.candidates, 0,
+          analysis.candidates.size(), getOptions().getScoreDownSample(), checkpoint);
+    }
+    if (topCrop == null) {
+      throw new NoSuchElementException();
+    }
+    if (recorder != null) {
+      recorder.lap(CropStage.SCORING, scored);
+    }
+
+    // Keep a copy of the feature map, since the workspace will reuse its buffer, and the
+    // candidates, and render the debug images only if asked
+    CropDebug debug;
+    if (getOptions().isDebug()) {
+      final ImageData featureMap = analysis.output.copy();
+      final int downsample = getOptions().getScoreDownSample();
+      debug = new CropDebug(() -> featureMap, analysis.candidates,
+          crops -> scoreCrops(featureMap, crops, downsample), topCrop);
+    } else {
+      debug = null;
+    }
+
+    topCrop = analysis.unprescaled(topCrop);
+
+    CropDiagnostics diagnostics;
+    if (recorder != null) {
+      diagnostics = recorder.finish();
+      if (!getOptions().isDiagnostics()) {
+        diagnostics = null;
+      }
+    } else {
+      diagnostics = null;
+    }
+
+    if (event != null) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.imageWidth = originalImage.getWidth();
+        event.imageHeight = originalImage.getHeight();
+        event.aspectWidth = aspectWidth;
+        event.aspectHeight = aspectHeight;
+        event.prescale = analysis.prescale;
+        event.candidates = analysis.candidates.size();
+        event.cropX = topCrop.getX();
+        event.cropY = topCrop.getY();
+        event.cropWidth = topCrop.getWidth();
+        event.cropHeight = topCrop.getHeight();
+        event.score = topCrop.getScore().getTotal();
+        event.commit();
+      }
+    }
+
+    return new DefaultCropResult(topCrop, debug, diagnostics);
+  }
+
+  /**
+   * Returns the best-scoring candidate crops of the given image of the given aspect ratio, best
+   * first, in the original image's coordinates. The first is always the crop that
+   * {@link #crop(BufferedImage, int, int, List)} recommends, and ties go to the earliest candidate
+   * in the same way. This is useful for offering alternative crops, and for comparing how closely
+   * other engines agree with this one.
+   *
+   * @param originalImage the image to crop
+   * @param aspectWidth   the width of the crop aspect ratio
+   * @param aspectHeight  the height of the crop aspect ratio
+   * @param boosts        a list of boosts to apply to the crop
+   * @param limit         the most crops to return
+   * @return the best crops, best first
+   */
+  public List<ScoredCrop> rankCrops(BufferedImage originalImage, int aspectWidth,
+      int aspectHeight, List<CropBoost> boosts, int limit) {
+    requirePositive(limit);
+    if (getOptions().isThreadLocalWorkspaces()) {
+      return rankCrops(originalImage, aspectWidth, aspectHeight, boosts, limit,
+          workspaces.get());
+    }
+    try (CropWorkspace workspace = new CropWorkspace()) {
+      return rankCrops(originalImage, aspectWidth, aspectHeight, boosts, limit, workspace);
+    }
+  }
+
+  private List<ScoredCrop> rankCrops(BufferedImage originalImage, int aspectWidth,
+      int aspectHeight, List<CropBoost> boosts, int limit, CropWorkspace workspace) {
+    final Analysis analysis = analyze(originalImage, aspectWidth, aspectHeight, boosts, workspace,
+        CropCheckpoint.NONE, null);
+    final int downsample = getOptions().getScoreDownSample();
+    final List<Crop> candidates = analysis.candidates;
+
+    final float[] components = new float[4];
+    final float[] totals = new float[candidates.size()];
+    final Integer[] order = new Integer[candidates.size()];
+    for (int i = 0; i < candidates.size(); i++) {
+      totals[i] = scoreCrop(analysis.downsampledOutput, candidates.get(i), downsample,
+          components);
+      order[i] = i;
+    }
+
+    // The sort is stable, so ties stay in candidate order
+    Arrays.sort(order, (a, b) -> Float.compare(totals[b], totals[a]));
+
+    final List<ScoredCrop> result = new ArrayList<>(Math.min(limit, order.length));
+    for (int i = 0; i < Math.min(limit, order.length); i++) {
+      final Crop c = candidates.get(order[i]);
+      final float total = scoreCrop(analysis.downsampledOutput, c, downsample, components);
+      final CropScore score = new CropScore(components[DETAIL], components[SATURATION],
+          components[SKIN], components[BOOST], total);
+      result.add(
+          analysis.unprescaled(new ScoredCrop(c.getX(), c.getY(), c.getWidth(), c.getHeight(),
+              score)));
+    }
+
+    return result;
+  }
+
+  /**
+   * The result of analyzing an image: the feature map, and the candidate crops to score against it,
+   * both in the prescaled coordinate space
+   */
+  private static final class Analysis {
+
+    public final float prescale;
+    public final ImageData output;
+    public final ImageData downsampledOutput;
+    public final List<Crop> candidates;
+
+    public Analysis(float prescale, ImageData output, ImageData downsampledOutput,
+        List<Crop> candidates) {
+      this.prescale = prescale;
+      this.output = output;
+      this.downsampledOutput = downsampledOutput;
+      this.candidates = candidates;
+    }
+
+    /**
+     * Maps the given crop from the prescaled coordinate space back to the original image's
+     */
+    public ScoredCrop unprescaled(ScoredCrop crop) {
+      return new ScoredCrop(
+          (int) (crop.getX() / prescale),
+          (int) (crop.getY() / prescale),
+          (int) (crop.getWidth() / prescale),
+          (int) (crop.getHeight() / prescale),
+          crop.getScore());
+    }
+  }
+
+  /**
+   * Prescales the image, runs the feature detectors over it, applies the boosts, and generates the
+   * candidate crops.
+   *
+   * @param recorder where to record the stages, or null
+   */
+  private Analysis analyze(BufferedImage originalImage, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, CropWorkspace workspace, CropCheckpoint checkpoint,
+      StageRecorder recorder) {
     // Validate our inputs
     originalImage = requireNonNull(originalImage);
     aspectWidth = requirePositive(aspectWidth);
     aspectHeight = requirePositive(aspectHeight);
     boosts = Optional.ofNullable(boosts).map(Collections::unmodifiableList)
         .orElseGet(Collections::emptyList);
+    workspace = requireNonNull(workspace);
+    checkpoint = requireNonNull(checkpoint);
 
     // TODO Is there any work to do here to handle tiny images?
 
@@ -104,153 +506,398 @@ public class DefaultSmartCropper implements SmartCropper {
     // For performance reasons, we don't want to analyze the image at full resolution in case it's
     // very large. In practice, we don't need to analyze an image larger than 256x256 pixels.
     // Therefore, we'll downscale the image if it's larger than 256x256 pixels.
-    BufferedImage analyzeImage;
-    float prescale;
-    if (getOptions().isPrescale()) {
-      prescale = Math.min(
-          Math.max(getOptions().getPrescaleSize() / (float) originalImage.getWidth(),
-              getOptions().getPrescaleSize() / (float) originalImage.getHeight()), 1.0f);
-      if (prescale < 1.0f) {
-        // If prescale is less than 1, it means that at least one of the dimensions of the image
-        // (width or height) is greater than 256 pixels. Here's the reasoning:
-        //
-        // The ratios 256.0f / imageWidth and 256.0f / imageHeight compute how much the image would
-        // need to be scaled down for the width or height, respectively, to be exactly 256 pixels. If
-        // either dimension of the image is greater than 256 pixels, the corresponding ratio will be
-        // less than 1.
-        //
-        // The Math.max(256.0f / imageWidth, 256.0f / imageHeight) part of the expression ensures that
-        // the larger of these two scaling factors is used. This is because the aim is to scale the
-        // image down just enough so that neither dimension exceeds 256 pixels, maintaining the
-        // image's aspect ratio.
-        //
-        // Finally, the Math.min(..., 1.0f) part ensures that the scaling factor does not exceed 1,
-        // meaning the image should not be scaled up if both dimensions are already less than or equal
-        // to 256 pixels.
-        //
-        // Therefore, if prescale is less than 1, it indicates that scaling down is necessary for at
-        // least one dimension of the image to fit within a 256-pixel size constraint, implying that
-        // either imageWidth or imageHeight (or both) is larger than 256 pixels.
-        // TODO Add prescaleRenderingStyle?
-        analyzeImage = BufferedImages.scaled(originalImage,
-            (int) (originalImage.getWidth() * prescale),
-            (int) (originalImage.getHeight() * prescale), BufferedImage.TYPE_INT_ARGB, null, null,
-            getOptions().getPrescaleAlgorithm());
-
-        cropWidth = (int) (cropWidth * prescale);
-        cropHeight = (int) (cropHeight * prescale);
-
-        float finalPrescale = prescale;
-        boosts = boosts.stream().map(
-            b -> new CropBoost((int) (b.getX() * finalPrescale), (int) (b.getY() * finalPrescale),
-                (int) (b.getWidth() * finalPrescale), (int) (b.getHeight() * finalPrescale),
-                b.getWeight())).collect(toList());
-      } else {
-        // If prescale is 1, it means that both dimensions of the image are less than or equal to 256.
-        // In this case, we don't need to scale the image down, so we set prescale to 1.
-        prescale = 1.0f;
-        analyzeImage = originalImage;
-      }
-    } else {
-      // We don't prescale in this case, so set prescale to 1.0f and use the original image for analysis.
-      prescale = 1.0f;
-      analyzeImage = originalImage;
+    final float prescale = Prescaling.prescaleFactor(originalImage.getWidth(),
+        originalImage.getHeight(), getOptions().isPrescale(), getOptions().getPrescaleSize());
+    if (prescale < 1.0f) {
+      cropWidth = (int) (cropWidth * prescale);
+      cropHeight = (int) (cropHeight * prescale);
+      boosts = Prescaling.prescaled(boosts, prescale);
     }
 
     // Analyze the image. These are in the prescaled coordinate space.
-    ImageData input = ImageData.fromBufferedImage(analyzeImage);
-    ImageData output = new ImageData(input.width, input.height);
-
-    EdgeDetection.edgeDetect(input, output);
-    SkinColoring.skinDetect(input, output, getOptions().getSkinColor(),
-        getOptions().getSkinThreshold(), getOptions().getSkinBrightnessMin(),
-        getOptions().getSkinBrightnessMax());
-    Saturation.saturationDetect(input, output, getOptions().getSaturationThreshold(),
-        getOptions().getSaturationBrightnessMin(), getOptions().getSaturationBrightnessMax());
+    final boolean direct = getOptions().getOffHeapThreshold() > 0
+        && (long) Prescaling.prescaledSize(originalImage.getWidth(), prescale)
+        * Prescaling.prescaledSize(originalImage.getHeight(), prescale)
+        >= getOptions().getOffHeapThreshold();
+    ImageData input = workspace.input(originalImage, prescale, getOptions().getPrescaleAlgorithm(),
+        direct, recorder);
+    ImageData output = workspace.output(input.width, input.height, direct);
+
+    final CropCheckpoint bandCheckpoint = checkpoint;
+    final TiledDetection.BandDetector detector = (y0, y1) -> {
+      bandCheckpoint.check();
+      detect(input, output, y0, y1, recorder);
+    };
+    if (getOptions().isParallelDetection()) {
+      TiledDetection.parallel(getPool(), input.height, getOptions().getDetectionBandHeight(),
+          detector);
+    } else {
+      TiledDetection.sequential(input.height, getOptions().getDetectionBandHeight(), detector);
+    }
+    if (recorder != null) {
+      // The bands recorded their own stages, so start the next stage from here
+      recorder.restart();
+      recorder.report(CropStage.EDGE, CropStage.SKIN, CropStage.SATURATION);
+    }
     Boosting.applyBoosts(output, boosts);
+    if (recorder != null) {
+      recorder.lap(CropStage.BOOST, boosts.size());
+    }
 
-    final float finalPrescale = prescale;
-    ScoredCrop topCrop = scoreCrops(output,
-        Composition.generateCandidateCrops(input.width, input.height, cropWidth, cropHeight,
-            getOptions().getMinScale(), getOptions().getMaxScale(), getOptions().getScaleStep(),
-            getOptions().getCropSearchStep()), getOptions().getScoreDownSample()).stream()
-        .max(Comparator.comparing(ScoredCrop::getScore))
-        .map(c -> new ScoredCrop(
-            (int) (c.getX() / finalPrescale),
-            (int) (c.getY() / finalPrescale),
-            (int) (c.getWidth() / finalPrescale),
-            (int) (c.getHeight() / finalPrescale),
-            c.getScore()))
-        .orElseThrow();
-
-    BufferedImage debugImage;
-    if (getOptions().isDebug()) {
-      debugImage = output.toBufferedImage();
+    checkpoint.check();
+
+    final ImageData downsampledOutput = workspace.scaledDown(output,
+        getOptions().getScoreDownSample());
+    if (recorder != null) {
+      recorder.lap(CropStage.DOWNSAMPLE,
+          (long) downsampledOutput.width * downsampledOutput.height);
+    }
+    final List<Crop> candidates = workspace.candidateCrops(input.width, input.height, cropWidth,
+        cropHeight, getOptions().getMinScale(), getOptions().getMaxScale(),
+        getOptions().getScaleStep(), getOptions().getCropSearchStep());
+    if (recorder != null) {
+      recorder.lap(CropStage.CANDIDATES, candidates.size());
+    }
+    return new Analysis(prescale, output, downsampledOutput, candidates);
+  }
+
+  /**
+   * Runs the edge, skin, and saturation detectors over the given band of rows.
+   *
+   * @param recorder where to record each detector's stage, or null
+   */
+  private void detect(ImageData input, ImageData output, int y0, int y1,
+      StageRecorder recorder) {
+    final StageRecorder.Stopwatch stopwatch = recorder != null ? recorder.stopwatch() : null;
+    final long pixels = (long) input.width * (y1 - y0);
+
+    EdgeDetection.edgeDetect(input, output, y0, y1);
+    if (stopwatch != null) {
+      stopwatch.lap(CropStage.EDGE, pixels);
+    }
+
+    if (getOptions().isLookupTables()) {
+      SkinColoring.skinDetect(input, output, getOptions().getSkinColorTable(), y0, y1);
     } else {
-      debugImage = null;
+      SkinColoring.skinDetect(input, output, getOptions().getSkinColor(),
+          getOptions().getSkinThreshold(), getOptions().getSkinBrightnessMin(),
+          getOptions().getSkinBrightnessMax(), y0, y1);
+    }
+    if (stopwatch != null) {
+      stopwatch.lap(CropStage.SKIN, pixels);
     }
 
-    return new DefaultCropResult(topCrop, debugImage);
+    if (getOptions().isLookupTables()) {
+      Saturation.saturationDetect(input, output, getOptions().getSaturationTable(), y0, y1);
+    } else {
+      Saturation.saturationDetect(input, output, getOptions().getSaturationThreshold(),
+          getOptions().getSaturationBrightnessMin(), getOptions().getSaturationBrightnessMax(),
+          y0, y1);
+    }
+    if (stopwatch != null) {
+      stopwatch.lap(CropStage.SATURATION, pixels);
+    }
   }
 
   public List<ScoredCrop> scoreCrops(ImageData output, List<Crop> crops, int downsample) {
-    final ImageData downsampledOutput = MoreImageData.scaledDown(output, downsample);
+    return scoreDownsampledCrops(MoreImageData.scaledDown(output, downsample), crops, downsample);
+  }
+
+  /**
+   * Scores the given crops against the given feature map, which is already downsampled by the given
+   * factor
+   */
+  private List<ScoredCrop> scoreDownsampledCrops(ImageData downsampledOutput, List<Crop> crops,
+      int downsample) {
+    final float[] components = new float[4];
+    return crops.stream().map(c -> {
+      final float total = scoreCrop(downsampledOutput, c, downsample, components);
+      CropScore score = new CropScore(components[DETAIL], components[SATURATION], components[SKIN],
+          components[BOOST], total);
+      return new ScoredCrop(c.getX(), c.getY(), c.getWidth(), c.getHeight(), score);
+    }).collect(toList());
+  }
+
+  /**
+   * The number of candidate crops to score between checkpoints
+   */
+  private static final int CANDIDATES_PER_CHECKPOINT = 256;
+
+  /**
+   * The number of candidate crops below which {@link TopCropTask} stops splitting
+   */
+  private static final int CANDIDATES_PER_TASK = 1024;
+
+  /**
+   * Returns the best-scoring of the given range of crops, or null if the range is empty. Ties go to
+   * the earliest crop. Equivalent to taking the maximum of {@link #scoreCrops}, but only allocates
+   * a score for each new leader.
+   */
+  private ScoredCrop topCrop(ImageData downsampledOutput, List<Crop> crops, int from, int to,
+      int downsample, CropCheckpoint checkpoint) {
+    final float[] components = new float[4];
+    ScoredCrop result = null;
+    for (int i = from; i < to; i++) {
+      if ((i - from) % CANDIDATES_PER_CHECKPOINT == 0) {
+        checkpoint.check();
+      }
+      final Crop c = crops.get(i);
+      final float total = scoreCrop(downsampledOutput, c, downsample, components);
+      if (result == null || Float.compare(total, result.getScore().getTotal()) > 0) {
+        CropScore score = new CropScore(components[DETAIL], components[SATURATION],
+            components[SKIN], components[BOOST], total);
+        result = new ScoredCrop(c.getX(), c.getY(), c.getWidth(), c.getHeight(), score);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the best-scoring of the given crops, or null if there are none, exactly like
+   * {@link #topCrop(ImageData, List, int, int, int, CropCheckpoint)}. Scores candidates in order of
+   * their {@link CropScoreBounds upper bounds}, best first, and stops as soon as no remaining
+   * candidate's bound reaches the best score so far.
+   *
+   * @param scored receives the number of crops actually scored in its first element
+   */
+  private ScoredCrop boundedTopCrop(ImageData downsampledOutput, List<Crop> crops, int downsample,
+      CropCheckpoint checkpoint, int[] scored) {
+    final CropScoreBounds bounds = new CropScoreBounds(downsampledOutput, downsample,
+        getOptions());
+    final double[] upperBounds = new double[crops.size()];
+    final Integer[] order = new Integer[crops.size()];
+    for (int i = 0; i < crops.size(); i++) {
+      upperBounds[i] = bounds.upperBound(crops.get(i));
+      order[i] = i;
+    }
 
+    // The sort is stable, so candidates with equal bounds stay in their original order
+    Arrays.sort(order, (a, b) -> Double.compare(upperBounds[b], upperBounds[a]));
+
+    final float[] components = new float[4];
+    ScoredCrop result = null;
+    int resultIndex = -1;
+    int count = 0;
+    for (final int i : order) {
+      if (result != null && upperBounds[i] < result.getScore().getTotal()) {
+        break;
+      }
+      if (count % CANDIDATES_PER_CHECKPOINT == 0) {
+        checkpoint.check();
+      }
+      count = count + 1;
+
+      final Crop c = crops.get(i);
+      final float total = scoreCrop(downsampledOutput, c, downsample, components);
+      final int cmp = result == null ? 1 : Float.compare(total, result.getScore().getTotal());
+      if (cmp > 0 || (cmp == 0 && i < resultIndex)) {
+        CropScore score = new CropScore(components[DETAIL], components[SATURATION],
+            components[SKIN], components[BOOST], total);
+        result = new ScoredCrop(c.getX(), c.getY(), c.getWidth(), c.getHeight(), score);
+        resultIndex = i;
+      }
+    }
+    scored[0] = count;
+
+    return result;
+  }
+
+  /**
+   * Returns a good crop from the given crops, or null if there are none, by searching coarse to
+   * fine. First, scores every candidate whose position is a multiple of a larger step against a
+   * further downsampled feature map. Then scores every candidate of about the same size and
+   * position as any of the best few of those against the full feature map, and returns the best.
+   * Ties go to the earliest crop.
+   *
+   * @param scored receives the number of crops actually scored in its first element
+   * @see DefaultSmartCropperOptions#getPyramidDownSample()
+   * @see DefaultSmartCropperOptions#getPyramidCandidates()
+   */
+  private ScoredCrop pyramidTopCrop(ImageData downsampledOutput, List<Crop> crops, int downsample,
+      CropCheckpoint checkpoint, int[] scored) {
+    final int factor = Math.max(1, Math.min(getOptions().getPyramidDownSample(),
+        Math.min(downsampledOutput.width, downsampledOutput.height)));
+    final int coarseStep = getOptions().getCropSearchStep() * factor;
+    final ImageData coarseOutput = MoreImageData.scaledDown(downsampledOutput, factor);
+
+    // Keep the best few coarse crops, best first
+    final Crop[] leaders = new Crop[getOptions().getPyramidCandidates()];
+    final float[] leaderTotals = new float[leaders.length];
+    final float[] components = new float[4];
+    int count = 0;
+    for (Crop c : crops) {
+      if (c.getX() % coarseStep != 0 || c.getY() % coarseStep != 0) {
+        continue;
+      }
+      if (count % CANDIDATES_PER_CHECKPOINT == 0) {
+        checkpoint.check();
+      }
+      count = count + 1;
+
+      final float total = scoreCrop(coarseOutput, c, downsample * factor, components);
+      int i = leaders.length;
+      while (i > 0 && (leaders[i - 1] == null || Float.compare(total, leaderTotals[i - 1]) > 0)) {
+        i = i - 1;
+      }
+      if (i < leaders.length) {
+        System.arraycopy(leaders, i, leaders, i + 1, leaders.length - i - 1);
+        System.arraycopy(leaderTotals, i, leaderTotals, i + 1, leaders.length - i - 1);
+        leaders[i] = c;
+        leaderTotals[i] = total;
+      }
+    }
+
+    // Refine around the leaders, within one coarse step and one scale step
+    ScoredCrop result = null;
+    for (Crop c : crops) {
+      boolean near = false;
+      for (int i = 0; i < leaders.length && leaders[i] != null && !near; i++) {
+        final Crop leader = leaders[i];
+        near = Math.abs(c.getX() - leader.getX()) < coarseStep
+            && Math.abs(c.getY() - leader.getY()) < coarseStep
+            && Math.abs(c.getWidth() - leader.getWidth())
+            <= leader.getWidth() * getOptions().getScaleStep() + 1.0f;
+      }
+      if (!near) {
+        continue;
+      }
+      if (count % CANDIDATES_PER_CHECKPOINT == 0) {
+        checkpoint.check();
+      }
+      count = count + 1;
+
+      final float total = scoreCrop(downsampledOutput, c, downsample, components);
+      if (result == null || Float.compare(total, result.getScore().getTotal()) > 0) {
+        CropScore score = new CropScore(components[DETAIL], components[SATURATION],
+            components[SKIN], components[BOOST], total);
+        result = new ScoredCrop(c.getX(), c.getY(), c.getWidth(), c.getHeight(), score);
+      }
+    }
+    scored[0] = count;
+
+    return result;
+  }
+
+  /**
+   * Finds the best-scoring of a range of crops by splitting it in half until the pieces are small,
+   * so that idle workers can steal pieces of a large image's search. Ties go to the earliest crop,
+   * just like {@link #topCrop(ImageData, List, int, int, int, CropCheckpoint)}.
+   */
+  private class TopCropTask extends RecursiveTask<ScoredCrop> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ImageData downsampledOutput;
+    private final List<Crop> crops;
+    private final int from;
+    private final int to;
+    private final int downsample;
+    private final CropCheckpoint checkpoint;
+
+    public TopCropTask(ImageData downsampledOutput, List<Crop> crops, int from, int to,
+        int downsample, CropCheckpoint checkpoint) {
+      this.downsampledOutput = downsampledOutput;
+      this.crops = crops;
+      this.from = from;
+      this.to = to;
+      this.downsample = downsample;
+      this.checkpoint = checkpoint;
+    }
+
+    @Override
+    protected ScoredCrop compute() {
+      if (to - from <= CANDIDATES_PER_TASK) {
+        return topCrop(downsampledOutput, crops, from, to, downsample, checkpoint);
+      }
+
+      final int mid = (from + to) >>> 1;
+      final TopCropTask right = new TopCropTask(downsampledOutput, crops, mid, to, downsample,
+          checkpoint);
+      right.fork();
+      final ScoredCrop leftResult = new TopCropTask(downsampledOutput, crops, from, mid,
+          downsample, checkpoint).compute();
+      final ScoredCrop rightResult = right.join();
+
+      if (leftResult == null) {
+        return rightResult;
+      }
+      if (rightResult != null
+          && Float.compare(rightResult.getScore().getTotal(), leftResult.getScore().getTotal())
+          > 0) {
+        return rightResult;
+      }
+      return leftResult;
+    }
+  }
+
+  private static final int DETAIL = 0;
+  private static final int SATURATION = 1;
+  private static final int SKIN = 2;
+  private static final int BOOST = 3;
+
+  /**
+   * Scores one crop against the downsampled feature map. Stores the detail, saturation, skin, and
+   * boost components in the given array, and returns the total score.
+   */
+  private float scoreCrop(ImageData downsampledOutput, Crop c, int downsample,
+      float[] components) {
     final float[] od = downsampledOutput.data;
     final int outputHeightDownSample = downsampledOutput.height * downsample;
     final int outputWidthDownSample = downsampledOutput.width * downsample;
-    final int outputWidth = downsampledOutput.width;
 
-    return crops.stream().map(c -> {
-      // TODO It's odd. The crop and the output are in different coordinate spaces. The output has
-      // been scaled down twice (!!), but the crop has only been scaled down once.
-
-      float detail = 0.0f;
-      float saturation = 0.0f;
-      float skin = 0.0f;
-      float boost = 0.0f;
-
-      // osx = output standard x
-      // osy = output standard y
-      // osp = output standard pos
-      // dsx = downscaled x
-      // dsy = downscaled y
-      // dsp = downscaled pos
-      for (int osy = 0; osy < outputHeightDownSample; osy += downsample) {
-        for (int osx = 0; osx < outputWidthDownSample; osx += downsample) {
-          final int dsy = osy / downsample;
-          final int dsx = osx / downsample;
-
-          final int osp = (osy * outputWidthDownSample + osx) * PIXEL_STRIDE;
-          final int dsp = (dsy * outputWidth + dsx) * PIXEL_STRIDE;
-
-          final float ospImportance = Composition.calculatePointImportance(c, osx, osy,
-              getOptions().getOutsideImportance(), getOptions().getEdgeRadius(),
-              getOptions().getEdgeWeight(), getOptions().getRuleOfThirdsWeight());
-
-          final float dspDetail = od[dsp + GO] / 255.0f;
-
-          skin +=
-              (od[dsp + RO] / 255.0f) * (dspDetail + getOptions().getSkinBias()) * ospImportance;
-          detail += dspDetail * ospImportance;
-          saturation += (od[dsp + BO] / 255.0f) * (dspDetail + getOptions().getSaturationBias())
-              * ospImportance;
-          boost += (od[dsp + AO] / 255.0f) * ospImportance;
-        }
+    // TODO It's odd. The crop and the output are in different coordinate spaces. The output has
+    // been scaled down twice (!!), but the crop has only been scaled down once.
+
+    float detail = 0.0f;
+    float saturation = 0.0f;
+    float skin = 0.0f;
+    float boost = 0.0f;
+
+    // osx = output standard x
+    // osy = output standard y
+    // dsx = downscaled x
+    // dsy = downscaled y
+    // dsp = downscaled pos
+    for (int osy = 0; osy < outputHeightDownSample; osy += downsample) {
+      for (int osx = 0; osx < outputWidthDownSample; osx += downsample) {
+        final int dsy = osy / downsample;
+        final int dsx = osx / downsample;
+
+        final int dsp = downsampledOutput.index(dsx, dsy);
+
+        final float ospImportance = Composition.calculatePointImportance(c, osx, osy,
+            getOptions().getOutsideImportance(), getOptions().getEdgeRadius(),
+            getOptions().getEdgeWeight(), getOptions().getRuleOfThirdsWeight());
+
+        final float dspDetail = od[dsp + GO] / 255.0f;
+
+        skin +=
+            (od[dsp + RO] / 255.0f) * (dspDetail + getOptions().getSkinBias()) * ospImportance;
+        detail += dspDetail * ospImportance;
+        saturation += (od[dsp + BO] / 255.0f) * (dspDetail + getOptions().getSaturationBias())
+            * ospImportance;
+        boost += (od[dsp + AO] / 255.0f) * ospImportance;
       }
+    }
 
-      final float total =
-          (detail * getOptions().getDetailWeight() + skin * getOptions().getSkinWeight()
-              + saturation * getOptions().getSaturationWeight()
-              + boost * getOptions().getBoostWeight()) / (c.getWidth() * c.getHeight());
+    final float total =
+        (detail * getOptions().getDetailWeight() + skin * getOptions().getSkinWeight()
+            + saturation * getOptions().getSaturationWeight()
+            + boost * getOptions().getBoostWeight()) / (c.getWidth() * c.getHeight());
 
-      CropScore score = new CropScore(detail, saturation, skin, boost, total);
+    components[DETAIL] = detail;
+    components[SATURATION] = saturation;
+    components[SKIN] = skin;
+    components[BOOST] = boost;
 
-      return new ScoredCrop(c.getX(), c.getY(), c.getWidth(), c.getHeight(), score);
-    }).collect(toList());
+    return total;
   }
 
   private DefaultSmartCropperOptions getOptions() {
     return options;
   }
+
+  private ForkJoinPool getPool() {
+    return pool;
+  }
 }
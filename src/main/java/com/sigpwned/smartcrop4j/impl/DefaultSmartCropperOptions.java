@@ -26,11 +26,14 @@
 package com.sigpwned.smartcrop4j.impl;
 
 import static com.sigpwned.smartcrop4j.util.Validation.requireFinite;
+import static com.sigpwned.smartcrop4j.util.Validation.requireNonNegative;
 import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
 import static com.sigpwned.smartcrop4j.util.Validation.requireUnit;
 import static com.sigpwned.smartcrop4j.util.Validation.requireUnitColor;
 import static java.util.Objects.requireNonNull;
 
+import com.sigpwned.smartcrop4j.impl.util.SaturationTable;
+import com.sigpwned.smartcrop4j.impl.util.SkinColorTable;
 import java.awt.RenderingHints;
 import java.util.Arrays;
 import java.util.Objects;
@@ -73,6 +76,19 @@ public class DefaultSmartCropperOptions {
   private final int prescaleSize;
   private final Object prescaleAlgorithm;
   private final boolean debug;
+  private final boolean lookupTables;
+  private final boolean parallelDetection;
+  private final int detectionBandHeight;
+  private final boolean threadLocalWorkspaces;
+  private final int offHeapThreshold;
+  private final boolean diagnostics;
+  private final CropListener listener;
+  private final SlowCropSpool slowCropSpool;
+  private final CropSearch search;
+  private final int pyramidDownSample;
+  private final int pyramidCandidates;
+  private volatile SkinColorTable skinColorTable;
+  private volatile SaturationTable saturationTable;
 
   /* default */ DefaultSmartCropperOptions(DefaultSmartCropperOptionsBuilder builder) {
     this.detailWeight = requireFinite(builder.getDetailWeight());
@@ -116,6 +132,17 @@ public class DefaultSmartCropperOptions {
           "prescaleAlgorithm must be one of VALUE_INTERPOLATION_NEAREST_NEIGHBOR, VALUE_INTERPOLATION_BILINEAR, VALUE_INTERPOLATION_BICUBIC");
     }
     this.debug = builder.isDebug();
+    this.lookupTables = builder.isLookupTables();
+    this.parallelDetection = builder.isParallelDetection();
+    this.detectionBandHeight = requirePositive(builder.getDetectionBandHeight());
+    this.threadLocalWorkspaces = builder.isThreadLocalWorkspaces();
+    this.offHeapThreshold = requireNonNegative(builder.getOffHeapThreshold());
+    this.diagnostics = builder.isDiagnostics();
+    this.listener = builder.getListener();
+    this.slowCropSpool = builder.getSlowCropSpool();
+    this.search = requireNonNull(builder.getSearch());
+    this.pyramidDownSample = requirePositive(builder.getPyramidDownSample());
+    this.pyramidCandidates = requirePositive(builder.getPyramidCandidates());
   }
 
   public float getDetailWeight() {
@@ -222,6 +249,86 @@ public class DefaultSmartCropperOptions {
     return debug;
   }
 
+  public boolean isLookupTables() {
+    return lookupTables;
+  }
+
+  public boolean isParallelDetection() {
+    return parallelDetection;
+  }
+
+  public int getDetectionBandHeight() {
+    return detectionBandHeight;
+  }
+
+  public boolean isThreadLocalWorkspaces() {
+    return threadLocalWorkspaces;
+  }
+
+  public int getOffHeapThreshold() {
+    return offHeapThreshold;
+  }
+
+  public boolean isDiagnostics() {
+    return diagnostics;
+  }
+
+  public CropListener getListener() {
+    return listener;
+  }
+
+  public SlowCropSpool getSlowCropSpool() {
+    return slowCropSpool;
+  }
+
+  public CropSearch getSearch() {
+    return search;
+  }
+
+  public int getPyramidDownSample() {
+    return pyramidDownSample;
+  }
+
+  public int getPyramidCandidates() {
+    return pyramidCandidates;
+  }
+
+  /**
+   * Returns the skin color lookup table for these options, building it on first use. The table is
+   * shared by all croppers that use these options.
+   */
+  /* default */ SkinColorTable getSkinColorTable() {
+    SkinColorTable result = skinColorTable;
+    if (result == null) {
+      synchronized (this) {
+        result = skinColorTable;
+        if (result == null) {
+          skinColorTable = result = SkinColorTable.create(getSkinColor(), getSkinThreshold(),
+              getSkinBrightnessMin(), getSkinBrightnessMax());
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the saturation lookup table for these options, building it on first use. The table is
+   * shared by all croppers that use these options.
+   */
+  /* default */ SaturationTable getSaturationTable() {
+    SaturationTable result = saturationTable;
+    if (result == null) {
+      synchronized (this) {
+        result = saturationTable;
+        if (result == null) {
+          saturationTable = result = SaturationTable.create(getSaturationThreshold(),
+              getSaturationBrightnessMin(), getSaturationBrightnessMax());
+        }
+      }
+    }
+    return result;
+  }
+
   public DefaultSmartCropperOptionsBuilder toBuilder() {
     return new DefaultSmartCropperOptionsBuilder(this);
   }
@@ -257,7 +364,18 @@ public class DefaultSmartCropperOptions {
         && Float.compare(getBoostWeight(), that.getBoostWeight()) == 0
         && Float.compare(getRuleOfThirdsWeight(), that.getRuleOfThirdsWeight()) == 0
         && isPrescale() == that.isPrescale() && getPrescaleSize() == that.getPrescaleSize()
-        && isDebug() == that.isDebug() && Arrays.equals(getSkinColor(), that.getSkinColor())
+        && isDebug() == that.isDebug() && isLookupTables() == that.isLookupTables()
+        && isParallelDetection() == that.isParallelDetection()
+        && getDetectionBandHeight() == that.getDetectionBandHeight()
+        && isThreadLocalWorkspaces() == that.isThreadLocalWorkspaces()
+        && getOffHeapThreshold() == that.getOffHeapThreshold()
+        && isDiagnostics() == that.isDiagnostics()
+        && Objects.equals(getListener(), that.getListener())
+        && Objects.equals(getSlowCropSpool(), that.getSlowCropSpool())
+        && Objects.equals(getSearch(), that.getSearch())
+        && getPyramidDownSample() == that.getPyramidDownSample()
+        && getPyramidCandidates() == that.getPyramidCandidates()
+        && Arrays.equals(getSkinColor(), that.getSkinColor())
         && Objects.equals(getPrescaleAlgorithm(), that.getPrescaleAlgorithm());
   }
 
@@ -269,7 +387,10 @@ public class DefaultSmartCropperOptions {
         getSaturationWeight(), getScoreDownSample(), getCropSearchStep(), getScaleStep(),
         getMinScale(), getMaxScale(), getEdgeRadius(), getEdgeWeight(), getOutsideImportance(),
         getBoostWeight(), getRuleOfThirdsWeight(), isPrescale(), getPrescaleSize(),
-        getPrescaleAlgorithm(), isDebug());
+        getPrescaleAlgorithm(), isDebug(), isLookupTables(), isParallelDetection(),
+        getDetectionBandHeight(), isThreadLocalWorkspaces(), getOffHeapThreshold(), isDiagnostics(),
+        getListener(), getSlowCropSpool(), getSearch(), getPyramidDownSample(),
+        getPyramidCandidates());
     result = 31 * result + Arrays.hashCode(getSkinColor());
     return result;
   }
@@ -288,6 +409,15 @@ public class DefaultSmartCropperOptions {
         + edgeWeight + ", outsideImportance=" + outsideImportance + ", boostWeight=" + boostWeight
         + ", ruleOfThirdsWeight=" + ruleOfThirdsWeight + ", prescale=" + prescale
         + ", prescaleSize=" + prescaleSize + ", prescaleAlgorithm=" + prescaleAlgorithm + ", debug="
-        + debug + '}';
+        + debug + ", lookupTables=" + lookupTables + ", parallelDetection="
+        + parallelDetection + ", detectionBandHeight=" + detectionBandHeight
+        + ", threadLocalWorkspaces=" + threadLocalWorkspaces
+        + ", offHeapThreshold=" + offHeapThreshold
+        + ", diagnostics=" + diagnostics
+        + ", listener=" + listener
+        + ", slowCropSpool=" + slowCropSpool
+        + ", search=" + search
+        + ", pyramidDownSample=" + pyramidDownSample
+        + ", pyramidCandidates=" + pyramidCandidates + '}';
   }
 }
@@ -57,6 +57,17 @@ public class DefaultSmartCropperOptionsBuilder {
   private int prescaleSize = 256;
   private Object prescaleAlgorithm = RenderingHints.VALUE_INTERPOLATION_BILINEAR;
   private boolean debug = true;
+  private boolean lookupTables = false;
+  private boolean parallelDetection = false;
+  private int detectionBandHeight = 32;
+  private boolean threadLocalWorkspaces = false;
+  private int offHeapThreshold = 0;
+  private boolean diagnostics = false;
+  private CropListener listener = null;
+  private SlowCropSpool slowCropSpool = null;
+  private CropSearch search = CropSearch.EXHAUSTIVE;
+  private int pyramidDownSample = 4;
+  private int pyramidCandidates = 4;
 
   public DefaultSmartCropperOptionsBuilder() {
   }
@@ -88,6 +99,17 @@ public class DefaultSmartCropperOptionsBuilder {
     setPrescaleSize(that.getPrescaleSize());
     setPrescaleAlgorithm(that.getPrescaleAlgorithm());
     setDebug(that.isDebug());
+    setLookupTables(that.isLookupTables());
+    setParallelDetection(that.isParallelDetection());
+    setDetectionBandHeight(that.getDetectionBandHeight());
+    setThreadLocalWorkspaces(that.isThreadLocalWorkspaces());
+    setOffHeapThreshold(that.getOffHeapThreshold());
+    setDiagnostics(that.isDiagnostics());
+    setListener(that.getListener());
+    setSlowCropSpool(that.getSlowCropSpool());
+    setSearch(that.getSearch());
+    setPyramidDownSample(that.getPyramidDownSample());
+    setPyramidCandidates(that.getPyramidCandidates());
   }
 
   public float getDetailWeight() {
@@ -194,6 +216,50 @@ public class DefaultSmartCropperOptionsBuilder {
     return debug;
   }
 
+  public boolean isLookupTables() {
+    return lookupTables;
+  }
+
+  public boolean isParallelDetection() {
+    return parallelDetection;
+  }
+
+  public int getDetectionBandHeight() {
+    return detectionBandHeight;
+  }
+
+  public boolean isThreadLocalWorkspaces() {
+    return threadLocalWorkspaces;
+  }
+
+  public int getOffHeapThreshold() {
+    return offHeapThreshold;
+  }
+
+  public boolean isDiagnostics() {
+    return diagnostics;
+  }
+
+  public CropListener getListener() {
+    return listener;
+  }
+
+  public SlowCropSpool getSlowCropSpool() {
+    return slowCropSpool;
+  }
+
+  public CropSearch getSearch() {
+    return search;
+  }
+
+  public int getPyramidDownSample() {
+    return pyramidDownSample;
+  }
+
+  public int getPyramidCandidates() {
+    return pyramidCandidates;
+  }
+
   public DefaultSmartCropperOptionsBuilder setDetailWeight(float detailWeight) {
     this.detailWeight = detailWeight;
     return this;
@@ -321,11 +387,122 @@ public class DefaultSmartCropperOptionsBuilder {
     return this;
   }
 
+  /**
+   * If true, then results keep a copy of their feature map and their candidates as a
+   * {@link CropDebug}, which renders debug images only when asked. The copy costs one feature map
+   * allocation per crop, so disable debugging for the least allocation.
+   */
   public DefaultSmartCropperOptionsBuilder setDebug(boolean debug) {
     this.debug = debug;
     return this;
   }
 
+  /**
+   * If true, then classify skin and saturation using precomputed lookup tables instead of computing
+   * them per pixel. The tables are built once per {@link DefaultSmartCropperOptions} instance on
+   * first use. Saturation lookups are exact, and skin lookups are rounded to the nearest whole
+   * value in [0, 255].
+   */
+  public DefaultSmartCropperOptionsBuilder setLookupTables(boolean lookupTables) {
+    this.lookupTables = lookupTables;
+    return this;
+  }
+
+  /**
+   * If true, then split feature detection into horizontal bands of
+   * {@link #setDetectionBandHeight(int) detectionBandHeight} rows and run them on the cropper's
+   * fork/join pool. The result is identical to sequential detection. Most useful when prescaling is
+   * disabled or {@link #setPrescaleSize(int) prescaleSize} is large.
+   */
+  public DefaultSmartCropperOptionsBuilder setParallelDetection(boolean parallelDetection) {
+    this.parallelDetection = parallelDetection;
+    return this;
+  }
+
+  public DefaultSmartCropperOptionsBuilder setDetectionBandHeight(int detectionBandHeight) {
+    this.detectionBandHeight = detectionBandHeight;
+    return this;
+  }
+
+  /**
+   * If true, then each thread keeps a {@link CropWorkspace} per cropper and reuses its buffers from
+   * one crop to the next, so repeated crops of similarly-sized images allocate very little. The
+   * buffers stay reachable for the life of the thread, and grow to fit the largest image the thread
+   * has analyzed.
+   */
+  public DefaultSmartCropperOptionsBuilder setThreadLocalWorkspaces(boolean threadLocalWorkspaces) {
+    this.threadLocalWorkspaces = threadLocalWorkspaces;
+    return this;
+  }
+
+  /**
+   * If positive, then analysis images with at least this many pixels keep their feature maps in
+   * off-heap memory instead of {@code float[]}s, which keeps very large analyses from filling the
+   * old generation with humongous arrays. The memory is freed when the crop finishes, or when the
+   * {@link CropWorkspace} is closed. Zero, the default, disables off-heap feature maps.
+   */
+  public DefaultSmartCropperOptionsBuilder setOffHeapThreshold(int offHeapThreshold) {
+    this.offHeapThreshold = offHeapThreshold;
+    return this;
+  }
+
+  /**
+   * If true, then each crop records how long each stage took, how many pixels or candidates it
+   * processed, and how many bytes it allocated, and attaches the record to its result as
+   * {@link DefaultCropResult#getDiagnostics() diagnostics}.
+   */
+  public DefaultSmartCropperOptionsBuilder setDiagnostics(boolean diagnostics) {
+    this.diagnostics = diagnostics;
+    return this;
+  }
+
+  /**
+   * A listener to notify as each stage of each crop completes, with the same measurements as
+   * {@link #setDiagnostics(boolean) diagnostics}, or null for none. When there is no listener and
+   * diagnostics are off, crops are not measured at all.
+   */
+  public DefaultSmartCropperOptionsBuilder setListener(CropListener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Where to capture the inputs of crops that take longer than the spool's threshold, so they can
+   * be replayed later with {@link SlowCropCapture}, or null to capture nothing.
+   */
+  public DefaultSmartCropperOptionsBuilder setSlowCropSpool(SlowCropSpool slowCropSpool) {
+    this.slowCropSpool = slowCropSpool;
+    return this;
+  }
+
+  /**
+   * How to search the candidate crops for the best one. Searches other than
+   * {@link CropSearch#EXHAUSTIVE} score candidates on the calling thread, even in batches.
+   */
+  public DefaultSmartCropperOptionsBuilder setSearch(CropSearch search) {
+    this.search = search;
+    return this;
+  }
+
+  /**
+   * For {@link CropSearch#PYRAMID pyramid search}, how much further to scale down the feature map
+   * for the coarse pass, on top of the {@link #getScoreDownSample() score downsample}. The coarse
+   * pass also moves crops this many times farther per step.
+   */
+  public DefaultSmartCropperOptionsBuilder setPyramidDownSample(int pyramidDownSample) {
+    this.pyramidDownSample = pyramidDownSample;
+    return this;
+  }
+
+  /**
+   * For {@link CropSearch#PYRAMID pyramid search}, how many of the best crops from the coarse pass
+   * to refine at full resolution.
+   */
+  public DefaultSmartCropperOptionsBuilder setPyramidCandidates(int pyramidCandidates) {
+    this.pyramidCandidates = pyramidCandidates;
+    return this;
+  }
+
   public DefaultSmartCropperOptions build() {
     return new DefaultSmartCropperOptions(this);
   }
@@ -362,7 +539,18 @@ public class DefaultSmartCropperOptionsBuilder {
         && Float.compare(getBoostWeight(), that.getBoostWeight()) == 0
         && Float.compare(getRuleOfThirdsWeight(), that.getRuleOfThirdsWeight()) == 0
         && isPrescale() == that.isPrescale() && getPrescaleSize() == that.getPrescaleSize()
-        && isDebug() == that.isDebug() && Arrays.equals(getSkinColor(), that.getSkinColor())
+        && isDebug() == that.isDebug() && isLookupTables() == that.isLookupTables()
+        && isParallelDetection() == that.isParallelDetection()
+        && getDetectionBandHeight() == that.getDetectionBandHeight()
+        && isThreadLocalWorkspaces() == that.isThreadLocalWorkspaces()
+        && getOffHeapThreshold() == that.getOffHeapThreshold()
+        && isDiagnostics() == that.isDiagnostics()
+        && Objects.equals(getListener(), that.getListener())
+        && Objects.equals(getSlowCropSpool(), that.getSlowCropSpool())
+        && Objects.equals(getSearch(), that.getSearch())
+        && getPyramidDownSample() == that.getPyramidDownSample()
+        && getPyramidCandidates() == that.getPyramidCandidates()
+        && Arrays.equals(getSkinColor(), that.getSkinColor())
         && Objects.equals(getPrescaleAlgorithm(), that.getPrescaleAlgorithm());
   }
 
@@ -374,7 +562,10 @@ public class DefaultSmartCropperOptionsBuilder {
         getSaturationWeight(), getScoreDownSample(), getCropSearchStep(), getScaleStep(),
         getMinScale(), getMaxScale(), getEdgeRadius(), getEdgeWeight(), getOutsideImportance(),
         getBoostWeight(), getRuleOfThirdsWeight(), isPrescale(), getPrescaleSize(),
-        getPrescaleAlgorithm(), isDebug());
+        getPrescaleAlgorithm(), isDebug(), isLookupTables(), isParallelDetection(),
+        getDetectionBandHeight(), isThreadLocalWorkspaces(), getOffHeapThreshold(), isDiagnostics(),
+        getListener(), getSlowCropSpool(), getSearch(), getPyramidDownSample(),
+        getPyramidCandidates());
     result = 31 * result + Arrays.hashCode(getSkinColor());
     return result;
   }
@@ -408,6 +599,17 @@ public class DefaultSmartCropperOptionsBuilder {
         ", prescaleSize=" + prescaleSize +
         ", prescaleAlgorithm=" + prescaleAlgorithm +
         ", debug=" + debug +
+        ", lookupTables=" + lookupTables +
+        ", parallelDetection=" + parallelDetection +
+        ", detectionBandHeight=" + detectionBandHeight +
+        ", threadLocalWorkspaces=" + threadLocalWorkspaces +
+        ", offHeapThreshold=" + offHeapThreshold +
+        ", diagnostics=" + diagnostics +
+        ", listener=" + listener +
+        ", slowCropSpool=" + slowCropSpool +
+        ", search=" + search +
+        ", pyramidDownSample=" + pyramidDownSample +
+        ", pyramidCandidates=" + pyramidCandidates +
         '}';
   }
 }
@@ -0,0 +1,82 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+
+/**
+ * The integer counterpart of {@link ImageData}. Each channel holds a fixed-point number with
+ * {@link #FRACTION_BITS} fractional bits, so a value of {@code 255 * ONE} corresponds to a float
+ * value of 255 in {@link ImageData}.
+ */
+public class FixedPointImageData {
+
+  /**
+   * The number of fractional bits in each channel value
+   */
+  public static final int FRACTION_BITS = 8;
+
+  /**
+   * The fixed-point representation of 1.0
+   */
+  public static final int ONE = 1 << FRACTION_BITS;
+
+  public static final int PIXEL_STRIDE = ImageData.PIXEL_STRIDE;
+
+  public static final int RO = ImageData.RO;
+
+  public static final int GO = ImageData.GO;
+
+  public static final int BO = ImageData.BO;
+
+  public static final int AO = ImageData.AO;
+
+  public final int width;
+  public final int height;
+
+  /**
+   * format: [r1, g1, b1, a1, r2, g2, b2, a2, ...]
+   */
+  public final int[] data;
+
+  public FixedPointImageData(int width, int height) {
+    this.width = requirePositive(width);
+    this.height = requirePositive(height);
+    this.data = new int[width * height * PIXEL_STRIDE];
+  }
+
+  /**
+   * Converts this image to an {@link ImageData} with the same values. Useful for debugging and
+   * comparing with the floating-point pipeline.
+   */
+  public ImageData toImageData() {
+    ImageData result = new ImageData(width, height);
+    for (int i = 0; i < data.length; i++) {
+      result.data[i] = data[i] / (float) ONE;
+    }
+    return result;
+  }
+}
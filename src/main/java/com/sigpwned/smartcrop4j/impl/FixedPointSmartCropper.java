@@ -0,0 +1,413 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.CropBoost;
+import com.sigpwned.smartcrop4j.SmartCropper;
+import com.sigpwned.smartcrop4j.impl.util.Composition;
+import com.sigpwned.smartcrop4j.impl.util.FixedPointAnalysis;
+import com.sigpwned.smartcrop4j.impl.util.Prescaling;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link SmartCropper} that implements the same algorithm as {@link DefaultSmartCropper} using
+ * scaled integer arithmetic. Feature maps are {@link FixedPointImageData} with 8 fractional bits,
+ * importance weights are quantized to {@value #IMPORTANCE_FRACTION_BITS} fractional bits, and
+ * per-crop sums accumulate into {@code long}s. Only the final weighted combination of the four
+ * per-crop sums uses floating point. As a result, given the same analysis image, results are
+ * bit-for-bit reproducible across JVMs and platforms. (Prescaling still uses Java2D.)
+ *
+ * <p>
+ * Scores differ from those of {@link DefaultSmartCropper} for the same image and options. Let
+ * {@code d}, {@code s}, {@code t}, and {@code b} be the normalized detail, skin, saturation, and
+ * boost values of a downsampled point as computed by {@link DefaultSmartCropper#scoreCrops}, and
+ * let {@code delta = 2^-8}. Each normalized value computed by this class is within {@code delta} of
+ * the corresponding floating-point value, which accounts for the rounding of the skin lookup table
+ * (at most 0.5 of 255), integer luma coefficients, and truncation while downsampling. Importance
+ * weights are within {@code 2^-13} of the exact weights. The total score of a crop of size
+ * {@code w x h} therefore differs by at most
+ *
+ * <pre>
+ *   (1 / (w * h)) * sum over points p of ( |importance(p)| * E(p) + 2^-13 * V(p) )
+ * </pre>
+ *
+ * <p>
+ * where
+ *
+ * <pre>
+ *   E(p) = delta * ( |detailWeight|
+ *                  + |skinWeight| * (s + |d + skinBias| + delta)
+ *                  + |saturationWeight| * (t + |d + saturationBias| + delta)
+ *                  + |boostWeight| )
+ *   V(p) = |detailWeight * d| + |skinWeight * s * (d + skinBias)|
+ *        + |saturationWeight * t * (d + saturationBias)| + |boostWeight * b|
+ * </pre>
+ *
+ * <p>
+ * The one exception is the saturation brightness test, which compares integer luma against the
+ * configured bounds. A color whose floating-point brightness lies within {@code 2^-16} of a bound
+ * may be classified differently.
+ */
+public class FixedPointSmartCropper implements SmartCropper {
+
+  /**
+   * The number of fractional bits in quantized importance weights
+   */
+  public static final int IMPORTANCE_FRACTION_BITS = 12;
+
+  /**
+   * The number of fractional bits in per-point normalized feature values
+   */
+  private static final int VALUE_FRACTION_BITS = 16;
+
+  private static final int PIXEL_STRIDE = FixedPointImageData.PIXEL_STRIDE;
+
+  private static final int RO = FixedPointImageData.RO;
+
+  private static final int GO = FixedPointImageData.GO;
+
+  private static final int BO = FixedPointImageData.BO;
+
+  private static final int AO = FixedPointImageData.AO;
+
+  /**
+   * The fixed-point representation of a channel value of 255
+   */
+  private static final long CHANNEL_MAX = 255L * FixedPointImageData.ONE;
+
+  /**
+   * The most importance tables to cache
+   */
+  private static final int MAX_IMPORTANCE_TABLES = 256;
+
+  private final DefaultSmartCropperOptions options;
+  private final int[] saturationTable;
+  private final int saturationBrightnessMin;
+  private final int saturationBrightnessMax;
+  private final ConcurrentMap<ImportanceTableKey, int[]> importanceTables;
+
+  public FixedPointSmartCropper() {
+    this(DefaultSmartCropperOptions.create());
+  }
+
+  public FixedPointSmartCropper(DefaultSmartCropperOptions options) {
+    this.options = requireNonNull(options);
+    this.saturationTable = FixedPointAnalysis.saturationTable(options.getSaturationThreshold());
+    this.saturationBrightnessMin = FixedPointAnalysis.lumaCeiling(
+        options.getSaturationBrightnessMin());
+    this.saturationBrightnessMax = FixedPointAnalysis.lumaFloor(
+        options.getSaturationBrightnessMax());
+    this.importanceTables = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public DefaultCropResult crop(BufferedImage originalImage, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts) {
+    // Validate our inputs
+    originalImage = requireNonNull(originalImage);
+    aspectWidth = requirePositive(aspectWidth);
+    aspectHeight = requirePositive(aspectHeight);
+    boosts = Optional.ofNullable(boosts).map(Collections::unmodifiableList)
+        .orElseGet(Collections::emptyList);
+
+    // Determine the scale of the largest crop that fits within the image and has the given aspect ratio
+    float scale = Math.min(originalImage.getWidth() / (float) aspectWidth,
+        originalImage.getHeight() / (float) aspectHeight);
+
+    // Determine the size of the crop. This is in the original coordinate space.
+    int cropWidth = (int) (aspectWidth * scale);
+    int cropHeight = (int) (aspectHeight * scale);
+
+    // Prescale exactly as DefaultSmartCropper does
+    final float prescale = Prescaling.prescaleFactor(originalImage.getWidth(),
+        originalImage.getHeight(), getOptions().isPrescale(), getOptions().getPrescaleSize());
+    final BufferedImage analyzeImage = Prescaling.prescaled(originalImage, prescale,
+        getOptions().getPrescaleAlgorithm());
+    if (prescale < 1.0f) {
+      cropWidth = (int) (cropWidth * prescale);
+      cropHeight = (int) (cropHeight * prescale);
+      boosts = Prescaling.prescaled(boosts, prescale);
+    }
+
+    // Analyze the image. These are in the prescaled coordinate space.
+    final int width = analyzeImage.getWidth();
+    final int height = analyzeImage.getHeight();
+    final int[] pixels = analyzeImage.getRGB(0, 0, width, height, null, 0, width);
+    final int[] luma = FixedPointAnalysis.luma(pixels);
+    final FixedPointImageData output = new FixedPointImageData(width, height);
+
+    FixedPointAnalysis.edgeDetect(luma, output);
+    FixedPointAnalysis.skinDetect(pixels, output, getOptions().getSkinColorTable());
+    FixedPointAnalysis.saturationDetect(pixels, luma, output, saturationTable,
+        saturationBrightnessMin, saturationBrightnessMax);
+    FixedPointAnalysis.applyBoosts(output, boosts);
+
+    final List<Crop> candidates = Composition.generateCandidateCrops(width, height, cropWidth,
+        cropHeight, getOptions().getMinScale(), getOptions().getMaxScale(),
+        getOptions().getScaleStep(), getOptions().getCropSearchStep());
+    final int downsample = getOptions().getScoreDownSample();
+    final FixedPointImageData downsampledOutput = FixedPointAnalysis.scaledDown(output,
+        downsample);
+    final ScoredCrop analyzedTopCrop = scoreDownsampledCrops(downsampledOutput, candidates,
+        downsample).stream()
+        .max(Comparator.comparing(ScoredCrop::getScore))
+        .orElseThrow();
+    final ScoredCrop topCrop = new ScoredCrop(
+        (int) (analyzedTopCrop.getX() / prescale),
+        (int) (analyzedTopCrop.getY() / prescale),
+        (int) (analyzedTopCrop.getWidth() / prescale),
+        (int) (analyzedTopCrop.getHeight() / prescale),
+        analyzedTopCrop.getScore());
+
+    // Keep the fixed-point feature maps, and convert and render them only if asked
+    CropDebug debug;
+    if (getOptions().isDebug()) {
+      debug = new CropDebug(output::toImageData, candidates,
+          crops -> scoreDownsampledCrops(downsampledOutput, crops, downsample), analyzedTopCrop);
+    } else {
+      debug = null;
+    }
+
+    return new DefaultCropResult(topCrop, debug, null);
+  }
+
+  /**
+   * Scores the given crops against the given feature map. Equivalent to
+   * {@link DefaultSmartCropper#scoreCrops(ImageData, List, int)}, within the documented error
+   * bound.
+   *
+   * @param output     the feature map
+   * @param crops      the candidate crops, in the feature map's coordinate space
+   * @param downsample the factor by which to downsample the feature map before scoring
+   * @return the scored crops, in the same order as the given crops
+   */
+  public List<ScoredCrop> scoreCrops(FixedPointImageData output, List<Crop> crops,
+      int downsample) {
+    return scoreDownsampledCrops(FixedPointAnalysis.scaledDown(output, downsample), crops,
+        downsample);
+  }
+
+  /**
+   * Scores the given crops against the given feature map, which is already downsampled by the given
+   * factor
+   */
+  private List<ScoredCrop> scoreDownsampledCrops(FixedPointImageData downsampledOutput,
+      List<Crop> crops, int downsample) {
+    final int[] od = downsampledOutput.data;
+    final int outputWidth = downsampledOutput.width;
+    final int outputHeight = downsampledOutput.height;
+    final int points = outputWidth * outputHeight;
+
+    // Compute the normalized feature values of each point once. The floating-point version
+    // computes these values for every crop, but they do not depend on the crop. Each value has
+    // VALUE_FRACTION_BITS fractional bits. Note that CHANNEL_MAX^2 >> VALUE_FRACTION_BITS is
+    // exactly 255^2, which keeps the products below exact.
+    final long skinBias = Math.round(getOptions().getSkinBias() * (double) CHANNEL_MAX);
+    final long saturationBias = Math.round(
+        getOptions().getSaturationBias() * (double) CHANNEL_MAX);
+    final long[] detail = new long[points];
+    final long[] skin = new long[points];
+    final long[] saturation = new long[points];
+    final long[] boost = new long[points];
+    long totalDetail = 0L;
+    long totalSkin = 0L;
+    long totalSaturation = 0L;
+    long totalBoost = 0L;
+    for (int p = 0; p < points; p++) {
+      final long dsr = od[p * PIXEL_STRIDE + RO];
+      final long dsg = od[p * PIXEL_STRIDE + GO];
+      final long dsb = od[p * PIXEL_STRIDE + BO];
+      final long dsa = od[p * PIXEL_STRIDE + AO];
+      detail[p] = Math.floorDiv(dsg << VALUE_FRACTION_BITS, CHANNEL_MAX);
+      skin[p] = Math.floorDiv(dsr * (dsg + skinBias), 255L * 255L);
+      saturation[p] = Math.floorDiv(dsb * (dsg + saturationBias), 255L * 255L);
+      boost[p] = Math.floorDiv(dsa << VALUE_FRACTION_BITS, CHANNEL_MAX);
+      totalDetail += detail[p];
+      totalSkin += skin[p];
+      totalSaturation += saturation[p];
+      totalBoost += boost[p];
+    }
+
+    // Points outside the crop all have the same importance, so we only visit points inside the
+    // crop and account for the rest using the totals.
+    final long outsideImportance = quantizeImportance(getOptions().getOutsideImportance());
+    final double scale = 1.0 / (1L << (IMPORTANCE_FRACTION_BITS + VALUE_FRACTION_BITS));
+
+    final List<ScoredCrop> result = new ArrayList<>(crops.size());
+    for (Crop c : crops) {
+      final int cx = c.getX();
+      final int cy = c.getY();
+      final int cw = c.getWidth();
+      final int ch = c.getHeight();
+
+      // dsx0 = first downsampled x inside the crop, dsx1 = one past the last, same for y
+      final int dsx0 = Math.floorDiv(cx + downsample - 1, downsample);
+      final int dsx1 = Math.min(Math.floorDiv(cx + cw - 1, downsample) + 1, outputWidth);
+      final int dsy0 = Math.floorDiv(cy + downsample - 1, downsample);
+      final int dsy1 = Math.min(Math.floorDiv(cy + ch - 1, downsample) + 1, outputHeight);
+
+      // The importance of grid point (dsx0 + i, dsy0 + j) is at j * columns + i
+      final int phaseX = dsx0 * downsample - cx;
+      final int phaseY = dsy0 * downsample - cy;
+      final int columns = Math.floorDiv(cw - phaseX + downsample - 1, downsample);
+      final int[] importance = importanceTable(cw, ch, phaseX, phaseY, downsample);
+
+      long insideDetail = 0L, weightedDetail = 0L;
+      long insideSkin = 0L, weightedSkin = 0L;
+      long insideSaturation = 0L, weightedSaturation = 0L;
+      long insideBoost = 0L, weightedBoost = 0L;
+      for (int dsy = dsy0; dsy < dsy1; dsy++) {
+        final int rowOffset = (dsy - dsy0) * columns - dsx0;
+        for (int dsx = dsx0; dsx < dsx1; dsx++) {
+          final int p = dsy * outputWidth + dsx;
+          final long w = importance[rowOffset + dsx];
+          insideDetail += detail[p];
+          insideSkin += skin[p];
+          insideSaturation += saturation[p];
+          insideBoost += boost[p];
+          weightedDetail += w * detail[p];
+          weightedSkin += w * skin[p];
+          weightedSaturation += w * saturation[p];
+          weightedBoost += w * boost[p];
+        }
+      }
+
+      final double cropDetail =
+          (weightedDetail + outsideImportance * (totalDetail - insideDetail)) * scale;
+      final double cropSkin = (weightedSkin + outsideImportance * (totalSkin - insideSkin)) * scale;
+      final double cropSaturation =
+          (weightedSaturation + outsideImportance * (totalSaturation - insideSaturation)) * scale;
+      final double cropBoost =
+          (weightedBoost + outsideImportance * (totalBoost - insideBoost)) * scale;
+
+      final double total = (cropDetail * getOptions().getDetailWeight()
+          + cropSkin * getOptions().getSkinWeight()
+          + cropSaturation * getOptions().getSaturationWeight()
+          + cropBoost * getOptions().getBoostWeight()) / ((double) cw * ch);
+
+      CropScore score = new CropScore((float) cropDetail, (float) cropSaturation, (float) cropSkin,
+          (float) cropBoost, (float) total);
+
+      result.add(new ScoredCrop(cx, cy, cw, ch, score));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the quantized importance table for crops of the given size whose first grid point is
+   * at the given offset from their top-left corner. The table holds one entry per grid point inside
+   * the crop, row by row, so it is about {@code downsample^2} times smaller than the crop. Tables
+   * depend only on their key and this cropper's options, so they are cached.
+   */
+  private int[] importanceTable(int cw, int ch, int phaseX, int phaseY, int downsample) {
+    final ImportanceTableKey key = new ImportanceTableKey(cw, ch, phaseX, phaseY, downsample);
+    int[] result = importanceTables.get(key);
+    if (result != null) {
+      return result;
+    }
+
+    final int columns = Math.max(Math.floorDiv(cw - phaseX + downsample - 1, downsample), 0);
+    final int rows = Math.max(Math.floorDiv(ch - phaseY + downsample - 1, downsample), 0);
+    final Crop origin = new Crop(0, 0, cw, ch);
+    result = new int[columns * rows];
+    for (int j = 0; j < rows; j++) {
+      for (int i = 0; i < columns; i++) {
+        result[j * columns + i] = quantizeImportance(
+            Composition.calculatePointImportance(origin, phaseX + i * downsample,
+                phaseY + j * downsample, getOptions().getOutsideImportance(),
+                getOptions().getEdgeRadius(), getOptions().getEdgeWeight(),
+                getOptions().getRuleOfThirdsWeight()));
+      }
+    }
+
+    // A long-lived cropper may see many crop sizes, so start over rather than grow without bound
+    if (importanceTables.size() >= MAX_IMPORTANCE_TABLES) {
+      importanceTables.clear();
+    }
+    importanceTables.putIfAbsent(key, result);
+
+    return result;
+  }
+
+  /**
+   * Identifies an importance table
+   */
+  private static final class ImportanceTableKey {
+
+    private final int width;
+    private final int height;
+    private final int phaseX;
+    private final int phaseY;
+    private final int downsample;
+
+    public ImportanceTableKey(int width, int height, int phaseX, int phaseY, int downsample) {
+      this.width = width;
+      this.height = height;
+      this.phaseX = phaseX;
+      this.phaseY = phaseY;
+      this.downsample = downsample;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ImportanceTableKey that = (ImportanceTableKey) o;
+      return width == that.width && height == that.height && phaseX == that.phaseX
+          && phaseY == that.phaseY && downsample == that.downsample;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(width, height, phaseX, phaseY, downsample);
+    }
+  }
+
+  private static int quantizeImportance(float importance) {
+    return Math.round(importance * (1 << IMPORTANCE_FRACTION_BITS));
+  }
+
+  private DefaultSmartCropperOptions getOptions() {
+    return options;
+  }
+}
@@ -25,12 +25,24 @@
  */
 package com.sigpwned.smartcrop4j.impl;
 
+import static com.sigpwned.smartcrop4j.util.Validation.requireNonNegative;
 import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
 
+import com.sigpwned.smartcrop4j.impl.util.DirectBuffers;
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 
-public class ImageData {
+/**
+ * A four-channel float image. By default, the channels live in a {@code float[]} on the heap. An
+ * image can also live in off-heap memory, which keeps very large feature maps from pressuring the
+ * garbage collector. Off-heap images have no {@link #data array}, so code that must handle both
+ * kinds should use {@link #get(int)} and {@link #set(int, float)}. Off-heap images created with
+ * {@link #allocateDirect(int, int)} should be {@link #close() closed} when no longer needed.
+ */
+public class ImageData implements AutoCloseable {
 
   /**
    * Creates an ImageData from the given BufferedImage. A pixel format of
@@ -43,16 +55,94 @@ public class ImageData {
   public static ImageData fromBufferedImage(BufferedImage image) {
     int width = image.getWidth();
     int height = image.getHeight();
-    float[] data = new float[width * height * PIXEL_STRIDE];
     int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
-    for (int i = 0; i < pixels.length; i++) {
-      int pixel = pixels[i];
-      data[i * PIXEL_STRIDE + RO] = (float) ((pixel >>> 16) & 0xff);
-      data[i * PIXEL_STRIDE + GO] = (float) ((pixel >>> 8) & 0xff);
-      data[i * PIXEL_STRIDE + BO] = (float) ((pixel >>> 0) & 0xff);
-      data[i * PIXEL_STRIDE + AO] = (float) ((pixel >>> 24) & 0xff);
+    return fromArgb(pixels, wrap(width, height, new float[width * height * PIXEL_STRIDE]));
+  }
+
+  /**
+   * Converts the first {@code target.width * target.height} packed ARGB pixels of the given array,
+   * as returned by {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}, into the
+   * given image.
+   *
+   * @return the target image
+   */
+  /* default */ static ImageData fromArgb(int[] pixels, ImageData target) {
+    for (int y = 0, i = 0; y < target.height; y++) {
+      int pos = target.index(0, y);
+      for (int x = 0; x < target.width; x++, i++, pos += PIXEL_STRIDE) {
+        int pixel = pixels[i];
+        target.set(pos + RO, (float) ((pixel >>> 16) & 0xff));
+        target.set(pos + GO, (float) ((pixel >>> 8) & 0xff));
+        target.set(pos + BO, (float) ((pixel >>> 0) & 0xff));
+        target.set(pos + AO, (float) ((pixel >>> 24) & 0xff));
+      }
     }
-    return new ImageData(width, height, data);
+    return target;
+  }
+
+  /**
+   * Creates a zeroed ImageData in off-heap memory. The caller owns the memory, and should
+   * {@link #close()} the image to free it promptly. Otherwise, the memory is freed when the image
+   * is garbage collected.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @return the ImageData
+   */
+  public static ImageData allocateDirect(int width, int height) {
+    final ByteBuffer memory = DirectBuffers.allocateFloats(
+        (long) requirePositive(width) * requirePositive(height) * PIXEL_STRIDE);
+    return new ImageData(width, height, null, memory.asFloatBuffer(), memory, 0,
+        width * PIXEL_STRIDE);
+  }
+
+  /**
+   * Creates an ImageData backed by a region of the given buffer without copying it. Indexes are
+   * absolute, i.e., they ignore the buffer's position and limit. The caller remains responsible for
+   * the buffer's memory, so closing the result has no effect.
+   *
+   * @param width     the width of the image
+   * @param height    the height of the image
+   * @param buffer    the backing buffer, typically direct
+   * @param offset    the index of the first element of the first pixel
+   * @param rowStride the distance between the first elements of consecutive rows
+   * @return the ImageData
+   * @see #wrap(int, int, float[], int, int)
+   */
+  public static ImageData wrap(int width, int height, FloatBuffer buffer, int offset,
+      int rowStride) {
+    return new ImageData(width, height, null, requireNonNull(buffer), null, offset, rowStride);
+  }
+
+  /**
+   * Creates an ImageData backed by the given array without copying it. Changes to the array are
+   * visible in the ImageData, and vice versa. This is intended for trusted code that owns the
+   * array, e.g., code that has just allocated it.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param data   the pixel data, at least {@code width * height * 4} elements long
+   * @return the ImageData
+   */
+  public static ImageData wrap(int width, int height, float[] data) {
+    return wrap(width, height, data, 0, width * PIXEL_STRIDE);
+  }
+
+  /**
+   * Creates an ImageData backed by a region of the given array without copying it. Pixel
+   * {@code (x, y)} starts at {@code data[offset + y * rowStride + x * 4]}. The array may be longer
+   * than necessary, and rows may be farther apart than the image is wide, so an ImageData can view
+   * part of a larger image or a reusable buffer.
+   *
+   * @param width     the width of the image
+   * @param height    the height of the image
+   * @param data      the backing array
+   * @param offset    the index of the first element of the first pixel
+   * @param rowStride the distance between the first elements of consecutive rows
+   * @return the ImageData
+   */
+  public static ImageData wrap(int width, int height, float[] data, int offset, int rowStride) {
+    return new ImageData(width, height, requireNonNull(data), null, null, offset, rowStride);
   }
 
   public static final int PIXEL_STRIDE = 4;
@@ -68,10 +158,33 @@ public class ImageData {
   public final int height;
 
   /**
-   * format: [r1, g1, b1, a1, r2, g2, b2, a2, ...]
+   * format: [r1, g1, b1, a1, r2, g2, b2, a2, ...], starting at {@link #offset}, with rows
+   * {@link #rowStride} elements apart. Null if the image {@link #isDirect() is off-heap}.
    */
   public final float[] data;
 
+  /**
+   * The index of the first element of the first pixel
+   */
+  public final int offset;
+
+  /**
+   * The distance between the first elements of consecutive rows. At least
+   * {@code width * PIXEL_STRIDE}.
+   */
+  public final int rowStride;
+
+  /**
+   * The off-heap pixel data, in the same format as {@link #data}, or null if the image is on-heap
+   * or closed
+   */
+  private FloatBuffer buffer;
+
+  /**
+   * The off-heap memory this image owns and frees on {@link #close()}, or null
+   */
+  private ByteBuffer memory;
+
   public ImageData(int width, int height) {
     this(width, height, null);
   }
@@ -87,6 +200,111 @@ public class ImageData {
     } else {
       this.data = new float[width * height * PIXEL_STRIDE];
     }
+    this.offset = 0;
+    this.rowStride = width * PIXEL_STRIDE;
+    this.buffer = null;
+    this.memory = null;
+  }
+
+  private ImageData(int width, int height, float[] data, FloatBuffer buffer, ByteBuffer memory,
+      int offset, int rowStride) {
+    this.width = requirePositive(width);
+    this.height = requirePositive(height);
+    this.offset = requireNonNegative(offset);
+    if (rowStride < width * PIXEL_STRIDE) {
+      throw new IllegalArgumentException("rowStride must be at least width * 4");
+    }
+    this.rowStride = rowStride;
+    if ((long) offset + (long) (height - 1) * rowStride + (long) width * PIXEL_STRIDE
+        > (data != null ? data.length : buffer.capacity())) {
+      throw new IllegalArgumentException("data is too short");
+    }
+    this.data = data;
+    this.buffer = buffer;
+    this.memory = memory;
+  }
+
+  /**
+   * Returns the index of the first element of pixel {@code (x, y)}.
+   */
+  public int index(int x, int y) {
+    return offset + y * rowStride + x * PIXEL_STRIDE;
+  }
+
+  /**
+   * Returns the element at the given index, wherever the image lives.
+   *
+   * @see #index(int, int)
+   */
+  public float get(int index) {
+    return data != null ? data[index] : buffer.get(index);
+  }
+
+  /**
+   * Sets the element at the given index, wherever the image lives.
+   *
+   * @see #index(int, int)
+   */
+  public void set(int index, float value) {
+    if (data != null) {
+      data[index] = value;
+    } else {
+      buffer.put(index, value);
+    }
+  }
+
+  /**
+   * Returns true if this image lives in off-heap memory, in which case {@link #data} is null.
+   */
+  public boolean isDirect() {
+    return data == null;
+  }
+
+  /**
+   * Frees this image's off-heap memory, if it owns any. The image, and any views of it, must not be
+   * used afterwards. Has no effect on on-heap images, views, or wrapped buffers.
+   */
+  @Override
+  public void close() {
+    final ByteBuffer memory = this.memory;
+    if (memory != null) {
+      this.memory = null;
+      this.buffer = null;
+      DirectBuffers.free(memory);
+    }
+  }
+
+  /**
+   * Returns an ImageData that views the given region of this image. The result shares this image's
+   * backing memory, so changes to either are visible in both. Closing the view has no effect.
+   *
+   * @param x      the x coordinate of the region
+   * @param y      the y coordinate of the region
+   * @param width  the width of the region
+   * @param height the height of the region
+   * @return the view
+   */
+  public ImageData view(int x, int y, int width, int height) {
+    if (x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > this.width
+        || y + height > this.height) {
+      throw new IllegalArgumentException("region must be within image");
+    }
+    return new ImageData(width, height, data, buffer, null, index(x, y), rowStride);
+  }
+
+  /**
+   * Returns a copy of this image on the heap, which shares nothing with this image.
+   */
+  public ImageData copy() {
+    final ImageData result = new ImageData(width, height);
+    for (int y = 0; y < height; y++) {
+      final int from = index(0, y);
+      final int to = result.index(0, y);
+      for (int i = 0; i < width * PIXEL_STRIDE; i++) {
+        result.data[to + i] = get(from + i);
+      }
+    }
+    return result;
   }
 
   /**
@@ -95,13 +313,15 @@ public class ImageData {
   public BufferedImage toBufferedImage() {
     BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
     int[] pixels = new int[width * height];
-    for (int i = 0; i < pixels.length; i++) {
-      int pos = i * PIXEL_STRIDE;
-      int r = Math.min(255, Math.max(0, Math.round(data[pos + RO])));
-      int g = Math.min(255, Math.max(0, Math.round(data[pos + GO])));
-      int b = Math.min(255, Math.max(0, Math.round(data[pos + BO])));
-      int a = 255; //Math.min(255, Math.max(0, Math.round(data[pos + AO])));
-      pixels[i] = (a << 24) | (r << 16) | (g << 8) | (b << 0);
+    for (int y = 0; y < height; y++) {
+      int pos = index(0, y);
+      for (int x = 0; x < width; x++, pos += PIXEL_STRIDE) {
+        int r = Math.min(255, Math.max(0, Math.round(get(pos + RO))));
+        int g = Math.min(255, Math.max(0, Math.round(get(pos + GO))));
+        int b = Math.min(255, Math.max(0, Math.round(get(pos + BO))));
+        int a = 255; //Math.min(255, Math.max(0, Math.round(get(pos + AO))));
+        pixels[y * width + x] = (a << 24) | (r << 16) | (g << 8) | (b << 0);
+      }
     }
     result.setRGB(0, 0, width, height, pixels, 0, width);
     return result;
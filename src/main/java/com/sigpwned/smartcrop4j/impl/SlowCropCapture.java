@@ -0,0 +1,378 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import com.sigpwned.smartcrop4j.impl.util.Prescaling;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import javax.imageio.ImageIO;
+
+/**
+ * The captured inputs of one slow crop, as written by a {@link SlowCropSpool}: the image as it was
+ * analyzed, i.e., after prescaling; the aspect ratio; the boosts, in the prescaled image's
+ * coordinates; and the options, minus any listener or spool. Replaying a capture repeats the
+ * expensive part of the original crop, i.e., everything after prescaling, so performance problems
+ * can be reproduced, profiled, and benchmarked. Because the capture is already prescaled, replayed
+ * crops are in the prescaled image's coordinates, and may differ from the original by a pixel due
+ * to rounding.
+ *
+ * <p>
+ * A capture is a directory holding {@value #IMAGE_FILE_NAME} and {@value #REQUEST_FILE_NAME}.
+ */
+public class SlowCropCapture {
+
+  /**
+   * Usage: {@code SlowCropCapture <capture-dir> [iterations]}. Replays the capture the given number
+   * of times, default 10, and prints the diagnostics of each replay.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("usage: SlowCropCapture <capture-dir> [iterations]");
+      System.exit(2);
+      return;
+    }
+
+    final SlowCropCapture capture = read(Paths.get(args[0]));
+    final int iterations = args.length == 2 ? Integer.parseInt(args[1]) : 10;
+    replay(capture, iterations, System.out);
+  }
+
+  /* default */ static void replay(SlowCropCapture capture, int iterations, PrintStream out) {
+    out.printf(Locale.ROOT, "captured: %dx%d image, aspect %d:%d, %d boosts, %.3fms%n",
+        capture.getImage().getWidth(), capture.getImage().getHeight(), capture.getAspectWidth(),
+        capture.getAspectHeight(), capture.getBoosts().size(), capture.getNanos() / 1.0e6);
+    final DefaultSmartCropper cropper = new DefaultSmartCropper(
+        new DefaultSmartCropperOptionsBuilder(capture.getOptions()).setDiagnostics(true).build());
+    for (int i = 0; i < iterations; i++) {
+      final DefaultCropResult result = cropper.crop(capture.getImage(), capture.getAspectWidth(),
+          capture.getAspectHeight(), capture.getBoosts());
+      out.printf(Locale.ROOT, "replay %d: %.3fms %s%n", i + 1,
+          result.getDiagnostics().getElapsedNanos() / 1.0e6, result.getDiagnostics());
+    }
+  }
+
+  public static final String IMAGE_FILE_NAME = "input.png";
+
+  public static final String REQUEST_FILE_NAME = "request.properties";
+
+  /**
+   * Captures the given crop request, prescaling the image and boosts as the given options would
+   *
+   * @param nanos how long the original crop took
+   */
+  public static SlowCropCapture of(BufferedImage image, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, DefaultSmartCropperOptions options, long nanos) {
+    final float prescale = Prescaling.prescaleFactor(image.getWidth(), image.getHeight(),
+        options.isPrescale(), options.getPrescaleSize());
+    return new SlowCropCapture(
+        Prescaling.prescaled(image, prescale, options.getPrescaleAlgorithm()), aspectWidth,
+        aspectHeight, Prescaling.prescaled(boosts != null ? boosts : List.of(), prescale),
+        options, nanos);
+  }
+
+  /**
+   * Reads the capture in the given directory
+   *
+   * @throws IOException if the capture cannot be read, or is not a valid capture
+   */
+  public static SlowCropCapture read(Path directory) throws IOException {
+    final BufferedImage image = ImageIO.read(directory.resolve(IMAGE_FILE_NAME).toFile());
+    if (image == null) {
+      throw new IOException("invalid image in " + directory);
+    }
+
+    final Properties request = new Properties();
+    try (InputStream in = Files.newInputStream(directory.resolve(REQUEST_FILE_NAME))) {
+      request.load(in);
+    }
+
+    try {
+      final int boostCount = Integer.parseInt(request.getProperty("boosts", "0"));
+      final List<CropBoost> boosts = new ArrayList<>(boostCount);
+      for (int i = 0; i < boostCount; i++) {
+        final String[] parts = required(request, "boost." + i).split(",");
+        if (parts.length != 5) {
+          throw new IllegalArgumentException("invalid boost." + i);
+        }
+        boosts.add(new CropBoost(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+            Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Float.parseFloat(parts[4])));
+      }
+
+      return new SlowCropCapture(image, Integer.parseInt(required(request, "aspectWidth")),
+          Integer.parseInt(required(request, "aspectHeight")), boosts, readOptions(request),
+          Long.parseLong(request.getProperty("nanos", "0")));
+    } catch (IllegalArgumentException e) {
+      throw new IOException("invalid request in " + directory, e);
+    }
+  }
+
+  private final BufferedImage image;
+  private final int aspectWidth;
+  private final int aspectHeight;
+  private final List<CropBoost> boosts;
+  private final DefaultSmartCropperOptions options;
+  private final long nanos;
+
+  public SlowCropCapture(BufferedImage image, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, DefaultSmartCropperOptions options, long nanos) {
+    this.image = requireNonNull(image);
+    this.aspectWidth = aspectWidth;
+    this.aspectHeight = aspectHeight;
+    this.boosts = Collections.unmodifiableList(new ArrayList<>(boosts));
+    this.options = new DefaultSmartCropperOptionsBuilder(options).setListener(null)
+        .setSlowCropSpool(null).build();
+    this.nanos = nanos;
+  }
+
+  /**
+   * Replays this capture once with this capture's options, reporting each stage to the given
+   * listener, if any
+   */
+  public DefaultCropResult replay(CropListener listener) {
+    return new DefaultSmartCropper(
+        new DefaultSmartCropperOptionsBuilder(getOptions()).setListener(listener).build())
+        .crop(getImage(), getAspectWidth(), getAspectHeight(), getBoosts());
+  }
+
+  /**
+   * Writes this capture to the given directory, which must exist
+   */
+  public void write(Path directory) throws IOException {
+    if (!ImageIO.write(getImage(), "png", directory.resolve(IMAGE_FILE_NAME).toFile())) {
+      throw new IOException("failed to write image");
+    }
+
+    final Properties request = new Properties();
+    request.setProperty("aspectWidth", Integer.toString(getAspectWidth()));
+    request.setProperty("aspectHeight", Integer.toString(getAspectHeight()));
+    request.setProperty("nanos", Long.toString(getNanos()));
+    request.setProperty("boosts", Integer.toString(getBoosts().size()));
+    for (int i = 0; i < getBoosts().size(); i++) {
+      final CropBoost b = getBoosts().get(i);
+      request.setProperty("boost." + i,
+          b.getX() + "," + b.getY() + "," + b.getWidth() + "," + b.getHeight() + ","
+              + b.getWeight());
+    }
+    writeOptions(getOptions(), request);
+    try (OutputStream out = Files.newOutputStream(directory.resolve(REQUEST_FILE_NAME))) {
+      request.store(out, "smartcrop4j slow crop");
+    }
+  }
+
+  /**
+   * The image as it was analyzed, i.e., after prescaling
+   */
+  public BufferedImage getImage() {
+    return image;
+  }
+
+  public int getAspectWidth() {
+    return aspectWidth;
+  }
+
+  public int getAspectHeight() {
+    return aspectHeight;
+  }
+
+  /**
+   * The boosts, in the prescaled image's coordinates
+   */
+  public List<CropBoost> getBoosts() {
+    return boosts;
+  }
+
+  public DefaultSmartCropperOptions getOptions() {
+    return options;
+  }
+
+  /**
+   * How long the original crop took
+   */
+  public long getNanos() {
+    return nanos;
+  }
+
+  private static final String OPTION = "option.";
+
+  private static void writeOptions(DefaultSmartCropperOptions o, Properties p) {
+    p.setProperty(OPTION + "detailWeight", Float.toString(o.getDetailWeight()));
+    p.setProperty(OPTION + "skinColor", o.getSkinColor()[0] + "," + o.getSkinColor()[1] + ","
+        + o.getSkinColor()[2]);
+    p.setProperty(OPTION + "skinBias", Float.toString(o.getSkinBias()));
+    p.setProperty(OPTION + "skinBrightnessMin", Float.toString(o.getSkinBrightnessMin()));
+    p.setProperty(OPTION + "skinBrightnessMax", Float.toString(o.getSkinBrightnessMax()));
+    p.setProperty(OPTION + "skinThreshold", Float.toString(o.getSkinThreshold()));
+    p.setProperty(OPTION + "skinWeight", Float.toString(o.getSkinWeight()));
+    p.setProperty(OPTION + "saturationBrightnessMin",
+        Float.toString(o.getSaturationBrightnessMin()));
+    p.setProperty(OPTION + "saturationBrightnessMax",
+        Float.toString(o.getSaturationBrightnessMax()));
+    p.setProperty(OPTION + "saturationThreshold", Float.toString(o.getSaturationThreshold()));
+    p.setProperty(OPTION + "saturationBias", Float.toString(o.getSaturationBias()));
+    p.setProperty(OPTION + "saturationWeight", Float.toString(o.getSaturationWeight()));
+    p.setProperty(OPTION + "scoreDownSample", Integer.toString(o.getScoreDownSample()));
+    p.setProperty(OPTION + "cropSearchStep", Integer.toString(o.getCropSearchStep()));
+    p.setProperty(OPTION + "scaleStep", Float.toString(o.getScaleStep()));
+    p.setProperty(OPTION + "minScale", Float.toString(o.getMinScale()));
+    p.setProperty(OPTION + "maxScale", Float.toString(o.getMaxScale()));
+    p.setProperty(OPTION + "edgeRadius", Float.toString(o.getEdgeRadius()));
+    p.setProperty(OPTION + "edgeWeight", Float.toString(o.getEdgeWeight()));
+    p.setProperty(OPTION + "outsideImportance", Float.toString(o.getOutsideImportance()));
+    p.setProperty(OPTION + "boostWeight", Float.toString(o.getBoostWeight()));
+    p.setProperty(OPTION + "ruleOfThirdsWeight", Float.toString(o.getRuleOfThirdsWeight()));
+    p.setProperty(OPTION + "prescale", Boolean.toString(o.isPrescale()));
+    p.setProperty(OPTION + "prescaleSize", Integer.toString(o.getPrescaleSize()));
+    if (o.getPrescaleAlgorithm() == RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR) {
+      p.setProperty(OPTION + "prescaleAlgorithm", "nearestNeighbor");
+    } else if (o.getPrescaleAlgorithm() == RenderingHints.VALUE_INTERPOLATION_BILINEAR) {
+      p.setProperty(OPTION + "prescaleAlgorithm", "bilinear");
+    } else if (o.getPrescaleAlgorithm() == RenderingHints.VALUE_INTERPOLATION_BICUBIC) {
+      p.setProperty(OPTION + "prescaleAlgorithm", "bicubic");
+    }
+    p.setProperty(OPTION + "debug", Boolean.toString(o.isDebug()));
+    p.setProperty(OPTION + "lookupTables", Boolean.toString(o.isLookupTables()));
+    p.setProperty(OPTION + "parallelDetection", Boolean.toString(o.isParallelDetection()));
+    p.setProperty(OPTION + "detectionBandHeight", Integer.toString(o.getDetectionBandHeight()));
+    p.setProperty(OPTION + "threadLocalWorkspaces",
+        Boolean.toString(o.isThreadLocalWorkspaces()));
+    p.setProperty(OPTION + "offHeapThreshold", Integer.toString(o.getOffHeapThreshold()));
+    p.setProperty(OPTION + "diagnostics", Boolean.toString(o.isDiagnostics()));
+    p.setProperty(OPTION + "search", o.getSearch().name());
+    p.setProperty(OPTION + "pyramidDownSample", Integer.toString(o.getPyramidDownSample()));
+    p.setProperty(OPTION + "pyramidCandidates", Integer.toString(o.getPyramidCandidates()));
+  }
+
+  /**
+   * Reads the options written by {@link #writeOptions}. Missing options keep their defaults, so
+   * captures written by older versions can still be read.
+   */
+  private static DefaultSmartCropperOptions readOptions(Properties p) {
+    final DefaultSmartCropperOptionsBuilder b = DefaultSmartCropperOptions.builder();
+    b.setDetailWeight(getFloat(p, "detailWeight", b.getDetailWeight()));
+    final String skinColor = p.getProperty(OPTION + "skinColor");
+    if (skinColor != null) {
+      final String[] parts = skinColor.split(",");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("invalid skinColor");
+      }
+      b.setSkinColor(new float[]{Float.parseFloat(parts[0]), Float.parseFloat(parts[1]),
+          Float.parseFloat(parts[2])});
+    }
+    b.setSkinBias(getFloat(p, "skinBias", b.getSkinBias()));
+    b.setSkinBrightnessMin(getFloat(p, "skinBrightnessMin", b.getSkinBrightnessMin()));
+    b.setSkinBrightnessMax(getFloat(p, "skinBrightnessMax", b.getSkinBrightnessMax()));
+    b.setSkinThreshold(getFloat(p, "skinThreshold", b.getSkinThreshold()));
+    b.setSkinWeight(getFloat(p, "skinWeight", b.getSkinWeight()));
+    b.setSaturationBrightnessMin(
+        getFloat(p, "saturationBrightnessMin", b.getSaturationBrightnessMin()));
+    b.setSaturationBrightnessMax(
+        getFloat(p, "saturationBrightnessMax", b.getSaturationBrightnessMax()));
+    b.setSaturationThreshold(getFloat(p, "saturationThreshold", b.getSaturationThreshold()));
+    b.setSaturationBias(getFloat(p, "saturationBias", b.getSaturationBias()));
+    b.setSaturationWeight(getFloat(p, "saturationWeight", b.getSaturationWeight()));
+    b.setScoreDownSample(getInt(p, "scoreDownSample", b.getScoreDownSample()));
+    b.setCropSearchStep(getInt(p, "cropSearchStep", b.getCropSearchStep()));
+    b.setScaleStep(getFloat(p, "scaleStep", b.getScaleStep()));
+    b.setMinScale(getFloat(p, "minScale", b.getMinScale()));
+    b.setMaxScale(getFloat(p, "maxScale", b.getMaxScale()));
+    b.setEdgeRadius(getFloat(p, "edgeRadius", b.getEdgeRadius()));
+    b.setEdgeWeight(getFloat(p, "edgeWeight", b.getEdgeWeight()));
+    b.setOutsideImportance(getFloat(p, "outsideImportance", b.getOutsideImportance()));
+    b.setBoostWeight(getFloat(p, "boostWeight", b.getBoostWeight()));
+    b.setRuleOfThirdsWeight(getFloat(p, "ruleOfThirdsWeight", b.getRuleOfThirdsWeight()));
+    b.setPrescale(getBoolean(p, "prescale", b.isPrescale()));
+    b.setPrescaleSize(getInt(p, "prescaleSize", b.getPrescaleSize()));
+    final String prescaleAlgorithm = p.getProperty(OPTION + "prescaleAlgorithm");
+    if (prescaleAlgorithm != null) {
+      switch (prescaleAlgorithm) {
+        case "nearestNeighbor":
+          b.setPrescaleAlgorithm(RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+          break;
+        case "bilinear":
+          b.setPrescaleAlgorithm(RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+          break;
+        case "bicubic":
+          b.setPrescaleAlgorithm(RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+          break;
+        default:
+          throw new IllegalArgumentException("invalid prescaleAlgorithm");
+      }
+    }
+    b.setDebug(getBoolean(p, "debug", b.isDebug()));
+    b.setLookupTables(getBoolean(p, "lookupTables", b.isLookupTables()));
+    b.setParallelDetection(getBoolean(p, "parallelDetection", b.isParallelDetection()));
+    b.setDetectionBandHeight(getInt(p, "detectionBandHeight", b.getDetectionBandHeight()));
+    b.setThreadLocalWorkspaces(
+        getBoolean(p, "threadLocalWorkspaces", b.isThreadLocalWorkspaces()));
+    b.setOffHeapThreshold(getInt(p, "offHeapThreshold", b.getOffHeapThreshold()));
+    b.setDiagnostics(getBoolean(p, "diagnostics", b.isDiagnostics()));
+    final String search = p.getProperty(OPTION + "search");
+    if (search != null) {
+      b.setSearch(CropSearch.valueOf(search));
+    }
+    b.setPyramidDownSample(getInt(p, "pyramidDownSample", b.getPyramidDownSample()));
+    b.setPyramidCandidates(getInt(p, "pyramidCandidates", b.getPyramidCandidates()));
+    return b.build();
+  }
+
+  private static String required(Properties p, String name) {
+    final String result = p.getProperty(name);
+    if (result == null) {
+      throw new IllegalArgumentException("missing " + name);
+    }
+    return result;
+  }
+
+  private static float getFloat(Properties p, String name, float defaultValue) {
+    final String value = p.getProperty(OPTION + name);
+    return value != null ? Float.parseFloat(value) : defaultValue;
+  }
+
+  private static int getInt(Properties p, String name, int defaultValue) {
+    final String value = p.getProperty(OPTION + name);
+    return value != null ? Integer.parseInt(value) : defaultValue;
+  }
+
+  private static boolean getBoolean(Properties p, String name, boolean defaultValue) {
+    final String value = p.getProperty(OPTION + name);
+    return value != null ? Boolean.parseBoolean(value) : defaultValue;
+  }
+}
@@ -0,0 +1,162 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import com.sigpwned.smartcrop4j.util.MoreFiles;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * A bounded directory of {@link SlowCropCapture captures} of crops that took longer than a
+ * threshold. Configure one with
+ * {@link DefaultSmartCropperOptionsBuilder#setSlowCropSpool(SlowCropSpool)} to capture slow crops
+ * in production, then replay them elsewhere with {@link SlowCropCapture#main(String[])} or the
+ * replay benchmark. Each capture is a subdirectory, named so that captures sort oldest first. When
+ * the spool is full, the oldest capture is deleted to make room. Captures are written on the thread
+ * that ran the crop, after the crop is timed. Failure to write a capture never fails the crop.
+ */
+public class SlowCropSpool {
+
+  public static final Duration DEFAULT_THRESHOLD = Duration.ofSeconds(1L);
+
+  public static final int DEFAULT_MAX_CAPTURES = 100;
+
+  private final Path directory;
+  private final Duration threshold;
+  private final int maxCaptures;
+  private final LongAdder failures;
+  private long sequence;
+
+  public SlowCropSpool(Path directory) {
+    this(directory, DEFAULT_THRESHOLD, DEFAULT_MAX_CAPTURES);
+  }
+
+  /**
+   * @param directory   the directory to write captures to, which is created if needed
+   * @param threshold   capture crops that take at least this long
+   * @param maxCaptures the most captures to keep
+   */
+  public SlowCropSpool(Path directory, Duration threshold, int maxCaptures) {
+    this.directory = requireNonNull(directory);
+    if (threshold.isNegative()) {
+      throw new IllegalArgumentException("threshold must not be negative");
+    }
+    this.threshold = threshold;
+    this.maxCaptures = requirePositive(maxCaptures);
+    this.failures = new LongAdder();
+  }
+
+  /**
+   * Captures the given crop if it took at least the threshold
+   *
+   * @param nanos how long the crop took
+   * @return true if the crop was captured
+   */
+  /* default */ boolean offer(long nanos, BufferedImage image, int aspectWidth, int aspectHeight,
+      List<CropBoost> boosts, DefaultSmartCropperOptions options) {
+    if (nanos < threshold.toNanos()) {
+      return false;
+    }
+    try {
+      capture(SlowCropCapture.of(image, aspectWidth, aspectHeight, boosts, options, nanos));
+      return true;
+    } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+      failures.increment();
+      return false;
+    }
+  }
+
+  /**
+   * Writes the given capture to this spool, deleting the oldest captures if the spool is full
+   *
+   * @return the directory of the new capture
+   */
+  public synchronized Path capture(SlowCropCapture capture) throws IOException {
+    Files.createDirectories(directory);
+
+    final String name = String.format("%013d-%06d", System.currentTimeMillis(),
+        sequence++ % 1000000L);
+    final Path temp = Files.createTempDirectory(directory, ".capture");
+    try {
+      capture.write(temp);
+      Files.move(temp, directory.resolve(name));
+    } catch (IOException | RuntimeException e) {
+      MoreFiles.deleteRecursively(temp);
+      throw e;
+    }
+
+    final List<Path> captures = getCaptures();
+    for (int i = 0; i < captures.size() - maxCaptures; i++) {
+      MoreFiles.deleteRecursively(captures.get(i));
+    }
+
+    return directory.resolve(name);
+  }
+
+  /**
+   * Returns the directories of the captures in this spool, oldest first
+   */
+  public List<Path> getCaptures() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(Files::isDirectory)
+          .filter(f -> !f.getFileName().toString().startsWith(".")).sorted().collect(toList());
+    }
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public Duration getThreshold() {
+    return threshold;
+  }
+
+  public int getMaxCaptures() {
+    return maxCaptures;
+  }
+
+  /**
+   * The number of slow crops that could not be captured, e.g., because the disk was full
+   */
+  public long getFailures() {
+    return failures.sum();
+  }
+}
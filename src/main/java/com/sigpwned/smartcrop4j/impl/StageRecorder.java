@@ -0,0 +1,256 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the stages of one crop for {@link CropDiagnostics}, {@link CropListener}, and
+ * {@link CropStageEvent}. Only created when someone will look at the measurements, so
+ * uninstrumented crops pay nothing but a null check per stage.
+ */
+/* default */ final class StageRecorder {
+
+  /**
+   * Returns a recorder for one crop with the given options, or null if the options ask for no
+   * measurements and no flight recording wants stage events
+   */
+  public static StageRecorder of(DefaultSmartCropperOptions options) {
+    final boolean events = FLIGHT_RECORDER && CropStageEvent.enabled();
+    if (options.getListener() == null && !options.isDiagnostics() && !events) {
+      return null;
+    }
+    return new StageRecorder(options.getListener(), events);
+  }
+
+  /**
+   * Returns true if a flight recording is running that wants {@link CropEvent crop events}
+   */
+  public static boolean cropEventsEnabled() {
+    return FLIGHT_RECORDER && CropEvent.enabled();
+  }
+
+  /**
+   * Whether the JFR module is present. A trimmed runtime may leave it out, in which case the event
+   * classes can't even be loaded, and we never record events.
+   */
+  private static final boolean FLIGHT_RECORDER = flightRecorder();
+
+  private static boolean flightRecorder() {
+    try {
+      CropEvent.enabled();
+      CropStageEvent.enabled();
+      return true;
+    } catch (LinkageError e) {
+      // The jdk.jfr module is missing, so there are no recordings to want events
+      return false;
+    }
+  }
+
+  private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+  private static com.sun.management.ThreadMXBean threads() {
+    try {
+      final ThreadMXBean result = ManagementFactory.getThreadMXBean();
+      if (result instanceof com.sun.management.ThreadMXBean) {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) result;
+        if (threads.isThreadAllocatedMemorySupported()
+            && threads.isThreadAllocatedMemoryEnabled()) {
+          return threads;
+        }
+      }
+    } catch (LinkageError | SecurityException e) {
+      // The management module is missing or forbidden, so we can't count allocations
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of bytes the current thread has ever allocated, or -1 if unknown
+   */
+  private static long allocatedBytes() {
+    return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId())
+        : -1L;
+  }
+
+  /**
+   * Measures consecutive stages on one thread. Each lap records the time and allocation since the
+   * previous lap, or since the stopwatch was created, and emits a {@link CropStageEvent} for it if
+   * a flight recording wants one.
+   */
+  public final class Stopwatch {
+
+    private long start;
+    private long allocated;
+    private CropStageEvent event;
+
+    private Stopwatch() {
+      restart();
+    }
+
+    public void restart() {
+      this.start = System.nanoTime();
+      this.allocated = allocatedBytes();
+      this.event = newEvent();
+    }
+
+    public void lap(CropStage stage, long count) {
+      final long now = System.nanoTime();
+      final long nowAllocated = allocatedBytes();
+      final long bytes = allocated < 0L || nowAllocated < 0L ? -1L : nowAllocated - allocated;
+      record(stage, now - start, count, bytes);
+      if (event != null) {
+        event.end();
+        if (event.shouldCommit()) {
+          event.stage = stage.name();
+          event.count = count;
+          event.allocatedBytes = bytes;
+          event.commit();
+        }
+        event = newEvent();
+      }
+      this.start = now;
+      this.allocated = nowAllocated;
+    }
+
+    private CropStageEvent newEvent() {
+      if (!events) {
+        return null;
+      }
+      final CropStageEvent result = new CropStageEvent();
+      result.begin();
+      return result;
+    }
+  }
+
+  private final CropListener listener;
+  private final boolean events;
+  private final long[] nanos;
+  private final long[] counts;
+  private final long[] allocatedBytes;
+  private final Stopwatch main;
+  private long startNanos;
+
+  private StageRecorder(CropListener listener, boolean events) {
+    this.listener = listener;
+    this.events = events;
+    this.nanos = new long[CropStage.values().length];
+    this.counts = new long[CropStage.values().length];
+    this.allocatedBytes = new long[CropStage.values().length];
+    this.main = new Stopwatch();
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Returns a new stopwatch for measuring work on another thread, e.g., one band of detection.
+   * Laps on the new stopwatch are recorded, but not reported to the listener until
+   * {@link #report(CropStage...)}.
+   */
+  public Stopwatch stopwatch() {
+    return new Stopwatch();
+  }
+
+  /**
+   * Records the given stage as having taken the time since the previous stage on this thread, and
+   * reports it to the listener
+   */
+  public void lap(CropStage stage, long count) {
+    main.lap(stage, count);
+    report(stage);
+  }
+
+  /**
+   * Starts timing the next stage on this thread from now, e.g., after work measured by other
+   * stopwatches
+   */
+  public void restart() {
+    main.restart();
+  }
+
+  /**
+   * Reports the totals of the given stages to the listener
+   */
+  public void report(CropStage... stages) {
+    if (listener == null) {
+      return;
+    }
+    for (CropStage stage : stages) {
+      final long n;
+      final long c;
+      final long b;
+      synchronized (this) {
+        n = nanos[stage.ordinal()];
+        c = counts[stage.ordinal()];
+        b = allocatedBytes[stage.ordinal()];
+      }
+      listener.stageCompleted(stage, n, c, b);
+    }
+  }
+
+  /**
+   * Reports the start of the crop to the listener, and starts timing the first stage from now
+   */
+  public void start() {
+    if (listener != null) {
+      listener.cropStarted();
+    }
+    startNanos = System.nanoTime();
+    main.restart();
+  }
+
+  /**
+   * Reports the failure of the crop to the listener
+   */
+  public void fail(Throwable cause) {
+    if (listener != null) {
+      listener.cropFailed(cause);
+    }
+  }
+
+  /**
+   * Returns the measurements of all stages, and the wall-clock time since {@link #start()}, and
+   * reports them to the listener
+   */
+  public CropDiagnostics finish() {
+    final long elapsedNanos = System.nanoTime() - startNanos;
+    final CropDiagnostics result;
+    synchronized (this) {
+      result = new CropDiagnostics(elapsedNanos, nanos, counts, allocatedBytes);
+    }
+    if (listener != null) {
+      listener.cropCompleted(result);
+    }
+    return result;
+  }
+
+  private synchronized void record(CropStage stage, long stageNanos, long count, long bytes) {
+    final int i = stage.ordinal();
+    nanos[i] = nanos[i] + stageNanos;
+    counts[i] = counts[i] + count;
+    allocatedBytes[i] = allocatedBytes[i] < 0L || bytes < 0L ? -1L : allocatedBytes[i] + bytes;
+  }
+}
@@ -63,16 +63,15 @@ public final class Boosting {
    * @param boost The boost to apply
    */
   public static void applyBoost(ImageData o, CropBoost boost) {
-    int wi = o.width;
     int x0 = boost.getX();
     int x1 = x0 + boost.getWidth();
     int y0 = boost.getY();
     int y1 = y0 + boost.getHeight();
     float w = boost.getWeight() * 255.0f;
     for (int yi = y0; yi < y1; yi++) {
-      for (int xi = x0; xi < x1; xi++) {
-        var i = (yi * wi + xi) * PIXEL_STRIDE;
-        o.data[i + AO] = MoreMath.clamp(o.data[i + AO] + w, 0.0f, 255.0f);
+      int i = o.index(x0, yi);
+      for (int xi = x0; xi < x1; xi++, i += PIXEL_STRIDE) {
+        o.set(i + AO, MoreMath.clamp(o.get(i + AO) + w, 0.0f, 255.0f));
       }
     }
   }
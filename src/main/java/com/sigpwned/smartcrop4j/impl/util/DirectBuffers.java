@@ -0,0 +1,124 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Helpers for direct (off-heap) buffers. Direct buffers are normally freed only when the garbage
+ * collector notices that they are unreachable, which may be long after the program has finished
+ * with them. These helpers allow callers that know when they are done to free the memory
+ * immediately.
+ */
+public final class DirectBuffers {
+
+  private DirectBuffers() {
+  }
+
+  /**
+   * {@code sun.misc.Unsafe#invokeCleaner(ByteBuffer)}, bound to the Unsafe instance, or null if it
+   * is not available on this JVM.
+   */
+  private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+  private static MethodHandle findInvokeCleaner() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      return MethodHandles.lookup()
+          .findVirtual(unsafeClass, "invokeCleaner",
+              MethodType.methodType(void.class, ByteBuffer.class))
+          .bindTo(theUnsafe.get(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Allocates a direct buffer of the given number of floats in native byte order.
+   *
+   * @param floats the number of floats
+   * @return the buffer, suitable for {@link ByteBuffer#asFloatBuffer()} and {@link #free}
+   * @throws IllegalArgumentException if the buffer would be larger than 2GB
+   */
+  public static ByteBuffer allocateFloats(long floats) {
+    if (floats < 0L || floats > Integer.MAX_VALUE / Float.BYTES) {
+      throw new IllegalArgumentException("floats must be in [0, " + Integer.MAX_VALUE / Float.BYTES
+          + "]");
+    }
+    return ByteBuffer.allocateDirect((int) (floats * Float.BYTES)).order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Sets the first given number of bytes of the given buffer to zero.
+   *
+   * @param buffer the buffer
+   * @param bytes  the number of bytes to zero
+   */
+  public static void zero(ByteBuffer buffer, int bytes) {
+    int i = 0;
+    for (; i + Long.BYTES <= bytes; i += Long.BYTES) {
+      buffer.putLong(i, 0L);
+    }
+    for (; i < bytes; i++) {
+      buffer.put(i, (byte) 0);
+    }
+  }
+
+  /**
+   * Frees the memory behind the given direct buffer now, if the JVM allows it. Otherwise, the
+   * memory is freed when the buffer is garbage collected, as usual. The buffer and all views of it
+   * must not be used afterwards.
+   *
+   * @param buffer a direct buffer from {@link #allocateFloats}, not a slice or duplicate
+   */
+  public static void free(ByteBuffer buffer) {
+    if (INVOKE_CLEANER == null || !buffer.isDirect()) {
+      return;
+    }
+    try {
+      INVOKE_CLEANER.invokeExact(buffer);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      // invokeCleaner declares no checked exceptions
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Returns true if {@link #free} releases memory immediately on this JVM.
+   */
+  public static boolean isFreeSupported() {
+    return INVOKE_CLEANER != null;
+  }
+}
@@ -46,29 +46,47 @@ public final class EdgeDetection {
    * @param o Output image
    */
   public static void edgeDetect(ImageData i, ImageData o) {
+    edgeDetect(i, o, 0, i.height);
+  }
+
+  /**
+   * Detect edges in the given band of rows of the input image and write the result to the green
+   * channel of the same rows of the output image. The Laplacian reads one row above and one row
+   * below the band, if present, so bands are independent and can be processed concurrently. The
+   * result is identical to processing the whole image at once.
+   *
+   * @param i  Input image
+   * @param o  Output image
+   * @param y0 The first row of the band, inclusive
+   * @param y1 The last row of the band, exclusive
+   */
+  public static void edgeDetect(ImageData i, ImageData o, int y0, int y1) {
     if (o.width != i.width || o.height != i.height) {
       throw new IllegalArgumentException(
           "output image must have the same dimensions as the input image");
     }
+    if (y0 < 0 || y1 > i.height || y0 > y1) {
+      throw new IllegalArgumentException("invalid band");
+    }
     var w = i.width;
     var h = i.height;
 
-    for (int y = 0; y < h; y++) {
-      for (int x = 0; x < w; x++) {
-        int pos = (y * w + x) * PIXEL_STRIDE;
-
+    for (int y = y0; y < y1; y++) {
+      int ipos = i.index(0, y);
+      int opos = o.index(0, y);
+      for (int x = 0; x < w; x++, ipos += PIXEL_STRIDE, opos += PIXEL_STRIDE) {
         float brightness;
         if (x == 0 || x >= w - 1 || y == 0 || y >= h - 1) {
-          brightness = MoreImageData.brightness(i, pos);
+          brightness = MoreImageData.brightness(i, ipos);
         } else {
-          brightness = MoreImageData.brightness(i, pos) * 4 -
-              MoreImageData.brightness(i, pos - w * PIXEL_STRIDE) -
-              MoreImageData.brightness(i, pos - PIXEL_STRIDE) -
-              MoreImageData.brightness(i, pos + PIXEL_STRIDE) -
-              MoreImageData.brightness(i, pos + w * PIXEL_STRIDE);
+          brightness = MoreImageData.brightness(i, ipos) * 4 -
+              MoreImageData.brightness(i, ipos - i.rowStride) -
+              MoreImageData.brightness(i, ipos - PIXEL_STRIDE) -
+              MoreImageData.brightness(i, ipos + PIXEL_STRIDE) -
+              MoreImageData.brightness(i, ipos + i.rowStride);
         }
 
-        o.data[pos + GO] = brightness;
+        o.set(opos + GO, brightness);
       }
     }
   }
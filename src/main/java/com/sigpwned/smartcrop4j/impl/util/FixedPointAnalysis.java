@@ -0,0 +1,306 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import com.sigpwned.smartcrop4j.impl.FixedPointImageData;
+import com.sigpwned.smartcrop4j.util.Colorspaces;
+import java.util.List;
+
+/**
+ * Integer implementations of the feature detectors in {@link EdgeDetection}, {@link SkinColoring},
+ * {@link Saturation}, {@link Boosting}, and {@link MoreImageData#scaledDown}. Inputs are packed
+ * ARGB pixels as returned by {@link java.awt.image.BufferedImage#getRGB}, and outputs are
+ * {@link FixedPointImageData} channels with the same layout and domain as their floating-point
+ * counterparts.
+ */
+public final class FixedPointAnalysis {
+
+  private FixedPointAnalysis() {
+  }
+
+  private static final int PIXEL_STRIDE = FixedPointImageData.PIXEL_STRIDE;
+
+  private static final int RO = FixedPointImageData.RO;
+
+  private static final int GO = FixedPointImageData.GO;
+
+  private static final int BO = FixedPointImageData.BO;
+
+  private static final int AO = FixedPointImageData.AO;
+
+  private static final int FRACTION_BITS = FixedPointImageData.FRACTION_BITS;
+
+  private static final int ONE = FixedPointImageData.ONE;
+
+  /**
+   * The number of fractional bits in luma values
+   */
+  public static final int LUMA_FRACTION_BITS = 16;
+
+  /**
+   * The Rec. 709 luma coefficients with {@link #LUMA_FRACTION_BITS} fractional bits. They sum to
+   * exactly {@code 1 << LUMA_FRACTION_BITS}, so white has luma 255.0.
+   *
+   * @see Colorspaces#brightness(float, float, float)
+   */
+  private static final int LUMA_R = 13933;
+  private static final int LUMA_G = 46871;
+  private static final int LUMA_B = 4732;
+
+  /**
+   * Computes the luma of the given packed RGB pixels with {@link #LUMA_FRACTION_BITS} fractional
+   * bits. Output domain is [0, 255 << LUMA_FRACTION_BITS].
+   *
+   * @param pixels the packed pixels
+   * @return the luma of each pixel
+   */
+  public static int[] luma(int[] pixels) {
+    final int[] result = new int[pixels.length];
+    for (int i = 0; i < pixels.length; i++) {
+      final int pixel = pixels[i];
+      result[i] = LUMA_R * ((pixel >>> 16) & 0xff) + LUMA_G * ((pixel >>> 8) & 0xff)
+          + LUMA_B * (pixel & 0xff);
+    }
+    return result;
+  }
+
+  /**
+   * Converts the given brightness threshold, in the same domain as
+   * {@link Colorspaces#brightness(float, float, float)}, to the smallest luma value that is at
+   * least that bright.
+   */
+  public static int lumaCeiling(float brightness) {
+    return (int) Math.max(Math.min(Math.ceil(brightness * (double) (1 << LUMA_FRACTION_BITS)),
+        Integer.MAX_VALUE), Integer.MIN_VALUE);
+  }
+
+  /**
+   * Converts the given brightness threshold, in the same domain as
+   * {@link Colorspaces#brightness(float, float, float)}, to the largest luma value that is at most
+   * that bright.
+   */
+  public static int lumaFloor(float brightness) {
+    return (int) Math.max(Math.min(Math.floor(brightness * (double) (1 << LUMA_FRACTION_BITS)),
+        Integer.MAX_VALUE), Integer.MIN_VALUE);
+  }
+
+  /**
+   * Detect edges using the luma of the input image and write the result to the green channel of
+   * the output image.
+   *
+   * @param luma the luma of the input image, from {@link #luma(int[])}
+   * @param o    Output image
+   * @see EdgeDetection#edgeDetect(com.sigpwned.smartcrop4j.impl.ImageData,
+   * com.sigpwned.smartcrop4j.impl.ImageData)
+   */
+  public static void edgeDetect(int[] luma, FixedPointImageData o) {
+    if (luma.length != o.width * o.height) {
+      throw new IllegalArgumentException(
+          "output image must have the same dimensions as the input image");
+    }
+    final int w = o.width;
+    final int h = o.height;
+    final int shift = LUMA_FRACTION_BITS - FRACTION_BITS;
+
+    for (int y = 0; y < h; y++) {
+      for (int x = 0; x < w; x++) {
+        final int i = y * w + x;
+
+        int brightness;
+        if (x == 0 || x >= w - 1 || y == 0 || y >= h - 1) {
+          brightness = luma[i];
+        } else {
+          brightness = luma[i] * 4 - luma[i - w] - luma[i - 1] - luma[i + 1] - luma[i + w];
+        }
+
+        o.data[i * PIXEL_STRIDE + GO] = brightness >> shift;
+      }
+    }
+  }
+
+  /**
+   * Looks up the skin likeness of the given packed RGB pixels and writes the result to the red
+   * channel of the output image.
+   *
+   * @param pixels the packed pixels of the input image
+   * @param o      Output image
+   * @param table  The skin color lookup table
+   * @see SkinColoring#skinDetect(com.sigpwned.smartcrop4j.impl.ImageData,
+   * com.sigpwned.smartcrop4j.impl.ImageData, SkinColorTable)
+   */
+  public static void skinDetect(int[] pixels, FixedPointImageData o, SkinColorTable table) {
+    if (pixels.length != o.width * o.height) {
+      throw new IllegalArgumentException(
+          "output image must have the same dimensions as the input image");
+    }
+    for (int i = 0; i < pixels.length; i++) {
+      final int pixel = pixels[i];
+      o.data[i * PIXEL_STRIDE + RO] = table.lookup((pixel >>> 16) & 0xff, (pixel >>> 8) & 0xff,
+          pixel & 0xff) << FRACTION_BITS;
+    }
+  }
+
+  /**
+   * Builds a table of fixed-point saturatedness indexed by {@code (maximum << 8) | minimum}, where
+   * maximum and minimum are the largest and smallest components of an 8-bit RGB color.
+   *
+   * @param saturationThreshold the saturation below which a color is not considered saturated
+   * @return the table
+   * @see SaturationTable
+   */
+  public static int[] saturationTable(float saturationThreshold) {
+    final int[] result = new int[1 << 16];
+    for (int maximum = 0; maximum < 256; maximum++) {
+      for (int minimum = 0; minimum <= maximum; minimum++) {
+        float saturation = Colorspaces.saturation(maximum, minimum, minimum);
+        result[(maximum << 8) | minimum] = Math.round(
+            Saturation.saturatedness(saturation, saturationThreshold) * ONE);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Looks up the saturation of the given packed RGB pixels and writes the result to the blue
+   * channel of the output image. Pixels whose luma is outside the given bounds are not considered
+   * saturated.
+   *
+   * @param pixels        the packed pixels of the input image
+   * @param luma          the luma of the input image, from {@link #luma(int[])}
+   * @param o             Output image
+   * @param table         the saturation table, from {@link #saturationTable(float)}
+   * @param brightnessMin the minimum luma of a saturated pixel, from {@link #lumaCeiling(float)}
+   * @param brightnessMax the maximum luma of a saturated pixel, from {@link #lumaFloor(float)}
+   */
+  public static void saturationDetect(int[] pixels, int[] luma, FixedPointImageData o,
+      int[] table, int brightnessMin, int brightnessMax) {
+    if (pixels.length != o.width * o.height || luma.length != pixels.length) {
+      throw new IllegalArgumentException(
+          "output image must have the same dimensions as the input image");
+    }
+    for (int i = 0; i < pixels.length; i++) {
+      int saturatedness;
+      if (luma[i] >= brightnessMin && luma[i] <= brightnessMax) {
+        final int pixel = pixels[i];
+        final int r = (pixel >>> 16) & 0xff;
+        final int g = (pixel >>> 8) & 0xff;
+        final int b = pixel & 0xff;
+        final int maximum = Math.max(Math.max(r, g), b);
+        final int minimum = Math.min(Math.min(r, g), b);
+        saturatedness = table[(maximum << 8) | minimum];
+      } else {
+        saturatedness = 0;
+      }
+      o.data[i * PIXEL_STRIDE + BO] = saturatedness;
+    }
+  }
+
+  /**
+   * Applies the given boosts to the alpha channel of the given image. Output domain is clamped to
+   * [0, 255].
+   *
+   * @param o      The image to boost
+   * @param boosts The boosts to apply
+   * @see Boosting#applyBoosts(com.sigpwned.smartcrop4j.impl.ImageData, List)
+   */
+  public static void applyBoosts(FixedPointImageData o, List<CropBoost> boosts) {
+    final int max = 255 * ONE;
+    final int wi = o.width;
+    for (CropBoost boost : boosts) {
+      int x0 = boost.getX();
+      int x1 = x0 + boost.getWidth();
+      int y0 = boost.getY();
+      int y1 = y0 + boost.getHeight();
+      int w = Math.round(boost.getWeight() * 255.0f * ONE);
+      for (int yi = y0; yi < y1; yi++) {
+        for (int xi = x0; xi < x1; xi++) {
+          int i = (yi * wi + xi) * PIXEL_STRIDE;
+          o.data[i + AO] = Math.max(0, Math.min(max, o.data[i + AO] + w));
+        }
+      }
+    }
+  }
+
+  /**
+   * Scales down the image by the indicated constant integer factor.
+   *
+   * @param input  the input image
+   * @param factor the factor to scale down by
+   * @return the scaled down image
+   * @see MoreImageData#scaledDown(com.sigpwned.smartcrop4j.impl.ImageData, int)
+   */
+  public static FixedPointImageData scaledDown(FixedPointImageData input, int factor) {
+    final int[] idata = input.data;
+    final int iwidth = input.width;
+    final int iheight = input.height;
+    final int owidth = Math.max(iwidth / factor, 1);
+    final int oheight = Math.max(iheight / factor, 1);
+    final FixedPointImageData output = new FixedPointImageData(owidth, oheight);
+    final int[] odata = output.data;
+    final long n = (long) factor * factor;
+
+    for (int y = 0; y < oheight; y++) {
+      for (int x = 0; x < owidth; x++) {
+        int pos = (y * owidth + x) * PIXEL_STRIDE;
+
+        long r = 0;
+        long g = 0;
+        long b = 0;
+        long a = 0;
+
+        int mr = 0;
+        int mg = 0;
+
+        for (int v = 0; v < factor; v++) {
+          for (int u = 0; u < factor; u++) {
+            int j = ((y * factor + v) * iwidth + (x * factor + u)) * PIXEL_STRIDE;
+
+            int rj = idata[j + RO];
+            int gj = idata[j + GO];
+
+            r += rj;
+            g += gj;
+            b += idata[j + BO];
+            a += idata[j + AO];
+
+            mr = Math.max(mr, rj);
+            mg = Math.max(mg, gj);
+          }
+        }
+
+        // Same blend of mean and maximum as the floating-point version, with a single rounding
+        // step per channel: r = mean/2 + max/2, and g = 0.7 mean + 0.3 max.
+        odata[pos + RO] = (int) Math.floorDiv(r + n * mr, 2 * n);
+        odata[pos + GO] = (int) Math.floorDiv(7 * g + 3 * n * mg, 10 * n);
+        odata[pos + BO] = (int) Math.floorDiv(b, n);
+        odata[pos + AO] = (int) Math.floorDiv(a, n);
+      }
+    }
+
+    return output;
+  }
+}
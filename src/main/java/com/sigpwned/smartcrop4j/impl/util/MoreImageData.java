@@ -51,12 +51,28 @@ public final class MoreImageData {
    * @return the scaled down image
    */
   public static ImageData scaledDown(ImageData input, int factor) {
-    final float[] idata = input.data;
+    return scaledDown(input, factor, null);
+  }
+
+  /**
+   * Scales down the image by the indicated constant integer factor, writing the result into the
+   * given buffer if it is large enough. Otherwise, a new buffer is allocated. Either way, the
+   * result's {@link ImageData#data data} is the buffer that was used, so callers can keep it for
+   * next time.
+   *
+   * @param input  the input image
+   * @param factor the factor to scale down by
+   * @param buffer the buffer to reuse, or null
+   * @return the scaled down image
+   */
+  public static ImageData scaledDown(ImageData input, int factor, float[] buffer) {
     final int iwidth = input.width;
     final int iheight = input.height;
     final int owidth = Math.max(iwidth / factor, 1);
     final int oheight = Math.max(iheight / factor, 1);
-    final float[] odata = new float[owidth * oheight * ImageData.PIXEL_STRIDE];
+    final int olength = owidth * oheight * PIXEL_STRIDE;
+    final float[] odata =
+        buffer != null && buffer.length >= olength ? buffer : new float[olength];
     final float ifactor2 = 1.0f / (factor * factor);
 
     for (int y = 0; y < oheight; y++) {
@@ -74,12 +90,12 @@ public final class MoreImageData {
 
         for (int v = 0; v < factor; v++) {
           for (int u = 0; u < factor; u++) {
-            int j = ((y * factor + v) * iwidth + (x * factor + u)) * PIXEL_STRIDE;
+            int j = input.index(x * factor + u, y * factor + v);
 
-            float rj = idata[j + RO];
-            float gj = idata[j + GO];
-            float bj = idata[j + BO];
-            float aj = idata[j + AO];
+            float rj = input.get(j + RO);
+            float gj = input.get(j + GO);
+            float bj = input.get(j + BO);
+            float aj = input.get(j + AO);
 
             r += rj;
             g += gj;
@@ -100,7 +116,7 @@ public final class MoreImageData {
         odata[pos + AO] = a * ifactor2;
       }
     }
-    return new ImageData(owidth, oheight, odata);
+    return ImageData.wrap(owidth, oheight, odata);
   }
 
   /**
@@ -110,7 +126,7 @@ public final class MoreImageData {
    * @see Colorspaces#brightness(float, float, float)
    */
   public static float brightness(ImageData image, int pos) {
-    return Colorspaces.brightness(image.data[pos + RO], image.data[pos + GO],
-        image.data[pos + BO]);
+    return Colorspaces.brightness(image.get(pos + RO), image.get(pos + GO),
+        image.get(pos + BO));
   }
 }
@@ -0,0 +1,130 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import static java.util.stream.Collectors.toList;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import com.sigpwned.smartcrop4j.util.BufferedImages;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Helpers for analyzing a smaller copy of an image, because we don't need every pixel to find a
+ * good crop.
+ */
+public final class Prescaling {
+
+  private Prescaling() {
+  }
+
+  /**
+   * Computes the factor by which to scale the given image down before analysis. The result is in
+   * the range (0, 1]. A result of 1 indicates that the image should be analyzed as-is.
+   *
+   * @param imageWidth   the width of the image
+   * @param imageHeight  the height of the image
+   * @param prescale     whether prescaling is enabled at all
+   * @param prescaleSize the size of the smaller dimension of the prescaled image
+   * @return the prescale factor
+   */
+  public static float prescaleFactor(int imageWidth, int imageHeight, boolean prescale,
+      int prescaleSize) {
+    if (!prescale) {
+      // We don't prescale in this case, so use the original image for analysis.
+      return 1.0f;
+    }
+
+    // If prescale is less than 1, it means that at least one of the dimensions of the image
+    // (width or height) is greater than prescaleSize pixels. Here's the reasoning:
+    //
+    // The ratios prescaleSize / imageWidth and prescaleSize / imageHeight compute how much the
+    // image would need to be scaled down for the width or height, respectively, to be exactly
+    // prescaleSize pixels. If either dimension of the image is greater than prescaleSize pixels,
+    // the corresponding ratio will be less than 1.
+    //
+    // The Math.max(...) part of the expression ensures that the larger of these two scaling factors
+    // is used. This is because the aim is to scale the image down just enough so that the smaller
+    // dimension is prescaleSize pixels, maintaining the image's aspect ratio.
+    //
+    // Finally, the Math.min(..., 1.0f) part ensures that the scaling factor does not exceed 1,
+    // meaning the image should not be scaled up if both dimensions are already small enough.
+    return Math.min(Math.max(prescaleSize / (float) imageWidth, prescaleSize / (float) imageHeight),
+        1.0f);
+  }
+
+  /**
+   * Returns a copy of the given image scaled by the given prescale factor in
+   * {@link BufferedImage#TYPE_INT_ARGB} format, or the image itself if the factor is 1.
+   *
+   * @param image              the image to scale
+   * @param prescale           the prescale factor, from {@link #prescaleFactor}
+   * @param interpolationStyle the interpolation style
+   * @return the image to analyze
+   */
+  public static BufferedImage prescaled(BufferedImage image, float prescale,
+      Object interpolationStyle) {
+    if (prescale >= 1.0f) {
+      return image;
+    }
+    // TODO Add prescaleRenderingStyle?
+    return BufferedImages.scaled(image, prescaledSize(image.getWidth(), prescale),
+        prescaledSize(image.getHeight(), prescale), BufferedImage.TYPE_INT_ARGB, null, null,
+        interpolationStyle);
+  }
+
+  /**
+   * Returns the given image dimension after scaling by the given prescale factor.
+   *
+   * @param size     the width or height of the image
+   * @param prescale the prescale factor, from {@link #prescaleFactor}
+   * @return the width or height of the prescaled image
+   */
+  public static int prescaledSize(int size, float prescale) {
+    if (prescale >= 1.0f) {
+      return size;
+    }
+    return (int) (size * prescale);
+  }
+
+  /**
+   * Returns the given boosts scaled by the given prescale factor, so that they are in the same
+   * coordinate space as the prescaled image.
+   *
+   * @param boosts   the boosts to scale
+   * @param prescale the prescale factor, from {@link #prescaleFactor}
+   * @return the scaled boosts
+   */
+  public static List<CropBoost> prescaled(List<CropBoost> boosts, float prescale) {
+    if (prescale >= 1.0f) {
+      return boosts;
+    }
+    return boosts.stream().map(
+        b -> new CropBoost((int) (b.getX() * prescale), (int) (b.getY() * prescale),
+            (int) (b.getWidth() * prescale), (int) (b.getHeight() * prescale),
+            b.getWeight())).collect(toList());
+  }
+}
@@ -56,39 +56,121 @@ public final class Saturation {
    */
   public static void saturationDetect(ImageData i, ImageData o, float saturationThreshold,
       float saturationBrightnessMin, float saturationBrightnessMax) {
+    saturationDetect(i, o, saturationThreshold, saturationBrightnessMin, saturationBrightnessMax,
+        0, i.height);
+  }
+
+  /**
+   * Computes the saturation of the given band of rows of the input image and writes the result to
+   * the blue channel of the same rows of the output image. Bands are independent and can be
+   * processed concurrently. Output domain is [0, 255].
+   *
+   * @param i
+   * @param o
+   * @param saturationThreshold
+   * @param saturationBrightnessMin
+   * @param saturationBrightnessMax
+   * @param y0                      The first row of the band, inclusive
+   * @param y1                      The last row of the band, exclusive
+   */
+  public static void saturationDetect(ImageData i, ImageData o, float saturationThreshold,
+      float saturationBrightnessMin, float saturationBrightnessMax, int y0, int y1) {
     if (o.width != i.width || o.height != i.height) {
       throw new IllegalArgumentException(
           "output image must have the same dimensions as the input image");
     }
+    if (y0 < 0 || y1 > i.height || y0 > y1) {
+      throw new IllegalArgumentException("invalid band");
+    }
     var w = i.width;
-    var h = i.height;
 
-    for (int y = 0; y < h; y++) {
-      for (int x = 0; x < w; x++) {
-        var pos = (y * w + x) * PIXEL_STRIDE;
+    for (int y = y0; y < y1; y++) {
+      int ipos = i.index(0, y);
+      int opos = o.index(0, y);
+      for (int x = 0; x < w; x++, ipos += PIXEL_STRIDE, opos += PIXEL_STRIDE) {
 
-        float posr = i.data[pos + RO];
-        float posg = i.data[pos + GO];
-        float posb = i.data[pos + BO];
+        float posr = i.get(ipos + RO);
+        float posg = i.get(ipos + GO);
+        float posb = i.get(ipos + BO);
 
         float brightness = Colorspaces.brightness(posr, posg, posb);
-        float saturation = Colorspaces.saturation(posr, posg, posb);
-
-        boolean acceptableSaturation = saturation > saturationThreshold;
         boolean acceptableLightness =
             brightness >= saturationBrightnessMin && brightness <= saturationBrightnessMax;
 
         float saturatedness;
-        if (acceptableLightness && acceptableSaturation) {
-          // Normalize the saturation to the interval [0, 255]
-          saturatedness =
-              (saturation - saturationThreshold) * (255.0f / (1.0f - saturationThreshold));
+        if (acceptableLightness) {
+          saturatedness = saturatedness(Colorspaces.saturation(posr, posg, posb),
+              saturationThreshold);
         } else {
           saturatedness = 0.0f;
         }
 
-        o.data[pos + BO] = saturatedness;
+        o.set(opos + BO, saturatedness);
       }
     }
   }
+
+  /**
+   * Computes the saturation of the input image using a precomputed lookup table and writes the
+   * result to the blue channel of the output image. The channels of the input image must hold whole
+   * numbers in the range [0, 255], which is always the case for images created with
+   * {@link ImageData#fromBufferedImage(java.awt.image.BufferedImage)}. Output domain is [0, 255].
+   *
+   * @param i     Input image
+   * @param o     Output image
+   * @param table The saturation lookup table
+   * @see SaturationTable
+   */
+  public static void saturationDetect(ImageData i, ImageData o, SaturationTable table) {
+    saturationDetect(i, o, table, 0, i.height);
+  }
+
+  /**
+   * Computes the saturation of the given band of rows of the input image using a precomputed lookup
+   * table and writes the result to the blue channel of the same rows of the output image. Bands are
+   * independent and can be processed concurrently. Output domain is [0, 255].
+   *
+   * @param i     Input image
+   * @param o     Output image
+   * @param table The saturation lookup table
+   * @param y0    The first row of the band, inclusive
+   * @param y1    The last row of the band, exclusive
+   * @see #saturationDetect(ImageData, ImageData, SaturationTable)
+   */
+  public static void saturationDetect(ImageData i, ImageData o, SaturationTable table, int y0,
+      int y1) {
+    if (o.width != i.width || o.height != i.height) {
+      throw new IllegalArgumentException(
+          "output image must have the same dimensions as the input image");
+    }
+    if (y0 < 0 || y1 > i.height || y0 > y1) {
+      throw new IllegalArgumentException("invalid band");
+    }
+    var w = i.width;
+
+    for (int y = y0; y < y1; y++) {
+      int ipos = i.index(0, y);
+      int opos = o.index(0, y);
+      for (int x = 0; x < w; x++, ipos += PIXEL_STRIDE, opos += PIXEL_STRIDE) {
+
+        int posr = (int) i.get(ipos + RO);
+        int posg = (int) i.get(ipos + GO);
+        int posb = (int) i.get(ipos + BO);
+
+        o.set(opos + BO, table.lookup(posr, posg, posb));
+      }
+    }
+  }
+
+  /**
+   * Maps a saturation in [0, 1] to a saturatedness in [0, 255], or 0 if the saturation does not
+   * exceed the threshold.
+   */
+  /* default */ static float saturatedness(float saturation, float saturationThreshold) {
+    if (saturation > saturationThreshold) {
+      // Normalize the saturation to the interval [0, 255]
+      return (saturation - saturationThreshold) * (255.0f / (1.0f - saturationThreshold));
+    }
+    return 0.0f;
+  }
 }
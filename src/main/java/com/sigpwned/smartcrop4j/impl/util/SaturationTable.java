@@ -0,0 +1,92 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import com.sigpwned.smartcrop4j.util.Colorspaces;
+
+/**
+ * A precomputed table of saturatedness for 8-bit RGB colors. The saturation of a color depends
+ * only on its largest and smallest components, so the table is indexed by that pair and has only
+ * 2^16 entries. Lookups are exact, i.e., they return the same value as
+ * {@link Saturation#saturationDetect(com.sigpwned.smartcrop4j.impl.ImageData,
+ * com.sigpwned.smartcrop4j.impl.ImageData, float, float, float)} bit for bit. Instances are
+ * immutable and thread-safe.
+ */
+public final class SaturationTable {
+
+  /**
+   * Builds a new table for the given saturation detection parameters.
+   *
+   * @param saturationThreshold     the saturation below which a color is not considered saturated
+   * @param saturationBrightnessMin the minimum brightness of a saturated color, in [0, 1]
+   * @param saturationBrightnessMax the maximum brightness of a saturated color, in [0, 1]
+   * @return the table
+   */
+  public static SaturationTable create(float saturationThreshold, float saturationBrightnessMin,
+      float saturationBrightnessMax) {
+    final float[] table = new float[1 << 16];
+    for (int maximum = 0; maximum < 256; maximum++) {
+      for (int minimum = 0; minimum <= maximum; minimum++) {
+        float saturation = Colorspaces.saturation(maximum, minimum, minimum);
+        table[index(maximum, minimum)] = Saturation.saturatedness(saturation, saturationThreshold);
+      }
+    }
+    return new SaturationTable(table, saturationBrightnessMin, saturationBrightnessMax);
+  }
+
+  private final float[] table;
+  private final float saturationBrightnessMin;
+  private final float saturationBrightnessMax;
+
+  private SaturationTable(float[] table, float saturationBrightnessMin,
+      float saturationBrightnessMax) {
+    this.table = table;
+    this.saturationBrightnessMin = saturationBrightnessMin;
+    this.saturationBrightnessMax = saturationBrightnessMax;
+  }
+
+  /**
+   * Returns the saturatedness of the given color. Output domain is [0, 255].
+   *
+   * @param r The red component of the color, in the range [0, 255]
+   * @param g The green component of the color, in the range [0, 255]
+   * @param b The blue component of the color, in the range [0, 255]
+   * @return the saturatedness
+   */
+  public float lookup(int r, int g, int b) {
+    float brightness = Colorspaces.brightness(r, g, b);
+    if (brightness < saturationBrightnessMin || brightness > saturationBrightnessMax) {
+      return 0.0f;
+    }
+    int maximum = Math.max(Math.max(r, g), b);
+    int minimum = Math.min(Math.min(r, g), b);
+    return table[index(maximum, minimum)];
+  }
+
+  private static int index(int maximum, int minimum) {
+    return (maximum << 8) | minimum;
+  }
+}
@@ -0,0 +1,103 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.util.Colorspaces;
+import java.util.stream.IntStream;
+
+/**
+ * A precomputed table of skin likeness for every 8-bit RGB color. Building the table evaluates
+ * {@link Colorspaces#similarity(float, float, float, float, float, float)} once for each of the
+ * 2^24 colors, after which classifying a pixel is a single array load. The table occupies 16MiB,
+ * so it should be built once and shared, e.g., via
+ * {@link com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions}. Instances are immutable and
+ * thread-safe.
+ *
+ * <p>
+ * Each entry is the skin likeness computed by
+ * {@link SkinColoring#skinDetect(com.sigpwned.smartcrop4j.impl.ImageData,
+ * com.sigpwned.smartcrop4j.impl.ImageData, float[], float, float, float)}, rounded to the nearest
+ * integer. Lookups therefore differ from the exact computation by at most 0.5.
+ */
+public final class SkinColorTable {
+
+  /**
+   * Builds a new table for the given skin detection parameters. This is an expensive operation.
+   *
+   * @param skinColor         The reference color to compare the hues in the original image to
+   * @param skinThreshold     The threshold for the similarity of the hues in the original image to
+   *                          the reference skin color
+   * @param skinBrightnessMin The minimum brightness of the skin
+   * @param skinBrightnessMax The maximum brightness of the skin
+   * @return the table
+   */
+  public static SkinColorTable create(float[] skinColor, float skinThreshold,
+      float skinBrightnessMin, float skinBrightnessMax) {
+    requireNonNull(skinColor);
+    if (skinColor.length != 3) {
+      throw new IllegalArgumentException("skinColor must have 3 components");
+    }
+
+    final byte[] table = new byte[1 << 24];
+
+    // Each red plane is independent, so build them in parallel.
+    IntStream.range(0, 256).parallel().forEach(r -> {
+      for (int g = 0; g < 256; g++) {
+        for (int b = 0; b < 256; b++) {
+          float skinLikeness = SkinColoring.skinLikeness(skinColor, skinThreshold,
+              skinBrightnessMin, skinBrightnessMax, r, g, b);
+          table[index(r, g, b)] = (byte) Math.min(255, Math.max(0, Math.round(skinLikeness)));
+        }
+      }
+    });
+
+    return new SkinColorTable(table);
+  }
+
+  private final byte[] table;
+
+  private SkinColorTable(byte[] table) {
+    this.table = table;
+  }
+
+  /**
+   * Returns the skin likeness of the given color. Output domain is [0, 255].
+   *
+   * @param r The red component of the color, in the range [0, 255]
+   * @param g The green component of the color, in the range [0, 255]
+   * @param b The blue component of the color, in the range [0, 255]
+   * @return the skin likeness
+   */
+  public int lookup(int r, int g, int b) {
+    return table[index(r, g, b)] & 0xff;
+  }
+
+  private static int index(int r, int g, int b) {
+    return (r << 16) | (g << 8) | b;
+  }
+}
@@ -59,37 +59,122 @@ public final class SkinColoring {
    */
   public static void skinDetect(ImageData i, ImageData o, float[] skinColor, float skinThreshold,
       float skinBrightnessMin, float skinBrightnessMax) {
+    skinDetect(i, o, skinColor, skinThreshold, skinBrightnessMin, skinBrightnessMax, 0, i.height);
+  }
+
+  /**
+   * Computes the similarity of the hues in the given band of rows of the original image to a
+   * reference skin color and stores the result in the red channel of the same rows of the output
+   * image. Bands are independent and can be processed concurrently. Output domain is [0, 255].
+   *
+   * @param i                 Input image
+   * @param o                 Output image
+   * @param skinColor         The reference color to compare the hues in the original image to
+   * @param skinThreshold     The threshold for the similarity of the hues in the original image to
+   *                          the reference skin color
+   * @param skinBrightnessMin The minimum brightness of the skin
+   * @param skinBrightnessMax The maximum brightness of the skin
+   * @param y0                The first row of the band, inclusive
+   * @param y1                The last row of the band, exclusive
+   */
+  public static void skinDetect(ImageData i, ImageData o, float[] skinColor, float skinThreshold,
+      float skinBrightnessMin, float skinBrightnessMax, int y0, int y1) {
     if (o.width != i.width || o.height != i.height) {
       throw new IllegalArgumentException(
           "output image must have the same dimensions as the input image");
     }
+    if (y0 < 0 || y1 > i.height || y0 > y1) {
+      throw new IllegalArgumentException("invalid band");
+    }
     var w = i.width;
-    var h = i.height;
-
-    for (int y = 0; y < h; y++) {
-      for (int x = 0; x < w; x++) {
-        var pos = (y * w + x) * PIXEL_STRIDE;
-
-        float posr = i.data[pos + RO];
-        float posg = i.data[pos + GO];
-        float posb = i.data[pos + BO];
-
-        var brightness = Colorspaces.brightness(posr, posg, posb) / 255.0f;
-        var skin = Colorspaces.similarity(skinColor[0], skinColor[1], skinColor[2], posr, posg,
-            posb);
-        var isSkinColor = skin > skinThreshold;
-        var isSkinBrightness = brightness >= skinBrightnessMin && brightness <= skinBrightnessMax;
-
-        float skinLikeness;
-        if (isSkinColor && isSkinBrightness) {
-          // Normalize the skin likeness to the range [0, 255]
-          skinLikeness = (skin - skinThreshold) * (255.0f / (1.0f - skinThreshold));
-        } else {
-          skinLikeness = 0.0f;
-        }
-
-        o.data[pos + RO] = skinLikeness;
+
+    for (int y = y0; y < y1; y++) {
+      int ipos = i.index(0, y);
+      int opos = o.index(0, y);
+      for (int x = 0; x < w; x++, ipos += PIXEL_STRIDE, opos += PIXEL_STRIDE) {
+
+        float posr = i.get(ipos + RO);
+        float posg = i.get(ipos + GO);
+        float posb = i.get(ipos + BO);
+
+        o.set(opos + RO, skinLikeness(skinColor, skinThreshold, skinBrightnessMin,
+            skinBrightnessMax, posr, posg, posb));
       }
     }
   }
+
+  /**
+   * Computes the similarity of the hues in the original image to a reference skin color using a
+   * precomputed lookup table and stores the result in the red channel of the output image. The
+   * channels of the input image must hold whole numbers in the range [0, 255], which is always the
+   * case for images created with
+   * {@link ImageData#fromBufferedImage(java.awt.image.BufferedImage)}. Output domain is [0, 255].
+   *
+   * @param i     Input image
+   * @param o     Output image
+   * @param table The skin color lookup table
+   * @see SkinColorTable
+   */
+  public static void skinDetect(ImageData i, ImageData o, SkinColorTable table) {
+    skinDetect(i, o, table, 0, i.height);
+  }
+
+  /**
+   * Computes the similarity of the hues in the given band of rows of the original image to a
+   * reference skin color using a precomputed lookup table and stores the result in the red channel
+   * of the same rows of the output image. Bands are independent and can be processed concurrently.
+   * Output domain is [0, 255].
+   *
+   * @param i     Input image
+   * @param o     Output image
+   * @param table The skin color lookup table
+   * @param y0    The first row of the band, inclusive
+   * @param y1    The last row of the band, exclusive
+   * @see #skinDetect(ImageData, ImageData, SkinColorTable)
+   */
+  public static void skinDetect(ImageData i, ImageData o, SkinColorTable table, int y0, int y1) {
+    if (o.width != i.width || o.height != i.height) {
+      throw new IllegalArgumentException(
+          "output image must have the same dimensions as the input image");
+    }
+    if (y0 < 0 || y1 > i.height || y0 > y1) {
+      throw new IllegalArgumentException("invalid band");
+    }
+    var w = i.width;
+
+    for (int y = y0; y < y1; y++) {
+      int ipos = i.index(0, y);
+      int opos = o.index(0, y);
+      for (int x = 0; x < w; x++, ipos += PIXEL_STRIDE, opos += PIXEL_STRIDE) {
+
+        int posr = (int) i.get(ipos + RO);
+        int posg = (int) i.get(ipos + GO);
+        int posb = (int) i.get(ipos + BO);
+
+        o.set(opos + RO, table.lookup(posr, posg, posb));
+      }
+    }
+  }
+
+  /**
+   * Computes the skin likeness of a single color. Output domain is [0, 255].
+   */
+  /* default */ static float skinLikeness(float[] skinColor, float skinThreshold,
+      float skinBrightnessMin, float skinBrightnessMax, float posr, float posg, float posb) {
+    var brightness = Colorspaces.brightness(posr, posg, posb) / 255.0f;
+    var skin = Colorspaces.similarity(skinColor[0], skinColor[1], skinColor[2], posr, posg,
+        posb);
+    var isSkinColor = skin > skinThreshold;
+    var isSkinBrightness = brightness >= skinBrightnessMin && brightness <= skinBrightnessMax;
+
+    float skinLikeness;
+    if (isSkinColor && isSkinBrightness) {
+      // Normalize the skin likeness to the range [0, 255]
+      skinLikeness = (skin - skinThreshold) * (255.0f / (1.0f - skinThreshold));
+    } else {
+      skinLikeness = 0.0f;
+    }
+
+    return skinLikeness;
+  }
 }
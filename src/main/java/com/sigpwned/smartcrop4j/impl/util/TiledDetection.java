@@ -0,0 +1,145 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requireNonNegative;
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs feature detection over horizontal bands of an image, because large images have more rows
+ * than one core can chew through quickly. The detectors in this package all accept a band of rows
+ * and only write to that band of the output image, so bands can run concurrently. The edge detector
+ * reads one extra row above and below its band (its halo) from the shared input image, which is
+ * never written during detection.
+ */
+public final class TiledDetection {
+
+  private TiledDetection() {
+  }
+
+  /**
+   * Detects features in one band of rows.
+   */
+  @FunctionalInterface
+  public static interface BandDetector {
+
+    /**
+     * @param y0 The first row of the band, inclusive
+     * @param y1 The last row of the band, exclusive
+     */
+    public void detect(int y0, int y1);
+  }
+
+  /**
+   * Runs the given detector over every band of the given image height on the current thread, in
+   * order from top to bottom.
+   *
+   * @param height     the height of the image
+   * @param bandHeight the height of each band, except possibly the last
+   * @param detector   the detector to run
+   */
+  public static void sequential(int height, int bandHeight, BandDetector detector) {
+    height = requireNonNegative(height);
+    bandHeight = requirePositive(bandHeight);
+    requireNonNull(detector);
+    for (int y0 = 0; y0 < height; y0 += bandHeight) {
+      detector.detect(y0, Math.min(y0 + bandHeight, height));
+    }
+  }
+
+  /**
+   * Runs the given detector over every band of the given image height on the given pool, and waits
+   * for all bands to finish. If the current thread is already a worker in the given pool, then it
+   * participates in the work instead of blocking. If any band fails, then this still waits for the
+   * other bands to finish before rethrowing the failure.
+   *
+   * @param pool       the pool to run on
+   * @param height     the height of the image
+   * @param bandHeight the height of each band, except possibly the last
+   * @param detector   the detector to run
+   */
+  public static void parallel(ForkJoinPool pool, int height, int bandHeight,
+      BandDetector detector) {
+    requireNonNull(pool);
+    height = requireNonNegative(height);
+    bandHeight = requirePositive(bandHeight);
+    requireNonNull(detector);
+
+    BandTask task = new BandTask(detector, 0, height, bandHeight);
+    if (ForkJoinTask.getPool() == pool) {
+      task.invoke();
+    } else {
+      pool.invoke(task);
+    }
+  }
+
+  private static class BandTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final BandDetector detector;
+    private final int y0;
+    private final int y1;
+    private final int bandHeight;
+
+    public BandTask(BandDetector detector, int y0, int y1, int bandHeight) {
+      this.detector = detector;
+      this.y0 = y0;
+      this.y1 = y1;
+      this.bandHeight = bandHeight;
+    }
+
+    @Override
+    protected void compute() {
+      int bands = (y1 - y0 + bandHeight - 1) / bandHeight;
+      if (bands <= 1) {
+        if (y0 < y1) {
+          detector.detect(y0, y1);
+        }
+      } else {
+        // Split on a band boundary so that every band has the same height, except the last
+        int mid = y0 + (bands / 2) * bandHeight;
+        BandTask top = new BandTask(detector, y0, mid, bandHeight);
+        BandTask bottom = new BandTask(detector, mid, y1, bandHeight);
+
+        // Unlike invokeAll, wait for both halves even if one fails, e.g., when the crop is
+        // cancelled, so that no band is still writing to the output after we return
+        bottom.fork();
+        top.quietlyInvoke();
+        bottom.quietlyJoin();
+
+        // Both are done, so these only rethrow the first failure, if any
+        top.join();
+        bottom.join();
+      }
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.impl.CropDiagnostics;
+import com.sigpwned.smartcrop4j.impl.CropListener;
+import com.sigpwned.smartcrop4j.impl.CropStage;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Counts crops and records their latencies for hosts without a metrics library, and exposes them
+ * over JMX. Every update is a {@link LongAdder} or atomic increment, so recording never locks. To
+ * use, register it and configure a cropper to report to it:
+ *
+ * <pre>
+ * CropMetrics metrics = new CropMetrics();
+ * metrics.register(CropMetrics.DEFAULT_NAME);
+ * DefaultSmartCropper cropper = new DefaultSmartCropper(
+ *     DefaultSmartCropperOptions.builder().setListener(metrics).build());
+ * </pre>
+ *
+ * <p>
+ * One instance may serve many croppers, in which case it reports their totals.
+ */
+public class CropMetrics implements CropListener, CropMetricsMXBean {
+
+  public static final String DEFAULT_NAME = "com.sigpwned.smartcrop4j:type=CropMetrics";
+
+  private final LongAdder requests;
+  private final LongAdder completed;
+  private final LongAdder errors;
+  private final LongAdder cancelled;
+  private final LongAdder candidates;
+  private final LatencyHistogram cropLatency;
+  private final LatencyHistogram[] stageLatencies;
+  private ObjectName name;
+
+  public CropMetrics() {
+    this.requests = new LongAdder();
+    this.completed = new LongAdder();
+    this.errors = new LongAdder();
+    this.cancelled = new LongAdder();
+    this.candidates = new LongAdder();
+    this.cropLatency = new LatencyHistogram();
+    this.stageLatencies = new LatencyHistogram[CropStage.values().length];
+    for (int i = 0; i < stageLatencies.length; i++) {
+      stageLatencies[i] = new LatencyHistogram();
+    }
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server under the given name
+   *
+   * @throws IllegalArgumentException if the name is not a valid object name
+   * @throws IllegalStateException    if these metrics are already registered, or if the name is
+   *                                  already taken
+   */
+  public synchronized void register(String name) {
+    final ObjectName objectName;
+    try {
+      objectName = new ObjectName(requireNonNull(name));
+    } catch (MalformedObjectNameException e) {
+      throw new IllegalArgumentException("invalid name: " + name, e);
+    }
+    if (this.name != null) {
+      throw new IllegalStateException("already registered");
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    } catch (JMException e) {
+      throw new IllegalStateException("failed to register metrics", e);
+    }
+    this.name = objectName;
+  }
+
+  /**
+   * Removes these metrics from the platform MBean server, if they are registered
+   */
+  public synchronized void unregister() {
+    if (name == null) {
+      return;
+    }
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch (JMException e) {
+      throw new IllegalStateException("failed to unregister metrics", e);
+    }
+    this.name = null;
+  }
+
+  @Override
+  public void cropStarted() {
+    requests.increment();
+  }
+
+  @Override
+  public void stageCompleted(CropStage stage, long nanos, long count, long allocatedBytes) {
+    stageLatencies[stage.ordinal()].record(nanos);
+  }
+
+  @Override
+  public void cropCompleted(CropDiagnostics diagnostics) {
+    completed.increment();
+    candidates.add(diagnostics.getCount(CropStage.SCORING));
+    cropLatency.record(diagnostics.getElapsedNanos());
+  }
+
+  @Override
+  public void cropFailed(Throwable cause) {
+    if (cause instanceof CancellationException) {
+      cancelled.increment();
+    } else {
+      errors.increment();
+    }
+  }
+
+  @Override
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  @Override
+  public long getInFlight() {
+    // Read the outcomes first, so a crop that finishes meanwhile can't make this negative
+    final long finished = completed.sum() + errors.sum() + cancelled.sum();
+    return Math.max(requests.sum() - finished, 0L);
+  }
+
+  @Override
+  public long getCompleted() {
+    return completed.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getCancelled() {
+    return cancelled.sum();
+  }
+
+  @Override
+  public long getCandidates() {
+    return candidates.sum();
+  }
+
+  @Override
+  public double getMeanCandidates() {
+    final long n = completed.sum();
+    return n == 0L ? 0.0 : (double) candidates.sum() / n;
+  }
+
+  /**
+   * The latency of whole crops that completed successfully, measured on the wall clock from start
+   * to finish
+   */
+  @Override
+  public LatencySnapshot getCropLatency() {
+    return cropLatency.snapshot();
+  }
+
+  @Override
+  public Map<String, LatencySnapshot> getStageLatencies() {
+    final Map<String, LatencySnapshot> result = new LinkedHashMap<>();
+    for (CropStage stage : CropStage.values()) {
+      result.put(stage.name(), stageLatencies[stage.ordinal()].snapshot());
+    }
+    return result;
+  }
+}
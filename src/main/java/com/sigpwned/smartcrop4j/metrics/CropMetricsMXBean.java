@@ -0,0 +1,80 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of {@link CropMetrics}
+ */
+public interface CropMetricsMXBean {
+
+  /**
+   * The number of crops started
+   */
+  public long getRequests();
+
+  /**
+   * The number of crops running now
+   */
+  public long getInFlight();
+
+  /**
+   * The number of crops that completed successfully
+   */
+  public long getCompleted();
+
+  /**
+   * The number of crops that failed, not counting cancellations
+   */
+  public long getErrors();
+
+  /**
+   * The number of crops that were cancelled
+   */
+  public long getCancelled();
+
+  /**
+   * The number of candidate crops scored, across all crops
+   */
+  public long getCandidates();
+
+  /**
+   * The mean number of candidate crops scored per crop
+   */
+  public double getMeanCandidates();
+
+  /**
+   * The latency of whole crops that completed successfully
+   */
+  public LatencySnapshot getCropLatency();
+
+  /**
+   * The latency of each stage, by stage name. Detector stages are recorded once per crop, summed
+   * across bands.
+   */
+  public Map<String, LatencySnapshot> getStageLatencies();
+}
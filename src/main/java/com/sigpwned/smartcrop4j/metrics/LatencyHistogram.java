@@ -0,0 +1,96 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with one bucket per power of two nanoseconds. Recording is lock-free, so
+ * it is safe to record from many threads on a hot path. Percentiles are approximate: they report
+ * the upper bound of the bucket that holds the percentile, which is at most twice the true value.
+ */
+public class LatencyHistogram {
+
+  /**
+   * Bucket 0 holds zero, and bucket i holds values in [2^(i-1), 2^i).
+   */
+  private static final int BUCKETS = Long.SIZE + 1;
+
+  private final AtomicLongArray buckets;
+  private final LongAdder sum;
+  private final LongAccumulator max;
+
+  public LatencyHistogram() {
+    this.buckets = new AtomicLongArray(BUCKETS);
+    this.sum = new LongAdder();
+    this.max = new LongAccumulator(Math::max, 0L);
+  }
+
+  /**
+   * Records one duration. Negative durations are recorded as zero.
+   */
+  public void record(long nanos) {
+    nanos = Math.max(nanos, 0L);
+    buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+    sum.add(nanos);
+    max.accumulate(nanos);
+  }
+
+  /**
+   * Returns the current state of this histogram. Durations recorded while the snapshot is taken may
+   * be partly counted.
+   */
+  public LatencySnapshot snapshot() {
+    final long[] counts = new long[BUCKETS];
+    long total = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      total = total + counts[i];
+    }
+    final long largest = max.get();
+    return new LatencySnapshot(total, total == 0L ? 0L : sum.sum() / total,
+        percentile(counts, total, 0.50, largest), percentile(counts, total, 0.90, largest),
+        percentile(counts, total, 0.99, largest), largest);
+  }
+
+  private static long percentile(long[] counts, long total, double quantile, long largest) {
+    if (total == 0L) {
+      return 0L;
+    }
+    final long rank = (long) Math.ceil(quantile * total);
+    long seen = 0L;
+    for (int i = 0; i < counts.length; i++) {
+      seen = seen + counts[i];
+      if (seen >= rank) {
+        final long upper = i == 0 ? 0L : i >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << i) - 1L;
+        return Math.min(upper, largest);
+      }
+    }
+    return largest;
+  }
+}
@@ -0,0 +1,107 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.Objects;
+
+/**
+ * The state of a {@link LatencyHistogram} at one point in time. All durations are in nanoseconds.
+ */
+public class LatencySnapshot {
+
+  private final long count;
+  private final long meanNanos;
+  private final long p50Nanos;
+  private final long p90Nanos;
+  private final long p99Nanos;
+  private final long maxNanos;
+
+  @ConstructorProperties({"count", "meanNanos", "p50Nanos", "p90Nanos", "p99Nanos", "maxNanos"})
+  public LatencySnapshot(long count, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+      long maxNanos) {
+    this.count = count;
+    this.meanNanos = meanNanos;
+    this.p50Nanos = p50Nanos;
+    this.p90Nanos = p90Nanos;
+    this.p99Nanos = p99Nanos;
+    this.maxNanos = maxNanos;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getMeanNanos() {
+    return meanNanos;
+  }
+
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  public long getP90Nanos() {
+    return p90Nanos;
+  }
+
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof LatencySnapshot)) {
+      return false;
+    }
+    LatencySnapshot that = (LatencySnapshot) o;
+    return count == that.count && meanNanos == that.meanNanos && p50Nanos == that.p50Nanos
+        && p90Nanos == that.p90Nanos && p99Nanos == that.p99Nanos && maxNanos == that.maxNanos;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(count, meanNanos, p50Nanos, p90Nanos, p99Nanos, maxNanos);
+  }
+
+  @Override
+  public String toString() {
+    return "LatencySnapshot{" +
+        "count=" + count +
+        ", meanNanos=" + meanNanos +
+        ", p50Nanos=" + p50Nanos +
+        ", p90Nanos=" + p90Nanos +
+        ", p99Nanos=" + p99Nanos +
+        ", maxNanos=" + maxNanos +
+        '}';
+  }
+}
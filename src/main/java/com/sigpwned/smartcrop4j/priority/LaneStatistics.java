@@ -0,0 +1,143 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.priority;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A snapshot of one lane's counters in a {@link PriorityCropScheduler}
+ */
+public class LaneStatistics {
+
+  private final CropPriority priority;
+  private final long submitted;
+  private final long started;
+  private final long finished;
+  private final long preemptions;
+  private final long totalQueueNanos;
+  private final long maxQueueNanos;
+
+  public LaneStatistics(CropPriority priority, long submitted, long started, long finished,
+      long preemptions, long totalQueueNanos, long maxQueueNanos) {
+    this.priority = requireNonNull(priority);
+    this.submitted = submitted;
+    this.started = started;
+    this.finished = finished;
+    this.preemptions = preemptions;
+    this.totalQueueNanos = totalQueueNanos;
+    this.maxQueueNanos = maxQueueNanos;
+  }
+
+  public CropPriority getPriority() {
+    return priority;
+  }
+
+  /**
+   * The number of tasks submitted to this lane
+   */
+  public long getSubmitted() {
+    return submitted;
+  }
+
+  /**
+   * The number of tasks that have started running
+   */
+  public long getStarted() {
+    return started;
+  }
+
+  /**
+   * The number of tasks that have finished, successfully or not
+   */
+  public long getFinished() {
+    return finished;
+  }
+
+  /**
+   * The number of tasks waiting to start right now
+   */
+  public long getQueued() {
+    return Math.max(0L, getSubmitted() - getStarted());
+  }
+
+  /**
+   * The number of tasks running right now, including preempted tasks waiting to resume
+   */
+  public long getRunning() {
+    return Math.max(0L, getStarted() - getFinished());
+  }
+
+  /**
+   * The number of times a task in this lane gave up its slot to interactive work
+   */
+  public long getPreemptions() {
+    return preemptions;
+  }
+
+  /**
+   * The mean time started tasks spent queued before they started
+   */
+  public Duration getMeanQueueTime() {
+    return getStarted() == 0L ? Duration.ZERO : Duration.ofNanos(totalQueueNanos / getStarted());
+  }
+
+  /**
+   * The longest time a started task spent queued before it started
+   */
+  public Duration getMaxQueueTime() {
+    return Duration.ofNanos(maxQueueNanos);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof LaneStatistics)) {
+      return false;
+    }
+    LaneStatistics that = (LaneStatistics) o;
+    return submitted == that.submitted && started == that.started && finished == that.finished
+        && preemptions == that.preemptions && totalQueueNanos == that.totalQueueNanos
+        && maxQueueNanos == that.maxQueueNanos && priority == that.priority;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(priority, submitted, started, finished, preemptions, totalQueueNanos,
+        maxQueueNanos);
+  }
+
+  @Override
+  public String toString() {
+    return "LaneStatistics{" + "priority=" + priority + ", submitted=" + submitted + ", started="
+        + started + ", finished=" + finished + ", preemptions=" + preemptions
+        + ", meanQueueTime=" + getMeanQueueTime() + ", maxQueueTime=" + getMaxQueueTime() + '}';
+  }
+}
@@ -0,0 +1,307 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.priority;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import com.sigpwned.smartcrop4j.impl.CropCheckpoint;
+import com.sigpwned.smartcrop4j.impl.DefaultCropResult;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Schedules crops in two {@link CropPriority priority lanes} that share a fixed number of
+ * {@link PriorityCropSchedulerOptions#getConcurrency() slots}. Each lane has its own threads, up to
+ * its own concurrency cap, but a task must hold a slot to run. Interactive tasks take free slots
+ * first, and batch tasks only take a slot when no interactive task is waiting for one.
+ *
+ * <p>
+ * Java threads cannot be preempted safely, so batch tasks are preempted cooperatively, at the
+ * {@link CropCheckpoint checkpoints} that {@link DefaultSmartCropper} calls between bands of
+ * feature detection and chunks of candidate crops, and at the start of each task. When an
+ * interactive task is waiting, a batch task that reaches a checkpoint gives up its slot and waits
+ * to get one back, picking up where it left off. So a spike of batch work delays interactive work
+ * by at most one chunk, not one image. Only the thread running the task yields. Checkpoints
+ * reached on other threads, e.g., fork/join workers running bands of parallel detection, only
+ * check for cancellation, so preemption never parks shared pool threads. Tasks submitted with
+ * {@link #submit(CropPriority, Function)} can call the checkpoint themselves, e.g., between
+ * decoding and cropping an image.
+ *
+ * <p>
+ * Each lane keeps counters of submitted, running, and finished tasks, preemptions, and time spent
+ * queued, which are available from {@link #getStatistics(CropPriority)}.
+ */
+public class PriorityCropScheduler implements AutoCloseable {
+
+  private final DefaultSmartCropper cropper;
+  private final PriorityCropSchedulerOptions options;
+  private final Map<CropPriority, ExecutorService> executors;
+  private final Map<CropPriority, Lane> lanes;
+  private final ReentrantLock lock;
+  private final Condition slotReleased;
+  private int available;
+  private volatile int interactiveWaiting;
+
+  public PriorityCropScheduler() {
+    this(new DefaultSmartCropper(), PriorityCropSchedulerOptions.create());
+  }
+
+  public PriorityCropScheduler(DefaultSmartCropper cropper, PriorityCropSchedulerOptions options) {
+    this.cropper = requireNonNull(cropper);
+    this.options = requireNonNull(options);
+    this.executors = new EnumMap<>(CropPriority.class);
+    this.lanes = new EnumMap<>(CropPriority.class);
+    for (CropPriority priority : CropPriority.values()) {
+      executors.put(priority, newLaneExecutor(priority, options.getConcurrency(priority)));
+      lanes.put(priority, new Lane());
+    }
+    this.lock = new ReentrantLock();
+    this.slotReleased = lock.newCondition();
+    this.available = options.getConcurrency();
+    this.interactiveWaiting = 0;
+  }
+
+  /**
+   * Recommends a crop of the given image in the given lane. Cancelling the future stops the crop at
+   * its next checkpoint.
+   */
+  public CompletableFuture<DefaultCropResult> submit(CropPriority priority, BufferedImage image,
+      int aspectWidth, int aspectHeight, List<CropBoost> boosts) {
+    requireNonNull(image);
+    requireNonNull(boosts);
+    return submit(priority,
+        checkpoint -> getCropper().crop(image, aspectWidth, aspectHeight, boosts, checkpoint));
+  }
+
+  /**
+   * Runs the given work in the given lane. The work receives a checkpoint, which it should pass to
+   * {@link DefaultSmartCropper#crop(BufferedImage, int, int, List, CropCheckpoint)} and may call
+   * between its own stages. The checkpoint may block while interactive work runs, and throws
+   * {@link CancellationException} if the returned future has been cancelled.
+   */
+  public <T> CompletableFuture<T> submit(CropPriority priority,
+      Function<CropCheckpoint, T> work) {
+    requireNonNull(priority);
+    requireNonNull(work);
+
+    final Lane lane = lanes.get(priority);
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    final long submittedAt = System.nanoTime();
+    lane.submitted.increment();
+    try {
+      executors.get(priority).execute(() -> {
+        final Slot slot = new Slot(priority);
+        try {
+          slot.acquire();
+          lane.start(System.nanoTime() - submittedAt);
+          final T value;
+          try {
+            final CropCheckpoint checkpoint = () -> {
+              if (result.isDone()) {
+                throw new CancellationException();
+              }
+              slot.yieldIfPreempted();
+            };
+            checkpoint.check();
+            value = work.apply(checkpoint);
+          } finally {
+            // Count the task as finished before anyone waiting on the future can look
+            lane.finished.increment();
+            slot.release();
+          }
+          result.complete(value);
+        } catch (CancellationException e) {
+          // The future is almost certainly cancelled already. If not, this makes it so.
+          result.cancel(false);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          result.cancel(false);
+        } catch (Throwable e) {
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a snapshot of the given lane's counters
+   */
+  public LaneStatistics getStatistics(CropPriority priority) {
+    final Lane lane = lanes.get(requireNonNull(priority));
+    // Read finished before started before submitted, so derived counts are never negative
+    final long finished = lane.finished.sum();
+    final long started = lane.started.sum();
+    final long submitted = lane.submitted.sum();
+    return new LaneStatistics(priority, submitted, started, finished, lane.preemptions.sum(),
+        lane.totalQueueNanos.sum(), lane.maxQueueNanos.get());
+  }
+
+  /**
+   * Stops the scheduler's threads, interrupting running tasks. Tasks not yet started never run.
+   */
+  @Override
+  public void close() {
+    for (ExecutorService executor : executors.values()) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * The counters of one lane
+   */
+  private static final class Lane {
+
+    public final LongAdder submitted = new LongAdder();
+    public final LongAdder started = new LongAdder();
+    public final LongAdder finished = new LongAdder();
+    public final LongAdder preemptions = new LongAdder();
+    public final LongAdder totalQueueNanos = new LongAdder();
+    public final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0L);
+
+    public void start(long queueNanos) {
+      totalQueueNanos.add(queueNanos);
+      maxQueueNanos.accumulate(queueNanos);
+      started.increment();
+    }
+  }
+
+  /**
+   * One task's claim on a shared slot. Checkpoints may be called from other threads when detection
+   * runs in parallel, e.g., from fork/join workers processing bands. Only the task's own thread
+   * ever gives up or waits for the slot, so those workers never block here; they only check for
+   * cancellation. Since the slot is only touched by its own thread, it needs no synchronization.
+   */
+  private final class Slot {
+
+    private final CropPriority priority;
+    private final Thread owner;
+    private boolean held;
+
+    public Slot(CropPriority priority) {
+      this.priority = priority;
+      this.owner = Thread.currentThread();
+    }
+
+    public void acquire() throws InterruptedException {
+      acquireSlot(priority);
+      held = true;
+    }
+
+    public void release() {
+      if (held) {
+        held = false;
+        releaseSlot();
+      }
+    }
+
+    public void yieldIfPreempted() {
+      if (Thread.currentThread() != owner) {
+        return;
+      }
+      if (priority == CropPriority.BATCH && held && interactiveWaiting > 0) {
+        release();
+        lanes.get(priority).preemptions.increment();
+        try {
+          acquire();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CancellationException("interrupted while preempted");
+        }
+      }
+    }
+  }
+
+  private void acquireSlot(CropPriority priority) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      if (priority == CropPriority.INTERACTIVE) {
+        interactiveWaiting = interactiveWaiting + 1;
+        try {
+          while (available == 0) {
+            slotReleased.await();
+          }
+        } finally {
+          interactiveWaiting = interactiveWaiting - 1;
+        }
+      } else {
+        while (available == 0 || interactiveWaiting > 0) {
+          slotReleased.await();
+        }
+      }
+      available = available - 1;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void releaseSlot() {
+    lock.lock();
+    try {
+      available = available + 1;
+      slotReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static ExecutorService newLaneExecutor(CropPriority priority, int threads) {
+    final AtomicInteger count = new AtomicInteger();
+    final String name = priority.name().toLowerCase(Locale.ROOT);
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread result = new Thread(r, "smartcrop4j-" + name + "-" + count.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    });
+  }
+
+  private DefaultSmartCropper getCropper() {
+    return cropper;
+  }
+
+  public PriorityCropSchedulerOptions getOptions() {
+    return options;
+  }
+}
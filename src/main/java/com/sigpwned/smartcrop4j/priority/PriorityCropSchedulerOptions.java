@@ -0,0 +1,103 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.priority;
+
+import static com.sigpwned.smartcrop4j.util.Validation.requirePositive;
+
+import java.util.Objects;
+
+public class PriorityCropSchedulerOptions {
+
+  public static PriorityCropSchedulerOptionsBuilder builder() {
+    return new PriorityCropSchedulerOptionsBuilder();
+  }
+
+  public static PriorityCropSchedulerOptions create() {
+    return builder().build();
+  }
+
+  private final int concurrency;
+  private final int interactiveConcurrency;
+  private final int batchConcurrency;
+
+  /* default */ PriorityCropSchedulerOptions(PriorityCropSchedulerOptionsBuilder builder) {
+    this.concurrency = requirePositive(builder.getConcurrency());
+    this.interactiveConcurrency = requirePositive(builder.getInteractiveConcurrency());
+    this.batchConcurrency = requirePositive(builder.getBatchConcurrency());
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public int getInteractiveConcurrency() {
+    return interactiveConcurrency;
+  }
+
+  public int getBatchConcurrency() {
+    return batchConcurrency;
+  }
+
+  /**
+   * Returns the concurrency cap of the given lane
+   */
+  public int getConcurrency(CropPriority priority) {
+    switch (priority) {
+      case INTERACTIVE:
+        return getInteractiveConcurrency();
+      case BATCH:
+        return getBatchConcurrency();
+      default:
+        throw new AssertionError(priority);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PriorityCropSchedulerOptions)) {
+      return false;
+    }
+    PriorityCropSchedulerOptions that = (PriorityCropSchedulerOptions) o;
+    return getConcurrency() == that.getConcurrency()
+        && getInteractiveConcurrency() == that.getInteractiveConcurrency()
+        && getBatchConcurrency() == that.getBatchConcurrency();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getConcurrency(), getInteractiveConcurrency(), getBatchConcurrency());
+  }
+
+  @Override
+  public String toString() {
+    return "PriorityCropSchedulerOptions{" + "concurrency=" + concurrency
+        + ", interactiveConcurrency=" + interactiveConcurrency + ", batchConcurrency="
+        + batchConcurrency + '}';
+  }
+}
@@ -0,0 +1,114 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.priority;
+
+import java.util.Objects;
+
+public class PriorityCropSchedulerOptionsBuilder {
+
+  private int concurrency = Runtime.getRuntime().availableProcessors();
+  private int interactiveConcurrency = Runtime.getRuntime().availableProcessors();
+  private int batchConcurrency = Runtime.getRuntime().availableProcessors();
+
+  public PriorityCropSchedulerOptionsBuilder() {
+  }
+
+  public PriorityCropSchedulerOptionsBuilder(PriorityCropSchedulerOptions that) {
+    setConcurrency(that.getConcurrency());
+    setInteractiveConcurrency(that.getInteractiveConcurrency());
+    setBatchConcurrency(that.getBatchConcurrency());
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public int getInteractiveConcurrency() {
+    return interactiveConcurrency;
+  }
+
+  public int getBatchConcurrency() {
+    return batchConcurrency;
+  }
+
+  /**
+   * The most crops that may run at once, across all lanes
+   */
+  public PriorityCropSchedulerOptionsBuilder setConcurrency(int concurrency) {
+    this.concurrency = concurrency;
+    return this;
+  }
+
+  /**
+   * The most interactive crops that may run at once
+   */
+  public PriorityCropSchedulerOptionsBuilder setInteractiveConcurrency(
+      int interactiveConcurrency) {
+    this.interactiveConcurrency = interactiveConcurrency;
+    return this;
+  }
+
+  /**
+   * The most batch crops that may run at once. Setting this below {@link #setConcurrency
+   * concurrency} keeps some capacity free for interactive work even before preemption kicks in.
+   */
+  public PriorityCropSchedulerOptionsBuilder setBatchConcurrency(int batchConcurrency) {
+    this.batchConcurrency = batchConcurrency;
+    return this;
+  }
+
+  public PriorityCropSchedulerOptions build() {
+    return new PriorityCropSchedulerOptions(this);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PriorityCropSchedulerOptionsBuilder)) {
+      return false;
+    }
+    PriorityCropSchedulerOptionsBuilder that = (PriorityCropSchedulerOptionsBuilder) o;
+    return getConcurrency() == that.getConcurrency()
+        && getInteractiveConcurrency() == that.getInteractiveConcurrency()
+        && getBatchConcurrency() == that.getBatchConcurrency();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getConcurrency(), getInteractiveConcurrency(), getBatchConcurrency());
+  }
+
+  @Override
+  public String toString() {
+    return "PriorityCropSchedulerOptionsBuilder{" +
+        "concurrency=" + concurrency +
+        ", interactiveConcurrency=" + interactiveConcurrency +
+        ", batchConcurrency=" + batchConcurrency +
+        '}';
+  }
+}
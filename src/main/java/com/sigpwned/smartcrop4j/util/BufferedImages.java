@@ -26,6 +26,7 @@
 package com.sigpwned.smartcrop4j.util;
 
 import com.sigpwned.smartcrop4j.Crop;
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
@@ -97,6 +98,29 @@ public final class BufferedImages {
    */
   public static BufferedImage scaled(BufferedImage image, int newWidth, int newHeight, int newType,
       Color backgroundColor, Object renderingStyle, Object interpolationStyle) {
+    return scaledInto(image, new BufferedImage(newWidth, newHeight, newType), newWidth, newHeight,
+        backgroundColor, renderingStyle, interpolationStyle);
+  }
+
+  /**
+   * Scales the given image to the given dimensions and draws it into the top-left corner of the
+   * given target image, replacing the pixels that were there. The rest of the target is unchanged.
+   * This allows one target image to be reused for many scaling operations.
+   *
+   * @param image              the image to scale
+   * @param target             the image to draw into, at least newWidth x newHeight
+   * @param newWidth           the new width
+   * @param newHeight          the new height
+   * @param backgroundColor    the background color
+   * @param renderingStyle     the rendering style
+   * @param interpolationStyle the interpolation style
+   * @return the target image
+   */
+  public static BufferedImage scaledInto(BufferedImage image, BufferedImage target, int newWidth,
+      int newHeight, Color backgroundColor, Object renderingStyle, Object interpolationStyle) {
+    if (newWidth > target.getWidth() || newHeight > target.getHeight()) {
+      throw new IllegalArgumentException("target is too small");
+    }
     if (renderingStyle == null) {
       renderingStyle = DEFAULT_RENDERING_STYLE;
     }
@@ -104,10 +128,12 @@ public final class BufferedImages {
       interpolationStyle = DEFAULT_INTERPOLATION_STYLE;
     }
 
-    final BufferedImage result = new BufferedImage(newWidth, newHeight, newType);
-
-    final Graphics2D g = result.createGraphics();
+    final Graphics2D g = target.createGraphics();
     try {
+      // Erase anything a previous operation left behind so it cannot bleed through
+      g.setComposite(AlphaComposite.Clear);
+      g.fillRect(0, 0, newWidth, newHeight);
+      g.setComposite(AlphaComposite.SrcOver);
       g.setRenderingHint(RenderingHints.KEY_RENDERING, renderingStyle);
       g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolationStyle);
       if (backgroundColor != null) {
@@ -121,7 +147,7 @@ public final class BufferedImages {
       g.dispose();
     }
 
-    return result;
+    return target;
   }
 
   /**
@@ -0,0 +1,79 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.util;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Executors for running crops asynchronously.
+ */
+public final class CropExecutors {
+
+  private CropExecutors() {
+  }
+
+  private static class DefaultExecutorHolder {
+
+    private static final Executor INSTANCE = createDefaultExecutor();
+  }
+
+  /**
+   * Returns the default executor for asynchronous crops. On Java 21 and later, this starts a new
+   * virtual thread per crop, so blocking in a crop, e.g., to wait for parallel detection, does not
+   * tie up a platform thread. On earlier versions, this is the common fork/join pool.
+   *
+   * @return the default executor
+   */
+  public static Executor defaultExecutor() {
+    return DefaultExecutorHolder.INSTANCE;
+  }
+
+  /**
+   * Returns a new executor that starts a virtual thread per task, if this is Java 21 or later.
+   * Virtual threads are a good fit for tasks that block, e.g., on I/O, since any number of them can
+   * block without tying up platform threads.
+   *
+   * @return the executor, or empty on earlier versions of Java
+   */
+  public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+    try {
+      // Executors.newVirtualThreadPerTaskExecutor() is only available on Java 21 and later
+      return Optional.of((ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static Executor createDefaultExecutor() {
+    return newVirtualThreadPerTaskExecutor().<Executor>map(e -> e)
+        .orElseGet(ForkJoinPool::commonPool);
+  }
+}
@@ -26,7 +26,14 @@
 package com.sigpwned.smartcrop4j.util;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public final class MoreFiles {
 
@@ -78,4 +85,23 @@ public final class MoreFiles {
     int index = filename.lastIndexOf(".");
     return index == -1 ? filename : filename.substring(0, index);
   }
+
+  /**
+   * Deletes the given file or directory and everything under it, if it exists.
+   *
+   * @param path the file or directory
+   * @throws IOException if anything cannot be deleted
+   */
+  public static void deleteRecursively(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    final List<Path> paths;
+    try (Stream<Path> walk = Files.walk(path)) {
+      paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+    }
+    for (Path p : paths) {
+      Files.deleteIfExists(p);
+    }
+  }
 }
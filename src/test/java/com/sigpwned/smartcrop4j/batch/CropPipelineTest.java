@@ -0,0 +1,113 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CropPipelineTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test(timeout = 60000L)
+  public void givenListenerThrowsEveryTime_whenRun_thenThrowListenerErrorAndRunAgain()
+      throws Exception {
+    final Path input = temp.newFile("test1.jpg").toPath();
+    try (InputStream in = DefaultSmartCropper.class.getResourceAsStream("test1.jpg")) {
+      Files.copy(in, input, StandardCopyOption.REPLACE_EXISTING);
+    }
+    final Path output = temp.newFolder("output").toPath();
+    final List<CropPipeline.Task> missing = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      missing.add(new CropPipeline.Task(temp.getRoot().toPath().resolve("missing" + i + ".jpg"),
+          output.resolve(i + ".jpg"), i));
+    }
+
+    // Every reader fails, so each one stops the run while the others are still failing
+    final CropPipeline unit = new CropPipeline(new DefaultSmartCropper(),
+        DirectoryBatchOptions.builder().setQueueCapacity(1).setReadConcurrency(8)
+            .setReportInterval(Duration.ZERO).build(), null);
+
+    try {
+      unit.run(missing.iterator(), 100, 50, new CropPipeline.Listener() {
+        @Override
+        public void succeeded(CropPipeline.Task task, Crop crop) throws IOException {
+          throw slowly(new IOException("succeeded"));
+        }
+
+        @Override
+        public void failed(CropPipeline.Task task, Exception cause) throws IOException {
+          throw slowly(new IOException("failed"));
+        }
+      });
+      throw new AssertionError("expected listener error");
+    } catch (IOException e) {
+      // Good
+    }
+    assertThat(Thread.currentThread().isInterrupted(), is(false));
+
+    // The caller can carry on, e.g., with the next shard of a manifest
+    final BatchSummary summary = unit.run(
+        List.of(new CropPipeline.Task(input, output.resolve("test1.jpg"), 0)).iterator(), 100, 50,
+        new CropPipeline.Listener() {
+          @Override
+          public void succeeded(CropPipeline.Task task, Crop crop) {
+          }
+
+          @Override
+          public void failed(CropPipeline.Task task, Exception cause) {
+          }
+        });
+    assertThat(summary.getSucceeded(), is(1));
+  }
+
+  /**
+   * Returns the given exception after a busy wait, which ignores interrupts, so that other workers
+   * fail while the caller is already cleaning up
+   */
+  private static IOException slowly(IOException e) {
+    final long deadline = System.nanoTime() + 20000000L;
+    while (System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+    return e;
+  }
+}
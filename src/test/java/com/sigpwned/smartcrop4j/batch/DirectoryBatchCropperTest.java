@@ -0,0 +1,81 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import javax.imageio.ImageIO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryBatchCropperTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void givenDirectoryTree_whenRun_thenWriteCroppedTreeAndSkipFailures() throws Exception {
+    final Path input = temp.newFolder("input").toPath();
+    final Path output = temp.newFolder("output").toPath();
+    copyResource("test1.jpg", input.resolve("test1.jpg"));
+    copyResource("test2.jpg", input.resolve("a/test2.jpg"));
+    copyResource("test3.jpg", input.resolve("a/b/test3.jpg"));
+    Files.write(input.resolve("a/broken.jpg"), new byte[]{1, 2, 3});
+    Files.write(input.resolve("notes.txt"), new byte[]{1, 2, 3});
+
+    // A small budget forces decoding to wait for earlier images to be rendered
+    final DirectoryBatchCropper unit = new DirectoryBatchCropper(new DefaultSmartCropper(),
+        DirectoryBatchOptions.builder().setQueueCapacity(1).setMemoryBudget(1024L * 1024L)
+            .setReportInterval(Duration.ZERO).build(), null);
+
+    final BatchSummary summary = unit.run(input, output, 100, 50);
+
+    assertThat(summary.getSucceeded(), is(3));
+    assertThat(summary.getFailed(), is(1));
+    for (String path : new String[]{"test1.jpg", "a/test2.jpg", "a/b/test3.jpg"}) {
+      BufferedImage image = ImageIO.read(output.resolve(path).toFile());
+      assertThat(image.getWidth(), is(100));
+      assertThat(image.getHeight(), is(50));
+    }
+    assertThat(Files.exists(output.resolve("a/broken.jpg")), is(false));
+    assertThat(Files.exists(output.resolve("notes.txt")), is(false));
+  }
+
+  private static void copyResource(String name, Path target) throws Exception {
+    Files.createDirectories(target.getParent());
+    try (InputStream in = DefaultSmartCropper.class.getResourceAsStream(name)) {
+      Files.copy(in, target);
+    }
+  }
+}
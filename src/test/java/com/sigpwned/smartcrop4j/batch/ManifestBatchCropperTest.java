@@ -0,0 +1,150 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ManifestBatchCropperTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  public Path input;
+  public Path output;
+  public Path state;
+  public Path manifest;
+
+  @Before
+  public void setupManifestBatchCropperTest() throws Exception {
+    input = temp.newFolder("input").toPath();
+    output = temp.newFolder("output").toPath();
+    state = temp.newFolder("state").toPath();
+    manifest = temp.newFile("manifest.txt").toPath();
+
+    copyResource("test1.jpg", input.resolve("test1.jpg"));
+    copyResource("test2.jpg", input.resolve("a/test2.jpg"));
+    copyResource("test3.jpg", input.resolve("a/test3.jpg"));
+    Files.write(input.resolve("broken.jpg"), new byte[]{1, 2, 3});
+
+    // Three shards of two lines each: [0, 1], [2, 3], [4, 5]
+    Files.write(manifest,
+        List.of("test1.jpg", "a/test2.jpg", "# comment", "broken.jpg", "a/test3.jpg", ""), UTF_8);
+  }
+
+  @Test
+  public void givenManifest_whenRun_thenCropEveryShardAndRecordResults() throws Exception {
+    final BatchSummary summary = newUnit("worker-a").run(manifest, input, output, state, 64, 64);
+
+    assertThat(summary.getSucceeded(), is(3));
+    assertThat(summary.getFailed(), is(1));
+    for (int shard = 0; shard < 3; shard++) {
+      assertThat(Files.exists(state.resolve("shard-00000" + shard + ".done")), is(true));
+      assertThat(Files.exists(state.resolve("shard-00000" + shard + ".lock")), is(false));
+    }
+    assertThat(Files.exists(output.resolve("a/test3.jpg")), is(true));
+
+    final List<String> shard1 = Files.readAllLines(state.resolve("shard-000001.results"), UTF_8);
+    assertThat(shard1.size(), is(1));
+    assertThat(shard1.get(0).startsWith("3\tfailed\t"), is(true));
+  }
+
+  @Test
+  public void givenPartialStateFromEarlierWorkers_whenRun_thenResumeWithoutRedoingWork()
+      throws Exception {
+    // Shard 0 crashed after checkpointing line 0, in the middle of writing line 1
+    Files.write(state.resolve("shard-000000.results"),
+        "0\tok\ttest1.jpg\t0\t0\t10\t10\n1\tok\ta/te".getBytes(UTF_8));
+    Files.setLastModifiedTime(state.resolve("shard-000000.results"),
+        FileTime.from(Instant.now().minus(Duration.ofHours(1L))));
+    Files.write(state.resolve("shard-000000.lock"), "worker-dead".getBytes(UTF_8));
+    Files.setLastModifiedTime(state.resolve("shard-000000.lock"),
+        FileTime.from(Instant.now().minus(Duration.ofHours(1L))));
+
+    // Shard 2 is in progress on a live worker
+    Files.write(state.resolve("shard-000002.lock"), "worker-live".getBytes(UTF_8));
+
+    final BatchSummary summary = newUnit("worker-b").run(manifest, input, output, state, 64, 64);
+
+    assertThat(summary.getSucceeded(), is(1));
+    assertThat(summary.getFailed(), is(1));
+    assertThat(Files.exists(output.resolve("test1.jpg")), is(false));
+    assertThat(Files.exists(output.resolve("a/test2.jpg")), is(true));
+    assertThat(Files.exists(output.resolve("a/test3.jpg")), is(false));
+
+    final List<String> shard0 = Files.readAllLines(state.resolve("shard-000000.results"), UTF_8);
+    assertThat(shard0.size(), is(2));
+    assertThat(shard0.get(1).startsWith("1\tok\t"), is(true));
+    assertThat(Files.exists(state.resolve("shard-000000.done")), is(true));
+    assertThat(Files.exists(state.resolve("shard-000002.done")), is(false));
+    assertThat(Files.readString(state.resolve("shard-000002.lock")), is("worker-live"));
+  }
+
+  @Test
+  public void givenPartialLineWrittenRecently_whenRun_thenLeaveShardAlone() throws Exception {
+    // Shard 0's lock is stale, but its results file was written recently, so its owner may still be
+    // writing the partial line
+    final byte[] results = "0\tok\ttest1.jpg\t0\t0\t10\t10\n1\tok\ta/te".getBytes(UTF_8);
+    Files.write(state.resolve("shard-000000.results"), results);
+    Files.write(state.resolve("shard-000000.lock"), "worker-slow".getBytes(UTF_8));
+    Files.setLastModifiedTime(state.resolve("shard-000000.lock"),
+        FileTime.from(Instant.now().minus(Duration.ofHours(1L))));
+
+    newUnit("worker-b").run(manifest, input, output, state, 64, 64);
+
+    assertThat(Files.readAllBytes(state.resolve("shard-000000.results")), is(results));
+    assertThat(Files.exists(state.resolve("shard-000000.done")), is(false));
+    assertThat(Files.exists(output.resolve("a/test2.jpg")), is(false));
+    assertThat(Files.exists(state.resolve("shard-000001.done")), is(true));
+  }
+
+  private ManifestBatchCropper newUnit(String workerId) {
+    return new ManifestBatchCropper(new DefaultSmartCropper(),
+        DirectoryBatchOptions.builder().setReportInterval(Duration.ZERO).build(),
+        ManifestBatchOptions.builder().setShardSize(2).setWorkerId(workerId).build(), null);
+  }
+
+  private static void copyResource(String name, Path target) throws Exception {
+    Files.createDirectories(target.getParent());
+    try (InputStream in = DefaultSmartCropper.class.getResourceAsStream(name)) {
+      Files.copy(in, target);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.batch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WatchFolderCropperTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void givenDropDirectory_whenFilesArrive_thenCropNewAndChangedFilesOnly() throws Exception {
+    final Path drop = temp.newFolder("drop").toPath();
+    final Path output = temp.newFolder("output").toPath();
+    final byte[] image1 = readResource("test1.jpg");
+    final byte[] image3 = readResource("test3.jpg");
+    Files.write(drop.resolve("test1.jpg"), image1);
+
+    final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    final PrintStream report = new PrintStream(log, true);
+    final WatchFolderCropper unit = new WatchFolderCropper(new DefaultSmartCropper(),
+        DirectoryBatchOptions.builder().setReportInterval(Duration.ZERO).build(),
+        WatchFolderOptions.builder().setQuietPeriod(Duration.ofMillis(100L)).build(), report);
+
+    final AtomicReference<Throwable> stopped = new AtomicReference<>();
+    final Thread thread = new Thread(() -> {
+      try {
+        unit.run(drop, output, 64, 64);
+      } catch (Throwable e) {
+        stopped.set(e);
+      }
+    });
+    thread.start();
+    try {
+      // The initial scan picks up existing files, and new subdirectories are watched too
+      awaitTrue(() -> Files.exists(output.resolve("test1.jpg")));
+      Files.createDirectories(drop.resolve("a"));
+      Files.write(drop.resolve("a/test2.jpg"), readResource("test2.jpg"));
+      awaitTrue(() -> Files.exists(output.resolve("a/test2.jpg")));
+
+      // Rewriting the same content does not crop again
+      final FileTime old = FileTime.fromMillis(0L);
+      Files.setLastModifiedTime(output.resolve("test1.jpg"), old);
+      Files.write(drop.resolve("test1.jpg"), image1);
+      awaitTrue(() -> log.toString().contains("skipping unchanged test1.jpg"));
+      assertThat(Files.getLastModifiedTime(output.resolve("test1.jpg")), is(old));
+
+      // Changing the content does
+      Files.write(drop.resolve("test1.jpg"), image3);
+      awaitTrue(() -> !isLastModified(output.resolve("test1.jpg"), old));
+      assertThat(Files.getLastModifiedTime(output.resolve("test1.jpg")), is(not(old)));
+    } finally {
+      thread.interrupt();
+      thread.join();
+    }
+
+    assertThat(stopped.get() instanceof InterruptedException, is(true));
+    assertThat(Files.exists(output.resolve(WatchFolderCropper.INDEX_FILE_NAME)), is(true));
+  }
+
+  private static boolean isLastModified(Path path, FileTime time) {
+    try {
+      return Files.getLastModifiedTime(path).equals(time);
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+    final long deadline = System.nanoTime() + Duration.ofSeconds(30L).toNanos();
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("timed out");
+      }
+      Thread.sleep(20L);
+    }
+  }
+
+  private static byte[] readResource(String name) throws Exception {
+    try (InputStream in = DefaultSmartCropper.class.getResourceAsStream(name)) {
+      return in.readAllBytes();
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.flow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CropProcessorTest {
+
+  public static byte[] testImage1Bytes;
+  public static File testImage2File;
+  public static BufferedImage testImage3;
+
+  @BeforeClass
+  public static void setupCropProcessorTestClass() throws Exception {
+    try (InputStream in = DefaultSmartCropper.class.getResourceAsStream("test1.jpg")) {
+      testImage1Bytes = in.readAllBytes();
+    }
+    testImage2File = new File(DefaultSmartCropper.class.getResource("test2.jpg").toURI());
+    testImage3 = ImageIO.read(DefaultSmartCropper.class.getResource("test3.jpg"));
+  }
+
+  @Test
+  public void givenMixedRequests_whenProcess_thenPublishOneResponseEach() throws Exception {
+    final DefaultSmartCropper cropper = new DefaultSmartCropper();
+    final CropProcessor unit = new CropProcessor(cropper,
+        CropProcessorOptions.builder().setCropConcurrency(2).setMaxInFlight(2).build());
+
+    final Map<String, CropResponse> responses = new ConcurrentHashMap<>();
+    final CountDownLatch done = new CountDownLatch(1);
+    unit.subscribe(new Flow.Subscriber<CropResponse>() {
+      private Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onNext(CropResponse item) {
+        responses.put(item.getRequest().getId().orElseThrow(), item);
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+        done.countDown();
+      }
+    });
+
+    try (SubmissionPublisher<CropRequest> upstream = new SubmissionPublisher<>()) {
+      upstream.subscribe(unit);
+      upstream.submit(CropRequest.ofBytes("bytes", testImage1Bytes, 1, 1));
+      upstream.submit(CropRequest.ofFile("file", testImage2File, 16, 9));
+      upstream.submit(CropRequest.ofImage("image", testImage3, 1, 1).withOutputFormat("png"));
+      upstream.submit(CropRequest.ofBytes("invalid", new byte[]{1, 2, 3}, 1, 1));
+    }
+
+    assertThat(done.await(60, TimeUnit.SECONDS), is(true));
+    assertThat(responses.size(), is(4));
+
+    final BufferedImage testImage1 = ImageIO.read(new ByteArrayInputStream(testImage1Bytes));
+    assertThat(responses.get("bytes").getResult().orElseThrow().getTopCrop(),
+        is(cropper.crop(testImage1, 1, 1).getTopCrop()));
+    assertThat(responses.get("file").getResult().orElseThrow().getTopCrop(),
+        is(cropper.crop(ImageIO.read(testImage2File), 16, 9).getTopCrop()));
+
+    final CropResponse image = responses.get("image");
+    final BufferedImage encoded = ImageIO.read(
+        new ByteArrayInputStream(image.getEncoded().orElseThrow()));
+    assertThat(encoded.getWidth(), is(image.getResult().orElseThrow().getTopCrop().getWidth()));
+
+    assertThat(responses.get("invalid").isSuccess(), is(false));
+    assertThat(responses.get("invalid").getError().orElseThrow() instanceof IllegalArgumentException,
+        is(true));
+  }
+
+  @Test
+  public void givenSubscriberWithNoDemand_whenProcess_thenUpstreamDemandIsBounded()
+      throws Exception {
+    final int maxInFlight = 4;
+    final int outputBufferCapacity = 4;
+    final CropProcessor unit = new CropProcessor(new DefaultSmartCropper(),
+        CropProcessorOptions.builder().setMaxInFlight(maxInFlight)
+            .setOutputBufferCapacity(outputBufferCapacity).build());
+
+    final List<Flow.Subscription> downstream = new CopyOnWriteArrayList<>();
+    unit.subscribe(new Flow.Subscriber<CropResponse>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        downstream.add(subscription);
+      }
+
+      @Override
+      public void onNext(CropResponse item) {
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+
+    // An endless source of images that counts how many it has been asked for
+    final BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+    final AtomicLong requested = new AtomicLong();
+    unit.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        requested.addAndGet(n);
+        for (long i = 0; i < n; i++) {
+          unit.onNext(CropRequest.ofImage(null, image, 1, 1));
+        }
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+
+    Thread.sleep(1000L);
+
+    assertThat(requested.get(), is(lessThanOrEqualTo((long) maxInFlight + outputBufferCapacity)));
+
+    downstream.forEach(Flow.Subscription::cancel);
+    unit.close();
+  }
+}
@@ -0,0 +1,159 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.governor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CropGovernorTest {
+
+  public static byte[] testImage1Bytes;
+  public static BufferedImage testImage1;
+
+  @BeforeClass
+  public static void setupCropGovernorTestClass() throws Exception {
+    try (InputStream in = DefaultSmartCropper.class.getResourceAsStream("test1.jpg")) {
+      testImage1Bytes = in.readAllBytes();
+    }
+    testImage1 = ImageIO.read(new ByteArrayInputStream(testImage1Bytes));
+  }
+
+  @Test
+  public void givenImageBytes_whenAdmitAndDecode_thenHeaderSizeMatchesImage() throws Exception {
+    final Dimension size = CropGovernor.readSize(testImage1Bytes);
+    assertThat(size.width, is(testImage1.getWidth()));
+    assertThat(size.height, is(testImage1.getHeight()));
+
+    final CropGovernor unit = new CropGovernor();
+    try (CropGovernor.Admission admission = unit.admit(testImage1Bytes)) {
+      final BufferedImage image = admission.decode();
+      assertThat(image.getWidth(), is(admission.getWidth()));
+      assertThat(image.getHeight(), is(admission.getHeight()));
+      assertThat(unit.getAvailablePixels() < unit.getOptions().getPixelBudget(), is(true));
+    }
+    assertThat(unit.getAvailablePixels(), is(unit.getOptions().getPixelBudget()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenTooManyPixels_whenAdmit_thenRefuse() throws Exception {
+    final CropGovernor unit = new CropGovernor(
+        CropGovernorOptions.builder().setMaxPixels(1000L).build());
+    unit.admit(100, 11);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenTooWide_whenAdmit_thenRefuse() throws Exception {
+    final CropGovernor unit = new CropGovernor(
+        CropGovernorOptions.builder().setMaxDimension(1000).build());
+    unit.admit(1001, 1);
+  }
+
+  @Test
+  public void givenBudgetExhaustedAndNoQueue_whenAdmit_thenReject() throws Exception {
+    final CropGovernor unit = new CropGovernor(
+        CropGovernorOptions.builder().setPixelBudget(10000L).setMaxQueued(0).build());
+    try (CropGovernor.Admission first = unit.admit(100, 60)) {
+      try {
+        unit.admit(100, 50);
+        throw new AssertionError("expected rejection");
+      } catch (RejectedExecutionException e) {
+        // Good
+      }
+    }
+    unit.admit(100, 50).close();
+  }
+
+  @Test
+  public void givenBudgetExhausted_whenReleased_thenAdmitWaitingCaller() throws Exception {
+    final CropGovernor unit = new CropGovernor(
+        CropGovernorOptions.builder().setPixelBudget(10000L).setMaxQueued(1)
+            .setQueueTimeout(Duration.ofSeconds(30L)).build());
+    final CropGovernor.Admission first = unit.admit(100, 60);
+
+    final CompletableFuture<CropGovernor.Admission> second = CompletableFuture.supplyAsync(() -> {
+      try {
+        return unit.admit(100, 50);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    while (unit.getQueued() == 0) {
+      Thread.sleep(10L);
+    }
+    assertThat(second.isDone(), is(false));
+
+    first.close();
+    second.get(30L, TimeUnit.SECONDS).close();
+    assertThat(unit.getAvailablePixels(), is(10000L));
+  }
+
+  @Test
+  public void givenCallerWaitingForBudget_whenSmallerImageArrives_thenDoNotBargeAhead()
+      throws Exception {
+    final CropGovernor unit = new CropGovernor(
+        CropGovernorOptions.builder().setPixelBudget(10000L).setMaxConcurrency(3)
+            .setMaxQueued(1).setQueueTimeout(Duration.ofSeconds(30L)).build());
+    final CropGovernor.Admission first = unit.admit(100, 60);
+
+    final CompletableFuture<CropGovernor.Admission> second = CompletableFuture.supplyAsync(() -> {
+      try {
+        return unit.admit(100, 60);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    while (unit.getQueued() == 0) {
+      Thread.sleep(10L);
+    }
+    // Give the waiting caller time to park on the pixel budget
+    Thread.sleep(100L);
+
+    // There is budget for this one, but the second caller is first in line, and the queue is full
+    try {
+      unit.admit(100, 30);
+      throw new AssertionError("expected rejection");
+    } catch (RejectedExecutionException e) {
+      // Good
+    }
+
+    first.close();
+    second.get(30L, TimeUnit.SECONDS).close();
+    assertThat(unit.getAvailablePixels(), is(10000L));
+  }
+}
@@ -0,0 +1,196 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import com.sigpwned.smartcrop4j.governor.CropGovernor;
+import com.sigpwned.smartcrop4j.governor.CropGovernorOptions;
+import com.sigpwned.smartcrop4j.impl.DefaultCropResult;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CropServerTest {
+
+  public static byte[] testImage1Bytes;
+  public static BufferedImage testImage1;
+
+  @BeforeClass
+  public static void setupCropServerTestClass() throws Exception {
+    try (InputStream in = DefaultSmartCropper.class.getResourceAsStream("test1.jpg")) {
+      testImage1Bytes = in.readAllBytes();
+    }
+    testImage1 = ImageIO.read(new ByteArrayInputStream(testImage1Bytes));
+  }
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  @Test
+  public void givenImage_whenPostCrop_thenReturnCropAsJsonWithEtag() throws Exception {
+    final DefaultSmartCropper cropper = new DefaultSmartCropper();
+    try (CropServer unit = new CropServer(cropper,
+        CropServerOptions.builder().setHost("127.0.0.1").setPort(0).build())) {
+      unit.start();
+
+      final HttpResponse<String> response = client.send(
+          post(unit, "aspectWidth=1&aspectHeight=1", testImage1Bytes).build(),
+          HttpResponse.BodyHandlers.ofString());
+
+      final DefaultCropResult expected = cropper.crop(testImage1, 1, 1);
+      assertThat(response.statusCode(), is(200));
+      assertThat(response.body().startsWith("{\"x\":" + expected.getTopCrop().getX() + ",\"y\":"
+          + expected.getTopCrop().getY() + ",\"width\":" + expected.getTopCrop().getWidth()
+          + ",\"height\":" + expected.getTopCrop().getHeight() + ","), is(true));
+
+      final String etag = response.headers().firstValue("ETag").orElseThrow();
+      final HttpResponse<String> conditional = client.send(
+          post(unit, "aspectWidth=1&aspectHeight=1", testImage1Bytes)
+              .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+      assertThat(conditional.statusCode(), is(304));
+
+      final HttpResponse<String> different = client.send(
+          post(unit, "aspectWidth=2&aspectHeight=1", testImage1Bytes)
+              .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+      assertThat(different.statusCode(), is(200));
+
+      final HttpResponse<String> wildcard = client.send(
+          post(unit, "aspectWidth=1&aspectHeight=1", testImage1Bytes)
+              .header("If-None-Match", "*").build(), HttpResponse.BodyHandlers.ofString());
+      assertThat(wildcard.statusCode(), is(200));
+    }
+  }
+
+  @Test
+  public void givenImageAndSizeAndFormat_whenPostCrop_thenReturnRendition() throws Exception {
+    try (CropServer unit = new CropServer(new DefaultSmartCropper(),
+        CropServerOptions.builder().setHost("127.0.0.1").setPort(0).build())) {
+      unit.start();
+
+      final HttpResponse<byte[]> response = client.send(
+          post(unit, "width=120&height=80&format=png&boost=0,0,100,100,1.0", testImage1Bytes)
+              .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+      assertThat(response.statusCode(), is(200));
+      assertThat(response.headers().firstValue("Content-Type").orElseThrow(), is("image/png"));
+      final BufferedImage rendition = ImageIO.read(new ByteArrayInputStream(response.body()));
+      assertThat(rendition.getWidth(), is(120));
+      assertThat(rendition.getHeight(), is(80));
+    }
+  }
+
+  @Test
+  public void givenBadRequests_whenPostCrop_thenReturnClientErrors() throws Exception {
+    try (CropServer unit = new CropServer(new DefaultSmartCropper(),
+        CropServerOptions.builder().setHost("127.0.0.1").setPort(0).setMaxRequestSize(1024)
+            .build())) {
+      unit.start();
+
+      final HttpResponse<String> notImage = client.send(
+          post(unit, "aspectRatio=1.5", new byte[]{1, 2, 3}).build(),
+          HttpResponse.BodyHandlers.ofString());
+      assertThat(notImage.statusCode(), is(400));
+      assertThat(notImage.headers().firstValue("ETag").isPresent(), is(false));
+      assertThat(client.send(post(unit, "format=png", new byte[]{1, 2, 3}).build(),
+          HttpResponse.BodyHandlers.ofString()).statusCode(), is(400));
+      assertThat(client.send(post(unit, "aspectRatio=1", testImage1Bytes).build(),
+          HttpResponse.BodyHandlers.ofString()).statusCode(), is(413));
+    }
+  }
+
+  @Test
+  public void givenConcurrencyLimitReached_whenPostCrop_thenReturnServiceUnavailable()
+      throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final DefaultSmartCropper blocking = new DefaultSmartCropper() {
+      @Override
+      public DefaultCropResult crop(BufferedImage image, int aspectWidth, int aspectHeight,
+          List<CropBoost> boosts) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.crop(image, aspectWidth, aspectHeight, boosts);
+      }
+    };
+    try (CropServer unit = new CropServer(blocking,
+        CropServerOptions.builder().setHost("127.0.0.1").setPort(0).setMaxConcurrency(1)
+            .build())) {
+      unit.start();
+
+      final CompletableFuture<HttpResponse<String>> first = client.sendAsync(
+          post(unit, "aspectRatio=1", testImage1Bytes).build(),
+          HttpResponse.BodyHandlers.ofString());
+      started.await();
+
+      final HttpResponse<String> second = client.send(
+          post(unit, "aspectRatio=1", testImage1Bytes).build(),
+          HttpResponse.BodyHandlers.ofString());
+      assertThat(second.statusCode(), is(503));
+      assertThat(second.headers().firstValue("Retry-After").isPresent(), is(true));
+
+      release.countDown();
+      assertThat(first.get().statusCode(), is(200));
+    }
+  }
+
+  @Test
+  public void givenImageOverGovernorLimit_whenPostCrop_thenReturnPayloadTooLarge()
+      throws Exception {
+    final CropGovernor governor = new CropGovernor(
+        CropGovernorOptions.builder().setMaxPixels(1000L).build());
+    try (CropServer unit = new CropServer(new DefaultSmartCropper(),
+        CropServerOptions.builder().setHost("127.0.0.1").setPort(0).build(), governor)) {
+      unit.start();
+
+      assertThat(client.send(post(unit, "aspectRatio=1", testImage1Bytes).build(),
+          HttpResponse.BodyHandlers.ofString()).statusCode(), is(413));
+      assertThat(governor.getAvailablePixels(), is(governor.getOptions().getPixelBudget()));
+    }
+  }
+
+  private static HttpRequest.Builder post(CropServer server, String query, byte[] body) {
+    return HttpRequest.newBuilder(
+            URI.create("http://127.0.0.1:" + server.getPort() + "/crop?" + query))
+        .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+  }
+}
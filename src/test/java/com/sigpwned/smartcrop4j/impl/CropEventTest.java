@@ -0,0 +1,94 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import javax.imageio.ImageIO;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CropEventTest {
+
+  public static BufferedImage testImage1;
+
+  @BeforeClass
+  public static void setupCropEventTestClass() throws IOException {
+    testImage1 = ImageIO.read(DefaultSmartCropper.class.getResource("test1.jpg"));
+  }
+
+  @Test
+  public void givenRecordingWithoutThreshold_whenCrop_thenRecordCropAndStageEvents()
+      throws IOException {
+    final DefaultSmartCropper unit = new DefaultSmartCropper();
+
+    final Path file = Files.createTempFile("crop", ".jfr");
+    try {
+      DefaultCropResult result;
+      try (Recording recording = new Recording()) {
+        recording.enable(CropEvent.NAME).withThreshold(Duration.ZERO);
+        recording.enable(CropStageEvent.NAME).withThreshold(Duration.ZERO);
+        recording.start();
+        result = unit.crop(testImage1, 1, 1);
+        recording.stop();
+        recording.dump(file);
+      }
+
+      final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      final List<RecordedEvent> crops = events.stream()
+          .filter(e -> e.getEventType().getName().equals(CropEvent.NAME)).collect(toList());
+      final List<String> stages = events.stream()
+          .filter(e -> e.getEventType().getName().equals(CropStageEvent.NAME))
+          .map(e -> e.getString("stage")).distinct().sorted().collect(toList());
+
+      assertThat(crops.size(), is(1));
+      assertThat(crops.get(0).getInt("imageWidth"), is(testImage1.getWidth()));
+      assertThat(crops.get(0).getInt("imageHeight"), is(testImage1.getHeight()));
+      assertThat(crops.get(0).getInt("cropX"), is(result.getTopCrop().getX()));
+      assertThat(crops.get(0).getInt("cropWidth"), is(result.getTopCrop().getWidth()));
+      assertThat(crops.get(0).getInt("candidates") > 0, is(true));
+      assertThat(stages.size(), is(CropStage.values().length));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void givenNoRecording_whenCrop_thenDoNotMeasureStages() {
+    assertThat(StageRecorder.of(DefaultSmartCropperOptions.create()) == null, is(true));
+  }
+}
@@ -0,0 +1,344 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.smartcrop4j.Crop;
+import com.sigpwned.smartcrop4j.SmartCropper;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+/**
+ * Compares the crops a candidate engine picks against the crops the reference
+ * {@link DefaultSmartCropper} picks over a corpus of images and aspect ratios. The corpus is the
+ * bundled test images plus deterministic synthetic scenes. For each case, the harness measures the
+ * intersection over union of the two crops, whether the candidate's crop is among the reference's
+ * top few candidates, and the relative difference between the two engines' scores, and it times
+ * both engines. Tests assert thresholds on the resulting {@link Report}.
+ */
+public class CropQualityHarness {
+
+  /**
+   * One image and aspect ratio to crop
+   */
+  public static final class Case {
+
+    public final String name;
+    public final BufferedImage image;
+    public final int aspectWidth;
+    public final int aspectHeight;
+
+    public Case(String name, BufferedImage image, int aspectWidth, int aspectHeight) {
+      this.name = requireNonNull(name);
+      this.image = requireNonNull(image);
+      this.aspectWidth = aspectWidth;
+      this.aspectHeight = aspectHeight;
+    }
+
+    @Override
+    public String toString() {
+      return name + "@" + aspectWidth + ":" + aspectHeight;
+    }
+  }
+
+  /**
+   * The aspect ratios every corpus image is cropped to
+   */
+  private static final int[][] ASPECTS = new int[][]{{1, 1}, {16, 9}, {9, 16}, {4, 5}};
+
+  /**
+   * The number of synthetic scenes in the corpus
+   */
+  private static final int SYNTHETIC_SCENES = 6;
+
+  /**
+   * Returns the standard corpus: the bundled test images and the synthetic scenes, each at
+   * several aspect ratios
+   */
+  public static List<Case> corpus() {
+    final List<Case> result = new ArrayList<>();
+    for (String name : List.of("test1.jpg", "test2.jpg", "test3.jpg")) {
+      final BufferedImage image;
+      try {
+        image = ImageIO.read(DefaultSmartCropper.class.getResource(name));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      for (int[] aspect : ASPECTS) {
+        result.add(new Case(name, image, aspect[0], aspect[1]));
+      }
+    }
+    for (int i = 0; i < SYNTHETIC_SCENES; i++) {
+      final BufferedImage image = syntheticScene(i);
+      for (int[] aspect : ASPECTS) {
+        result.add(new Case("scene" + i, image, aspect[0], aspect[1]));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a deterministic synthetic scene. Each scene has a smooth background, some textured and
+   * saturated regions, and a few skin-colored ellipses, placed differently for each index, in a
+   * landscape, portrait, or square frame.
+   */
+  public static BufferedImage syntheticScene(int index) {
+    final Random random = new Random(31L * index + 7L);
+    final int[][] sizes = new int[][]{{640, 427}, {427, 640}, {512, 512}};
+    final int width = sizes[index % sizes.length][0];
+    final int height = sizes[index % sizes.length][1];
+
+    final BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    final Graphics2D g = result.createGraphics();
+    try {
+      g.setPaint(new GradientPaint(0, 0, Color.getHSBColor(random.nextFloat(), 0.3f, 0.9f), 0,
+          height, Color.getHSBColor(random.nextFloat(), 0.3f, 0.5f)));
+      g.fillRect(0, 0, width, height);
+
+      // A textured region, which has lots of detail
+      final int tx = random.nextInt(width / 2);
+      final int ty = random.nextInt(height / 2);
+      for (int i = 0; i < 2000; i++) {
+        final int gray = random.nextInt(256);
+        g.setColor(new Color(gray, gray, gray));
+        g.fillRect(tx + random.nextInt(width / 2), ty + random.nextInt(height / 2), 3, 3);
+      }
+
+      // Saturated patches
+      for (int i = 0; i < 3; i++) {
+        g.setColor(Color.getHSBColor(random.nextFloat(), 1.0f, 1.0f));
+        g.fillRect(random.nextInt(width * 3 / 4), random.nextInt(height * 3 / 4), width / 6,
+            height / 6);
+      }
+
+      // Faces
+      for (int i = 0; i < 1 + random.nextInt(3); i++) {
+        g.setColor(new Color(200 + random.nextInt(40), 140 + random.nextInt(40),
+            100 + random.nextInt(40)));
+        final int d = Math.min(width, height) / 5;
+        g.fillOval(random.nextInt(width - d), random.nextInt(height - d - d / 3), d, d + d / 3);
+      }
+    } finally {
+      g.dispose();
+    }
+
+    return result;
+  }
+
+  /**
+   * The measurements of one case
+   */
+  public static final class Outcome {
+
+    public final Case c;
+    public final Crop reference;
+    public final Crop candidate;
+    public final float iou;
+    public final int referenceRank;
+    public final float scoreDelta;
+
+    public Outcome(Case c, Crop reference, Crop candidate, float iou, int referenceRank,
+        float scoreDelta) {
+      this.c = c;
+      this.reference = reference;
+      this.candidate = candidate;
+      this.iou = iou;
+      this.referenceRank = referenceRank;
+      this.scoreDelta = scoreDelta;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "%-16s iou=%.3f rank=%s scoreDelta=%.4f reference=%s "
+              + "candidate=%s", c, iou, referenceRank < 0 ? "none" : referenceRank, scoreDelta,
+          bounds(reference), bounds(candidate));
+    }
+  }
+
+  /**
+   * The measurements of a candidate engine over a whole corpus
+   */
+  public static final class Report {
+
+    public final List<Outcome> outcomes;
+    public final int topK;
+    public final long referenceNanos;
+    public final long candidateNanos;
+
+    public Report(List<Outcome> outcomes, int topK, long referenceNanos, long candidateNanos) {
+      this.outcomes = Collections.unmodifiableList(outcomes);
+      this.topK = topK;
+      this.referenceNanos = referenceNanos;
+      this.candidateNanos = candidateNanos;
+    }
+
+    public double getMeanIou() {
+      return outcomes.stream().mapToDouble(o -> o.iou).average().orElse(1.0);
+    }
+
+    public double getMinIou() {
+      return outcomes.stream().mapToDouble(o -> o.iou).min().orElse(1.0);
+    }
+
+    /**
+     * The fraction of cases where the candidate picked exactly the reference's crop
+     */
+    public double getExactAgreement() {
+      return outcomes.stream().filter(o -> o.referenceRank == 0).count()
+          / (double) Math.max(1, outcomes.size());
+    }
+
+    /**
+     * The fraction of cases where the candidate's crop is among the reference's top K crops
+     */
+    public double getTopKAgreement() {
+      return outcomes.stream().filter(o -> o.referenceRank >= 0).count()
+          / (double) Math.max(1, outcomes.size());
+    }
+
+    /**
+     * The largest relative difference between the two engines' top scores
+     */
+    public double getMaxScoreDelta() {
+      return outcomes.stream().mapToDouble(o -> o.scoreDelta).max().orElse(0.0);
+    }
+
+    /**
+     * How many times faster the candidate was than the reference, in total
+     */
+    public double getSpeedup() {
+      return candidateNanos == 0L ? 1.0 : referenceNanos / (double) candidateNanos;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder result = new StringBuilder();
+      result.append(String.format(Locale.ROOT,
+          "cases=%d meanIou=%.4f minIou=%.4f exact=%.3f top%d=%.3f maxScoreDelta=%.4f "
+              + "speedup=%.2f%n", outcomes.size(), getMeanIou(), getMinIou(),
+          getExactAgreement(), topK, getTopKAgreement(), getMaxScoreDelta(), getSpeedup()));
+      outcomes.stream().sorted(Comparator.comparingDouble(o -> o.iou)).limit(5)
+          .forEach(o -> result.append("  worst: ").append(o).append(System.lineSeparator()));
+      return result.toString();
+    }
+  }
+
+  private final DefaultSmartCropper reference;
+  private final int topK;
+
+  /**
+   * @param reference the engine to compare against
+   * @param topK      how many of the reference's best crops count as agreement
+   */
+  public CropQualityHarness(DefaultSmartCropper reference, int topK) {
+    this.reference = requireNonNull(reference);
+    this.topK = topK;
+  }
+
+  /**
+   * Crops every case in the corpus with both engines, and measures how they compare. Each engine
+   * crops the whole corpus once before timing starts, to warm up.
+   */
+  public Report compare(SmartCropper candidate, List<Case> corpus) {
+    for (Case c : corpus) {
+      reference.crop(c.image, c.aspectWidth, c.aspectHeight);
+      candidate.crop(c.image, c.aspectWidth, c.aspectHeight);
+    }
+
+    final List<Outcome> outcomes = new ArrayList<>();
+    long referenceNanos = 0L;
+    long candidateNanos = 0L;
+    for (Case c : corpus) {
+      long start = System.nanoTime();
+      final Crop expected = reference.crop(c.image, c.aspectWidth, c.aspectHeight).getTopCrop();
+      referenceNanos = referenceNanos + (System.nanoTime() - start);
+
+      start = System.nanoTime();
+      final Crop observed = candidate.crop(c.image, c.aspectWidth, c.aspectHeight).getTopCrop();
+      candidateNanos = candidateNanos + (System.nanoTime() - start);
+
+      final List<ScoredCrop> ranking = reference.rankCrops(c.image, c.aspectWidth,
+          c.aspectHeight, null, topK);
+      int rank = -1;
+      for (int i = 0; i < ranking.size(); i++) {
+        if (sameBounds(ranking.get(i), observed)) {
+          rank = i;
+          break;
+        }
+      }
+
+      outcomes.add(new Outcome(c, expected, observed, iou(expected, observed), rank,
+          scoreDelta(expected, observed)));
+    }
+
+    return new Report(outcomes, topK, referenceNanos, candidateNanos);
+  }
+
+  /**
+   * Returns the intersection over union of the two crops, which is 1 for identical crops and 0 for
+   * disjoint ones
+   */
+  public static float iou(Crop a, Crop b) {
+    final long ix = Math.max(0, Math.min(a.getX() + a.getWidth(), b.getX() + b.getWidth())
+        - Math.max(a.getX(), b.getX()));
+    final long iy = Math.max(0, Math.min(a.getY() + a.getHeight(), b.getY() + b.getHeight())
+        - Math.max(a.getY(), b.getY()));
+    final long intersection = ix * iy;
+    final long union = (long) a.getWidth() * a.getHeight() + (long) b.getWidth() * b.getHeight()
+        - intersection;
+    return union == 0L ? 1.0f : intersection / (float) union;
+  }
+
+  private static float scoreDelta(Crop expected, Crop observed) {
+    if (!(expected instanceof ScoredCrop) || !(observed instanceof ScoredCrop)) {
+      return 0.0f;
+    }
+    final float e = ((ScoredCrop) expected).getScore().getTotal();
+    final float o = ((ScoredCrop) observed).getScore().getTotal();
+    return e == 0.0f ? Math.abs(o) : Math.abs(o - e) / Math.abs(e);
+  }
+
+  private static boolean sameBounds(Crop a, Crop b) {
+    return a.getX() == b.getX() && a.getY() == b.getY() && a.getWidth() == b.getWidth()
+        && a.getHeight() == b.getHeight();
+  }
+
+  private static String bounds(Crop c) {
+    return c.getX() + "," + c.getY() + "," + c.getWidth() + "x" + c.getHeight();
+  }
+}
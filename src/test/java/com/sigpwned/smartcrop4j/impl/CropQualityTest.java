@@ -0,0 +1,105 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Holds every alternative engine and performance mode to a minimum level of agreement with the
+ * reference {@link DefaultSmartCropper}. Modes that are supposed to be exact must agree on every
+ * case.
+ */
+public class CropQualityTest {
+
+  /**
+   * How many of the reference's best crops count as agreement
+   */
+  public static final int TOP_K = 5;
+
+  public static List<CropQualityHarness.Case> corpus;
+  public static CropQualityHarness harness;
+
+  @BeforeClass
+  public static void setupCropQualityTestClass() {
+    corpus = CropQualityHarness.corpus();
+    harness = new CropQualityHarness(new DefaultSmartCropper(), TOP_K);
+  }
+
+  @Test
+  public void givenFixedPointEngine_whenCompareToReference_thenNearlyAlwaysAgree() {
+    final CropQualityHarness.Report report = harness.compare(new FixedPointSmartCropper(),
+        corpus);
+    assertThat(report.toString(), report.getMeanIou(), greaterThanOrEqualTo(0.95));
+    assertThat(report.toString(), report.getMinIou(), greaterThanOrEqualTo(0.5));
+    assertThat(report.toString(), report.getTopKAgreement(), greaterThanOrEqualTo(0.95));
+    assertThat(report.toString(), report.getMaxScoreDelta(), lessThanOrEqualTo(0.05));
+  }
+
+  @Test
+  public void givenPyramidSearch_whenCompareToReference_thenNearlyAlwaysAgree() {
+    final CropQualityHarness.Report report = harness.compare(new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setSearch(CropSearch.PYRAMID).build()), corpus);
+    assertThat(report.toString(), report.getMeanIou(), greaterThanOrEqualTo(0.9));
+    assertThat(report.toString(), report.getTopKAgreement(), greaterThanOrEqualTo(0.9));
+    assertThat(report.toString(), report.getMaxScoreDelta(), lessThanOrEqualTo(0.1));
+  }
+
+  @Test
+  public void givenExactModes_whenCompareToReference_thenAlwaysAgree() {
+    for (DefaultSmartCropperOptions options : List.of(
+        DefaultSmartCropperOptions.builder().setLookupTables(true).build(),
+        DefaultSmartCropperOptions.builder().setParallelDetection(true).build(),
+        DefaultSmartCropperOptions.builder().setThreadLocalWorkspaces(true).build(),
+        DefaultSmartCropperOptions.builder().setSearch(CropSearch.BRANCH_AND_BOUND).build())) {
+      final CropQualityHarness.Report report = harness.compare(new DefaultSmartCropper(options),
+          corpus);
+      assertThat(options + "\n" + report, report.getExactAgreement(), greaterThanOrEqualTo(1.0));
+    }
+  }
+
+  @Test
+  public void givenReference_whenRankCrops_thenFirstIsTopCrop() {
+    final DefaultSmartCropper reference = new DefaultSmartCropper();
+    for (CropQualityHarness.Case c : corpus) {
+      final ScoredCrop expected = (ScoredCrop) reference.crop(c.image, c.aspectWidth,
+          c.aspectHeight).getTopCrop();
+      final List<ScoredCrop> ranking = reference.rankCrops(c.image, c.aspectWidth,
+          c.aspectHeight, null, TOP_K);
+      assertThat(c.toString(), CropQualityHarness.iou(ranking.get(0), expected),
+          greaterThanOrEqualTo(1.0f));
+      for (int i = 1; i < ranking.size(); i++) {
+        assertThat(c.toString(), ranking.get(i).getScore().getTotal(),
+            lessThanOrEqualTo(ranking.get(i - 1).getScore().getTotal()));
+      }
+    }
+  }
+}
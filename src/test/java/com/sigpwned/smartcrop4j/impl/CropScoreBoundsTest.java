@@ -0,0 +1,84 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.sigpwned.smartcrop4j.impl.util.MoreImageData;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CropScoreBoundsTest {
+
+  public static List<CropQualityHarness.Case> corpus;
+
+  @BeforeClass
+  public static void setupCropScoreBoundsTestClass() {
+    corpus = CropQualityHarness.corpus();
+  }
+
+  @Test
+  public void givenAnyOptions_whenBoundCandidates_thenBoundsAreAtLeastScores() {
+    for (DefaultSmartCropperOptions options : List.of(
+        DefaultSmartCropperOptions.builder().setPrescale(false).setDebug(true).build(),
+        DefaultSmartCropperOptions.builder().setPrescale(false).setDebug(true).setEdgeWeight(2.0f)
+            .setRuleOfThirdsWeight(0.0f).setOutsideImportance(0.5f).build(),
+        DefaultSmartCropperOptions.builder().setPrescale(false).setDebug(true).setSkinBias(-0.5f)
+            .setSaturationBias(-0.5f).build())) {
+      final DefaultSmartCropper cropper = new DefaultSmartCropper(options);
+      for (CropQualityHarness.Case c : corpus.subList(0, 4)) {
+        final CropDebug debug = cropper.crop(c.image, c.aspectWidth, c.aspectHeight).getDebug();
+        final CropScoreBounds unit = new CropScoreBounds(
+            MoreImageData.scaledDown(debug.getFeatureMap(), options.getScoreDownSample()),
+            options.getScoreDownSample(), options);
+        for (ScoredCrop crop : debug.getScoredCandidates()) {
+          assertThat(c + " " + crop, unit.upperBound(crop),
+              greaterThanOrEqualTo((double) crop.getScore().getTotal()));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void givenBranchAndBound_whenCrop_thenScoreFewerCandidatesForSameCrop() {
+    final DefaultSmartCropper reference = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setPrescale(false).build());
+    final DefaultSmartCropper unit = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setPrescale(false).setDiagnostics(true)
+            .setSearch(CropSearch.BRANCH_AND_BOUND).build());
+    for (CropQualityHarness.Case c : corpus.subList(0, 4)) {
+      final DefaultCropResult expected = reference.crop(c.image, c.aspectWidth, c.aspectHeight);
+      final DefaultCropResult observed = unit.crop(c.image, c.aspectWidth, c.aspectHeight);
+      assertThat(c.toString(), observed.getTopCrop(), is(expected.getTopCrop()));
+      assertThat(c.toString(), observed.getDiagnostics().getCount(CropStage.SCORING),
+          lessThan(observed.getDiagnostics().getCount(CropStage.CANDIDATES)));
+    }
+  }
+}
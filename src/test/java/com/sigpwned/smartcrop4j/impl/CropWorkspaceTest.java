@@ -0,0 +1,169 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assume.assumeTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CropWorkspaceTest {
+
+  public static BufferedImage testImage1;
+  public static BufferedImage testImage2;
+  public static BufferedImage testImage3;
+
+  @BeforeClass
+  public static void setupCropWorkspaceTestClass() throws IOException {
+    testImage1 = ImageIO.read(DefaultSmartCropper.class.getResource("test1.jpg"));
+    testImage2 = ImageIO.read(DefaultSmartCropper.class.getResource("test2.jpg"));
+    testImage3 = ImageIO.read(DefaultSmartCropper.class.getResource("test3.jpg"));
+  }
+
+  @Test
+  public void givenReusedWorkspace_whenCropDifferentImages_thenResultsMatchFreshWorkspaces() {
+    final DefaultSmartCropper cropper = new DefaultSmartCropper();
+    final CropWorkspace workspace = new CropWorkspace();
+
+    // Alternate sizes and aspect ratios so buffers are reused both larger and smaller than needed
+    final BufferedImage[] images = {testImage1, testImage2, testImage3, testImage1, testImage2};
+    final int[][] aspects = {{1, 1}, {16, 9}, {9, 16}, {16, 9}, {1, 1}};
+    for (int i = 0; i < images.length; i++) {
+      final BufferedImage image = images[i];
+      final int aw = aspects[i][0], ah = aspects[i][1];
+
+      final DefaultCropResult expected = cropper.crop(image, aw, ah, null, new CropWorkspace());
+      final DefaultCropResult observed = cropper.crop(image, aw, ah, null, workspace);
+
+      assertThat(observed.getTopCrop(), is(expected.getTopCrop()));
+      assertThat(pixels(observed.getDebugImage()), is(pixels(expected.getDebugImage())));
+    }
+  }
+
+  @Test
+  public void givenThreadLocalWorkspaces_whenCrop_thenResultMatchesDefault() {
+    final DefaultSmartCropper expected = new DefaultSmartCropper();
+    final DefaultSmartCropper observed = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setThreadLocalWorkspaces(true).build());
+    for (int i = 0; i < 2; i++) {
+      assertThat(observed.crop(testImage2, 1, 1).getTopCrop(),
+          is(expected.crop(testImage2, 1, 1).getTopCrop()));
+    }
+  }
+
+  @Test
+  public void givenOffHeapThreshold_whenCropWithReusedWorkspace_thenResultsMatchDefault() {
+    final DefaultSmartCropper expected = new DefaultSmartCropper();
+    final DefaultSmartCropper observed = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setOffHeapThreshold(1).build());
+    try (CropWorkspace workspace = new CropWorkspace()) {
+      for (BufferedImage image : new BufferedImage[]{testImage1, testImage2, testImage1}) {
+        final DefaultCropResult e = expected.crop(image, 16, 9);
+        final DefaultCropResult o = observed.crop(image, 16, 9, null, workspace);
+        assertThat(o.getTopCrop(), is(e.getTopCrop()));
+        assertThat(pixels(o.getDebugImage()), is(pixels(e.getDebugImage())));
+      }
+    }
+  }
+
+  @Test
+  public void givenDebugResult_whenWorkspaceReusedAndClosed_thenDebugImageStillMatches() {
+    final DefaultSmartCropper expected = new DefaultSmartCropper();
+    for (int offHeapThreshold : new int[]{0, 1}) {
+      final DefaultSmartCropper observed = new DefaultSmartCropper(
+          DefaultSmartCropperOptions.builder().setOffHeapThreshold(offHeapThreshold).build());
+      final DefaultCropResult first;
+      try (CropWorkspace workspace = new CropWorkspace()) {
+        first = observed.crop(testImage1, 1, 1, null, workspace);
+        observed.crop(testImage2, 16, 9, null, workspace);
+      }
+      assertThat(pixels(first.getDebugImage()),
+          is(pixels(expected.crop(testImage1, 1, 1).getDebugImage())));
+    }
+  }
+
+  @Test
+  public void givenWarmWorkspace_whenCrop_thenAllocatesAlmostNothing() {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) threads;
+    assumeTrue(mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled());
+
+    final DefaultSmartCropper cropper = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setDebug(false).build());
+    final CropWorkspace workspace = new CropWorkspace();
+    cropper.crop(testImage1, 1, 1, null, workspace);
+
+    final long threadId = Thread.currentThread().getId();
+    final long before = mx.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 5; i++) {
+      cropper.crop(testImage1, 1, 1, null, workspace);
+    }
+    final long after = mx.getThreadAllocatedBytes(threadId);
+
+    // A cold crop of this image allocates about 4MB. A warm one should need only a few objects.
+    assertThat((after - before) / 5, is(lessThan(64L * 1024L)));
+  }
+
+  @Test
+  public void givenDebugAndWarmWorkspace_whenCrop_thenKeepWorkspaceBuffers() {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) threads;
+    assumeTrue(mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled());
+
+    final DefaultSmartCropper cropper = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setDebug(true).build());
+    final CropWorkspace workspace = new CropWorkspace();
+    final ImageData featureMap = cropper.crop(testImage1, 1, 1, null, workspace).getDebug()
+        .getFeatureMap();
+    final long retained = workspace.getRetainedBytes();
+
+    final long threadId = Thread.currentThread().getId();
+    final long before = mx.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 5; i++) {
+      cropper.crop(testImage1, 1, 1, null, workspace);
+    }
+    final long after = mx.getThreadAllocatedBytes(threadId);
+
+    // Debug results copy the feature map, instead of taking the workspace's buffer
+    final long featureMapBytes = 4L * featureMap.data.length;
+    assertThat(workspace.getRetainedBytes(), is(retained));
+    assertThat((after - before) / 5, is(lessThan(featureMapBytes + 128L * 1024L)));
+  }
+
+  private static int[] pixels(BufferedImage image) {
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+}
@@ -28,11 +28,19 @@ package com.sigpwned.smartcrop4j.impl;
 import static java.util.Collections.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
 
+import com.sigpwned.smartcrop4j.Crop;
 import com.sigpwned.smartcrop4j.CropBoost;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.imageio.ImageIO;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -197,4 +205,180 @@ public class DefaultSmartCropperTest {
         new int[]{crop.getTopCrop().getX(), crop.getTopCrop().getY(), crop.getTopCrop().getWidth(),
             crop.getTopCrop().getHeight()}, is(new int[]{464, 0, 742, 742}));
   }
+
+  @Test
+  public void givenTestImage1_whenCropAsync_thenResultMatchesCrop() throws Exception {
+    DefaultSmartCropper unit = new DefaultSmartCropper();
+
+    DefaultCropResult crop = unit.cropAsync(testImage1, 100, 100, null).get();
+
+    assertThat(crop.getTopCrop(), is(unit.crop(testImage1, 100, 100).getTopCrop()));
+  }
+
+  @Test
+  public void givenCheckpointThatCancels_whenCrop_thenStopAtCheckpoint() {
+    DefaultSmartCropper unit = new DefaultSmartCropper();
+
+    // Count the checkpoints in a complete crop, then cancel partway through another
+    AtomicInteger total = new AtomicInteger();
+    unit.crop(testImage1, 100, 100, null, total::incrementAndGet);
+    assertThat(total.get() > 2, is(true));
+
+    AtomicInteger count = new AtomicInteger();
+    try {
+      unit.crop(testImage1, 100, 100, null, () -> {
+        if (count.incrementAndGet() == total.get() / 2) {
+          throw new CancellationException();
+        }
+      });
+      fail();
+    } catch (CancellationException e) {
+      assertThat(count.get(), is(total.get() / 2));
+    }
+  }
+
+  @Test
+  public void givenCancelledFuture_whenCropAsyncRuns_thenFutureStaysCancelled() {
+    DefaultSmartCropper unit = new DefaultSmartCropper();
+
+    List<Runnable> tasks = new ArrayList<>();
+    CompletableFuture<DefaultCropResult> future = unit.cropAsync(testImage1, 100, 100, null,
+        tasks::add);
+    future.cancel(true);
+    tasks.forEach(Runnable::run);
+
+    assertThat(future.isCancelled(), is(true));
+  }
+
+  @Test
+  public void givenBatchOfImages_whenCropAll_thenResultsMatchIndividualCrops() {
+    // Without prescaling, the candidate search is large enough to be split across workers
+    DefaultSmartCropperOptions options = DefaultSmartCropperOptions.builder().setPrescale(false)
+        .build();
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      DefaultSmartCropper unit = new DefaultSmartCropper(options, pool);
+
+      List<BufferedImage> images = List.of(testImage1, testImage2, testImage3, testImage1);
+      List<List<CropBoost>> boosts = new ArrayList<>(List.of(emptyList(), emptyList(),
+          emptyList(), singletonList(new CropBoost(0, 0, 100, 100, 1.0f))));
+      boosts.set(1, null);
+
+      List<DefaultCropResult> results = unit.cropAll(images, 1, 1, boosts);
+
+      assertThat(results.size(), is(images.size()));
+      for (int i = 0; i < images.size(); i++) {
+        assertThat(results.get(i).getTopCrop(),
+            is(unit.crop(images.get(i), 1, 1, boosts.get(i)).getTopCrop()));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenMismatchedBoosts_whenCropAll_thenThrowIllegalArgumentException() {
+    DefaultSmartCropper unit = new DefaultSmartCropper();
+    unit.cropAll(List.of(testImage1, testImage2), 1, 1, singletonList(emptyList()));
+  }
+
+  @Test
+  public void givenListener_whenCrop_thenListenerReceivesEveryStage() {
+    final List<CropStage> stages = synchronizedList(new ArrayList<>());
+    final List<CropDiagnostics> crops = synchronizedList(new ArrayList<>());
+    DefaultSmartCropper unit = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setParallelDetection(true).setListener(
+            new CropListener() {
+              @Override
+              public void stageCompleted(CropStage stage, long nanos, long count,
+                  long allocatedBytes) {
+                stages.add(stage);
+              }
+
+              @Override
+              public void cropCompleted(CropDiagnostics diagnostics) {
+                crops.add(diagnostics);
+              }
+            }).build());
+
+    DefaultCropResult result = unit.crop(testImage1, 1, 1,
+        singletonList(new CropBoost(0, 0, 10, 10, 1.0f)));
+
+    assertThat(stages, is(List.of(CropStage.values())));
+    assertThat(crops.size(), is(1));
+    assertThat(crops.get(0).getCount(CropStage.BOOST), is(1L));
+    assertThat(crops.get(0).getCount(CropStage.EDGE),
+        is(crops.get(0).getCount(CropStage.CONVERSION)));
+    assertThat(crops.get(0).getCount(CropStage.SCORING) > 0L, is(true));
+    assertThat(result.getDiagnostics() == null, is(true));
+  }
+
+  @Test
+  public void givenDiagnostics_whenCrop_thenResultHasDiagnostics() {
+    DefaultSmartCropper unit = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setDiagnostics(true).build());
+
+    DefaultCropResult result = unit.crop(testImage1, 1, 1);
+
+    assertThat(result.getDiagnostics() != null, is(true));
+    assertThat(result.getDiagnostics().getTotalNanos() > 0L, is(true));
+    assertThat(result.getDiagnostics().getCount(CropStage.PRESCALE),
+        is(result.getDiagnostics().getCount(CropStage.CONVERSION)));
+    assertThat(result.getDiagnostics().getCount(CropStage.CANDIDATES),
+        is(result.getDiagnostics().getCount(CropStage.SCORING)));
+    assertThat(result.getTopCrop(),
+        is(new DefaultSmartCropper().crop(testImage1, 1, 1).getTopCrop()));
+  }
+
+  @Test
+  public void givenDebug_whenCrop_thenRenderDebugArtifactsOnDemand() {
+    DefaultSmartCropper unit = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setDebug(true).build());
+
+    DefaultCropResult result = unit.crop(testImage1, 1, 1);
+    CropDebug debug = result.getDebug();
+
+    assertThat(debug != null, is(true));
+    assertThat(result.getDebugImage() == result.getDebugImage(), is(true));
+    assertThat(result.getDebugImage().getWidth(), is(debug.getFeatureMap().width));
+    assertThat(debug.getScoreImage().getHeight(), is(debug.getFeatureMap().height));
+    assertThat(debug.getCandidateImage().getWidth(), is(debug.getFeatureMap().width));
+    assertThat(debug.getScoredCandidates().size(), is(debug.getCandidates().size()));
+
+    ScoredCrop best = debug.getScoredCandidates().get(0);
+    for (ScoredCrop c : debug.getScoredCandidates()) {
+      if (c.getScore().getTotal() > best.getScore().getTotal()) {
+        best = c;
+      }
+    }
+    assertThat(new Crop(best.getX(), best.getY(), best.getWidth(), best.getHeight()),
+        is(new Crop(debug.getTopCrop().getX(), debug.getTopCrop().getY(),
+            debug.getTopCrop().getWidth(), debug.getTopCrop().getHeight())));
+  }
+
+  @Test
+  public void givenSizeNotMultipleOfScoreDownSample_whenCrop_thenDebugImageIsFullResolution() {
+    DefaultSmartCropper unit = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setDebug(true).setPrescale(false).build());
+    BufferedImage image = testImage1.getSubimage(0, 0, 103, 77);
+
+    BufferedImage debugImage = unit.crop(image, 1, 1).getDebugImage();
+
+    assertThat(debugImage.getWidth(), is(103));
+    assertThat(debugImage.getHeight(), is(77));
+    for (int argb : debugImage.getRGB(0, 0, 103, 77, null, 0, 103)) {
+      assertThat(argb >>> 24, is(255));
+    }
+  }
+
+  @Test
+  public void givenNoDebug_whenCrop_thenNoDebugArtifacts() {
+    DefaultSmartCropper unit = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setDebug(false).build());
+
+    DefaultCropResult result = unit.crop(testImage1, 1, 1);
+
+    assertThat(result.getDebug() == null, is(true));
+    assertThat(result.getDebugImage() == null, is(true));
+  }
 }
@@ -0,0 +1,97 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class FixedPointSmartCropperTest {
+
+  public static List<BufferedImage> testImages;
+
+  @BeforeClass
+  public static void setupFixedPointSmartCropperTestClass() throws IOException {
+    testImages = List.of(ImageIO.read(DefaultSmartCropper.class.getResource("test1.jpg")),
+        ImageIO.read(DefaultSmartCropper.class.getResource("test2.jpg")),
+        ImageIO.read(DefaultSmartCropper.class.getResource("test3.jpg")));
+  }
+
+  @Test
+  public void givenTestImagesAndDefaultConfig_whenSmartCropImage_thenReceiveSameCropAsDefault() {
+    DefaultSmartCropper reference = new DefaultSmartCropper();
+    FixedPointSmartCropper unit = new FixedPointSmartCropper();
+
+    for (BufferedImage testImage : testImages) {
+      for (int[] aspect : new int[][]{{100, 100}, {100, 50}, {50, 100}}) {
+        ScoredCrop expected = (ScoredCrop) reference.crop(testImage, aspect[0], aspect[1])
+            .getTopCrop();
+        ScoredCrop observed = (ScoredCrop) unit.crop(testImage, aspect[0], aspect[1])
+            .getTopCrop();
+
+        assertThat(observed.getX(), is(expected.getX()));
+        assertThat(observed.getY(), is(expected.getY()));
+        assertThat(observed.getWidth(), is(expected.getWidth()));
+        assertThat(observed.getHeight(), is(expected.getHeight()));
+        assertThat((double) observed.getScore().getTotal(),
+            closeTo(expected.getScore().getTotal(), 1e-3 * expected.getScore().getTotal()));
+      }
+    }
+  }
+
+  @Test
+  public void givenTestImage1AndSquareAspectRatioAndDefaultConfigAndBoosts_whenSmartCropImage_thenReceiveExpectedCrop() {
+    BufferedImage testImage1 = testImages.get(0);
+
+    FixedPointSmartCropper unit = new FixedPointSmartCropper();
+
+    DefaultCropResult crop = unit.crop(testImage1, 100, 100,
+        singletonList(new CropBoost(testImage1.getWidth() - 64, 0, 64, 64, 1.0f)));
+
+    assertThat(
+        new int[]{crop.getTopCrop().getX(), crop.getTopCrop().getY(), crop.getTopCrop().getWidth(),
+            crop.getTopCrop().getHeight()}, is(new int[]{253, 0, 381, 381}));
+  }
+
+  @Test
+  public void givenSameImage_whenSmartCropImageTwice_thenReceiveIdenticalScores() {
+    FixedPointSmartCropper unit = new FixedPointSmartCropper();
+
+    DefaultCropResult first = unit.crop(testImages.get(1), 100, 100);
+    DefaultCropResult second = unit.crop(testImages.get(1), 100, 100);
+
+    assertThat(second.getTopCrop(), is(first.getTopCrop()));
+  }
+}
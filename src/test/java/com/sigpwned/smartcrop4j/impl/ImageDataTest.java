@@ -0,0 +1,128 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.sigpwned.smartcrop4j.impl.util.EdgeDetection;
+import com.sigpwned.smartcrop4j.impl.util.MoreImageData;
+import com.sigpwned.smartcrop4j.impl.util.Saturation;
+import com.sigpwned.smartcrop4j.impl.util.SkinColoring;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ImageDataTest {
+
+  public static BufferedImage testImage1;
+
+  @BeforeClass
+  public static void setupImageDataTestClass() throws IOException {
+    testImage1 = ImageIO.read(DefaultSmartCropper.class.getResource("test1.jpg"));
+  }
+
+  @Test
+  public void givenArray_whenWrap_thenArrayIsShared() {
+    final float[] data = new float[2 * 3 * ImageData.PIXEL_STRIDE];
+    final ImageData image = ImageData.wrap(2, 3, data);
+    data[image.index(1, 2) + ImageData.GO] = 42.0f;
+    assertThat(image.data, is(sameInstance(data)));
+    assertThat(image.data[image.index(1, 2) + ImageData.GO], is(42.0f));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenShortArray_whenWrap_thenThrowIllegalArgumentException() {
+    ImageData.wrap(2, 3, new float[2 * 3 * ImageData.PIXEL_STRIDE - 1]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenRegionOutsideImage_whenView_thenThrowIllegalArgumentException() {
+    ImageData.wrap(2, 3, new float[2 * 3 * ImageData.PIXEL_STRIDE]).view(1, 1, 2, 2);
+  }
+
+  @Test
+  public void givenTestImage1View_whenDetectAndDownsample_thenResultIsIdenticalToCopiedRegion() {
+    final DefaultSmartCropperOptions options = DefaultSmartCropperOptions.create();
+    final int x = 37, y = 21, width = 200, height = 150;
+
+    final ImageData view = ImageData.fromBufferedImage(testImage1).view(x, y, width, height);
+    final ImageData copy = ImageData.fromBufferedImage(testImage1.getSubimage(x, y, width, height));
+
+    final ImageData expected = detect(options, copy, new ImageData(width, height));
+
+    // Write into a view of a larger buffer, too, so both input and output have a row stride
+    final ImageData observed = detect(options, view,
+        new ImageData(width + 10, height + 10).view(5, 5, width, height));
+
+    assertThat(observed.toBufferedImage().getRGB(0, 0, width, height, null, 0, width),
+        is(expected.toBufferedImage().getRGB(0, 0, width, height, null, 0, width)));
+    assertThat(MoreImageData.scaledDown(observed, 8).data,
+        is(MoreImageData.scaledDown(expected, 8).data));
+  }
+
+  @Test
+  public void givenDirectImages_whenDetectAndDownsample_thenResultIsIdenticalToHeap() {
+    final DefaultSmartCropperOptions options = DefaultSmartCropperOptions.create();
+    final ImageData heap = ImageData.fromBufferedImage(testImage1);
+    final int width = heap.width, height = heap.height;
+
+    try (ImageData input = ImageData.allocateDirect(width, height);
+        ImageData output = ImageData.allocateDirect(width, height)) {
+      assertThat(input.isDirect(), is(true));
+      for (int i = 0; i < width * height * ImageData.PIXEL_STRIDE; i++) {
+        input.set(i, heap.data[i]);
+      }
+
+      final ImageData expected = detect(options, heap, new ImageData(width, height));
+      final ImageData observed = detect(options, input, output);
+
+      assertThat(observed.toBufferedImage().getRGB(0, 0, width, height, null, 0, width),
+          is(expected.toBufferedImage().getRGB(0, 0, width, height, null, 0, width)));
+      assertThat(MoreImageData.scaledDown(observed, 8).data,
+          is(MoreImageData.scaledDown(expected, 8).data));
+    }
+  }
+
+  @Test
+  public void givenClosedDirectImage_whenClose_thenNothingHappens() {
+    final ImageData image = ImageData.allocateDirect(2, 3);
+    image.close();
+    image.close();
+  }
+
+  private static ImageData detect(DefaultSmartCropperOptions options, ImageData i, ImageData o) {
+    EdgeDetection.edgeDetect(i, o);
+    SkinColoring.skinDetect(i, o, options.getSkinColor(), options.getSkinThreshold(),
+        options.getSkinBrightnessMin(), options.getSkinBrightnessMax());
+    Saturation.saturationDetect(i, o, options.getSaturationThreshold(),
+        options.getSaturationBrightnessMin(), options.getSaturationBrightnessMax());
+    return o;
+  }
+}
@@ -0,0 +1,117 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.CropBoost;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SlowCropSpoolTest {
+
+  public static BufferedImage testImage1;
+
+  @BeforeClass
+  public static void setupSlowCropSpoolTestClass() throws IOException {
+    testImage1 = ImageIO.read(DefaultSmartCropper.class.getResource("test1.jpg"));
+  }
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void givenSlowCrop_whenCrop_thenCaptureCanBeReplayed() throws IOException {
+    final Path directory = temp.newFolder("spool").toPath();
+    final SlowCropSpool spool = new SlowCropSpool(directory, Duration.ZERO, 10);
+    final DefaultSmartCropperOptions options = DefaultSmartCropperOptions.builder()
+        .setLookupTables(true).setSkinWeight(2.5f).setSlowCropSpool(spool).build();
+
+    new DefaultSmartCropper(options).crop(testImage1, 1, 1,
+        singletonList(new CropBoost(100, 100, 200, 200, 1.0f)));
+
+    assertThat(spool.getCaptures().size(), is(1));
+    final SlowCropCapture capture = SlowCropCapture.read(spool.getCaptures().get(0));
+    assertThat(Math.min(capture.getImage().getWidth(), capture.getImage().getHeight()) <= 256,
+        is(true));
+    assertThat(capture.getAspectWidth(), is(1));
+    assertThat(capture.getBoosts().size(), is(1));
+    assertThat(capture.getBoosts().get(0).getWidth() < 200, is(true));
+    assertThat(capture.getOptions(),
+        is(new DefaultSmartCropperOptionsBuilder(options).setSlowCropSpool(null).build()));
+
+    final List<CropStage> stages = new ArrayList<>();
+    final DefaultCropResult replayed = capture.replay(new CropListener() {
+      @Override
+      public void stageCompleted(CropStage stage, long nanos, long count, long allocatedBytes) {
+        stages.add(stage);
+      }
+    });
+    assertThat(stages, is(List.of(CropStage.values())));
+    assertThat(replayed.getTopCrop(),
+        is(new DefaultSmartCropper(capture.getOptions()).crop(capture.getImage(), 1, 1,
+            capture.getBoosts()).getTopCrop()));
+  }
+
+  @Test
+  public void givenFullSpool_whenCrop_thenKeepNewestCaptures() throws IOException {
+    final SlowCropSpool spool = new SlowCropSpool(temp.newFolder("spool").toPath(),
+        Duration.ZERO, 2);
+    final DefaultSmartCropper unit = new DefaultSmartCropper(
+        DefaultSmartCropperOptions.builder().setSlowCropSpool(spool).build());
+
+    unit.crop(testImage1, 1, 1);
+    final Path oldest = spool.getCaptures().get(0);
+    unit.crop(testImage1, 2, 1);
+    unit.crop(testImage1, 1, 2);
+
+    assertThat(spool.getCaptures().size(), is(2));
+    assertThat(spool.getCaptures().contains(oldest), is(false));
+    assertThat(SlowCropCapture.read(spool.getCaptures().get(1)).getAspectHeight(), is(2));
+  }
+
+  @Test
+  public void givenFastCrop_whenCrop_thenCaptureNothing() throws IOException {
+    final SlowCropSpool spool = new SlowCropSpool(temp.newFolder("spool").toPath(),
+        Duration.ofHours(1L), 10);
+
+    new DefaultSmartCropper(DefaultSmartCropperOptions.builder().setSlowCropSpool(spool).build())
+        .crop(testImage1, 1, 1);
+
+    assertThat(spool.getCaptures().isEmpty(), is(true));
+  }
+}
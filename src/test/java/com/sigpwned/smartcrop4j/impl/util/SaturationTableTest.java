@@ -0,0 +1,76 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import com.sigpwned.smartcrop4j.impl.ImageData;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.Test;
+
+public class SaturationTableTest {
+
+  @Test
+  public void givenSampledColors_whenSaturationDetectWithTable_thenResultIsExact() {
+    DefaultSmartCropperOptions options = DefaultSmartCropperOptions.create();
+
+    SaturationTable table = SaturationTable.create(options.getSaturationThreshold(),
+        options.getSaturationBrightnessMin(), options.getSaturationBrightnessMax());
+
+    // Every 17th red value, which includes 0 and 255, their neighbors, and a few seeded random
+    // values. Each red value gets one pixel per green/blue combination.
+    SortedSet<Integer> reds = new TreeSet<>(List.of(1, 254));
+    for (int r = 0; r < 256; r += 17) {
+      reds.add(r);
+    }
+    Random random = new Random(26L);
+    for (int i = 0; i < 8; i++) {
+      reds.add(random.nextInt(256));
+    }
+
+    ImageData input = new ImageData(256 * 256, 1);
+    ImageData expected = new ImageData(input.width, input.height);
+    ImageData observed = new ImageData(input.width, input.height);
+    for (int r : reds) {
+      for (int gb = 0; gb < 256 * 256; gb++) {
+        input.data[gb * ImageData.PIXEL_STRIDE + ImageData.RO] = r;
+        input.data[gb * ImageData.PIXEL_STRIDE + ImageData.GO] = gb >>> 8;
+        input.data[gb * ImageData.PIXEL_STRIDE + ImageData.BO] = gb & 0xff;
+      }
+
+      Saturation.saturationDetect(input, expected, options.getSaturationThreshold(),
+          options.getSaturationBrightnessMin(), options.getSaturationBrightnessMax());
+      Saturation.saturationDetect(input, observed, table);
+
+      assertThat(observed.data, is(expected.data));
+    }
+  }
+}
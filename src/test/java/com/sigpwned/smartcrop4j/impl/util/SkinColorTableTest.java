@@ -0,0 +1,70 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import com.sigpwned.smartcrop4j.impl.ImageData;
+import org.junit.Test;
+
+public class SkinColorTableTest {
+
+  @Test
+  public void givenAllColors_whenSkinDetectWithTable_thenResultIsWithinRounding() {
+    DefaultSmartCropperOptions options = DefaultSmartCropperOptions.create();
+
+    SkinColorTable table = SkinColorTable.create(options.getSkinColor(),
+        options.getSkinThreshold(), options.getSkinBrightnessMin(),
+        options.getSkinBrightnessMax());
+
+    // One row per red value, one pixel per green/blue combination
+    ImageData input = new ImageData(256 * 256, 1);
+    ImageData expected = new ImageData(input.width, input.height);
+    ImageData observed = new ImageData(input.width, input.height);
+    float maxError = 0.0f;
+    for (int r = 0; r < 256; r++) {
+      for (int gb = 0; gb < 256 * 256; gb++) {
+        input.data[gb * ImageData.PIXEL_STRIDE + ImageData.RO] = r;
+        input.data[gb * ImageData.PIXEL_STRIDE + ImageData.GO] = gb >>> 8;
+        input.data[gb * ImageData.PIXEL_STRIDE + ImageData.BO] = gb & 0xff;
+      }
+
+      SkinColoring.skinDetect(input, expected, options.getSkinColor(),
+          options.getSkinThreshold(), options.getSkinBrightnessMin(),
+          options.getSkinBrightnessMax());
+      SkinColoring.skinDetect(input, observed, table);
+
+      for (int i = 0; i < expected.data.length; i += ImageData.PIXEL_STRIDE) {
+        maxError = Math.max(maxError, Math.abs(
+            observed.data[i + ImageData.RO] - expected.data[i + ImageData.RO]));
+      }
+    }
+
+    assertThat(maxError, lessThanOrEqualTo(0.5f));
+  }
+}
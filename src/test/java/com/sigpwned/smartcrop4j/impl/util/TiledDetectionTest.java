@@ -0,0 +1,130 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.impl.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.impl.DefaultCropResult;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import com.sigpwned.smartcrop4j.impl.ImageData;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TiledDetectionTest {
+
+  public static ImageData testImage1;
+
+  @BeforeClass
+  public static void setupTiledDetectionTestClass() throws IOException {
+    testImage1 = ImageData.fromBufferedImage(
+        ImageIO.read(DefaultSmartCropper.class.getResource("test1.jpg")));
+  }
+
+  @Test
+  public void givenTestImage1AndOddBandHeight_whenDetectInParallel_thenResultIsIdenticalToSequential() {
+    final DefaultSmartCropperOptions options = DefaultSmartCropperOptions.create();
+    final ImageData input = testImage1;
+
+    final ImageData expected = new ImageData(input.width, input.height);
+    EdgeDetection.edgeDetect(input, expected);
+    SkinColoring.skinDetect(input, expected, options.getSkinColor(), options.getSkinThreshold(),
+        options.getSkinBrightnessMin(), options.getSkinBrightnessMax());
+    Saturation.saturationDetect(input, expected, options.getSaturationThreshold(),
+        options.getSaturationBrightnessMin(), options.getSaturationBrightnessMax());
+
+    final ImageData observed = new ImageData(input.width, input.height);
+    TiledDetection.parallel(ForkJoinPool.commonPool(), input.height, 7, (y0, y1) -> {
+      EdgeDetection.edgeDetect(input, observed, y0, y1);
+      SkinColoring.skinDetect(input, observed, options.getSkinColor(), options.getSkinThreshold(),
+          options.getSkinBrightnessMin(), options.getSkinBrightnessMax(), y0, y1);
+      Saturation.saturationDetect(input, observed, options.getSaturationThreshold(),
+          options.getSaturationBrightnessMin(), options.getSaturationBrightnessMax(), y0, y1);
+    });
+
+    assertThat(observed.data, is(expected.data));
+  }
+
+  @Test
+  public void givenTestImage1AndNoPrescale_whenSmartCropWithParallelDetection_thenResultIsIdenticalToSequential() {
+    DefaultSmartCropperOptions sequential = DefaultSmartCropperOptions.builder()
+        .setPrescale(false)
+        .setDebug(false)
+        .build();
+    DefaultSmartCropperOptions parallel = sequential.toBuilder()
+        .setParallelDetection(true)
+        .setDetectionBandHeight(16)
+        .build();
+
+    BufferedImage image = testImage1.toBufferedImage();
+
+    DefaultCropResult expected = new DefaultSmartCropper(sequential).crop(image, 100, 100);
+    DefaultCropResult observed = new DefaultSmartCropper(parallel).crop(image, 100, 100);
+
+    assertThat(observed, is(expected));
+  }
+
+  @Test
+  public void givenBandCancelled_whenDetectInParallel_thenWaitForOtherBandsBeforeThrowing()
+      throws InterruptedException {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final AtomicInteger running = new AtomicInteger();
+      try {
+        TiledDetection.parallel(pool, 64, 1, (y0, y1) -> {
+          if (y0 == 0) {
+            throw new CancellationException();
+          }
+          running.incrementAndGet();
+          try {
+            Thread.sleep(10L);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            running.decrementAndGet();
+          }
+        });
+        throw new AssertionError("expected cancellation");
+      } catch (CancellationException e) {
+        // Good
+      }
+
+      // No band may still be writing once the caller sees the failure
+      assertThat(running.get(), is(0));
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(10L, TimeUnit.SECONDS);
+    }
+  }
+}
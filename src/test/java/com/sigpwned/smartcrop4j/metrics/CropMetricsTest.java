@@ -0,0 +1,132 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import javax.imageio.ImageIO;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CropMetricsTest {
+
+  public static BufferedImage testImage1;
+
+  @BeforeClass
+  public static void setupCropMetricsTestClass() throws IOException {
+    testImage1 = ImageIO.read(DefaultSmartCropper.class.getResource("test1.jpg"));
+  }
+
+  @Test
+  public void givenRegisteredMetrics_whenCrop_thenExposeCountsOverJmx() throws Exception {
+    final String name = CropMetrics.DEFAULT_NAME + ",name=givenRegisteredMetrics";
+    final CropMetrics metrics = new CropMetrics();
+    metrics.register(name);
+    try {
+      final DefaultSmartCropper unit = new DefaultSmartCropper(
+          DefaultSmartCropperOptions.builder().setListener(metrics).build());
+
+      unit.crop(testImage1, 1, 1);
+      unit.crop(testImage1, 2, 1);
+      try {
+        unit.crop(testImage1, 0, 1);
+      } catch (IllegalArgumentException e) {
+        // This is expected
+      }
+
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName objectName = new ObjectName(name);
+      assertThat(server.getAttribute(objectName, "Requests"), is(3L));
+      assertThat(server.getAttribute(objectName, "Completed"), is(2L));
+      assertThat(server.getAttribute(objectName, "Errors"), is(1L));
+      assertThat(server.getAttribute(objectName, "InFlight"), is(0L));
+      assertThat((Long) server.getAttribute(objectName, "Candidates") > 0L, is(true));
+      assertThat(((CompositeData) server.getAttribute(objectName, "CropLatency")).get("count"),
+          is(2L));
+      assertThat(((TabularData) server.getAttribute(objectName, "StageLatencies")).size(),
+          is(9));
+    } finally {
+      metrics.unregister();
+    }
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(name)),
+        is(false));
+  }
+
+  @Test
+  public void givenParallelDetection_whenCrop_thenCropLatencyIsWallClockTime() {
+    final CropMetrics metrics = new CropMetrics();
+    final DefaultSmartCropper unit = new DefaultSmartCropper(DefaultSmartCropperOptions.builder()
+        .setListener(metrics).setPrescale(false).setParallelDetection(true)
+        .setDetectionBandHeight(16).build());
+
+    final long start = System.nanoTime();
+    unit.crop(testImage1, 1, 1);
+    final long elapsed = System.nanoTime() - start;
+
+    // Stage times are summed across bands on other threads, so they can't measure latency
+    assertThat(metrics.getCropLatency().getCount(), is(1L));
+    assertThat(metrics.getCropLatency().getMaxNanos() <= elapsed, is(true));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void givenRegisteredMetrics_whenRegisterAgain_thenThrowIllegalStateException() {
+    final CropMetrics metrics = new CropMetrics();
+    metrics.register(CropMetrics.DEFAULT_NAME + ",name=givenRegisteredMetricsAgain");
+    try {
+      metrics.register(CropMetrics.DEFAULT_NAME + ",name=givenRegisteredMetricsAgain2");
+    } finally {
+      metrics.unregister();
+    }
+  }
+
+  @Test
+  public void givenDurations_whenSnapshot_thenReportBucketUpperBounds() {
+    final LatencyHistogram unit = new LatencyHistogram();
+    for (int i = 0; i < 98; i++) {
+      unit.record(1000L);
+    }
+    unit.record(1_000_000L);
+    unit.record(5_000_000L);
+
+    final LatencySnapshot snapshot = unit.snapshot();
+
+    assertThat(snapshot.getCount(), is(100L));
+    assertThat(snapshot.getP50Nanos(), is(1023L));
+    assertThat(snapshot.getP99Nanos(), is(1048575L));
+    assertThat(snapshot.getMaxNanos(), is(5_000_000L));
+    assertThat(snapshot.getMeanNanos(), is((98L * 1000L + 6_000_000L) / 100L));
+  }
+}
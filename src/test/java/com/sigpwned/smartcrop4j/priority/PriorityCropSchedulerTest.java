@@ -0,0 +1,146 @@
+/*-
+ * =================================LICENSE_START==================================
+ * smartcrop4j
+ * ====================================SECTION=====================================
+ * Copyright (C) 2024 Andy Boothe
+ * ====================================SECTION=====================================
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==================================LICENSE_END===================================
+ */
+package com.sigpwned.smartcrop4j.priority;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import com.sigpwned.smartcrop4j.impl.DefaultCropResult;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropper;
+import com.sigpwned.smartcrop4j.impl.DefaultSmartCropperOptions;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.imageio.ImageIO;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PriorityCropSchedulerTest {
+
+  public static BufferedImage testImage1;
+
+  @BeforeClass
+  public static void setupPriorityCropSchedulerTestClass() throws Exception {
+    try (InputStream in = DefaultSmartCropper.class.getResourceAsStream("test1.jpg")) {
+      testImage1 = ImageIO.read(in);
+    }
+  }
+
+  @Test
+  public void givenCropsInBothLanes_whenSubmit_thenSameAsDirectCrop() throws Exception {
+    final DefaultSmartCropper cropper = new DefaultSmartCropper();
+    final DefaultCropResult expected = cropper.crop(testImage1, 1, 1);
+    try (PriorityCropScheduler unit = new PriorityCropScheduler(cropper,
+        PriorityCropSchedulerOptions.builder().setConcurrency(1).build())) {
+      final CompletableFuture<DefaultCropResult> batch = unit.submit(CropPriority.BATCH,
+          testImage1, 1, 1, List.of());
+      final CompletableFuture<DefaultCropResult> interactive = unit.submit(
+          CropPriority.INTERACTIVE, testImage1, 1, 1, List.of());
+
+      assertThat(batch.get(60L, TimeUnit.SECONDS).getTopCrop(), is(expected.getTopCrop()));
+      assertThat(interactive.get(60L, TimeUnit.SECONDS).getTopCrop(),
+          is(expected.getTopCrop()));
+      assertThat(unit.getStatistics(CropPriority.BATCH).getFinished(), is(1L));
+      assertThat(unit.getStatistics(CropPriority.INTERACTIVE).getFinished(), is(1L));
+    }
+  }
+
+  @Test
+  public void givenBatchHoldingOnlySlot_whenSubmitInteractive_thenBatchYieldsAtCheckpoint()
+      throws Exception {
+    try (PriorityCropScheduler unit = new PriorityCropScheduler(new DefaultSmartCropper(),
+        PriorityCropSchedulerOptions.builder().setConcurrency(1).build())) {
+      final CountDownLatch batchStarted = new CountDownLatch(1);
+      final AtomicBoolean interactiveRan = new AtomicBoolean(false);
+
+      // The batch task cannot finish until the interactive task has run in its only slot
+      final CompletableFuture<Boolean> batch = unit.submit(CropPriority.BATCH, checkpoint -> {
+        batchStarted.countDown();
+        while (!interactiveRan.get()) {
+          checkpoint.check();
+          Thread.onSpinWait();
+        }
+        return true;
+      });
+      batchStarted.await();
+
+      final CompletableFuture<Boolean> interactive = unit.submit(CropPriority.INTERACTIVE,
+          checkpoint -> {
+            interactiveRan.set(true);
+            return true;
+          });
+
+      assertThat(interactive.get(60L, TimeUnit.SECONDS), is(true));
+      assertThat(batch.get(60L, TimeUnit.SECONDS), is(true));
+
+      final LaneStatistics stats = unit.getStatistics(CropPriority.BATCH);
+      assertThat(stats.getPreemptions(), greaterThanOrEqualTo(1L));
+      assertThat(stats.getQueued(), is(0L));
+      assertThat(stats.getRunning(), is(0L));
+    }
+  }
+
+  @Test
+  public void givenParallelDetection_whenSubmitInteractiveDuringBatch_thenBothFinish()
+      throws Exception {
+    final DefaultSmartCropper cropper = new DefaultSmartCropper(DefaultSmartCropperOptions
+        .builder().setPrescale(false).setParallelDetection(true).setDetectionBandHeight(16)
+        .build());
+    try (PriorityCropScheduler unit = new PriorityCropScheduler(cropper,
+        PriorityCropSchedulerOptions.builder().setConcurrency(1).build())) {
+      final CountDownLatch batchStarted = new CountDownLatch(1);
+      final AtomicBoolean interactiveDone = new AtomicBoolean(false);
+
+      // Keep cropping in the batch lane, so its band workers reach checkpoints while the
+      // interactive crop waits for the slot and then needs the same pool for its own bands
+      final CompletableFuture<Integer> batch = unit.submit(CropPriority.BATCH, checkpoint -> {
+        int crops = 0;
+        batchStarted.countDown();
+        while (!interactiveDone.get()) {
+          cropper.crop(testImage1, 1, 1, List.of(), checkpoint);
+          crops = crops + 1;
+        }
+        return crops;
+      });
+      batchStarted.await();
+
+      final CompletableFuture<DefaultCropResult> interactive = unit.submit(
+          CropPriority.INTERACTIVE, testImage1, 1, 1, List.of());
+      interactive.whenComplete((r, e) -> interactiveDone.set(true));
+
+      assertThat(interactive.get(60L, TimeUnit.SECONDS).getTopCrop(),
+          is(cropper.crop(testImage1, 1, 1).getTopCrop()));
+      assertThat(batch.get(60L, TimeUnit.SECONDS), greaterThanOrEqualTo(1));
+      assertThat(unit.getStatistics(CropPriority.BATCH).getPreemptions(),
+          greaterThanOrEqualTo(1L));
+    }
+  }
+}